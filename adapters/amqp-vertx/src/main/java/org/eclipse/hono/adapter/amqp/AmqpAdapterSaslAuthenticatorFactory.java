@@ -341,6 +341,7 @@ public class AmqpAdapterSaslAuthenticatorFactory implements ProtonSaslAuthentica
                         } else {
                             return certValidator.validate(
                                     Collections.singletonList(deviceCert),
+                                    tenant.getTenantId(),
                                     trustAnchors).map(ok -> tenant);
                         }
                     })
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2018, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -174,7 +174,8 @@ public final class VertxBasedAmqpProtocolAdapter extends AbstractProtocolAdapter
                             .start(),
                         connectionLimitManager,
                         (tenantConfig, spanContext) -> checkConnectionLimit(tenantConfig, spanContext),
-                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(), tracer),
+                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(),
+                                getPasswordVerificationExecutor(), tracer),
                         new X509AuthProvider(getCredentialsClientFactory(), getConfig(), tracer),
                         (saslResponseContext, span) -> applyTenantTraceSamplingPriority(saslResponseContext, span));
             }
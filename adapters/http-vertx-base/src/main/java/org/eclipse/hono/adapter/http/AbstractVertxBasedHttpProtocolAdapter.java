@@ -32,6 +32,8 @@ import org.eclipse.hono.client.CommandResponse;
 import org.eclipse.hono.client.DownstreamSender;
 import org.eclipse.hono.client.MessageConsumer;
 import org.eclipse.hono.client.ResourceConflictException;
+import org.eclipse.hono.client.ServerErrorException;
+import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.service.AbstractProtocolAdapterBase;
 import org.eclipse.hono.service.auth.DeviceUser;
 import org.eclipse.hono.service.http.ComponentMetaDataDecorator;
@@ -65,11 +67,15 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
+import io.vertx.proton.ProtonDelivery;
 
 /**
  * Base class for a Vert.x based Hono protocol adapter that uses the HTTP protocol.
@@ -618,6 +624,233 @@ public abstract class AbstractVertxBasedHttpProtocolAdapter<T extends HttpProtoc
                 MetricsTags.EndpointType.EVENT);
     }
 
+    /**
+     * Uploads the elements of a JSON array contained in the body of an HTTP request
+     * as individual telemetry messages to Hono.
+     * <p>
+     * This method always sends a response to the device. The status code will be set
+     * as specified in the
+     * <a href="https://www.eclipse.org/hono/docs/user-guide/http-adapter/#publish-a-batch-of-telemetry-data-authenticated-device">
+     * HTTP adapter User Guide</a>.
+     *
+     * @param ctx The context to retrieve the messages and the HTTP response from.
+     * @param tenant The tenant of the device that has produced the data.
+     * @param deviceId The id of the device that has produced the data.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     */
+    public final void uploadTelemetryMessages(final RoutingContext ctx, final String tenant, final String deviceId) {
+
+        doUploadMessages(
+                Objects.requireNonNull(ctx),
+                Objects.requireNonNull(tenant),
+                Objects.requireNonNull(deviceId),
+                getTelemetrySender(tenant),
+                MetricsTags.EndpointType.TELEMETRY);
+    }
+
+    /**
+     * Uploads the elements of a JSON array contained in the body of an HTTP request
+     * as individual event messages to Hono.
+     * <p>
+     * This method always sends a response to the device. The status code will be set
+     * as specified in the
+     * <a href="https://www.eclipse.org/hono/docs/user-guide/http-adapter/#publish-a-batch-of-events-authenticated-device">
+     * HTTP adapter User Guide</a>.
+     *
+     * @param ctx The context to retrieve the messages and the HTTP response from.
+     * @param tenant The tenant of the device that has produced the data.
+     * @param deviceId The id of the device that has produced the data.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     */
+    public final void uploadEventMessages(final RoutingContext ctx, final String tenant, final String deviceId) {
+
+        doUploadMessages(
+                Objects.requireNonNull(ctx),
+                Objects.requireNonNull(tenant),
+                Objects.requireNonNull(deviceId),
+                getEventSender(tenant),
+                MetricsTags.EndpointType.EVENT);
+    }
+
+    /**
+     * Forwards each element of the JSON array contained in the request body as a separate message.
+     * <p>
+     * The device's registration status and the tenant's configuration are checked only once for
+     * all messages. The messages are sent using the credit that the downstream sender has available
+     * at the time. Messages exceeding the available credit are not sent but rejected with status 503
+     * so that the device can re-send them in a later request.
+     */
+    private void doUploadMessages(
+            final RoutingContext ctx,
+            final String tenant,
+            final String deviceId,
+            final Future<DownstreamSender> senderTracker,
+            final MetricsTags.EndpointType endpoint) {
+
+        if (!HttpUtils.CONTENT_TYPE_JSON.equals(HttpUtils.getContentType(ctx))) {
+            HttpUtils.badRequest(ctx, String.format("content type must be [%s]", HttpUtils.CONTENT_TYPE_JSON));
+            return;
+        }
+        final JsonArray batch;
+        try {
+            batch = ctx.getBody() == null ? null : new JsonArray(ctx.getBody());
+        } catch (final DecodeException e) {
+            HttpUtils.badRequest(ctx, "request body must contain a JSON array");
+            return;
+        }
+        if (batch == null || batch.isEmpty()) {
+            HttpUtils.badRequest(ctx, "request body must contain a non-empty JSON array");
+            return;
+        }
+        final String qosHeaderValue = ctx.request().getHeader(Constants.HEADER_QOS_LEVEL);
+        final MetricsTags.QoS qos = getQoSLevel(endpoint, qosHeaderValue);
+        if (qos == MetricsTags.QoS.UNKNOWN) {
+            HttpUtils.badRequest(ctx, "unsupported QoS-Level header value");
+            return;
+        }
+
+        final List<Buffer> payloads = new ArrayList<>(batch.size());
+        long batchSize = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            final Buffer payload = Json.encodeToBuffer(batch.getValue(i));
+            payloads.add(payload);
+            batchSize += payload.length();
+        }
+
+        final Device authenticatedDevice = getAuthenticatedDevice(ctx);
+        final Span currentSpan = TracingHelper
+                .buildChildSpan(tracer, TracingHandler.serverSpanContext(ctx),
+                        "upload " + endpoint.getCanonicalName() + " batch")
+                .ignoreActiveSpan()
+                .withTag(Tags.COMPONENT.getKey(), getTypeName())
+                .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
+                .withTag(MessageHelper.APP_PROPERTY_TENANT_ID, tenant)
+                .withTag(MessageHelper.APP_PROPERTY_DEVICE_ID, deviceId)
+                .withTag(TracingHelper.TAG_AUTHENTICATED.getKey(), authenticatedDevice != null)
+                .withTag(Constants.HEADER_QOS_LEVEL, qos.asTag().getValue())
+                .start();
+
+        final Future<JsonObject> tokenTracker = getRegistrationAssertion(
+                tenant,
+                deviceId,
+                authenticatedDevice,
+                currentSpan.context());
+        final long totalPayloadSize = batchSize;
+        final Future<TenantObject> tenantTracker = getTenantConfiguration(tenant, currentSpan.context());
+        final Future<TenantObject> tenantValidationTracker = tenantTracker
+                .compose(tenantObject -> CompositeFuture
+                        .all(isAdapterEnabled(tenantObject),
+                                checkMessageLimit(tenantObject, totalPayloadSize, currentSpan.context()))
+                        .map(success -> tenantObject));
+
+        CompositeFuture.all(tenantValidationTracker, tokenTracker, senderTracker)
+        .compose(ok -> {
+
+            final DownstreamSender sender = senderTracker.result();
+            final List<Future<ProtonDelivery>> outcomes = new ArrayList<>(payloads.size());
+            for (final Buffer payload : payloads) {
+                if (sender.getCredit() <= 0) {
+                    outcomes.add(Future.failedFuture(new ServerErrorException(
+                            HttpURLConnection.HTTP_UNAVAILABLE, "no credit available")));
+                    continue;
+                }
+                final Message downstreamMessage = newMessage(
+                        ResourceIdentifier.from(endpoint.getCanonicalName(), tenant, deviceId),
+                        ctx.request().uri(),
+                        HttpUtils.CONTENT_TYPE_JSON,
+                        payload,
+                        tenantTracker.result(),
+                        tokenTracker.result(),
+                        null,
+                        EndpointType.EVENT.equals(endpoint) ? HttpUtils.getTimeToLive(ctx) : null);
+                customizeDownstreamMessage(downstreamMessage, ctx);
+
+                if (MetricsTags.QoS.AT_MOST_ONCE.equals(qos)) {
+                    outcomes.add(sender.send(downstreamMessage, currentSpan.context()));
+                } else {
+                    outcomes.add(sender.sendAndWaitForOutcome(downstreamMessage, currentSpan.context()));
+                }
+            }
+            // wait for all outcomes, regardless of whether some of them have failed
+            final Promise<List<Future<ProtonDelivery>>> result = Promise.promise();
+            CompositeFuture.join(new ArrayList<>(outcomes)).setHandler(done -> result.complete(outcomes));
+            return result.future();
+        })
+        .map(outcomes -> {
+
+            final JsonArray statusCodes = new JsonArray();
+            for (int i = 0; i < outcomes.size(); i++) {
+                final Future<ProtonDelivery> outcome = outcomes.get(i);
+                final ProcessingOutcome processingOutcome;
+                if (outcome.succeeded()) {
+                    statusCodes.add(HttpURLConnection.HTTP_ACCEPTED);
+                    processingOutcome = ProcessingOutcome.FORWARDED;
+                } else {
+                    if (outcome.cause() instanceof ServiceInvocationException) {
+                        statusCodes.add(((ServiceInvocationException) outcome.cause()).getErrorCode());
+                    } else {
+                        statusCodes.add(HttpURLConnection.HTTP_UNAVAILABLE);
+                    }
+                    processingOutcome = ClientErrorException.class.isInstance(outcome.cause())
+                            ? ProcessingOutcome.UNPROCESSABLE
+                            : ProcessingOutcome.UNDELIVERABLE;
+                    TracingHelper.logError(currentSpan, outcome.cause());
+                }
+                metrics.reportTelemetry(
+                        endpoint,
+                        tenant,
+                        tenantTracker.result(),
+                        processingOutcome,
+                        qos,
+                        payloads.get(i).length(),
+                        getTtdStatus(ctx),
+                        getMicrometerSample(ctx));
+            }
+            log.trace("processed batch of {} [{}] messages from device [tenantId: {}, deviceId: {}]",
+                    outcomes.size(), endpoint, tenant, deviceId);
+
+            if (ctx.response().closed()) {
+                log.debug("failed to send http response for [{}] messages from device [tenantId: {}, deviceId: {}]: response already closed",
+                        endpoint, tenant, deviceId);
+                TracingHelper.logError(currentSpan, "failed to send HTTP response to device: response already closed");
+                ctx.response().end(); // close the response here, ensuring that the TracingHandler bodyEndHandler gets called
+            } else {
+                ctx.response().setStatusCode(HttpURLConnection.HTTP_OK);
+                HttpUtils.setResponseBody(ctx.response(), statusCodes);
+                ctx.response().end();
+            }
+            currentSpan.finish();
+            return (Void) null;
+        })
+        .recover(t -> {
+
+            log.debug("cannot process [{}] messages from device [tenantId: {}, deviceId: {}]",
+                    endpoint, tenant, deviceId, t);
+            final ProcessingOutcome outcome;
+            if (ClientErrorException.class.isInstance(t)) {
+                outcome = ProcessingOutcome.UNPROCESSABLE;
+                ctx.fail(t);
+            } else {
+                outcome = ProcessingOutcome.UNDELIVERABLE;
+                HttpUtils.serviceUnavailable(ctx, 2, "temporarily unavailable");
+            }
+            for (final Buffer payload : payloads) {
+                metrics.reportTelemetry(
+                        endpoint,
+                        tenant,
+                        tenantTracker.result(),
+                        outcome,
+                        qos,
+                        payload.length(),
+                        getTtdStatus(ctx),
+                        getMicrometerSample(ctx));
+            }
+            TracingHelper.logError(currentSpan, t);
+            currentSpan.finish();
+            return Future.failedFuture(t);
+        });
+    }
+
     private void doUploadMessage(
             final RoutingContext ctx,
             final String tenant,
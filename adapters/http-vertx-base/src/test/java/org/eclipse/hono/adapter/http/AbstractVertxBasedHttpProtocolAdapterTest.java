@@ -715,6 +715,64 @@ public class AbstractVertxBasedHttpProtocolAdapterTest {
                 any());
     }
 
+    /**
+     * Verifies that the adapter forwards each element of a batch as a separate
+     * telemetry message and reports the status of each message in the response body.
+     */
+    @Test
+    public void testUploadTelemetryBatchReportsStatusPerMessage() {
+
+        // GIVEN an adapter with a downstream telemetry consumer attached
+        // which has granted credit for two messages only
+        final DownstreamSender sender = givenATelemetrySenderForOutcome(Future.succeededFuture(mock(ProtonDelivery.class)));
+        when(sender.getCredit()).thenReturn(2, 1, 0);
+
+        final HttpServer server = getHttpServer(false);
+        final AbstractVertxBasedHttpProtocolAdapter<HttpProtocolAdapterProperties> adapter = getAdapter(server, null);
+
+        // WHEN a device publishes a batch of three telemetry messages
+        final Buffer payload = new JsonArray()
+                .add(new JsonObject().put("temp", 5))
+                .add(new JsonObject().put("temp", 6))
+                .add(new JsonObject().put("temp", 7))
+                .toBuffer();
+        final HttpServerResponse response = mock(HttpServerResponse.class);
+        final RoutingContext ctx = newRoutingContext(payload, HttpUtils.CONTENT_TYPE_JSON, mock(HttpServerRequest.class), response);
+
+        adapter.uploadTelemetryMessages(ctx, "tenant", "device");
+
+        // THEN the first two messages are forwarded downstream
+        verify(sender, Mockito.times(2)).send(any(Message.class), (SpanContext) any());
+        // and the device receives the status of each message
+        final ArgumentCaptor<Buffer> body = ArgumentCaptor.forClass(Buffer.class);
+        verify(response).setStatusCode(HttpURLConnection.HTTP_OK);
+        verify(response).write(body.capture());
+        verify(response).end();
+        assertThat(new JsonArray(body.getValue())).containsExactly(
+                HttpURLConnection.HTTP_ACCEPTED,
+                HttpURLConnection.HTTP_ACCEPTED,
+                HttpURLConnection.HTTP_UNAVAILABLE);
+        // and each message has been reported individually
+        verify(metrics, Mockito.times(2)).reportTelemetry(
+                eq(MetricsTags.EndpointType.TELEMETRY),
+                eq("tenant"),
+                any(),
+                eq(MetricsTags.ProcessingOutcome.FORWARDED),
+                eq(MetricsTags.QoS.AT_MOST_ONCE),
+                anyInt(),
+                eq(MetricsTags.TtdStatus.NONE),
+                any());
+        verify(metrics).reportTelemetry(
+                eq(MetricsTags.EndpointType.TELEMETRY),
+                eq("tenant"),
+                any(),
+                eq(MetricsTags.ProcessingOutcome.UNDELIVERABLE),
+                eq(MetricsTags.QoS.AT_MOST_ONCE),
+                anyInt(),
+                eq(MetricsTags.TtdStatus.NONE),
+                any());
+    }
+
     /**
      * Verifies that the adapter does not include a TTD value provided by a device
      * in the downstream message if the Command consumer for the device is already
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -57,7 +57,9 @@ public final class VertxBasedHttpProtocolAdapter extends AbstractVertxBasedHttpP
     private static final String PARAM_COMMAND_REQUEST_ID = "cmd_req_id";
 
     private static final String ROUTE_TELEMETRY_ENDPOINT = "/telemetry";
+    private static final String ROUTE_TELEMETRY_BATCH_ENDPOINT = "/telemetry/batch";
     private static final String ROUTE_EVENT_ENDPOINT = "/event";
+    private static final String ROUTE_EVENT_BATCH_ENDPOINT = "/event/batch";
 
     private HonoClientBasedAuthProvider<UsernamePasswordCredentials> usernamePasswordAuthProvider;
     private HonoClientBasedAuthProvider<SubjectDnCredentials> clientCertAuthProvider;
@@ -130,7 +132,8 @@ public final class VertxBasedHttpProtocolAdapter extends AbstractVertxBasedHttpP
                             new X509AuthProvider(getCredentialsClientFactory(), getConfig(), tracer))));
             authHandler.append(new HonoBasicAuthHandler(
                     Optional.ofNullable(usernamePasswordAuthProvider).orElse(
-                            new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(), tracer)),
+                            new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(),
+                                    getPasswordVerificationExecutor(), tracer)),
                     getConfig().getRealm(), tracer));
             addTelemetryApiRoutes(router, authHandler);
             addEventApiRoutes(router, authHandler);
@@ -176,6 +179,13 @@ public final class VertxBasedHttpProtocolAdapter extends AbstractVertxBasedHttpP
             // device authentication
             router.route(HttpMethod.POST, ROUTE_TELEMETRY_ENDPOINT).handler(this::handlePostTelemetry);
 
+            // require auth for POSTing batches of telemetry data
+            router.route(HttpMethod.POST, ROUTE_TELEMETRY_BATCH_ENDPOINT).handler(authHandler);
+
+            // route for posting batches of telemetry data using tenant and device ID determined
+            // as part of device authentication
+            router.route(HttpMethod.POST, ROUTE_TELEMETRY_BATCH_ENDPOINT).handler(this::handlePostTelemetryBatch);
+
             // require auth for PUTing telemetry
             router.route(HttpMethod.PUT, "/telemetry/*").handler(authHandler);
             // assert that authenticated device's tenant matches tenant from path variables
@@ -217,6 +227,13 @@ public final class VertxBasedHttpProtocolAdapter extends AbstractVertxBasedHttpP
             // device authentication
             router.route(HttpMethod.POST, ROUTE_EVENT_ENDPOINT).handler(this::handlePostEvent);
 
+            // require auth for POSTing batches of events
+            router.route(HttpMethod.POST, ROUTE_EVENT_BATCH_ENDPOINT).handler(authHandler);
+
+            // route for posting batches of events using tenant and device ID determined
+            // as part of device authentication
+            router.route(HttpMethod.POST, ROUTE_EVENT_BATCH_ENDPOINT).handler(this::handlePostEventBatch);
+
             // require auth for PUTing events
             router.route(HttpMethod.PUT, "/event/*").handler(authHandler);
             // route for asserting that authenticated device's tenant matches tenant from path variables
@@ -317,6 +334,26 @@ public final class VertxBasedHttpProtocolAdapter extends AbstractVertxBasedHttpP
         }
     }
 
+    void handlePostTelemetryBatch(final RoutingContext ctx) {
+
+        if (Device.class.isInstance(ctx.user())) {
+            final Device device = (Device) ctx.user();
+            uploadTelemetryMessages(ctx, device.getTenantId(), device.getDeviceId());
+        } else {
+            handle401(ctx);
+        }
+    }
+
+    void handlePostEventBatch(final RoutingContext ctx) {
+
+        if (Device.class.isInstance(ctx.user())) {
+            final Device device = (Device) ctx.user();
+            uploadEventMessages(ctx, device.getTenantId(), device.getDeviceId());
+        } else {
+            handle401(ctx);
+        }
+    }
+
     void handlePostCommandResponse(final RoutingContext ctx) {
 
         if (Device.class.isInstance(ctx.user())) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2019, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -184,7 +184,8 @@ public final class LoraProtocolAdapter extends AbstractVertxBasedHttpProtocolAda
                         new X509AuthProvider(getCredentialsClientFactory(), getConfig(), tracer))));
         authHandler.append(new HonoBasicAuthHandler(
                 Optional.ofNullable(usernamePasswordAuthProvider).orElse(
-                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(), tracer)),
+                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(),
+                                getPasswordVerificationExecutor(), tracer)),
                 getConfig().getRealm(), tracer));
 
         router.route().handler(authHandler);
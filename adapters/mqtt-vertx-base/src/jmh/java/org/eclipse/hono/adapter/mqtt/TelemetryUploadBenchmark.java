@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.adapter.mqtt;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.message.Message;
+import org.eclipse.hono.client.DownstreamSender;
+import org.eclipse.hono.client.DownstreamSenderFactory;
+import org.eclipse.hono.client.RegistrationClient;
+import org.eclipse.hono.client.RegistrationClientFactory;
+import org.eclipse.hono.client.TenantClient;
+import org.eclipse.hono.client.TenantClientFactory;
+import org.eclipse.hono.service.resourcelimits.NoopResourceLimitChecks;
+import org.eclipse.hono.util.ResourceIdentifier;
+import org.eclipse.hono.util.TelemetryConstants;
+import org.eclipse.hono.util.TenantObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.opentracing.noop.NoopTracerFactory;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mqtt.MqttEndpoint;
+import io.vertx.mqtt.messages.MqttPublishMessage;
+import io.vertx.proton.ProtonDelivery;
+
+/**
+ * Measures the processing of unsampled telemetry messages published using QoS 0.
+ * <p>
+ * All services are replaced by stubs returning completed futures, so that the
+ * benchmark only covers the work done by the adapter itself. Run with the
+ * <em>gc</em> profiler in order to see the number of bytes allocated per message
+ * ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * mvn test -Pbenchmark -DskipTests -pl adapters/mqtt-vertx-base
+ * </pre>
+ * A max age of 0 does not keep any state per connection, i.e. every message is
+ * processed like before the introduction of {@link UploadTargets}. Any other value
+ * lets all messages but the first one of a device take the fast path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryUploadBenchmark {
+
+    private static final String TENANT_ID = "my-tenant";
+    private static final String DEVICE_ID = "4712";
+
+    /**
+     * The number of milliseconds that the state used for forwarding a device's telemetry
+     * message is kept for or 0 if the adapter should look it up for every message.
+     */
+    @Param({ "0", "10000" })
+    public long telemetryStateMaxAge;
+
+    private AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter;
+    private MqttPublishMessage message;
+    private MqttEndpoint endpoint;
+    private UploadTargets uploadTargets;
+    private Buffer payload;
+
+    /**
+     * Creates the adapter and its collaborators.
+     */
+    @Setup
+    public void setup() {
+
+        payload = Buffer.buffer("{\"temp\": 5}");
+        message = stub(MqttPublishMessage.class, Map.of(
+                "topicName", TelemetryConstants.TELEMETRY_ENDPOINT_SHORT + "/" + TENANT_ID + "/" + DEVICE_ID,
+                "qosLevel", MqttQoS.AT_MOST_ONCE,
+                "isRetain", Boolean.FALSE,
+                "payload", payload));
+        endpoint = stub(MqttEndpoint.class, Map.of("isConnected", Boolean.TRUE));
+        uploadTargets = telemetryStateMaxAge > 0 ? new UploadTargets(telemetryStateMaxAge) : null;
+
+        final TenantClient tenantClient = stub(TenantClient.class, Map.of(
+                "get", Future.succeededFuture(TenantObject.from(TENANT_ID, true))));
+        final RegistrationClient registrationClient = stub(RegistrationClient.class, Map.of(
+                "assertRegistration", Future.succeededFuture(new JsonObject())));
+        final DownstreamSender sender = new CompletingSender();
+
+        final MqttProtocolAdapterProperties config = new MqttProtocolAdapterProperties();
+        config.setTelemetryStateMaxAge(telemetryStateMaxAge);
+
+        adapter = new AbstractVertxBasedMqttProtocolAdapter<>() {
+
+            @Override
+            protected String getTypeName() {
+                return "mqtt";
+            }
+
+            @Override
+            protected Future<Void> onPublishedMessage(final MqttContext ctx) {
+                return uploadTelemetryMessage(ctx, ctx.topic().getTenantId(), ctx.topic().getResourceId(),
+                        ctx.message().payload());
+            }
+        };
+        adapter.setConfig(config);
+        adapter.setMetrics(MqttAdapterMetrics.NOOP);
+        adapter.setTracer(NoopTracerFactory.create());
+        adapter.setResourceLimitChecks(new NoopResourceLimitChecks());
+        adapter.setTenantClientFactory(stub(TenantClientFactory.class, Map.of(
+                "getOrCreateTenantClient", Future.succeededFuture(tenantClient))));
+        adapter.setRegistrationClientFactory(stub(RegistrationClientFactory.class, Map.of(
+                "getOrCreateRegistrationClient", Future.succeededFuture(registrationClient))));
+        adapter.setDownstreamSenderFactory(stub(DownstreamSenderFactory.class, Map.of(
+                "getOrCreateTelemetrySender", Future.succeededFuture(sender))));
+    }
+
+    /**
+     * Processes a message that a device has published.
+     *
+     * @return The outcome of forwarding the message.
+     */
+    @Benchmark
+    public Future<Void> uploadTelemetryMessage() {
+
+        final MqttContext context = MqttContext.fromPublishPacket(message, endpoint);
+        context.setTraceSamplingPriority(OptionalInt.of(0));
+        context.setUploadTargets(uploadTargets);
+        final ResourceIdentifier topic = context.topic();
+        return adapter.uploadTelemetryMessage(context, topic.getTenantId(), topic.getResourceId(), payload);
+    }
+
+    /**
+     * Creates a stub that returns fixed results for the methods of an interface.
+     * <p>
+     * Invocations of methods without parameters do not allocate any memory.
+     */
+    private static <T> T stub(final Class<T> type, final Map<String, Object> results) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    if (results.containsKey(method.getName())) {
+                        return results.get(method.getName());
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    /**
+     * A sender that successfully sends all messages immediately.
+     * <p>
+     * In contrast to a stub, invoking the sender does not allocate any memory.
+     */
+    private static final class CompletingSender implements DownstreamSender {
+
+        private final Future<ProtonDelivery> delivery = Future.succeededFuture();
+
+        @Override
+        public int getCredit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void sendQueueDrainHandler(final Handler<Void> handler) {
+            // never runs out of credit
+        }
+
+        @Override
+        public String getEndpoint() {
+            return TelemetryConstants.TELEMETRY_ENDPOINT;
+        }
+
+        @Override
+        public void close(final Handler<AsyncResult<Void>> closeHandler) {
+            // nothing to do
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public Future<ProtonDelivery> send(final Message message) {
+            return delivery;
+        }
+
+        @Override
+        public Future<ProtonDelivery> sendAndWaitForOutcome(final Message message) {
+            return delivery;
+        }
+
+        @Override
+        public Future<ProtonDelivery> send(final String deviceId, final String payload, final String contentType) {
+            return delivery;
+        }
+
+        @Override
+        public Future<ProtonDelivery> send(final String deviceId, final byte[] payload, final String contentType) {
+            return delivery;
+        }
+
+        @Override
+        public Future<ProtonDelivery> send(final String deviceId, final Map<String, ?> properties,
+                final String payload, final String contentType) {
+            return delivery;
+        }
+
+        @Override
+        public Future<ProtonDelivery> send(final String deviceId, final Map<String, ?> properties,
+                final byte[] payload, final String contentType) {
+            return delivery;
+        }
+    }
+}
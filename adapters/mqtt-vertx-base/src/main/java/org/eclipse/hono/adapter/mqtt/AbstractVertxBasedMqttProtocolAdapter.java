@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -35,6 +35,7 @@ import org.eclipse.hono.client.CommandContext;
 import org.eclipse.hono.client.CommandResponse;
 import org.eclipse.hono.client.DownstreamSender;
 import org.eclipse.hono.client.MessageConsumer;
+import org.eclipse.hono.client.ServerErrorException;
 import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.service.AbstractProtocolAdapterBase;
 import org.eclipse.hono.service.auth.DeviceUser;
@@ -57,6 +58,7 @@ import org.eclipse.hono.tracing.TracingHelper;
 import org.eclipse.hono.util.CommandConstants;
 import org.eclipse.hono.util.Constants;
 import org.eclipse.hono.util.MessageHelper;
+import org.eclipse.hono.util.RegistrationConstants;
 import org.eclipse.hono.util.ResourceIdentifier;
 import org.eclipse.hono.util.TenantObject;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -67,6 +69,7 @@ import io.netty.handler.codec.mqtt.MqttQoS;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.log.Fields;
+import io.opentracing.noop.NoopSpan;
 import io.opentracing.tag.Tags;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
@@ -74,6 +77,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mqtt.MqttConnectionException;
 import io.vertx.mqtt.MqttEndpoint;
@@ -83,6 +87,7 @@ import io.vertx.mqtt.MqttTopicSubscription;
 import io.vertx.mqtt.messages.MqttPublishMessage;
 import io.vertx.mqtt.messages.MqttSubscribeMessage;
 import io.vertx.mqtt.messages.MqttUnsubscribeMessage;
+import io.vertx.proton.ProtonDelivery;
 
 /**
  * A base class for implementing Vert.x based Hono protocol adapters for publishing events &amp; telemetry data using
@@ -197,6 +202,7 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                         new UsernamePasswordAuthProvider(
                                 getCredentialsClientFactory(),
                                 getConfig(),
+                                getPasswordVerificationExecutor(),
                                 tracer), tracer));
     }
 
@@ -799,6 +805,10 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
     }
 
     void handlePublishedMessage(final MqttContext context) {
+        handlePublishedMessage(context, null);
+    }
+
+    void handlePublishedMessage(final MqttContext context, final InFlightWindow inFlightWindow) {
         // try to extract a SpanContext from the property bag of the message's topic (if set)
         final SpanContext spanContext = Optional.ofNullable(context.propertyBag())
                 .map(propertyBag -> TracingHelper.extractSpanContext(tracer, propertyBag::getPropertiesIterator))
@@ -814,9 +824,11 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
             .start();
         context.setTimer(getMetrics().startTimer());
 
-        applyTenantTraceSamplingPriority(context, span)
-                .compose(v -> {
+        checkInFlightWindow(context, inFlightWindow)
+                .compose(ok -> applyTenantTraceSamplingPriority(context, span))
+                .compose(samplingPriority -> {
                     context.setTracingContext(span.context());
+                    context.setTraceSamplingPriority(samplingPriority);
                     return checkTopic(context);
                 })
                 .compose(ok -> onPublishedMessage(context))
@@ -842,10 +854,23 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                             context.deviceEndpoint().close();
                         }
                     }
+                    context.completeInFlight();
                     span.finish();
                 });
     }
 
+    private Future<Void> checkInFlightWindow(final MqttContext context, final InFlightWindow inFlightWindow) {
+        if (inFlightWindow == null || !context.isAtLeastOnce() || context.addTo(inFlightWindow)) {
+            return Future.succeededFuture();
+        } else {
+            // the MQTT server does not support pausing the connection, so the only way to
+            // keep the device from publishing even more messages is to disconnect it
+            return Future.failedFuture(new ServerErrorException(
+                    HttpURLConnection.HTTP_UNAVAILABLE,
+                    "too many unacknowledged messages"));
+        }
+    }
+
     private Future<Void> checkTopic(final MqttContext context) {
         if (context.topic() == null) {
             return Future.failedFuture(new ClientErrorException(HttpURLConnection.HTTP_BAD_REQUEST, "malformed topic name"));
@@ -929,12 +954,20 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                 ctx.endpoint().getCanonicalName());
         }
 
+        final UploadTargets.Target target = getUploadTarget(ctx, tenant, deviceId);
+        if (target != null && ctx.isTraceSamplingDisabled() && !ctx.isAtLeastOnce()) {
+            final UploadTargets.TelemetryState state = target.getTelemetryState();
+            if (state != null) {
+                return uploadTelemetryMessage(ctx, target, state, payload);
+            }
+        }
+
         final MetricsTags.QoS qos = MetricsTags.QoS.from(ctx.message().qosLevel().value());
         final Future<TenantObject> tenantTracker = getTenantConfiguration(tenant, ctx.getTracingContext());
 
         return tenantTracker
                 .compose(tenantObject -> uploadMessage(ctx, tenantObject, deviceId, payload, getTelemetrySender(tenant),
-                        ctx.endpoint()))
+                        ctx.endpoint(), target))
                 .compose(success -> {
                     metrics.reportTelemetry(
                             ctx.endpoint(),
@@ -958,6 +991,106 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                 });
     }
 
+    /**
+     * Forwards an unsampled telemetry message published using QoS 0 based on the state
+     * that has been used for forwarding a previous telemetry message of the device.
+     * <p>
+     * The message is neither traced nor are the tenant configuration and the device's
+     * registration assertion looked up again. As long as the message limit check and
+     * the sending of the message complete immediately, no futures or lambdas are
+     * created for processing the message.
+     */
+    private Future<Void> uploadTelemetryMessage(
+            final MqttContext ctx,
+            final UploadTargets.Target target,
+            final UploadTargets.TelemetryState state,
+            final Buffer payload) {
+
+        if (!isPayloadOfIndicatedType(payload, ctx.contentType())) {
+            return completeTelemetryUpload(ctx, target, state, payload, Future.failedFuture(
+                    new ClientErrorException(HttpURLConnection.HTTP_BAD_REQUEST,
+                            String.format("Content-Type %s does not match payload", ctx.contentType()))));
+        }
+
+        final Future<Void> limitCheck = checkMessageLimit(state.getTenant(), payload.length(), ctx.getTracingContext());
+        if (limitCheck.succeeded()) {
+            return completeTelemetryUpload(ctx, target, state, payload, sendTelemetryMessage(ctx, target, state, payload));
+        } else {
+            return completeTelemetryUpload(ctx, target, state, payload,
+                    limitCheck.compose(ok -> sendTelemetryMessage(ctx, target, state, payload)));
+        }
+    }
+
+    private Future<ProtonDelivery> sendTelemetryMessage(
+            final MqttContext ctx,
+            final UploadTargets.Target target,
+            final UploadTargets.TelemetryState state,
+            final Buffer payload) {
+
+        final Message downstreamMessage = newMessage(
+                target.getResource(EndpointType.TELEMETRY),
+                ctx.message().topicName(),
+                ctx.contentType(),
+                payload,
+                state.getTenant(),
+                state.getRegistrationAssertion(),
+                null,
+                null);
+
+        addRetainAnnotation(ctx, downstreamMessage, NoopSpan.INSTANCE);
+        customizeDownstreamMessage(downstreamMessage, ctx);
+        return state.getSender().send(downstreamMessage, ctx.getTracingContext());
+    }
+
+    private Future<Void> completeTelemetryUpload(
+            final MqttContext ctx,
+            final UploadTargets.Target target,
+            final UploadTargets.TelemetryState state,
+            final Buffer payload,
+            final Future<?> outcome) {
+
+        if (!outcome.isComplete()) {
+            final Promise<Void> result = Promise.promise();
+            outcome.setHandler(ar -> reportTelemetryUpload(ctx, target, state, payload, ar).setHandler(result));
+            return result.future();
+        }
+        return reportTelemetryUpload(ctx, target, state, payload, outcome);
+    }
+
+    private Future<Void> reportTelemetryUpload(
+            final MqttContext ctx,
+            final UploadTargets.Target target,
+            final UploadTargets.TelemetryState state,
+            final Buffer payload,
+            final AsyncResult<?> outcome) {
+
+        final ProcessingOutcome processingOutcome;
+        if (outcome.succeeded()) {
+            processingOutcome = ProcessingOutcome.FORWARDED;
+        } else {
+            // look up the state again for the next message
+            target.invalidateTelemetryState();
+            processingOutcome = ProcessingOutcome.from(outcome.cause());
+            log.debug("cannot process message [endpoint: {}] from device [tenantId: {}, deviceId: {}]",
+                    EndpointType.TELEMETRY, state.getTenant().getTenantId(),
+                    target.getResource(EndpointType.TELEMETRY).getResourceId(), outcome.cause());
+        }
+        metrics.reportTelemetry(
+                EndpointType.TELEMETRY,
+                ctx.tenant(),
+                state.getTenant(),
+                processingOutcome,
+                MetricsTags.QoS.AT_MOST_ONCE,
+                payload.length(),
+                ctx.getTimer());
+        return outcome.succeeded() ? Future.succeededFuture() : Future.failedFuture(outcome.cause());
+    }
+
+    private static UploadTargets.Target getUploadTarget(final MqttContext ctx, final String tenant,
+            final String deviceId) {
+        return ctx.getUploadTargets() == null ? null : ctx.getUploadTargets().get(tenant, deviceId);
+    }
+
     /**
      * Forwards an event to the AMQP Messaging Network.
      * 
@@ -994,7 +1127,7 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
 
         return tenantTracker
                 .compose(tenantObject -> uploadMessage(ctx, tenantObject, deviceId, payload, getEventSender(tenant),
-                        ctx.endpoint()))
+                        ctx.endpoint(), getUploadTarget(ctx, tenant, deviceId)))
                 .compose(success -> {
                     metrics.reportTelemetry(
                             ctx.endpoint(),
@@ -1103,7 +1236,7 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                             ctx.getTimer());
                     // check that the remote MQTT client is still connected before sending PUBACK
                     if (ctx.deviceEndpoint().isConnected() && ctx.message().qosLevel() == MqttQoS.AT_LEAST_ONCE) {
-                        ctx.deviceEndpoint().publishAcknowledge(ctx.message().messageId());
+                        ctx.acknowledge();
                     }
                     currentSpan.finish();
                     return Future.<Void> succeededFuture();
@@ -1128,33 +1261,47 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
             final String deviceId,
             final Buffer payload,
             final Future<DownstreamSender> senderTracker,
-            final MetricsTags.EndpointType endpoint) {
+            final MetricsTags.EndpointType endpoint,
+            final UploadTargets.Target target) {
 
         if (!isPayloadOfIndicatedType(payload, ctx.contentType())) {
             return Future.failedFuture(new ClientErrorException(HttpURLConnection.HTTP_BAD_REQUEST,
                     String.format("Content-Type %s does not match payload", ctx.contentType())));
         }
 
-        final Span currentSpan = TracingHelper.buildChildSpan(tracer, ctx.getTracingContext(), "upload " + endpoint)
-                .ignoreActiveSpan()
-                .withTag(Tags.COMPONENT.getKey(), getTypeName())
-                .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
-                .withTag(MessageHelper.APP_PROPERTY_TENANT_ID, tenantObject.getTenantId())
-                .withTag(MessageHelper.APP_PROPERTY_DEVICE_ID, deviceId)
-                .withTag(TracingHelper.TAG_AUTHENTICATED.getKey(), ctx.authenticatedDevice() != null)
-                .start();
+        final Span currentSpan;
+        final SpanContext spanContext;
+        if (ctx.isTraceSamplingDisabled()) {
+            // the span would not be reported anyway, so there is no need to create it
+            // but the (unsampled) context of the PUBLISH span is still propagated downstream
+            currentSpan = NoopSpan.INSTANCE;
+            spanContext = ctx.getTracingContext();
+        } else {
+            currentSpan = TracingHelper.buildChildSpan(tracer, ctx.getTracingContext(), "upload " + endpoint)
+                    .ignoreActiveSpan()
+                    .withTag(Tags.COMPONENT.getKey(), getTypeName())
+                    .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
+                    .withTag(MessageHelper.APP_PROPERTY_TENANT_ID, tenantObject.getTenantId())
+                    .withTag(MessageHelper.APP_PROPERTY_DEVICE_ID, deviceId)
+                    .withTag(TracingHelper.TAG_AUTHENTICATED.getKey(), ctx.authenticatedDevice() != null)
+                    .start();
+            spanContext = currentSpan.context();
+        }
 
         final Future<JsonObject> tokenTracker = getRegistrationAssertion(tenantObject.getTenantId(), deviceId,
-                ctx.authenticatedDevice(), currentSpan.context());
-        final Future<?> tenantValidationTracker = CompositeFuture.all(
-                isAdapterEnabled(tenantObject),
-                checkMessageLimit(tenantObject, payload.length(), currentSpan.context()));
+                ctx.authenticatedDevice(), spanContext);
 
-        return CompositeFuture.all(tokenTracker, tenantValidationTracker, senderTracker).compose(ok -> {
+        return CompositeFuture.all(
+                tokenTracker,
+                isAdapterEnabled(tenantObject),
+                checkMessageLimit(tenantObject, payload.length(), spanContext),
+                senderTracker).compose(ok -> {
 
             final DownstreamSender sender = senderTracker.result();
             final Message downstreamMessage = newMessage(
-                    ResourceIdentifier.from(endpoint.getCanonicalName(), tenantObject.getTenantId(), deviceId),
+                    target == null
+                        ? ResourceIdentifier.from(endpoint.getCanonicalName(), tenantObject.getTenantId(), deviceId)
+                        : target.getResource(endpoint),
                     ctx.message().topicName(),
                     ctx.contentType(),
                     payload,
@@ -1167,14 +1314,18 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
             customizeDownstreamMessage(downstreamMessage, ctx);
 
             if (ctx.isAtLeastOnce()) {
-                return sender.sendAndWaitForOutcome(downstreamMessage, currentSpan.context());
+                return sender.sendAndWaitForOutcome(downstreamMessage, spanContext);
             } else {
-                return sender.send(downstreamMessage, currentSpan.context());
+                return sender.send(downstreamMessage, spanContext);
             }
         }).compose(delivery -> {
 
             log.trace("successfully processed message [topic: {}, QoS: {}] from device [tenantId: {}, deviceId: {}]",
                     ctx.message().topicName(), ctx.message().qosLevel(), tenantObject.getTenantId(), deviceId);
+            if (target != null && endpoint == EndpointType.TELEMETRY && !isGatewaySupportedForDevice(tokenTracker.result())) {
+                // the last known gateway of the device does not need to be updated for subsequent messages
+                target.setTelemetryState(tenantObject, tokenTracker.result(), senderTracker.result());
+            }
             // check that the remote MQTT client is still connected before sending PUBACK
             if (ctx.isAtLeastOnce() && ctx.deviceEndpoint().isConnected()) {
                 currentSpan.log("sending PUBACK");
@@ -1193,12 +1344,20 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
                 log.debug("cannot process message [endpoint: {}] from device [tenantId: {}, deviceId: {}]",
                         endpoint, tenantObject.getTenantId(), deviceId, t);
             }
+            if (target != null) {
+                target.invalidateTelemetryState();
+            }
             TracingHelper.logError(currentSpan, t);
             currentSpan.finish();
             return Future.failedFuture(t);
         });
     }
 
+    private static boolean isGatewaySupportedForDevice(final JsonObject registrationAssertion) {
+        final Object viaObj = registrationAssertion.getValue(RegistrationConstants.FIELD_VIA);
+        return viaObj instanceof JsonArray && !((JsonArray) viaObj).isEmpty();
+    }
+
     /**
      * Closes a connection to a client.
      * 
@@ -1515,9 +1674,14 @@ public abstract class AbstractVertxBasedMqttProtocolAdapter<T extends MqttProtoc
     private Future<Device> registerHandlers(final MqttEndpoint endpoint, final Device authenticatedDevice,
             final OptionalInt traceSamplingPriority) {
         final CommandHandler<T> cmdHandler = new CommandHandler<>(vertx, getConfig());
+        final InFlightWindow inFlightWindow = new InFlightWindow(endpoint, getConfig().getMaxInFlightMessages());
+        final UploadTargets uploadTargets = new UploadTargets(getConfig().getTelemetryStateMaxAge());
         endpoint.closeHandler(v -> close(endpoint, authenticatedDevice, cmdHandler, traceSamplingPriority));
-        endpoint.publishHandler(
-                message -> handlePublishedMessage(MqttContext.fromPublishPacket(message, endpoint, authenticatedDevice)));
+        endpoint.publishHandler(message -> {
+            final MqttContext context = MqttContext.fromPublishPacket(message, endpoint, authenticatedDevice);
+            context.setUploadTargets(uploadTargets);
+            handlePublishedMessage(context, inFlightWindow);
+        });
         endpoint.publishAcknowledgeHandler(msgId -> cmdHandler.handlePubAck(msgId, afterCommandPublished));
         endpoint.subscribeHandler(subscribeMsg -> onSubscribe(endpoint, authenticatedDevice, subscribeMsg, cmdHandler,
                 traceSamplingPriority));
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.adapter.mqtt;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+import io.vertx.mqtt.MqttEndpoint;
+
+/**
+ * The QoS 1 messages published by a device over a connection that are being processed.
+ * <p>
+ * The window makes sure that the PUBACK packets for the messages are sent to the device in the
+ * order in which the messages have been published, as required by MQTT 3.1.1, section 4.6.
+ * It may also limit the number of messages that are being forwarded downstream concurrently.
+ * A PUBACK for a message is therefore held back until all messages published before it
+ * have been processed.
+ * <p>
+ * Instances are thread safe.
+ */
+final class InFlightWindow {
+
+    private final MqttEndpoint endpoint;
+    private final int maxSize;
+    private final Deque<InFlightMessage> messages = new ArrayDeque<>();
+
+    /**
+     * Creates a new window.
+     *
+     * @param endpoint The endpoint representing the connection to the device.
+     * @param maxSize The maximum number of messages that may be in flight at the same time
+     *                or 0 if the number of messages should not be limited.
+     * @throws NullPointerException if endpoint is {@code null}.
+     * @throws IllegalArgumentException if max size is &lt; 0.
+     */
+    InFlightWindow(final MqttEndpoint endpoint, final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("max size must not be negative");
+        }
+        this.endpoint = Objects.requireNonNull(endpoint);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds a message to this window.
+     *
+     * @param messageId The identifier of the message's PUBLISH packet.
+     * @return The message or {@code null} if the maximum number of messages
+     *         are already in flight.
+     */
+    synchronized InFlightMessage add(final int messageId) {
+        if (maxSize > 0 && messages.size() >= maxSize) {
+            return null;
+        }
+        final InFlightMessage message = new InFlightMessage(messageId);
+        messages.add(message);
+        return message;
+    }
+
+    /**
+     * Gets the number of messages in flight.
+     *
+     * @return The number of messages.
+     */
+    synchronized int size() {
+        return messages.size();
+    }
+
+    private synchronized void release() {
+        while (!messages.isEmpty() && messages.peek().processed) {
+            final InFlightMessage message = messages.poll();
+            // the device may have disconnected while the PUBACK has been held back
+            if (message.acknowledge && endpoint.isConnected()) {
+                endpoint.publishAcknowledge(message.messageId);
+            }
+        }
+    }
+
+    /**
+     * A message that is being processed.
+     */
+    final class InFlightMessage {
+
+        private final int messageId;
+        private boolean acknowledge;
+        private boolean processed;
+
+        private InFlightMessage(final int messageId) {
+            this.messageId = messageId;
+        }
+
+        /**
+         * Marks this message as processed successfully.
+         * <p>
+         * The PUBACK for the message is sent once all messages published
+         * before this message have been processed as well.
+         */
+        void acknowledge() {
+            synchronized (InFlightWindow.this) {
+                acknowledge = true;
+                processed = true;
+                release();
+            }
+        }
+
+        /**
+         * Marks this message as processed.
+         * <p>
+         * No PUBACK will be sent for the message unless {@link #acknowledge()}
+         * has been invoked before.
+         */
+        void complete() {
+            synchronized (InFlightWindow.this) {
+                processed = true;
+                release();
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -15,6 +15,7 @@ package org.eclipse.hono.adapter.mqtt;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import org.eclipse.hono.auth.Device;
 import org.eclipse.hono.service.metric.MetricsTags;
@@ -41,6 +42,9 @@ public final class MqttContext extends MapBasedExecutionContext {
     private Sample timer;
     private MetricsTags.EndpointType endpoint;
     private PropertyBag propertyBag;
+    private OptionalInt traceSamplingPriority = OptionalInt.empty();
+    private InFlightWindow.InFlightMessage inFlightMessage;
+    private UploadTargets uploadTargets;
 
     private MqttContext() {
     }
@@ -228,13 +232,68 @@ public final class MqttContext extends MapBasedExecutionContext {
 
     /**
      * Sends a PUBACK for the message to the device.
+     * <p>
+     * If the message has been added to the connection's window of in-flight
+     * messages, the PUBACK is held back until all messages published before
+     * this message have been processed.
      */
     public void acknowledge() {
-        if (message != null && deviceEndpoint != null) {
+        if (inFlightMessage != null) {
+            inFlightMessage.acknowledge();
+        } else if (message != null && deviceEndpoint != null) {
             deviceEndpoint.publishAcknowledge(message.messageId());
         }
     }
 
+    /**
+     * Adds the message to a window of in-flight messages.
+     *
+     * @param window The window to add the message to.
+     * @return {@code true} if the message has been added or {@code false}
+     *         if the maximum number of messages are already in flight.
+     * @throws NullPointerException if window is {@code null}.
+     */
+    boolean addTo(final InFlightWindow window) {
+        Objects.requireNonNull(window);
+        if (message == null) {
+            return false;
+        }
+        inFlightMessage = window.add(message.messageId());
+        return inFlightMessage != null;
+    }
+
+    /**
+     * Marks the message as processed in the window of in-flight messages
+     * that it has been added to.
+     * <p>
+     * This method does nothing if the message has not been added to a window.
+     */
+    void completeInFlight() {
+        if (inFlightMessage != null) {
+            inFlightMessage.complete();
+        }
+    }
+
+    /**
+     * Sets the downstream targets of the messages published over
+     * the connection that the message has been published on.
+     *
+     * @param uploadTargets The targets.
+     */
+    void setUploadTargets(final UploadTargets uploadTargets) {
+        this.uploadTargets = uploadTargets;
+    }
+
+    /**
+     * Gets the downstream targets of the messages published over
+     * the connection that the message has been published on.
+     *
+     * @return The targets or {@code null} if not set.
+     */
+    UploadTargets getUploadTargets() {
+        return uploadTargets;
+    }
+
     /**
      * Sets the object to use for measuring the time it takes to
      * process this request.
@@ -254,4 +313,37 @@ public final class MqttContext extends MapBasedExecutionContext {
     public Sample getTimer() {
         return timer;
     }
+
+    /**
+     * Sets the sampling priority that has been applied to the <em>OpenTracing</em>
+     * span tracking the processing of the message.
+     *
+     * @param traceSamplingPriority The sampling priority or an empty <em>OptionalInt</em>
+     *                              if no priority has been applied.
+     * @throws NullPointerException if priority is {@code null}.
+     */
+    public void setTraceSamplingPriority(final OptionalInt traceSamplingPriority) {
+        this.traceSamplingPriority = Objects.requireNonNull(traceSamplingPriority);
+    }
+
+    /**
+     * Gets the sampling priority that has been applied to the <em>OpenTracing</em>
+     * span tracking the processing of the message.
+     *
+     * @return The sampling priority or an empty <em>OptionalInt</em>
+     *         if no priority has been applied.
+     */
+    public OptionalInt getTraceSamplingPriority() {
+        return traceSamplingPriority;
+    }
+
+    /**
+     * Checks if the processing of the message will not be traced because the
+     * tenant has disabled trace sampling.
+     *
+     * @return {@code true} if a sampling priority of 0 has been applied.
+     */
+    public boolean isTraceSamplingDisabled() {
+        return traceSamplingPriority.isPresent() && traceSamplingPriority.getAsInt() == 0;
+    }
 }
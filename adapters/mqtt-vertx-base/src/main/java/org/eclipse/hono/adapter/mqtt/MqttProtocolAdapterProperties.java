@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -25,7 +25,19 @@ public class MqttProtocolAdapterProperties extends ProtocolAdapterProperties {
      * The default number of milliseconds to wait for PUBACK.
      */
     protected static final int DEFAULT_COMMAND_ACK_TIMEOUT = 100;
+    /**
+     * The default maximum number of QoS 1 messages per connection that are being processed concurrently.
+     * A value of 0 means that the number of messages is not limited.
+     */
+    protected static final int DEFAULT_MAX_IN_FLIGHT_MESSAGES = 0;
+    /**
+     * The default number of milliseconds that the state used for forwarding a device's
+     * telemetry message is kept for forwarding subsequent telemetry messages of the device.
+     */
+    protected static final long DEFAULT_TELEMETRY_STATE_MAX_AGE = 10_000L;
     private int commandAckTimeout = DEFAULT_COMMAND_ACK_TIMEOUT;
+    private int maxInFlightMessages = DEFAULT_MAX_IN_FLIGHT_MESSAGES;
+    private long telemetryStateMaxAge = DEFAULT_TELEMETRY_STATE_MAX_AGE;
 
     /**
      * Gets the waiting for acknowledgement time out in milliseconds for commands published with QoS 1.
@@ -58,4 +70,83 @@ public class MqttProtocolAdapterProperties extends ProtocolAdapterProperties {
         }
         this.commandAckTimeout = timeout;
     }
+
+    /**
+     * Gets the maximum number of messages published by a device using QoS 1 that
+     * are being processed concurrently per connection.
+     * <p>
+     * The adapter forwards up to this number of messages downstream without waiting
+     * for the outcome of the messages published before. The PUBACK packets are sent
+     * to the device in the order in which the messages have been published.
+     * The connection to a device publishing more unacknowledged messages is closed.
+     * <p>
+     * The default value is {@link #DEFAULT_MAX_IN_FLIGHT_MESSAGES}.
+     *
+     * @return The maximum number of messages or 0 if the number is not limited.
+     */
+    public final int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    /**
+     * Sets the maximum number of messages published by a device using QoS 1 that
+     * are being processed concurrently per connection.
+     * <p>
+     * The adapter forwards up to this number of messages downstream without waiting
+     * for the outcome of the messages published before. The PUBACK packets are sent
+     * to the device in the order in which the messages have been published.
+     * The connection to a device publishing more unacknowledged messages is closed.
+     * <p>
+     * The default value is {@link #DEFAULT_MAX_IN_FLIGHT_MESSAGES}.
+     *
+     * @param maxInFlightMessages The maximum number of messages or 0 if the number
+     *                            should not be limited.
+     * @throws IllegalArgumentException if the number is &lt; 0.
+     */
+    public final void setMaxInFlightMessages(final int maxInFlightMessages) {
+        if (maxInFlightMessages < 0) {
+            throw new IllegalArgumentException("max number of in-flight messages must not be negative");
+        }
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+    /**
+     * Gets the number of milliseconds that the state used for forwarding a device's
+     * telemetry message is kept per connection.
+     * <p>
+     * The state consists of the tenant configuration, the device's registration assertion
+     * and the downstream sender. While the state is kept, subsequent unsampled telemetry
+     * messages that the device publishes using QoS 0 are forwarded without looking up the
+     * state again. Changes to the tenant or device are therefore applied to these messages
+     * with a delay of up to this number of milliseconds.
+     * <p>
+     * The default value is {@link #DEFAULT_TELEMETRY_STATE_MAX_AGE}.
+     *
+     * @return The number of milliseconds or 0 if the state is not kept.
+     */
+    public final long getTelemetryStateMaxAge() {
+        return telemetryStateMaxAge;
+    }
+
+    /**
+     * Sets the number of milliseconds that the state used for forwarding a device's
+     * telemetry message is kept per connection.
+     * <p>
+     * The state consists of the tenant configuration, the device's registration assertion
+     * and the downstream sender. While the state is kept, subsequent unsampled telemetry
+     * messages that the device publishes using QoS 0 are forwarded without looking up the
+     * state again. Changes to the tenant or device are therefore applied to these messages
+     * with a delay of up to this number of milliseconds.
+     * <p>
+     * The default value is {@link #DEFAULT_TELEMETRY_STATE_MAX_AGE}.
+     *
+     * @param maxAge The number of milliseconds or 0 if the state should not be kept.
+     * @throws IllegalArgumentException if max age is &lt; 0.
+     */
+    public final void setTelemetryStateMaxAge(final long maxAge) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("max age must not be negative");
+        }
+        this.telemetryStateMaxAge = maxAge;
+    }
 }
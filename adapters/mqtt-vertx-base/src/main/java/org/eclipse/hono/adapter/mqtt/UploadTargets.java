@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.adapter.mqtt;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hono.client.DownstreamSender;
+import org.eclipse.hono.service.metric.MetricsTags.EndpointType;
+import org.eclipse.hono.util.ResourceIdentifier;
+import org.eclipse.hono.util.TenantObject;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The downstream targets of the messages published by devices over a connection.
+ * <p>
+ * The resource identifiers that the telemetry messages and events of a device are forwarded to
+ * are created once only. In addition, the tenant configuration, registration assertion and
+ * sender that have been used for forwarding a telemetry message of a device may be kept for a
+ * limited amount of time, so that subsequent telemetry messages of the device can be forwarded
+ * without looking them up again.
+ * <p>
+ * Instances are thread safe.
+ */
+final class UploadTargets {
+
+    /**
+     * The maximum number of devices that targets are kept for.
+     * <p>
+     * All targets are discarded once a connection has been used by more devices.
+     */
+    static final int MAX_DEVICES = 256;
+
+    private final Map<String, Target> targets = new HashMap<>();
+    private final long maxAgeNanos;
+
+    /**
+     * Creates new targets.
+     *
+     * @param maxAge The number of milliseconds after which the state that has been used
+     *               for forwarding a telemetry message is looked up again or 0 if the
+     *               state should not be kept at all.
+     * @throws IllegalArgumentException if max age is &lt; 0.
+     */
+    UploadTargets(final long maxAge) {
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("max age must not be negative");
+        }
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAge);
+    }
+
+    /**
+     * Gets the target of a device.
+     *
+     * @param tenantId The tenant that the device belongs to.
+     * @param deviceId The device identifier.
+     * @return The target.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    synchronized Target get(final String tenantId, final String deviceId) {
+        Objects.requireNonNull(tenantId);
+        Objects.requireNonNull(deviceId);
+
+        final Target target = targets.get(deviceId);
+        if (target != null && target.tenantId.equals(tenantId)) {
+            return target;
+        }
+        if (targets.size() >= MAX_DEVICES) {
+            targets.clear();
+        }
+        final Target newTarget = new Target(tenantId, deviceId);
+        targets.put(deviceId, newTarget);
+        return newTarget;
+    }
+
+    /**
+     * The downstream target of the messages published by a device.
+     */
+    final class Target {
+
+        private final String tenantId;
+        private final ResourceIdentifier telemetryResource;
+        private final ResourceIdentifier eventResource;
+        private volatile TelemetryState telemetryState;
+
+        private Target(final String tenantId, final String deviceId) {
+            this.tenantId = tenantId;
+            this.telemetryResource = ResourceIdentifier.from(EndpointType.TELEMETRY.getCanonicalName(), tenantId, deviceId);
+            this.eventResource = ResourceIdentifier.from(EndpointType.EVENT.getCanonicalName(), tenantId, deviceId);
+        }
+
+        /**
+         * Gets the resource that messages of the device are forwarded to.
+         *
+         * @param endpoint The endpoint that the messages are published to.
+         * @return The resource or {@code null} if the endpoint is neither
+         *         telemetry nor event.
+         */
+        ResourceIdentifier getResource(final EndpointType endpoint) {
+            switch (endpoint) {
+            case TELEMETRY:
+                return telemetryResource;
+            case EVENT:
+                return eventResource;
+            default:
+                return null;
+            }
+        }
+
+        /**
+         * Keeps the state that has been used for forwarding a telemetry message of the device.
+         * <p>
+         * This method does nothing if the state should not be kept at all.
+         *
+         * @param tenant The tenant configuration.
+         * @param registrationAssertion The device's registration assertion.
+         * @param sender The sender that has been used for forwarding the message.
+         * @throws NullPointerException if any of the parameters are {@code null}.
+         */
+        void setTelemetryState(
+                final TenantObject tenant,
+                final JsonObject registrationAssertion,
+                final DownstreamSender sender) {
+
+            Objects.requireNonNull(tenant);
+            Objects.requireNonNull(registrationAssertion);
+            Objects.requireNonNull(sender);
+
+            if (maxAgeNanos > 0) {
+                telemetryState = new TelemetryState(tenant, registrationAssertion, sender, System.nanoTime());
+            }
+        }
+
+        /**
+         * Gets the state that has been used for forwarding a telemetry message of the device.
+         *
+         * @return The state or {@code null} if no state is kept, if the state has
+         *         exceeded its max age or if the sender has been closed in the meantime.
+         */
+        TelemetryState getTelemetryState() {
+            final TelemetryState state = telemetryState;
+            if (state == null) {
+                return null;
+            } else if (System.nanoTime() - state.resolvedAt >= maxAgeNanos || !state.sender.isOpen()) {
+                telemetryState = null;
+                return null;
+            } else {
+                return state;
+            }
+        }
+
+        /**
+         * Discards the state that has been used for forwarding a telemetry message of the device.
+         */
+        void invalidateTelemetryState() {
+            telemetryState = null;
+        }
+    }
+
+    /**
+     * The state that has been used for forwarding a telemetry message of a device.
+     */
+    static final class TelemetryState {
+
+        private final TenantObject tenant;
+        private final JsonObject registrationAssertion;
+        private final DownstreamSender sender;
+        private final long resolvedAt;
+
+        private TelemetryState(
+                final TenantObject tenant,
+                final JsonObject registrationAssertion,
+                final DownstreamSender sender,
+                final long resolvedAt) {
+            this.tenant = tenant;
+            this.registrationAssertion = registrationAssertion;
+            this.sender = sender;
+            this.resolvedAt = resolvedAt;
+        }
+
+        /**
+         * Gets the configuration of the tenant that the device belongs to.
+         *
+         * @return The configuration.
+         */
+        TenantObject getTenant() {
+            return tenant;
+        }
+
+        /**
+         * Gets the device's registration assertion.
+         *
+         * @return The assertion.
+         */
+        JsonObject getRegistrationAssertion() {
+            return registrationAssertion;
+        }
+
+        /**
+         * Gets the sender for forwarding telemetry messages of the tenant.
+         *
+         * @return The sender.
+         */
+        DownstreamSender getSender() {
+            return sender;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -72,10 +73,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import io.netty.handler.codec.mqtt.MqttConnectReturnCode;
 import io.netty.handler.codec.mqtt.MqttQoS;
 import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
@@ -780,6 +783,81 @@ public class AbstractVertxBasedMqttProtocolAdapterTest {
                 any());
     }
 
+    /**
+     * Verifies that the adapter sends the PUBACK packets for QoS 1 messages in the order in which
+     * the messages have been published, even if a message is accepted downstream before a
+     * message that has been published earlier.
+     */
+    @Test
+    public void testHandlePublishedMessageSendsPubAcksInOrder() {
+
+        // GIVEN an adapter with a downstream telemetry consumer
+        final Promise<ProtonDelivery> firstOutcome = Promise.promise();
+        final Promise<ProtonDelivery> secondOutcome = Promise.promise();
+        final DownstreamSender sender = givenAQoS1TelemetrySender(firstOutcome);
+        when(sender.sendAndWaitForOutcome(any(Message.class), (SpanContext) any()))
+                .thenReturn(firstOutcome.future(), secondOutcome.future());
+        final MqttServer server = getMqttServer(false);
+        final AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter = getAdapter(server);
+        final MqttEndpoint endpoint = mockEndpoint();
+        when(endpoint.isConnected()).thenReturn(Boolean.TRUE);
+        final InFlightWindow inFlightWindow = new InFlightWindow(endpoint, 0);
+
+        // WHEN a device publishes two messages using QoS 1
+        adapter.handlePublishedMessage(newMqttContext(newQoS1TelemetryMessage(1), endpoint), inFlightWindow);
+        adapter.handlePublishedMessage(newMqttContext(newQoS1TelemetryMessage(2), endpoint), inFlightWindow);
+        // and the second message is accepted downstream first
+        secondOutcome.complete(mock(ProtonDelivery.class));
+
+        // THEN the device does not receive a PUBACK for the second message
+        verify(endpoint, never()).publishAcknowledge(anyInt());
+
+        // until the first message has been accepted as well
+        firstOutcome.complete(mock(ProtonDelivery.class));
+        final InOrder acks = inOrder(endpoint);
+        acks.verify(endpoint).publishAcknowledge(1);
+        acks.verify(endpoint).publishAcknowledge(2);
+        verify(endpoint, never()).close();
+    }
+
+    /**
+     * Verifies that the adapter closes the connection to a device that publishes more QoS 1
+     * messages than the configured maximum number of messages in flight.
+     */
+    @Test
+    public void testHandlePublishedMessageClosesConnectionForFullInFlightWindow() {
+
+        // GIVEN an adapter with a downstream telemetry consumer
+        final Promise<ProtonDelivery> outcome = Promise.promise();
+        final DownstreamSender sender = givenAQoS1TelemetrySender(outcome);
+        final MqttServer server = getMqttServer(false);
+        final AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter = getAdapter(server);
+        final MqttEndpoint endpoint = mockEndpoint();
+        when(endpoint.isConnected()).thenReturn(Boolean.TRUE);
+        // and a connection that allows for a single message in flight
+        final InFlightWindow inFlightWindow = new InFlightWindow(endpoint, 1);
+
+        // WHEN a device publishes a second QoS 1 message before the first one has been acknowledged
+        adapter.handlePublishedMessage(newMqttContext(newQoS1TelemetryMessage(1), endpoint), inFlightWindow);
+        verify(endpoint, never()).close();
+        adapter.handlePublishedMessage(newMqttContext(newQoS1TelemetryMessage(2), endpoint), inFlightWindow);
+
+        // THEN the second message is not forwarded downstream
+        verify(sender, times(1)).sendAndWaitForOutcome(any(Message.class), (SpanContext) any());
+        // and the connection to the device is closed
+        verify(endpoint).close();
+        verify(endpoint, never()).publishAcknowledge(anyInt());
+    }
+
+    private static MqttPublishMessage newQoS1TelemetryMessage(final int messageId) {
+        final MqttPublishMessage message = mock(MqttPublishMessage.class);
+        when(message.qosLevel()).thenReturn(MqttQoS.AT_LEAST_ONCE);
+        when(message.messageId()).thenReturn(messageId);
+        when(message.payload()).thenReturn(Buffer.buffer("some payload"));
+        when(message.topicName()).thenReturn("telemetry/my-tenant/4712");
+        return message;
+    }
+
     /**
      * Verifies that the adapter does not send a PUBACK package to the device if an event message has not been accepted
      * by the peer.
@@ -827,6 +905,144 @@ public class AbstractVertxBasedMqttProtocolAdapterTest {
 
     }
 
+    /**
+     * Verifies that the adapter does not create a span for uploading a telemetry message
+     * of a tenant that has disabled trace sampling but propagates the (unsampled) tracing
+     * context of the published message instead.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testUploadTelemetryMessageDoesNotCreateSpanIfSamplingIsDisabled(final VertxTestContext ctx) {
+
+        // GIVEN an adapter with a downstream telemetry consumer
+        final DownstreamSender sender = givenAQoS0TelemetrySender();
+        final MqttServer server = getMqttServer(false);
+        final AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter = getAdapter(server);
+        final Tracer tracer = mock(Tracer.class);
+        adapter.setTracer(tracer);
+
+        // WHEN a device of a tenant that has disabled trace sampling publishes a QoS 0 message
+        final MqttEndpoint endpoint = mockEndpoint();
+        when(endpoint.isConnected()).thenReturn(Boolean.TRUE);
+        final Buffer payload = Buffer.buffer("hello");
+        final MqttPublishMessage messageFromDevice = mock(MqttPublishMessage.class);
+        when(messageFromDevice.qosLevel()).thenReturn(MqttQoS.AT_MOST_ONCE);
+        when(messageFromDevice.topicName()).thenReturn("t/my-tenant/4712");
+        when(messageFromDevice.payload()).thenReturn(payload);
+        final MqttContext context = newMqttContext(messageFromDevice, endpoint);
+        context.setTraceSamplingPriority(OptionalInt.of(0));
+
+        adapter.uploadTelemetryMessage(context, "my-tenant", "4712", payload).setHandler(ctx.succeeding(ok -> {
+
+            ctx.verify(() -> {
+                // THEN no span has been created
+                verify(tracer, never()).buildSpan(anyString());
+                // and the message has been sent downstream using the published message's tracing context
+                verify(sender).send(any(Message.class), eq(context.getTracingContext()));
+            });
+            ctx.completeNow();
+        }));
+    }
+
+    /**
+     * Verifies that the adapter forwards subsequent unsampled QoS 0 telemetry messages of a device
+     * without looking up the tenant and the device's registration again.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testUploadTelemetryMessageReusesStateOfPreviousMessage(final VertxTestContext ctx) {
+
+        // GIVEN an adapter with a downstream telemetry consumer
+        final DownstreamSender sender = givenAQoS0TelemetrySender();
+        when(sender.isOpen()).thenReturn(Boolean.TRUE);
+        final MqttServer server = getMqttServer(false);
+        final AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter = getAdapter(server);
+
+        // WHEN a device of a tenant that has disabled trace sampling publishes two QoS 0 messages
+        final MqttEndpoint endpoint = mockEndpoint();
+        final UploadTargets uploadTargets = new UploadTargets(10_000L);
+        final Buffer payload = Buffer.buffer("hello");
+
+        adapter.uploadTelemetryMessage(newUnsampledQoS0TelemetryContext(endpoint, payload, uploadTargets),
+                "my-tenant", "4712", payload)
+            .compose(ok -> adapter.uploadTelemetryMessage(
+                    newUnsampledQoS0TelemetryContext(endpoint, payload, uploadTargets), "my-tenant", "4712", payload))
+            .setHandler(ctx.succeeding(ok -> {
+                ctx.verify(() -> {
+                    // THEN the tenant and the registration have been looked up for the first message only
+                    verify(tenantClient).get(eq("my-tenant"), (SpanContext) any());
+                    verify(regClient).assertRegistration(eq("4712"), (String) any(), (SpanContext) any());
+                    // and both messages have been sent downstream to the device's telemetry resource
+                    final ArgumentCaptor<Message> msgCaptor = ArgumentCaptor.forClass(Message.class);
+                    verify(sender, times(2)).send(msgCaptor.capture(), (SpanContext) any());
+                    assertThat(msgCaptor.getAllValues()).allMatch(msg -> "telemetry/my-tenant".equals(msg.getAddress())
+                            && "4712".equals(MessageHelper.getDeviceId(msg)));
+                    verify(metrics, times(2)).reportTelemetry(
+                            eq(MetricsTags.EndpointType.TELEMETRY),
+                            eq("my-tenant"),
+                            any(),
+                            eq(MetricsTags.ProcessingOutcome.FORWARDED),
+                            eq(MetricsTags.QoS.AT_MOST_ONCE),
+                            eq(payload.length()),
+                            any());
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that the adapter looks up the tenant and the device's registration again
+     * for an unsampled QoS 0 telemetry message if the sender used for forwarding the
+     * previous message of the device has been closed.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testUploadTelemetryMessageLooksUpStateAgainIfSenderHasBeenClosed(final VertxTestContext ctx) {
+
+        // GIVEN an adapter with a downstream telemetry consumer whose link has been closed
+        final DownstreamSender sender = givenAQoS0TelemetrySender();
+        when(sender.isOpen()).thenReturn(Boolean.FALSE);
+        final MqttServer server = getMqttServer(false);
+        final AbstractVertxBasedMqttProtocolAdapter<MqttProtocolAdapterProperties> adapter = getAdapter(server);
+
+        // WHEN a device of a tenant that has disabled trace sampling publishes two QoS 0 messages
+        final MqttEndpoint endpoint = mockEndpoint();
+        final UploadTargets uploadTargets = new UploadTargets(10_000L);
+        final Buffer payload = Buffer.buffer("hello");
+
+        adapter.uploadTelemetryMessage(newUnsampledQoS0TelemetryContext(endpoint, payload, uploadTargets),
+                "my-tenant", "4712", payload)
+            .compose(ok -> adapter.uploadTelemetryMessage(
+                    newUnsampledQoS0TelemetryContext(endpoint, payload, uploadTargets), "my-tenant", "4712", payload))
+            .setHandler(ctx.succeeding(ok -> {
+                ctx.verify(() -> {
+                    // THEN the tenant and the registration have been looked up for both messages
+                    verify(tenantClient, times(2)).get(eq("my-tenant"), (SpanContext) any());
+                    verify(regClient, times(2)).assertRegistration(eq("4712"), (String) any(), (SpanContext) any());
+                    verify(sender, times(2)).send(any(Message.class), (SpanContext) any());
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    private static MqttContext newUnsampledQoS0TelemetryContext(
+            final MqttEndpoint endpoint,
+            final Buffer payload,
+            final UploadTargets uploadTargets) {
+
+        final MqttPublishMessage messageFromDevice = mock(MqttPublishMessage.class);
+        when(messageFromDevice.qosLevel()).thenReturn(MqttQoS.AT_MOST_ONCE);
+        when(messageFromDevice.topicName()).thenReturn("t/my-tenant/4712");
+        when(messageFromDevice.payload()).thenReturn(payload);
+        final MqttContext context = newMqttContext(messageFromDevice, endpoint);
+        context.setTraceSamplingPriority(OptionalInt.of(0));
+        context.setUploadTargets(uploadTargets);
+        return context;
+    }
+
     /**
      * Verifies that the adapter includes a message annotation in a downstream message if the device publishes a message
      * with its <em>retain</em> flag set.
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.adapter.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import io.vertx.mqtt.MqttEndpoint;
+
+/**
+ * Verifies behavior of {@link InFlightWindow}.
+ *
+ */
+public class InFlightWindowTest {
+
+    private MqttEndpoint endpoint;
+
+    /**
+     * Sets up the fixture.
+     */
+    @BeforeEach
+    public void setUp() {
+        endpoint = mock(MqttEndpoint.class);
+        when(endpoint.isConnected()).thenReturn(Boolean.TRUE);
+    }
+
+    /**
+     * Verifies that the PUBACK for a message is held back until all messages
+     * published before it have been processed.
+     */
+    @Test
+    public void testAcknowledgementsAreReleasedInOrder() {
+
+        final InFlightWindow window = new InFlightWindow(endpoint, 10);
+        final InFlightWindow.InFlightMessage first = window.add(1);
+        final InFlightWindow.InFlightMessage second = window.add(2);
+        final InFlightWindow.InFlightMessage third = window.add(3);
+
+        // WHEN the outcome of the second and third message is known first
+        third.acknowledge();
+        second.acknowledge();
+
+        // THEN no PUBACK is sent yet
+        verify(endpoint, never()).publishAcknowledge(anyInt());
+        assertThat(window.size()).isEqualTo(3);
+
+        // until the first message has been processed as well
+        first.acknowledge();
+        final InOrder acks = inOrder(endpoint);
+        acks.verify(endpoint).publishAcknowledge(1);
+        acks.verify(endpoint).publishAcknowledge(2);
+        acks.verify(endpoint).publishAcknowledge(3);
+        assertThat(window.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verifies that a message that has been processed without being acknowledged
+     * does not hold back the PUBACKs of subsequent messages.
+     */
+    @Test
+    public void testCompletedMessageReleasesSubsequentAcknowledgements() {
+
+        final InFlightWindow window = new InFlightWindow(endpoint, 10);
+        final InFlightWindow.InFlightMessage first = window.add(1);
+        final InFlightWindow.InFlightMessage second = window.add(2);
+
+        second.acknowledge();
+        first.complete();
+
+        verify(endpoint, never()).publishAcknowledge(1);
+        verify(endpoint).publishAcknowledge(2);
+        assertThat(window.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verifies that no more messages can be added to a full window until
+     * a message has been processed.
+     */
+    @Test
+    public void testAddFailsForFullWindow() {
+
+        final InFlightWindow window = new InFlightWindow(endpoint, 2);
+        final InFlightWindow.InFlightMessage first = window.add(1);
+        assertThat(window.add(2)).isNotNull();
+        assertThat(window.add(3)).isNull();
+
+        first.acknowledge();
+        assertThat(window.add(3)).isNotNull();
+    }
+
+    /**
+     * Verifies that the number of messages is not limited for a window with
+     * a max size of 0.
+     */
+    @Test
+    public void testAddSucceedsForUnlimitedWindow() {
+
+        final InFlightWindow window = new InFlightWindow(endpoint, 0);
+        for (int i = 1; i <= 1000; i++) {
+            assertThat(window.add(i)).isNotNull();
+        }
+        assertThat(window.size()).isEqualTo(1000);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2019, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -124,7 +124,8 @@ public final class SigfoxProtocolAdapter
 
         authHandler.append(new HonoBasicAuthHandler(
                 Optional.ofNullable(this.usernamePasswordAuthProvider).orElse(
-                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(), this.tracer)),
+                        new UsernamePasswordAuthProvider(getCredentialsClientFactory(), getConfig(),
+                                getPasswordVerificationExecutor(), this.tracer)),
                 getConfig().getRealm(), this.tracer));
 
         router.route().handler(authHandler);
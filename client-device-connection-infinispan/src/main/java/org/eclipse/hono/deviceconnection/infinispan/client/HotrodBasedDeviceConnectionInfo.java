@@ -20,6 +20,7 @@ import java.util.Objects;
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.ServerErrorException;
 import org.eclipse.hono.service.HealthCheckProvider;
+import org.eclipse.hono.service.Lifecycle;
 import org.eclipse.hono.util.DeviceConnectionConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +38,7 @@ import io.vertx.ext.healthchecks.Status;
  * Hotrod protocol.
  *
  */
-public final class HotrodBasedDeviceConnectionInfo implements DeviceConnectionInfo, HealthCheckProvider {
+public final class HotrodBasedDeviceConnectionInfo implements DeviceConnectionInfo, HealthCheckProvider, Lifecycle {
 
     private static final Logger LOG = LoggerFactory.getLogger(HotrodBasedDeviceConnectionInfo.class);
 
@@ -52,6 +53,32 @@ public final class HotrodBasedDeviceConnectionInfo implements DeviceConnectionIn
         this.cache = Objects.requireNonNull(cache);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Starts the remote cache if it has a life cycle.
+     */
+    @Override
+    public Future<Void> start() {
+        if (cache instanceof Lifecycle) {
+            return ((Lifecycle) cache).start();
+        }
+        return Future.succeededFuture();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops the remote cache if it has a life cycle.
+     */
+    @Override
+    public Future<Void> stop() {
+        if (cache instanceof Lifecycle) {
+            return ((Lifecycle) cache).stop();
+        }
+        return Future.succeededFuture();
+    }
+
     private static String getKey(final String tenantId, final String deviceId) {
         return String.format("%s@@%s", tenantId, deviceId);
     }
@@ -17,8 +17,12 @@ package org.eclipse.hono.deviceconnection.infinispan.client;
 import java.net.HttpURLConnection;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import org.eclipse.hono.client.ConnectionLifecycle;
 import org.eclipse.hono.client.DisconnectListener;
@@ -30,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
@@ -38,6 +43,13 @@ import io.vertx.core.json.JsonObject;
 
 /**
  * A remote cache that connects to a data grid using the Hotrod protocol.
+ * <p>
+ * By default, the operations on the remote cache are executed using the cache's
+ * blocking API on a vert.x worker thread. If configured to use asynchronous operations,
+ * the cache's {@code CompletableFuture} based API is used instead and the outcome
+ * of the operations is handed over to the vert.x context that the operation has
+ * been invoked on. This avoids occupying a worker thread for the duration of each
+ * request to the data grid.
  *
  * @param <K> The type of keys used by the cache.
  * @param <V> The type of values stored in the cache.
@@ -52,10 +64,13 @@ public final class HotrodCache<K, V> implements RemoteCache<K, V>, ConnectionLif
     private final String cacheName;
     private final K connectionCheckKey;
     private final V connectionCheckValue;
+    private final boolean useAsyncOperations;
 
     private BasicCache<K, V> cache;
 
     /**
+     * Creates a cache which uses the blocking API for accessing the data grid.
+     *
      * @param vertx The vert.x instance to run on.
      * @param cacheManager The connection to the remote cache.
      * @param name The name of the (remote) cache.
@@ -70,11 +85,36 @@ public final class HotrodCache<K, V> implements RemoteCache<K, V>, ConnectionLif
             final String name,
             final K connectionCheckKey,
             final V connectionCheckValue) {
+        this(vertx, cacheManager, name, connectionCheckKey, connectionCheckValue, false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param vertx The vert.x instance to run on.
+     * @param cacheManager The connection to the remote cache.
+     * @param name The name of the (remote) cache.
+     * @param connectionCheckKey The key to use for checking the connection
+     *                           to the data grid.
+     * @param connectionCheckValue The value to use for checking the connection
+     *                           to the data grid.
+     * @param useAsyncOperations {@code true} if the cache's asynchronous API should be used
+     *                           for getting and putting values instead of executing the
+     *                           blocking API on a worker thread.
+     */
+    public HotrodCache(
+            final Vertx vertx,
+            final RemoteCacheContainer cacheManager,
+            final String name,
+            final K connectionCheckKey,
+            final V connectionCheckValue,
+            final boolean useAsyncOperations) {
         this.vertx = Objects.requireNonNull(vertx);
         this.cacheManager = Objects.requireNonNull(cacheManager);
         this.cacheName = Objects.requireNonNull(name);
         this.connectionCheckKey = Objects.requireNonNull(connectionCheckKey);
         this.connectionCheckValue = Objects.requireNonNull(connectionCheckValue);
+        this.useAsyncOperations = useAsyncOperations;
     }
 
     public BasicCache<K, V> getCache() {
@@ -159,22 +199,25 @@ public final class HotrodCache<K, V> implements RemoteCache<K, V>, ConnectionLif
     @Override
     public Future<V> put(final K key, final V value) {
 
-        final Promise<V> result = Promise.promise();
-        if (cache == null) {
-            result.fail(new ServerErrorException(HttpURLConnection.HTTP_UNAVAILABLE, "no connection to data grid"));
-        } else {
-            vertx.executeBlocking(outcome -> {
-                try {
-                    final V replacedValue = cache.put(key, value);
-                    outcome.complete(replacedValue);
-                } catch (final Throwable e) {
-                    outcome.fail(e);
-                }
-            }, (AsyncResult<V> outcome) -> {
-                result.handle(outcome);
-            });
-        }
-        return result.future();
+        return withCache(c -> c.put(key, value), c -> c.putAsync(key, value));
+    }
+
+    /**
+     * Puts several values to the cache in a single operation.
+     *
+     * @param data The key-value pairs to store.
+     * @return A succeeded future if all values have been stored in the cache.
+     *         A failed future if the values could not be stored in the cache.
+     */
+    @Override
+    public Future<Void> putAll(final Map<? extends K, ? extends V> data) {
+
+        return withCache(
+                c -> {
+                    c.putAll(data);
+                    return null;
+                },
+                c -> c.putAllAsync(data));
     }
 
     /**
@@ -188,24 +231,65 @@ public final class HotrodCache<K, V> implements RemoteCache<K, V>, ConnectionLif
     @Override
     public Future<V> get(final K key) {
 
-        final Promise<V> result = Promise.promise();
-        if (cache == null) {
-            result.fail(new ServerErrorException(HttpURLConnection.HTTP_UNAVAILABLE, "no connection to data grid"));
+        return withCache(c -> c.get(key), c -> c.getAsync(key));
+    }
+
+    private <T> Future<T> withCache(
+            final Function<BasicCache<K, V>, T> blockingOperation,
+            final Function<BasicCache<K, V>, CompletableFuture<T>> asyncOperation) {
+
+        final BasicCache<K, V> currentCache = cache;
+        if (currentCache == null) {
+            return Future.failedFuture(new ServerErrorException(HttpURLConnection.HTTP_UNAVAILABLE, "no connection to data grid"));
+        } else if (useAsyncOperations) {
+            return executeAsync(currentCache, asyncOperation);
         } else {
-            vertx.executeBlocking(outcome -> {
-                try {
-                    final V value = cache.get(key);
-                    outcome.complete(value);
-                } catch (final Throwable e) {
-                    outcome.fail(e);
-                }
-            }, (AsyncResult<V> outcome) -> {
-                result.handle(outcome);
-            });
+            return executeBlocking(currentCache, blockingOperation);
         }
+    }
+
+    private <T> Future<T> executeBlocking(
+            final BasicCache<K, V> currentCache,
+            final Function<BasicCache<K, V>, T> operation) {
+
+        final Promise<T> result = Promise.promise();
+        vertx.executeBlocking(outcome -> {
+            try {
+                outcome.complete(operation.apply(currentCache));
+            } catch (final Throwable e) {
+                outcome.fail(e);
+            }
+        }, (AsyncResult<T> outcome) -> {
+            result.handle(outcome);
+        });
         return result.future();
     }
 
+    private <T> Future<T> executeAsync(
+            final BasicCache<K, V> currentCache,
+            final Function<BasicCache<K, V>, CompletableFuture<T>> operation) {
+
+        final Promise<T> result = Promise.promise();
+        // the CompletableFuture is completed on one of the Hotrod client's threads
+        // so we need to hand over the outcome to the caller's context
+        final Context context = vertx.getOrCreateContext();
+        try {
+            operation.apply(currentCache).whenComplete((value, error) -> {
+                context.runOnContext(go -> {
+                    if (error == null) {
+                        result.complete(value);
+                    } else if (error instanceof CompletionException && error.getCause() != null) {
+                        result.fail(error.getCause());
+                    } else {
+                        result.fail(error);
+                    }
+                });
+            });
+        } catch (final Throwable e) {
+            result.fail(e);
+        }
+        return result.future();
+    }
 
     private Future<Void> connectToGrid() {
 
@@ -71,7 +71,8 @@ public class HotrodCacheConfig {
                 remoteCacheManager(),
                 DeviceConnectionConstants.CACHE_NAME,
                 "KEY_CHECK_CONNECTION",
-                "VALUE_CHECK_CONNECTION");
+                "VALUE_CHECK_CONNECTION",
+                remoteCacheProperties().isUseAsyncOperations());
     }
 
     /**
@@ -30,6 +30,11 @@ public class InfinispanRemoteConfigurationProperties extends ConfigurationProper
 
     private static final Logger LOG = LoggerFactory.getLogger(InfinispanRemoteConfigurationProperties.class);
 
+    private boolean useAsyncOperations = false;
+    private long writeBehindInterval = 0;
+    private long writeBehindMaxWrittenValues = 100_000;
+    private long writeBehindWrittenValueTimeout = 60_000;
+
     /**
      * Gets a builder for this configuration.
      * 
@@ -75,4 +80,130 @@ public class InfinispanRemoteConfigurationProperties extends ConfigurationProper
            getProperties().setProperty(key, v);
        });
     }
+
+    /**
+     * Checks whether the asynchronous API of the remote cache should be used
+     * for accessing the data grid.
+     * <p>
+     * The default value of this property is {@code false}.
+     *
+     * @return {@code true} if the asynchronous API should be used or {@code false}
+     *         if the blocking API should be invoked on a vert.x worker thread.
+     */
+    public final boolean isUseAsyncOperations() {
+        return useAsyncOperations;
+    }
+
+    /**
+     * Sets whether the asynchronous API of the remote cache should be used
+     * for accessing the data grid.
+     * <p>
+     * Using the asynchronous API avoids occupying one of vert.x's worker threads
+     * for each request sent to the data grid.
+     * <p>
+     * The default value of this property is {@code false}.
+     *
+     * @param flag {@code true} if the asynchronous API should be used or {@code false}
+     *             if the blocking API should be invoked on a vert.x worker thread.
+     */
+    public final void setUseAsyncOperations(final boolean flag) {
+        this.useAsyncOperations = flag;
+    }
+
+    /**
+     * Gets the interval at which values put to the cache are written to the data grid.
+     * <p>
+     * The default value of this property is 0, meaning that values are written
+     * to the data grid immediately.
+     *
+     * @return The interval in milliseconds.
+     */
+    public final long getWriteBehindInterval() {
+        return writeBehindInterval;
+    }
+
+    /**
+     * Sets the interval at which values put to the cache are written to the data grid.
+     * <p>
+     * If set to a positive value, values put to the cache are buffered locally and are
+     * written to the data grid in a single operation at the given interval. Multiple
+     * values being put for the same key within an interval result in a single write only.
+     * <p>
+     * The default value of this property is 0, meaning that values are written
+     * to the data grid immediately.
+     *
+     * @param interval The interval in milliseconds.
+     * @throws IllegalArgumentException if the interval is negative.
+     */
+    public final void setWriteBehindInterval(final long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative");
+        }
+        this.writeBehindInterval = interval;
+    }
+
+    /**
+     * Gets the maximum number of values written to the data grid that are remembered
+     * for discarding redundant writes.
+     * <p>
+     * The default value of this property is 100000.
+     *
+     * @return The number of values.
+     */
+    public final long getWriteBehindMaxWrittenValues() {
+        return writeBehindMaxWrittenValues;
+    }
+
+    /**
+     * Sets the maximum number of values written to the data grid that are remembered
+     * for discarding redundant writes.
+     * <p>
+     * This property is only used if the write behind interval is set to a positive value.
+     * <p>
+     * The default value of this property is 100000.
+     *
+     * @param maxValues The number of values.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public final void setWriteBehindMaxWrittenValues(final long maxValues) {
+        if (maxValues < 0) {
+            throw new IllegalArgumentException("max values must not be negative");
+        }
+        this.writeBehindMaxWrittenValues = maxValues;
+    }
+
+    /**
+     * Gets the period of time after which a value written to the data grid is no
+     * longer considered to be current.
+     * <p>
+     * The default value of this property is 60000.
+     *
+     * @return The period of time in milliseconds.
+     */
+    public final long getWriteBehindWrittenValueTimeout() {
+        return writeBehindWrittenValueTimeout;
+    }
+
+    /**
+     * Sets the period of time after which a value written to the data grid is no
+     * longer considered to be current.
+     * <p>
+     * Putting a value that is equal to a value that has been written to the data grid
+     * within this period of time does not result in another write. The period of time
+     * should therefore be chosen short enough for the case that the value in the
+     * data grid has been changed by another client in the meantime.
+     * <p>
+     * This property is only used if the write behind interval is set to a positive value.
+     * <p>
+     * The default value of this property is 60000.
+     *
+     * @param timeout The period of time in milliseconds.
+     * @throws IllegalArgumentException if the timeout is negative.
+     */
+    public final void setWriteBehindWrittenValueTimeout(final long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        this.writeBehindWrittenValueTimeout = timeout;
+    }
 }
@@ -13,6 +13,8 @@
 
 package org.eclipse.hono.deviceconnection.infinispan.client;
 
+import java.util.Map;
+
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 
@@ -38,11 +40,21 @@ public interface RemoteCache<K, V> {
      * @param key The key.
      * @param value The value.
      * @return A succeeded future containing the previous value or {@code null} if the
-     *         cache didn't contain the key yet.
+     *         cache didn't contain the key yet. Implementations that buffer writes may
+     *         return the value that has been put most recently by this client instead.
      *         A failed future if the value could not be stored in the cache.
      */
     Future<V> put(K key, V value);
 
+    /**
+     * Puts several values to the cache in a single operation.
+     *
+     * @param data The key-value pairs to store.
+     * @return A succeeded future if all values have been stored in the cache.
+     *         A failed future if the values could not be stored in the cache.
+     */
+    Future<Void> putAll(Map<? extends K, ? extends V> data);
+
     /**
      * Gets a value from the cache.
      * 
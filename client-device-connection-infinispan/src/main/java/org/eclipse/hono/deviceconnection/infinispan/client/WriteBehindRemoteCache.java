@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceconnection.infinispan.client;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.hono.service.Lifecycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A remote cache that buffers values being put to the cache and periodically
+ * writes them to the data grid in a single operation.
+ * <p>
+ * Values put to this cache are not written to the data grid immediately. Instead,
+ * they are kept in a local buffer that is flushed to the underlying cache using
+ * {@link RemoteCache#putAll(Map)} at a fixed interval. Multiple values put for the
+ * same key within the same interval are thereby coalesced into a single write.
+ * Values that equal the value that has most recently been written to the data grid
+ * for a key by this cache are discarded altogether.
+ * <p>
+ * Values that have been put but not yet written to the data grid are returned by
+ * {@link #get(Object)}, so that a client always reads its own writes. Note, however,
+ * that such values are not visible to other clients of the data grid before the
+ * buffer has been flushed.
+ * <p>
+ * The buffer is flushed periodically after {@link #start()} has been invoked.
+ * {@link #stop()} writes all values that are still buffered to the data grid.
+ *
+ * @param <K> The type of keys used by the cache.
+ * @param <V> The type of values stored in the cache.
+ */
+public final class WriteBehindRemoteCache<K, V> implements RemoteCache<K, V>, Lifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindRemoteCache.class);
+
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+    private final Map<K, V> pendingWrites = new ConcurrentHashMap<>();
+    private final RemoteCache<K, V> cache;
+    private final Cache<K, V> writtenValues;
+    private final Vertx vertx;
+    private final long flushInterval;
+
+    private volatile Map<K, V> inFlightWrites = Collections.emptyMap();
+    private volatile Future<Void> currentFlush = Future.succeededFuture();
+    private long timerId = -1;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param cache The cache to write the buffered values to.
+     * @param vertx The vert.x instance to use for scheduling the flushing of the buffer.
+     * @param flushInterval The interval at which the buffered values are written to the data grid.
+     * @param maxWrittenValues The maximum number of values written to the data grid that
+     *                         are remembered for discarding redundant writes.
+     * @param writtenValueTimeout The period of time after which a value written to the data grid is
+     *                            no longer considered to be current. This limits the period of time
+     *                            during which a value that has been changed in the data grid by
+     *                            another client will not be overwritten with a value that has
+     *                            been written before by this cache.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     * @throws IllegalArgumentException if the flush interval is shorter than one millisecond or if
+     *                                  max written values or the timeout are negative.
+     */
+    public WriteBehindRemoteCache(
+            final RemoteCache<K, V> cache,
+            final Vertx vertx,
+            final Duration flushInterval,
+            final long maxWrittenValues,
+            final Duration writtenValueTimeout) {
+
+        this.cache = Objects.requireNonNull(cache);
+        this.vertx = Objects.requireNonNull(vertx);
+        Objects.requireNonNull(flushInterval);
+        Objects.requireNonNull(writtenValueTimeout);
+        if (flushInterval.toMillis() < 1) {
+            throw new IllegalArgumentException("flush interval must be at least 1ms");
+        }
+        if (maxWrittenValues < 0 || writtenValueTimeout.isNegative()) {
+            throw new IllegalArgumentException("max written values and timeout must not be negative");
+        }
+        this.writtenValues = Caffeine.newBuilder()
+                .maximumSize(maxWrittenValues)
+                .expireAfterWrite(writtenValueTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.flushInterval = flushInterval.toMillis();
+    }
+
+    /**
+     * Starts flushing the buffer periodically.
+     *
+     * @return A succeeded future.
+     */
+    @Override
+    public Future<Void> start() {
+        if (timerId == -1) {
+            timerId = vertx.setPeriodic(flushInterval, tid -> flush());
+        }
+        return Future.succeededFuture();
+    }
+
+    /**
+     * Stops flushing the buffer periodically and writes all values that are
+     * still buffered to the data grid.
+     * <p>
+     * If a flush is in progress, the remaining values are written after that
+     * flush has completed.
+     *
+     * @return A future indicating the outcome of writing the remaining values.
+     */
+    @Override
+    public Future<Void> stop() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+        return currentFlush
+                .recover(t -> Future.succeededFuture())
+                .compose(ok -> flush());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<JsonObject> checkForCacheAvailability() {
+        return cache.checkForCacheAvailability();
+    }
+
+    /**
+     * Puts a value to the local buffer.
+     * <p>
+     * The value is discarded if it is equal to the value that has been put most recently
+     * for the key.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return A succeeded future containing the value that has been put most recently for
+     *         the key by this cache or {@code null} if no such value is known.
+     *         Note that this value may differ from the value that is replaced in the
+     *         data grid once the buffer is flushed.
+     * @throws NullPointerException if key or value are {@code null}.
+     */
+    @Override
+    public Future<V> put(final K key, final V value) {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        final V knownValue = getLocalValue(key);
+        if (value.equals(knownValue)) {
+            LOG.trace("discarding redundant write of current value for key [{}]", key);
+        } else {
+            pendingWrites.put(key, value);
+        }
+        return Future.succeededFuture(knownValue);
+    }
+
+    /**
+     * Puts several values to the local buffer.
+     *
+     * @param data The key-value pairs to store.
+     * @return A succeeded future.
+     * @throws NullPointerException if data is {@code null} or contains {@code null} keys or values.
+     */
+    @Override
+    public Future<Void> putAll(final Map<? extends K, ? extends V> data) {
+
+        Objects.requireNonNull(data);
+        data.forEach(this::put);
+        return Future.succeededFuture();
+    }
+
+    /**
+     * Gets a value from the cache.
+     * <p>
+     * Values that have been put but not yet been written to the data grid are returned
+     * without accessing the data grid.
+     *
+     * @param key The key.
+     * @return A succeeded future containing the value or {@code null} if the
+     *         cache didn't contain the key yet.
+     *         A failed future if the value could not be read from the cache.
+     * @throws NullPointerException if key is {@code null}.
+     */
+    @Override
+    public Future<V> get(final K key) {
+
+        Objects.requireNonNull(key);
+
+        final V localValue = getUnwrittenValue(key);
+        if (localValue != null) {
+            return Future.succeededFuture(localValue);
+        }
+        return cache.get(key);
+    }
+
+    /**
+     * Writes all buffered values to the data grid.
+     * <p>
+     * This method is invoked periodically once this cache has been started. The values are written only, if no
+     * other flush is currently in progress. Values that could not be written
+     * will be written again during the next flush unless a newer value has
+     * been put for the same key in the meantime.
+     *
+     * @return A future indicating the outcome of the operation.
+     */
+    public Future<Void> flush() {
+
+        if (pendingWrites.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return Future.succeededFuture();
+        }
+
+        final Map<K, V> batch = new HashMap<>(pendingWrites);
+        // make values visible to readers before removing them from the pending writes
+        inFlightWrites = batch;
+        // values that have been replaced in the meantime remain pending
+        batch.forEach(pendingWrites::remove);
+        LOG.debug("writing {} buffered values to data grid", batch.size());
+
+        final Promise<Void> result = Promise.promise();
+        // separate promise for stop() so that the result can be used by the caller
+        final Promise<Void> completion = Promise.promise();
+        currentFlush = completion.future();
+        cache.putAll(batch).setHandler(write -> {
+            if (write.succeeded()) {
+                writtenValues.putAll(batch);
+            } else {
+                LOG.debug("failed to write {} buffered values to data grid", batch.size(), write.cause());
+                batch.forEach(pendingWrites::putIfAbsent);
+            }
+            inFlightWrites = Collections.emptyMap();
+            flushing.set(false);
+            completion.complete();
+            result.handle(write);
+        });
+        return result.future();
+    }
+
+    private V getUnwrittenValue(final K key) {
+        final V pendingValue = pendingWrites.get(key);
+        if (pendingValue != null) {
+            return pendingValue;
+        }
+        return inFlightWrites.get(key);
+    }
+
+    private V getLocalValue(final K key) {
+        final V unwrittenValue = getUnwrittenValue(key);
+        if (unwrittenValue != null) {
+            return unwrittenValue;
+        }
+        return writtenValues.getIfPresent(key);
+    }
+}
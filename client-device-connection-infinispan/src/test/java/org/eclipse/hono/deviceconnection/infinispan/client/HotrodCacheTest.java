@@ -19,9 +19,12 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.RemoteCacheContainer;
@@ -30,6 +33,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
@@ -49,6 +54,7 @@ class HotrodCacheTest {
     private RemoteCacheContainer remoteCacheManager;
     private Vertx vertx;
     private HotrodCache<String, String> cache;
+    private HotrodCache<String, String> asyncCache;
 
     /**
      * Sets up the fixture.
@@ -65,8 +71,16 @@ class HotrodCacheTest {
             resultHandler.handle(result);
             return null;
         }).when(vertx).executeBlocking(any(Handler.class), any(Handler.class));
+        final Context context = mock(Context.class);
+        doAnswer(invocation -> {
+            final Handler<Void> action = invocation.getArgument(0);
+            action.handle(null);
+            return null;
+        }).when(context).runOnContext(any(Handler.class));
+        when(vertx.getOrCreateContext()).thenReturn(context);
         remoteCacheManager = mock(RemoteCacheContainer.class);
         cache = new HotrodCache<String, String>(vertx, remoteCacheManager, "cache", "testKey", "testValue");
+        asyncCache = new HotrodCache<String, String>(vertx, remoteCacheManager, "cache", "testKey", "testValue", true);
     }
 
     /**
@@ -152,6 +166,193 @@ class HotrodCacheTest {
             }));
     }
 
+    /**
+     * Verifies that a cache configured to use asynchronous operations retrieves a value
+     * from the data grid without using a worker thread.
+     *
+     * @param ctx The vert.x text context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testAsyncGetSucceeds(final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        when(grid.getAsync(anyString())).thenReturn(CompletableFuture.completedFuture("value"));
+        asyncCache.connect()
+            .compose(c -> c.get("key"))
+            .setHandler(ctx.succeeding(v -> {
+                ctx.verify(() -> {
+                    verify(grid).getAsync("key");
+                    verify(grid, never()).get(any());
+                    // only the connection attempt has been run on a worker thread
+                    verify(vertx).executeBlocking(any(Handler.class), any(Handler.class));
+                    assertThat(v).isEqualTo("value");
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that a cache configured to use asynchronous operations fails a request
+     * to retrieve a value with the root cause for the failure to access the data grid.
+     *
+     * @param ctx The vert.x text context.
+     */
+    @Test
+    void testAsyncGetFails(final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        final CompletableFuture<Object> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IllegalStateException());
+        when(grid.getAsync(anyString())).thenReturn(failure);
+        asyncCache.connect()
+            .compose(c -> c.get("key"))
+            .setHandler(ctx.failing(t -> {
+                ctx.verify(() -> {
+                    verify(grid).getAsync("key");
+                    assertThat(t).isInstanceOf(IllegalStateException.class);
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that a cache configured to use asynchronous operations writes a value
+     * to the data grid without using a worker thread.
+     *
+     * @param ctx The vert.x text context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testAsyncPutSucceeds(final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        when(grid.putAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture("oldValue"));
+        asyncCache.connect()
+            .compose(c -> c.put("key", "value"))
+            .setHandler(ctx.succeeding(v -> {
+                ctx.verify(() -> {
+                    verify(grid).putAsync("key", "value");
+                    verify(grid, never()).put(any(), any());
+                    // only the connection attempt has been run on a worker thread
+                    verify(vertx).executeBlocking(any(Handler.class), any(Handler.class));
+                    assertThat(v).isEqualTo("oldValue");
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that a cache configured to use asynchronous operations fails a request
+     * to put a value if the data grid cannot be accessed.
+     *
+     * @param ctx The vert.x text context.
+     */
+    @Test
+    void testAsyncPutFails(final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        when(grid.putAsync(anyString(), anyString())).thenThrow(new IllegalStateException());
+        asyncCache.connect()
+            .compose(c -> c.put("key", "value"))
+            .setHandler(ctx.failing(t -> {
+                ctx.verify(() -> {
+                    verify(grid).putAsync("key", "value");
+                    assertThat(t).isInstanceOf(IllegalStateException.class);
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that a request to put multiple values to the cache results in
+     * the values being written to the data grid in a single operation.
+     *
+     * @param ctx The vert.x text context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testAsyncPutAllSucceeds(final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        when(grid.putAllAsync(any(Map.class))).thenReturn(CompletableFuture.completedFuture(null));
+        final Map<String, String> data = Map.of("key1", "value1", "key2", "value2");
+        asyncCache.connect()
+            .compose(c -> c.putAll(data))
+            .setHandler(ctx.succeeding(v -> {
+                ctx.verify(() -> {
+                    verify(grid).putAllAsync(data);
+                    verify(grid, never()).putAsync(any(), any());
+                });
+                ctx.completeNow();
+            }));
+    }
+
+    /**
+     * Verifies that the outcome of an asynchronous get operation, which is completed on one
+     * of the Hotrod client's threads, is handed over to the context that the operation has
+     * been invoked on.
+     *
+     * @param vertx The vert.x instance to run on.
+     * @param ctx The vert.x text context.
+     */
+    @Test
+    void testAsyncGetCompletesOnCallersContext(final Vertx vertx, final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        final CompletableFuture<Object> response = new CompletableFuture<>();
+        when(grid.getAsync(anyString())).thenReturn(response);
+        final HotrodCache<String, String> cacheUnderTest = new HotrodCache<>(
+                vertx, remoteCacheManager, "cache", "testKey", "testValue", true);
+
+        final Context context = vertx.getOrCreateContext();
+        context.runOnContext(go -> {
+            cacheUnderTest.connect()
+                .compose(c -> {
+                    final Future<String> result = c.get("key");
+                    response.completeAsync(() -> "value", CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+                    return result;
+                })
+                .setHandler(ctx.succeeding(v -> {
+                    ctx.verify(() -> {
+                        assertThat(Vertx.currentContext()).isSameAs(context);
+                        assertThat(v).isEqualTo("value");
+                    });
+                    ctx.completeNow();
+                }));
+        });
+    }
+
+    /**
+     * Verifies that an asynchronous put operation, which is failed on one of the Hotrod
+     * client's threads, fails with the root cause on the context that the operation has
+     * been invoked on.
+     *
+     * @param vertx The vert.x instance to run on.
+     * @param ctx The vert.x text context.
+     */
+    @Test
+    void testAsyncPutFailsOnCallersContext(final Vertx vertx, final VertxTestContext ctx) {
+        final BasicCache<Object, Object> grid = givenAConnectedCache();
+        final CompletableFuture<Object> response = new CompletableFuture<>();
+        when(grid.putAsync(anyString(), anyString())).thenReturn(response.thenApply(v -> v));
+        final HotrodCache<String, String> cacheUnderTest = new HotrodCache<>(
+                vertx, remoteCacheManager, "cache", "testKey", "testValue", true);
+
+        final Context context = vertx.getOrCreateContext();
+        context.runOnContext(go -> {
+            cacheUnderTest.connect()
+                .compose(c -> {
+                    final Future<String> result = c.put("key", "value");
+                    // the dependent stage is completed with a CompletionException wrapping the cause
+                    CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)
+                        .execute(() -> response.completeExceptionally(new IllegalStateException()));
+                    return result;
+                })
+                .setHandler(ctx.failing(t -> {
+                    ctx.verify(() -> {
+                        assertThat(Vertx.currentContext()).isSameAs(context);
+                        assertThat(t).isInstanceOf(IllegalStateException.class);
+                    });
+                    ctx.completeNow();
+                }));
+        });
+    }
+
     private BasicCache<Object, Object> givenAConnectedCache() {
         @SuppressWarnings("unchecked")
         final BasicCache<Object, Object> result = mock(BasicCache.class);
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceconnection.infinispan.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+/**
+ * Compares the throughput of the {@link HotrodCache} when using the blocking
+ * and the asynchronous API of the Hotrod client.
+ * <p>
+ * The benchmark is run against an embedded Infinispan server. It is not part of the
+ * regular build because its outcome depends on the machine running it. It can be run
+ * by means of
+ * <pre>
+ * mvn test -Pbenchmark -pl client-device-connection-infinispan
+ * </pre>
+ */
+@ExtendWith(VertxExtension.class)
+@Timeout(timeUnit = TimeUnit.SECONDS, value = 300)
+class HotrodCacheThroughputBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HotrodCacheThroughputBenchmark.class);
+    private static final String CACHE_NAME = "device-connection";
+    private static final int NUMBER_OF_OPERATIONS = 5000;
+    private static final int NUMBER_OF_ROUNDS = 5;
+
+    private static DefaultCacheManager embeddedCacheManager;
+    private static HotRodServer server;
+    private static int port;
+
+    /**
+     * Starts the embedded Infinispan server.
+     *
+     * @throws IOException if no free port can be determined for the server.
+     */
+    @BeforeAll
+    static void startServer() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        embeddedCacheManager = new DefaultCacheManager();
+        embeddedCacheManager.defineConfiguration(
+                CACHE_NAME,
+                new org.infinispan.configuration.cache.ConfigurationBuilder().build());
+        server = new HotRodServer();
+        server.start(
+                new HotRodServerConfigurationBuilder().host("127.0.0.1").port(port).build(),
+                embeddedCacheManager);
+    }
+
+    /**
+     * Stops the embedded Infinispan server.
+     */
+    @AfterAll
+    static void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+        if (embeddedCacheManager != null) {
+            embeddedCacheManager.stop();
+        }
+    }
+
+    /**
+     * Verifies that the asynchronous operations achieve at least the throughput
+     * of the blocking operations for a large number of concurrently executed requests.
+     * <p>
+     * After a warm-up round, both modes are run alternately for several rounds and
+     * the fastest round of each mode is compared.
+     *
+     * @param vertx The vert.x instance to run on.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    void testAsyncOperationsAreNotSlowerThanBlockingOperations(final Vertx vertx, final VertxTestContext ctx) {
+
+        final HotrodCache<String, String> blockingCache = newCache(vertx, false);
+        final HotrodCache<String, String> asyncCache = newCache(vertx, true);
+        final long[] fastestRounds = { Long.MAX_VALUE, Long.MAX_VALUE };
+
+        Future<?> rounds = CompositeFuture.all(blockingCache.connect(), asyncCache.connect());
+        for (int i = 0; i <= NUMBER_OF_ROUNDS; i++) {
+            final boolean warmUp = i == 0;
+            final String round = String.valueOf(i);
+            rounds = rounds
+                    .compose(ok -> runOnContext(vertx, () -> putAll(blockingCache, "blocking-" + round)))
+                    .compose(duration -> {
+                        if (!warmUp) {
+                            fastestRounds[0] = Math.min(fastestRounds[0], duration);
+                        }
+                        return runOnContext(vertx, () -> putAll(asyncCache, "async-" + round));
+                    })
+                    .map(duration -> {
+                        if (!warmUp) {
+                            fastestRounds[1] = Math.min(fastestRounds[1], duration);
+                        }
+                        return null;
+                    });
+        }
+
+        rounds
+            .compose(ok -> CompositeFuture.all(
+                    blockingCache.get(key("async-" + NUMBER_OF_ROUNDS, NUMBER_OF_OPERATIONS - 1)),
+                    asyncCache.get(key("blocking-" + NUMBER_OF_ROUNDS, NUMBER_OF_OPERATIONS - 1))))
+            .setHandler(ctx.succeeding(values -> {
+                LOG.info("blocking operations: {} puts in {}ms ({} ops/s)",
+                        NUMBER_OF_OPERATIONS, fastestRounds[0], throughput(fastestRounds[0]));
+                LOG.info("async operations: {} puts in {}ms ({} ops/s)",
+                        NUMBER_OF_OPERATIONS, fastestRounds[1], throughput(fastestRounds[1]));
+                ctx.verify(() -> {
+                    // both modes have written the same data
+                    assertThat((String) values.resultAt(0)).isEqualTo("value-" + (NUMBER_OF_OPERATIONS - 1));
+                    assertThat((String) values.resultAt(1)).isEqualTo("value-" + (NUMBER_OF_OPERATIONS - 1));
+                    assertThat(fastestRounds[1])
+                        .as("duration of fastest round using async operations [ms]")
+                        .isLessThanOrEqualTo(fastestRounds[0]);
+                });
+                blockingCache.disconnect();
+                asyncCache.disconnect();
+                ctx.completeNow();
+            }));
+    }
+
+    private HotrodCache<String, String> newCache(final Vertx vertx, final boolean useAsyncOperations) {
+
+        final RemoteCacheManager cacheManager = new RemoteCacheManager(
+                new ConfigurationBuilder().addServer().host("127.0.0.1").port(port).build(),
+                false);
+        return new HotrodCache<>(
+                vertx,
+                cacheManager,
+                CACHE_NAME,
+                "KEY_CONNECTION_CHECK",
+                "VALUE_CONNECTION_CHECK",
+                useAsyncOperations);
+    }
+
+    private Future<Long> putAll(final HotrodCache<String, String> cache, final String prefix) {
+
+        final long start = System.nanoTime();
+        @SuppressWarnings("rawtypes")
+        final List<Future> puts = new ArrayList<>(NUMBER_OF_OPERATIONS);
+        for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+            puts.add(cache.put(key(prefix, i), "value-" + i));
+        }
+        return CompositeFuture.all(puts)
+                .map(ok -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static <T> Future<T> runOnContext(final Vertx vertx, final Supplier<Future<T>> task) {
+        final Promise<T> result = Promise.promise();
+        vertx.runOnContext(go -> task.get().setHandler(result));
+        return result.future();
+    }
+
+    private static String key(final String prefix, final int index) {
+        return String.format("%s@device-%d", prefix, index);
+    }
+
+    private static long throughput(final long durationMillis) {
+        return NUMBER_OF_OPERATIONS * 1000L / Math.max(1, durationMillis);
+    }
+}
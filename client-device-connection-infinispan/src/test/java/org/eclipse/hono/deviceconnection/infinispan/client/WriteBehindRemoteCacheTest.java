@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceconnection.infinispan.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+
+/**
+ * Tests verifying behavior of {@link WriteBehindRemoteCache}.
+ *
+ */
+class WriteBehindRemoteCacheTest {
+
+    private RemoteCache<String, String> grid;
+    private Vertx vertx;
+    private WriteBehindRemoteCache<String, String> cache;
+
+    /**
+     * Sets up the fixture.
+     */
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        grid = mock(RemoteCache.class);
+        when(grid.putAll(anyMap())).thenReturn(Future.succeededFuture());
+        vertx = mock(Vertx.class);
+        cache = new WriteBehindRemoteCache<>(grid, vertx, Duration.ofMillis(100), 100, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Verifies that the cache schedules the flushing of its buffer at the configured interval.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testCacheFlushesBufferPeriodically() {
+
+        cache.start();
+        final ArgumentCaptor<Handler<Long>> timerHandler = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx).setPeriodic(anyLong(), timerHandler.capture());
+
+        cache.put("device", "gw-one");
+        verify(grid, never()).put(anyString(), anyString());
+
+        timerHandler.getValue().handle(1L);
+        verify(grid).putAll(Map.of("device", "gw-one"));
+    }
+
+    /**
+     * Verifies that multiple values put for the same key are written to the
+     * data grid in a single operation.
+     */
+    @Test
+    void testPutCoalescesWritesForSameKey() {
+
+        cache.put("device-one", "gw-one");
+        cache.put("device-one", "gw-two");
+        cache.put("device-two", "gw-one");
+        cache.flush();
+
+        verify(grid).putAll(Map.of("device-one", "gw-two", "device-two", "gw-one"));
+        verify(grid, never()).put(anyString(), anyString());
+    }
+
+    /**
+     * Verifies that a value that equals the value that has already been written
+     * to the data grid is not written again.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testPutDiscardsUnchangedValue() {
+
+        cache.put("device", "gw-one");
+        cache.flush();
+        cache.put("device", "gw-one");
+        cache.flush();
+
+        verify(grid, times(1)).putAll(anyMap());
+
+        cache.put("device", "gw-two");
+        cache.flush();
+
+        verify(grid).putAll(Map.of("device", "gw-two"));
+    }
+
+    /**
+     * Verifies that values which have not been written to the data grid yet
+     * are returned by the cache.
+     */
+    @Test
+    void testGetReturnsUnwrittenValue() {
+
+        final Promise<Void> putAllResult = Promise.promise();
+        when(grid.putAll(anyMap())).thenReturn(putAllResult.future());
+
+        cache.put("device", "gw-one");
+        assertThat(cache.get("device").result()).isEqualTo("gw-one");
+
+        // value is being written to the data grid
+        cache.flush();
+        assertThat(cache.get("device").result()).isEqualTo("gw-one");
+        verify(grid, never()).get(anyString());
+
+        putAllResult.complete();
+        when(grid.get(anyString())).thenReturn(Future.succeededFuture("gw-other"));
+        assertThat(cache.get("device").result()).isEqualTo("gw-other");
+    }
+
+    /**
+     * Verifies that values which could not be written to the data grid are
+     * written again during the next flush unless they have been replaced.
+     */
+    @Test
+    void testFlushRetainsValuesThatCouldNotBeWritten() {
+
+        when(grid.putAll(anyMap())).thenReturn(Future.failedFuture(new IllegalStateException()));
+        cache.put("device-one", "gw-one");
+        cache.put("device-two", "gw-one");
+        assertThat(cache.flush().failed()).isTrue();
+
+        when(grid.putAll(anyMap())).thenReturn(Future.succeededFuture());
+        cache.put("device-two", "gw-two");
+        assertThat(cache.flush().succeeded()).isTrue();
+
+        verify(grid).putAll(Map.of("device-one", "gw-one", "device-two", "gw-two"));
+    }
+
+    /**
+     * Verifies that a flush is skipped while another flush is still in progress.
+     */
+    @Test
+    void testFlushIsSkippedWhileFlushIsInProgress() {
+
+        final Promise<Void> putAllResult = Promise.promise();
+        when(grid.putAll(anyMap())).thenReturn(putAllResult.future());
+
+        cache.put("device", "gw-one");
+        cache.flush();
+        cache.put("device", "gw-two");
+        cache.flush();
+        verify(grid, times(1)).putAll(anyMap());
+
+        putAllResult.complete();
+        when(grid.putAll(anyMap())).thenReturn(Future.succeededFuture());
+        cache.flush();
+        verify(grid).putAll(Map.of("device", "gw-two"));
+    }
+
+    /**
+     * Verifies that stopping the cache cancels the periodic flushing and writes
+     * all buffered values to the data grid.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testStopWritesBufferedValues() {
+
+        when(vertx.setPeriodic(anyLong(), any(Handler.class))).thenReturn(10L);
+        cache.start();
+        cache.put("device-one", "gw-one");
+        cache.put("device-two", "gw-two");
+
+        final Future<Void> stopped = cache.stop();
+
+        verify(vertx).cancelTimer(10L);
+        verify(grid).putAll(Map.of("device-one", "gw-one", "device-two", "gw-two"));
+        assertThat(stopped.succeeded()).isTrue();
+    }
+
+    /**
+     * Verifies that stopping the cache while a flush is in progress writes the
+     * values that have been put in the meantime once the flush has completed.
+     */
+    @Test
+    void testStopWaitsForFlushInProgress() {
+
+        final Promise<Void> putAllResult = Promise.promise();
+        when(grid.putAll(anyMap())).thenReturn(putAllResult.future());
+
+        cache.put("device", "gw-one");
+        cache.flush();
+        cache.put("device", "gw-two");
+
+        final Future<Void> stopped = cache.stop();
+        verify(grid, times(1)).putAll(anyMap());
+        assertThat(stopped.isComplete()).isFalse();
+
+        when(grid.putAll(anyMap())).thenReturn(Future.succeededFuture());
+        putAllResult.complete();
+
+        verify(grid).putAll(Map.of("device", "gw-two"));
+        assertThat(stopped.succeeded()).isTrue();
+    }
+}
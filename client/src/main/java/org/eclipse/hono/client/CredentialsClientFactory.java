@@ -49,6 +49,24 @@ public interface CredentialsClientFactory extends ConnectionLifecycle<HonoConnec
         return new CredentialsClientFactoryImpl(connection, cacheProvider);
     }
 
+    /**
+     * Creates a new factory for an existing connection.
+     *
+     * @param connection The connection to use.
+     * @param cacheProvider The cache provider to use for creating caches for credential objects
+     *                      or {@code null} if credential objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by the factory.
+     * @return The factory.
+     * @throws NullPointerException if connection or metrics are {@code null}
+     */
+    static CredentialsClientFactory create(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+        return new CredentialsClientFactoryImpl(connection, cacheProvider, metrics);
+    }
+
     /**
      * Gets a client for interacting with Hono's <em>Credentials</em> API.
      * <p>
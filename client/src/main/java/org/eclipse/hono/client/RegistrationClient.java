@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,7 +13,17 @@
 
 package org.eclipse.hono.client;
 
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 import io.opentracing.SpanContext;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 
@@ -102,6 +112,57 @@ public interface RegistrationClient extends RequestResponseClient {
         return assertRegistration(deviceId, gatewayId);
     }
 
+    /**
+     * Asserts that a gateway is authorized to act on behalf of multiple devices which are
+     * registered and <em>enabled</em>.
+     * <p>
+     * This default implementation invokes {@link #assertRegistration(String, String, SpanContext)}
+     * for each of the devices and collects the results.
+     *
+     * @param deviceIds The IDs of the devices to get the assertions for.
+     * @param gatewayId The gateway that wants to act on behalf of the devices.
+     * @param context The currently active OpenTracing span. An implementation
+     *         should use this as the parent for any span it creates for tracing
+     *         the execution of this operation.
+     * @return A future indicating the result of the operation.
+     *         <p>
+     *         The future will succeed with a map containing the assertions of all devices for which
+     *         the registration status could be asserted, indexed by device ID. Each assertion
+     *         contains values as defined in
+     *         <a href="https://www.eclipse.org/hono/docs/api/device-registration/#assert-device-registration">
+     *         Assert Device Registration</a>. Devices which are unknown, disabled or on behalf of which
+     *         the gateway is not authorized to act are not contained in the map.
+     *         <p>
+     *         Otherwise, the future will fail with a {@link ServiceInvocationException} containing
+     *         the (error) status code returned by the service.
+     * @throws NullPointerException if device IDs or gateway ID are {@code null}.
+     * @see RequestResponseClient#setRequestTimeout(long)
+     */
+    default Future<Map<String, JsonObject>> assertRegistrations(
+            final Collection<String> deviceIds,
+            final String gatewayId,
+            final SpanContext context) {
+
+        Objects.requireNonNull(deviceIds);
+        Objects.requireNonNull(gatewayId);
+
+        final Map<String, JsonObject> assertions = new HashMap<>();
+        @SuppressWarnings("rawtypes")
+        final List<Future> results = new ArrayList<>();
+        for (final String deviceId : new LinkedHashSet<>(deviceIds)) {
+            results.add(assertRegistration(deviceId, gatewayId, context)
+                    .map(assertion -> assertions.put(deviceId, assertion))
+                    .recover(t -> {
+                        if (ServiceInvocationException.extractStatusCode(t) >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                            return Future.failedFuture(t);
+                        }
+                        // device is not included in the result
+                        return Future.succeededFuture();
+                    }));
+        }
+        return CompositeFuture.all(results).map(ok -> assertions);
+    }
+
     /**
      * Gets registration information for a device.
      *
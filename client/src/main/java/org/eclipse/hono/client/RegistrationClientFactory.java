@@ -49,6 +49,24 @@ public interface RegistrationClientFactory extends ConnectionLifecycle<HonoConne
         return new RegistrationClientFactoryImpl(connection, cacheProvider);
     }
 
+    /**
+     * Creates a new factory for an existing connection.
+     *
+     * @param connection The connection to use.
+     * @param cacheProvider The cache provider to use for creating caches for tenant objects
+     *                      or {@code null} if tenant objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by the factory.
+     * @return The factory.
+     * @throws NullPointerException if connection or metrics are {@code null}
+     */
+    static RegistrationClientFactory create(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+        return new RegistrationClientFactoryImpl(connection, cacheProvider, metrics);
+    }
+
     /**
      * Gets a client for invoking operations on a service implementing Hono's <em>Device Registration</em> API.
      *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,6 +13,8 @@
 
 package org.eclipse.hono.client;
 
+import java.util.Objects;
+
 import org.eclipse.hono.config.ClientConfigProperties;
 
 /**
@@ -33,10 +35,32 @@ public class RequestResponseClientConfigProperties extends ClientConfigPropertie
      * The default timeout for cached responses in seconds until they are considered invalid.
      */
     public static final long DEFAULT_RESPONSE_CACHE_TIMEOUT = 600L;
+    /**
+     * The type of response cache that is based on Caffeine and Spring Cache.
+     */
+    public static final String RESPONSE_CACHE_TYPE_CAFFEINE = "caffeine";
+    /**
+     * The type of response cache that is based on Hono's own bounded cache implementation.
+     */
+    public static final String RESPONSE_CACHE_TYPE_BOUNDED = "bounded";
+    /**
+     * The default maximum number of negative responses that are cached.
+     */
+    public static final int DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE = 10_000;
+    /**
+     * The default maximum number of negative responses that are cached per tenant.
+     */
+    public static final int DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE_PER_TENANT = 1000;
 
+    private String responseCacheType = RESPONSE_CACHE_TYPE_CAFFEINE;
+    private double responseCacheRefreshAheadFraction = 0;
+    private boolean responseCacheShared = false;
     private int responseCacheMinSize = DEFAULT_RESPONSE_CACHE_MIN_SIZE;
     private long responseCacheMaxSize = DEFAULT_RESPONSE_CACHE_MAX_SIZE;
     private long responseCacheDefaultTimeout = DEFAULT_RESPONSE_CACHE_TIMEOUT;
+    private long negativeResponseCacheTimeout = 0;
+    private int negativeResponseCacheMaxSize = DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE;
+    private int negativeResponseCacheMaxSizePerTenant = DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE_PER_TENANT;
 
     /**
      * Gets the minimum size of the response cache.
@@ -129,4 +153,195 @@ public class RequestResponseClientConfigProperties extends ClientConfigPropertie
         }
         this.responseCacheDefaultTimeout = timeout;
     }
+
+    /**
+     * Gets the type of cache to use for storing responses.
+     * <p>
+     * The default value of this property is {@link #RESPONSE_CACHE_TYPE_CAFFEINE}.
+     *
+     * @return The type of cache.
+     */
+    public final String getResponseCacheType() {
+        return responseCacheType;
+    }
+
+    /**
+     * Sets the type of cache to use for storing responses.
+     * <p>
+     * Supported values are {@link #RESPONSE_CACHE_TYPE_CAFFEINE} and
+     * {@link #RESPONSE_CACHE_TYPE_BOUNDED}. The latter does not wrap cached
+     * responses, periodically removes expired responses and uses a frequency based
+     * eviction policy once the maximum cache size has been reached.
+     * <p>
+     * The default value of this property is {@link #RESPONSE_CACHE_TYPE_CAFFEINE}.
+     *
+     * @param type The type of cache.
+     * @throws NullPointerException if type is {@code null}.
+     * @throws IllegalArgumentException if the type is not supported.
+     */
+    public final void setResponseCacheType(final String type) {
+        Objects.requireNonNull(type);
+        if (!RESPONSE_CACHE_TYPE_CAFFEINE.equals(type) && !RESPONSE_CACHE_TYPE_BOUNDED.equals(type)) {
+            throw new IllegalArgumentException("unsupported response cache type: " + type);
+        }
+        this.responseCacheType = type;
+    }
+
+    /**
+     * Checks if the response cache is shared by all clients of the same type within
+     * the process.
+     * <p>
+     * The default value of this property is {@code false}.
+     *
+     * @return {@code true} if the cache is shared.
+     */
+    public final boolean isResponseCacheShared() {
+        return responseCacheShared;
+    }
+
+    /**
+     * Sets whether the response cache should be shared by all clients of the same type
+     * within the process.
+     * <p>
+     * By default, each protocol adapter verticle instance uses its own clients and thus
+     * also its own response cache. Sharing the cache among all verticle instances avoids
+     * each response being requested from the service and stored once per instance.
+     * The shared cache is safe for concurrent use from multiple event loop threads.
+     * <p>
+     * The default value of this property is {@code false}.
+     *
+     * @param shared {@code true} if the cache should be shared.
+     */
+    public final void setResponseCacheShared(final boolean shared) {
+        this.responseCacheShared = shared;
+    }
+
+    /**
+     * Gets the fraction of a cached response's max age during which the response
+     * is refreshed in the background when it is being retrieved from the cache.
+     * <p>
+     * The default value of this property is 0, meaning that cached responses are
+     * not refreshed ahead of time.
+     *
+     * @return The fraction (0 - 1).
+     */
+    public final double getResponseCacheRefreshAheadFraction() {
+        return responseCacheRefreshAheadFraction;
+    }
+
+    /**
+     * Sets the fraction of a cached response's max age during which the response
+     * is refreshed in the background when it is being retrieved from the cache.
+     * <p>
+     * For example, a value of 0.2 for a response with a max age of 600 seconds means
+     * that the first retrieval of the response from the cache after 480 seconds triggers
+     * a request to the service in the background, while the cached response is still
+     * being returned. This keeps frequently used responses from expiring and thus avoids
+     * the latency of the request on the retrieval path.
+     * <p>
+     * The default value of this property is 0, meaning that cached responses are
+     * not refreshed ahead of time.
+     *
+     * @param fraction The fraction (0 - 1).
+     * @throws IllegalArgumentException if fraction is &lt; 0 or &gt;= 1.
+     */
+    public final void setResponseCacheRefreshAheadFraction(final double fraction) {
+        if (fraction < 0 || fraction >= 1) {
+            throw new IllegalArgumentException("refresh ahead fraction must be >= 0 and < 1");
+        }
+        this.responseCacheRefreshAheadFraction = fraction;
+    }
+
+    /**
+     * Gets the period of time for which responses indicating an unknown resource
+     * (404 status code) are cached if the service has not sent a cache directive.
+     * <p>
+     * The default value of this property is 0, meaning that such responses are not cached.
+     *
+     * @return The timeout in seconds.
+     */
+    public final long getNegativeResponseCacheTimeout() {
+        return negativeResponseCacheTimeout;
+    }
+
+    /**
+     * Sets the period of time for which responses indicating an unknown resource
+     * (404 status code) are cached if the service has not sent a cache directive.
+     * <p>
+     * Caching such responses for a short period of time protects the service from
+     * devices that keep on trying to connect using an unknown identifier. The responses
+     * are kept separate from the other cached responses so that they cannot displace
+     * any of them.
+     * <p>
+     * The default value of this property is 0, meaning that such responses are not cached.
+     *
+     * @param timeout The timeout in seconds.
+     * @throws IllegalArgumentException if timeout is &lt; 0.
+     */
+    public final void setNegativeResponseCacheTimeout(final long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("negative response cache timeout must not be negative");
+        }
+        this.negativeResponseCacheTimeout = timeout;
+    }
+
+    /**
+     * Gets the maximum number of negative responses that are cached.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE}.
+     *
+     * @return The maximum number of responses.
+     */
+    public final int getNegativeResponseCacheMaxSize() {
+        return negativeResponseCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of negative responses that are cached.
+     * <p>
+     * The oldest response is removed from the cache once this limit has been reached.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE}.
+     *
+     * @param size The maximum number of responses.
+     * @throws IllegalArgumentException if size is &lt; 1.
+     */
+    public final void setNegativeResponseCacheMaxSize(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("negative response cache size must be at least 1");
+        }
+        this.negativeResponseCacheMaxSize = size;
+    }
+
+    /**
+     * Gets the maximum number of negative responses that are cached per tenant.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE_PER_TENANT}.
+     *
+     * @return The maximum number of responses.
+     */
+    public final int getNegativeResponseCacheMaxSizePerTenant() {
+        return negativeResponseCacheMaxSizePerTenant;
+    }
+
+    /**
+     * Sets the maximum number of negative responses that are cached per tenant.
+     * <p>
+     * Once this limit has been reached, no more negative responses are cached for
+     * the tenant until some of its cached responses have expired. This prevents the
+     * devices of a single tenant from displacing the negative responses of all other tenants.
+     * The limit applies to the responses of tenant scoped services like the Device Registration
+     * and Credentials services only.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_NEGATIVE_RESPONSE_CACHE_MAX_SIZE_PER_TENANT}.
+     *
+     * @param size The maximum number of responses.
+     * @throws IllegalArgumentException if size is &lt; 1.
+     */
+    public final void setNegativeResponseCacheMaxSizePerTenant(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("negative response cache size per tenant must be at least 1");
+        }
+        this.negativeResponseCacheMaxSizePerTenant = size;
+    }
 }
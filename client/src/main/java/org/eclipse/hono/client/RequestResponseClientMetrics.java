@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.client;
+
+/**
+ * A collector for metrics about the requests being sent by request-response clients.
+ * <p>
+ * All methods have an empty default implementation so that implementations only need
+ * to override the methods for the metrics they are interested in.
+ */
+public interface RequestResponseClientMetrics {
+
+    /**
+     * A metrics implementation that simply discards all values.
+     */
+    RequestResponseClientMetrics NOOP = new RequestResponseClientMetrics() {
+    };
+
+    /**
+     * Reports a request that has not been sent to the peer but has instead been
+     * coalesced with an already outstanding request for the same resource.
+     *
+     * @param endpoint The name of the endpoint that the request was targeted at.
+     * @throws NullPointerException if endpoint is {@code null}.
+     */
+    default void incrementCoalescedRequests(final String endpoint) {
+        // do nothing
+    }
+
+    /**
+     * Reports a request that has been sent to the peer in order to refresh a cached
+     * response before it expires.
+     *
+     * @param endpoint The name of the endpoint that the request was targeted at.
+     * @throws NullPointerException if endpoint is {@code null}.
+     */
+    default void incrementCacheRefreshes(final String endpoint) {
+        // do nothing
+    }
+
+    /**
+     * Reports a request that has been sent to the peer and for which a response is expected.
+     *
+     * @param endpoint The name of the endpoint that the request was targeted at.
+     * @throws NullPointerException if endpoint is {@code null}.
+     */
+    default void incrementOutstandingRequests(final String endpoint) {
+        // do nothing
+    }
+
+    /**
+     * Reports a request that is no longer outstanding because a response has been
+     * received, or because it has failed or timed out.
+     *
+     * @param endpoint The name of the endpoint that the request was targeted at.
+     * @throws NullPointerException if endpoint is {@code null}.
+     */
+    default void decrementOutstandingRequests(final String endpoint) {
+        // do nothing
+    }
+}
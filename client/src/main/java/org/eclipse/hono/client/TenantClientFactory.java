@@ -49,6 +49,24 @@ public interface TenantClientFactory extends ConnectionLifecycle<HonoConnection>
         return new TenantClientFactoryImpl(connection, cacheProvider);
     }
 
+    /**
+     * Creates a new factory for an existing connection.
+     *
+     * @param connection The connection to use.
+     * @param cacheProvider The provider to use for creating caches for tenant objects
+     *                      or {@code null} if tenant objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by the factory.
+     * @return The factory.
+     * @throws NullPointerException if connection or metrics are {@code null}
+     */
+    static TenantClientFactory create(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+        return new TenantClientFactoryImpl(connection, cacheProvider, metrics);
+    }
+
     /**
      * Gets a client for interacting with Hono's <em>Tenant</em> API.
      * <p>
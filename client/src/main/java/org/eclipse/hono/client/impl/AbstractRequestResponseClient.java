@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -14,12 +14,17 @@ package org.eclipse.hono.client.impl;
 
 import java.net.HttpURLConnection;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.apache.qpid.proton.amqp.messaging.Accepted;
@@ -34,6 +39,7 @@ import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.HonoConnection;
 import org.eclipse.hono.client.RequestResponseClient;
 import org.eclipse.hono.client.RequestResponseClientConfigProperties;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.ServerErrorException;
 import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.client.StatusCodeMapper;
@@ -42,7 +48,6 @@ import org.eclipse.hono.util.CacheDirective;
 import org.eclipse.hono.util.MessageHelper;
 import org.eclipse.hono.util.RequestResponseApiConstants;
 import org.eclipse.hono.util.RequestResponseResult;
-import org.eclipse.hono.util.TriTuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,7 +92,29 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
      */
     protected final String linkTargetAddress;
 
-    private final Map<Object, TriTuple<Handler<AsyncResult<R>>, Object, Span>> replyMap = new HashMap<>();
+    /**
+     * The requests that have been sent to the peer and for which no response has been
+     * received yet, indexed by the requests' correlation ID.
+     */
+    private final Map<Object, OutstandingRequest> replyMap = new HashMap<>();
+    /**
+     * The handlers waiting for the response to an outstanding request, indexed by the
+     * request's cache key.
+     */
+    private final Map<Object, List<Handler<AsyncResult<R>>>> outstandingCacheableRequests = new HashMap<>();
+    /**
+     * The points in time (system nano time) after which cached responses should be refreshed,
+     * indexed by the responses' cache key.
+     */
+    private final Map<Object, Long> refreshDeadlines = Collections.synchronizedMap(new LinkedHashMap<Object, Long>() {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Object, Long> eldest) {
+            return size() > getResponseCacheMaxSize();
+        }
+    });
     private Handler<Void> drainHandler;
     private final String replyToAddress;
     private final String tenantId;
@@ -96,8 +123,15 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
      * A cache to use for responses received from the service.
      */
     private ExpiringValueCache<Object, R> responseCache;
+    /**
+     * A cache to use for responses indicating that a requested resource does not exist.
+     */
+    private NegativeResponseCache negativeResponseCache;
 
     private long requestTimeoutMillis;
+    private RequestTimeouts requestTimeouts;
+
+    private RequestResponseClientMetrics metrics = RequestResponseClientMetrics.NOOP;
 
     /**
      * Creates a request-response client.
@@ -232,6 +266,37 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
         LOG.debug("enabling caching of responses from {}", getName());
     }
 
+    /**
+     * Sets a cache for responses indicating that a requested resource does not exist.
+     * <p>
+     * Responses with a 404 status code that do not contain a cache directive
+     * are put to this cache instead of the response cache.
+     *
+     * @param cache The cache or {@code null} if such responses should not be cached.
+     */
+    final void setNegativeResponseCache(final NegativeResponseCache cache) {
+        this.negativeResponseCache = cache;
+    }
+
+    /**
+     * Sets the component to use for reporting metrics about the requests sent by this client.
+     *
+     * @param metrics The metrics.
+     * @throws NullPointerException if metrics is {@code null}.
+     */
+    public final void setMetrics(final RequestResponseClientMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Gets the component to use for reporting metrics about the requests sent by this client.
+     *
+     * @return The metrics.
+     */
+    protected final RequestResponseClientMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Gets the default value for the period of time after which an entry in the response cache
      * is considered invalid.
@@ -254,6 +319,35 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
         }
     }
 
+    /**
+     * Gets the fraction of a cached response's max age during which the response
+     * should be refreshed in the background when it is being retrieved from the cache.
+     * <p>
+     * The value is derived from the configuration properties as follows:
+     * <ol>
+     * <li>if the properties are of type {@link RequestResponseClientConfigProperties}
+     * then the value of its <em>responseCacheRefreshAheadFraction</em> property is used</li>
+     * <li>otherwise 0 is used, i.e. cached responses are not refreshed ahead of time</li>
+     * </ol>
+     *
+     * @return The fraction (0 - 1).
+     */
+    protected final double getResponseCacheRefreshAheadFraction() {
+        if (connection.getConfig() instanceof RequestResponseClientConfigProperties) {
+            return ((RequestResponseClientConfigProperties) connection.getConfig()).getResponseCacheRefreshAheadFraction();
+        } else {
+            return 0;
+        }
+    }
+
+    private long getResponseCacheMaxSize() {
+        if (connection.getConfig() instanceof RequestResponseClientConfigProperties) {
+            return ((RequestResponseClientConfigProperties) connection.getConfig()).getResponseCacheMaxSize();
+        } else {
+            return RequestResponseClientConfigProperties.DEFAULT_RESPONSE_CACHE_MAX_SIZE;
+        }
+    }
+
     /**
      * Sets the period of time after which any requests are considered to have timed out.
      * <p>
@@ -429,11 +523,7 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
      */
     protected final void handleResponse(final ProtonDelivery delivery, final Message message) {
 
-        // the tuple from the reply map contains
-        // 1. the handler for processing the response and
-        // 2. the key to use for caching the response
-        // 3. the Opentracing span covering the execution
-        final TriTuple<Handler<AsyncResult<R>>, Object, Span> handler = replyMap.remove(message.getCorrelationId());
+        final OutstandingRequest handler = removeOutstandingRequest(message.getCorrelationId());
 
         if (handler == null) {
             LOG.debug("discarding unexpected response [reply-to: {}, correlation ID: {}]",
@@ -441,21 +531,21 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
             ProtonHelper.rejected(delivery, true);
         } else {
             final R response = getRequestResponseResult(message);
-            final Span span = handler.three();
+            final Span span = handler.span;
             if (response == null) {
                 LOG.debug("discarding malformed response [reply-to: {}, correlation ID: {}]",
                         replyToAddress, message.getCorrelationId());
-                handler.one().handle(Future.failedFuture(new ServerErrorException(HttpURLConnection.HTTP_INTERNAL_ERROR,
+                handler.resultHandler.handle(Future.failedFuture(new ServerErrorException(HttpURLConnection.HTTP_INTERNAL_ERROR,
                         "cannot process response from service [" + getName() + "]")));
                 ProtonHelper.released(delivery, true);
             } else {
                 LOG.debug("received response [reply-to: {}, subject: {}, correlation ID: {}, status: {}]",
                         replyToAddress, message.getSubject(), message.getCorrelationId(), response.getStatus());
-                addToCache(handler.two(), response);
+                addToCache(handler.cacheKey, response);
                 if (span != null) {
                     span.log("response from peer accepted");
                 }
-                handler.one().handle(Future.succeededFuture(response));
+                handler.resultHandler.handle(Future.succeededFuture(response));
                 ProtonHelper.accepted(delivery, true);
             }
         }
@@ -478,15 +568,43 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
         if (result.succeeded()) {
             throw new IllegalArgumentException("result must be failed");
         } else {
-            final TriTuple<Handler<AsyncResult<R>>, Object, Span> handler = replyMap.remove(correlationId);
+            final OutstandingRequest handler = removeOutstandingRequest(correlationId);
             if (handler == null) {
                 // response has already been processed
             } else {
                 LOG.debug("canceling request [target: {}, correlation ID: {}]: {}",
                         linkTargetAddress, correlationId, result.cause().getMessage());
-                handler.one().handle(result);
+                handler.resultHandler.handle(result);
+            }
+        }
+    }
+
+    private void addOutstandingRequest(final Object correlationId, final OutstandingRequest request) {
+        replyMap.put(correlationId, request);
+        metrics.incrementOutstandingRequests(getName());
+    }
+
+    private OutstandingRequest removeOutstandingRequest(final Object correlationId) {
+
+        final OutstandingRequest request = replyMap.remove(correlationId);
+        if (request != null) {
+            metrics.decrementOutstandingRequests(getName());
+            if (requestTimeouts != null) {
+                requestTimeouts.cancel(correlationId, request.timeoutBucket);
             }
         }
+        return request;
+    }
+
+    private void scheduleTimeout(final Object correlationId, final OutstandingRequest request) {
+
+        if (requestTimeouts == null) {
+            requestTimeouts = new RequestTimeouts(connection.getVertx(), id -> {
+                cancelRequest(id, Future.failedFuture(new ServerErrorException(
+                        HttpURLConnection.HTTP_UNAVAILABLE, "request timed out after " + requestTimeoutMillis + "ms")));
+            });
+        }
+        request.timeoutBucket = requestTimeouts.schedule(correlationId, requestTimeoutMillis);
     }
 
     private R getRequestResponseResult(final Message message) {
@@ -809,7 +927,13 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
     /**
      * Sends a request message via this client's sender link to the peer.
      * <p>
-     * This method first checks if the sender has any credit left. If not, the result handler is failed immediately.
+     * If caching is enabled and a cache key is given, this method first checks if a request
+     * for the same cache key is already outstanding. In this case no message is sent to the
+     * peer but the result handler is instead notified about the outcome of the outstanding
+     * request. This prevents concurrent cache misses for the same resource from all being
+     * forwarded to the peer.
+     * <p>
+     * Otherwise, this method checks if the sender has any credit left. If not, the result handler is failed immediately.
      * Otherwise, the request message is sent and a timer is started which fails the result handler,
      * if no response is received within <em>requestTimeoutMillis</em> milliseconds.
      * <p>
@@ -836,7 +960,18 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
 
         connection.executeOnContext(res -> {
 
-            if (sender.sendQueueFull()) {
+            final boolean coalesceRequests = cacheKey != null && isCachingEnabled();
+            final List<Handler<AsyncResult<R>>> waitingHandlers = coalesceRequests
+                    ? outstandingCacheableRequests.get(cacheKey)
+                    : null;
+
+            if (waitingHandlers != null) {
+                LOG.trace("coalescing request with outstanding request [target address: {}, subject: {}, cache key: {}]",
+                        requestTargetAddress, request.getSubject(), cacheKey);
+                currentSpan.log("coalescing request with outstanding request for same resource");
+                waitingHandlers.add(resultHandler);
+                metrics.incrementCoalescedRequests(getName());
+            } else if (sender.sendQueueFull()) {
                 LOG.debug("cannot send request to peer, no credit left for link [link target: {}]", linkTargetAddress);
                 resultHandler.handle(Future.failedFuture(new ServerErrorException(
                         HttpURLConnection.HTTP_UNAVAILABLE, "no credit available for sending request")));
@@ -851,9 +986,29 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
                 details.put(TracingHelper.TAG_QOS.getKey(), sender.getQoS().toString());
                 currentSpan.log(details);
 
-                final TriTuple<Handler<AsyncResult<R>>, Object, Span> handler = TriTuple.of(resultHandler, cacheKey, currentSpan);
+                final Handler<AsyncResult<R>> responseHandler;
+                if (coalesceRequests) {
+                    final List<Handler<AsyncResult<R>>> handlers = new ArrayList<>();
+                    handlers.add(resultHandler);
+                    outstandingCacheableRequests.put(cacheKey, handlers);
+                    responseHandler = ar -> {
+                        outstandingCacheableRequests.remove(cacheKey, handlers);
+                        for (final Handler<AsyncResult<R>> handler : handlers) {
+                            try {
+                                handler.handle(ar);
+                            } catch (final Exception e) {
+                                // make sure that the remaining callers get the result as well
+                                LOG.warn("error handling response for coalesced request [cache key: {}]",
+                                        cacheKey, e);
+                            }
+                        }
+                    };
+                } else {
+                    responseHandler = resultHandler;
+                }
+                final OutstandingRequest handler = new OutstandingRequest(responseHandler, cacheKey, currentSpan);
                 TracingHelper.injectSpanContext(connection.getTracer(), currentSpan.context(), request);
-                replyMap.put(correlationId, handler);
+                addOutstandingRequest(correlationId, handler);
 
                 sender.send(request, deliveryUpdated -> {
                     final Promise<R> failedResult = Promise.promise();
@@ -877,8 +1032,8 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
                         currentSpan.log("request accepted by peer");
                         // if no reply-to is set, the request is assumed to be one-way (no response is expected)
                         if (request.getReplyTo() == null) {
-                            replyMap.remove(correlationId);
-                            resultHandler.handle(Future.succeededFuture());
+                            removeOutstandingRequest(correlationId);
+                            responseHandler.handle(Future.succeededFuture());
                         }
                     } else if (Released.class.isInstance(remoteState)) {
                         LOG.debug("service did not accept request [target address: {}, subject: {}, correlation ID: {}], remote state: {}",
@@ -894,11 +1049,9 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
                         cancelRequest(correlationId, failedResult.future());
                     }
                 });
-                if (requestTimeoutMillis > 0) {
-                    connection.getVertx().setTimer(requestTimeoutMillis, tid -> {
-                        cancelRequest(correlationId, Future.failedFuture(new ServerErrorException(
-                                HttpURLConnection.HTTP_UNAVAILABLE, "request timed out after " + requestTimeoutMillis + "ms")));
-                    });
+                // the request may have been settled already while sending it
+                if (requestTimeoutMillis > 0 && replyMap.get(correlationId) == handler) {
+                    scheduleTimeout(correlationId, handler);
                 }
                 if (LOG.isDebugEnabled()) {
                     final String deviceId = MessageHelper.getDeviceId(request);
@@ -976,10 +1129,13 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
      */
     protected Future<R> getResponseFromCache(final Object key, final Span currentSpan) {
 
-        if (responseCache == null) {
+        if (responseCache == null && negativeResponseCache == null) {
             return Future.failedFuture(new IllegalStateException("no cache configured"));
         } else {
-            final R result = responseCache.get(key);
+            R result = negativeResponseCache == null || key == null ? null : negativeResponseCache.get(tenantId, key);
+            if (result == null && responseCache != null) {
+                result = responseCache.get(key);
+            }
             if (currentSpan != null) {
                 TracingHelper.TAG_CACHE_HIT.set(currentSpan, result != null);
             }
@@ -991,6 +1147,72 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
         }
     }
 
+    /**
+     * Gets a response from the cache and refreshes it in the background if it is about to expire.
+     * <p>
+     * Sets a tag on the given span according to whether there was a cache hit.
+     * <p>
+     * If the response has been found in the cache and the remaining period of time until the
+     * response expires is less than the {@linkplain #getResponseCacheRefreshAheadFraction()
+     * refresh ahead fraction} of its max age, the given function is invoked in order to
+     * send a new request for the resource to the peer. The cached response is returned
+     * without waiting for the outcome of that request, the response to which will replace
+     * the cached response once it has been received.
+     * <p>
+     * The background request is traced by means of a new span which <em>follows from</em>
+     * the given span and which has the {@link TracingHelper#TAG_CACHE_REFRESH} tag set.
+     *
+     * @param key The key to get the response for.
+     * @param currentSpan The span to mark.
+     * @param requestSender The function to invoke for sending a request for the resource. The function
+     *                      is passed in the span to use for tracing the request and is supposed to
+     *                      send the request using the given key as the cache key.
+     * @return A succeeded future containing the response from the cache
+     *         or a failed future if no response exists for the key
+     *         or the response is expired.
+     * @throws NullPointerException if span or request sender are {@code null}.
+     */
+    protected final Future<R> getResponseFromCache(
+            final Object key,
+            final Span currentSpan,
+            final Function<Span, Future<R>> requestSender) {
+
+        Objects.requireNonNull(currentSpan);
+        Objects.requireNonNull(requestSender);
+
+        final Future<R> result = getResponseFromCache(key, currentSpan);
+        if (result.succeeded()) {
+            final Long refreshDeadline = refreshDeadlines.get(key);
+            // only the first request after the deadline triggers a refresh
+            if (refreshDeadline != null && System.nanoTime() - refreshDeadline >= 0
+                    && refreshDeadlines.remove(key, refreshDeadline)) {
+                refreshResponse(key, currentSpan, requestSender);
+            }
+        }
+        return result;
+    }
+
+    private void refreshResponse(
+            final Object key,
+            final Span currentSpan,
+            final Function<Span, Future<R>> requestSender) {
+
+        LOG.debug("refreshing cached response in background [endpoint: {}, cache key: {}]", getName(), key);
+        TracingHelper.TAG_CACHE_REFRESH.set(currentSpan, Boolean.TRUE);
+        currentSpan.log("refreshing cached response in background");
+        metrics.incrementCacheRefreshes(getName());
+
+        final Span refreshSpan = newFollowingSpan(currentSpan.context(), "refresh cached response from " + getName() + " endpoint");
+        TracingHelper.TAG_CACHE_REFRESH.set(refreshSpan, Boolean.TRUE);
+        requestSender.apply(refreshSpan).setHandler(refresh -> {
+            if (refresh.failed()) {
+                LOG.debug("failed to refresh cached response [endpoint: {}, cache key: {}]", getName(), key, refresh.cause());
+                TracingHelper.logError(refreshSpan, refresh.cause());
+            }
+            refreshSpan.finish();
+        });
+    }
+
     /**
      * Adds a response to the cache.
      * <p>
@@ -1007,6 +1229,14 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
      * <li>else if the response contains a <em>no-cache</em> directive, the response
      * is not put to the cache.</li>
      * </ol>
+     * <p>
+     * If the response is put to the cache and the {@linkplain #getResponseCacheRefreshAheadFraction()
+     * refresh ahead fraction} is greater than zero, the point in time after which the response
+     * should be refreshed is recorded as well.
+     * <p>
+     * If a {@linkplain #setNegativeResponseCache(NegativeResponseCache) negative response cache}
+     * has been set, responses with a 404 status code that do not contain any cache directive
+     * are put to that cache instead.
      * 
      * @param key The key to use for the response.
      * @param response The response to cache.
@@ -1016,6 +1246,14 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
 
         Objects.requireNonNull(response);
 
+        if (negativeResponseCache != null && key != null) {
+            if (response.getStatus() == HttpURLConnection.HTTP_NOT_FOUND && response.getCacheDirective() == null) {
+                negativeResponseCache.put(tenantId, key, response);
+                return;
+            }
+            negativeResponseCache.remove(tenantId, key);
+        }
+
         if (responseCache != null && key != null) {
 
             final CacheDirective cacheDirective = Optional.ofNullable(response.getCacheDirective())
@@ -1030,11 +1268,21 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
             if (cacheDirective.isCachingAllowed()) {
                 if (cacheDirective.getMaxAge() > 0) {
                     responseCache.put(key, response, Duration.ofSeconds(cacheDirective.getMaxAge()));
+                    recordRefreshDeadline(key, cacheDirective.getMaxAge());
                 }
             }
         }
     }
 
+    private void recordRefreshDeadline(final Object key, final long maxAgeSeconds) {
+
+        final double refreshAheadFraction = getResponseCacheRefreshAheadFraction();
+        if (refreshAheadFraction > 0) {
+            final long refreshAfterNanos = (long) (TimeUnit.SECONDS.toNanos(maxAgeSeconds) * (1 - refreshAheadFraction));
+            refreshDeadlines.put(key, System.nanoTime() + refreshAfterNanos);
+        }
+    }
+
     private boolean isCacheableStatusCode(final int code) {
         return Arrays.binarySearch(CACHEABLE_STATUS_CODES, code) >= 0;
     }
@@ -1102,4 +1350,21 @@ public abstract class AbstractRequestResponseClient<R extends RequestResponseRes
             return resultMapper.apply(resultValue);
         });
     }
+
+    /**
+     * A request that has been sent to the peer and for which no response has been received yet.
+     */
+    private final class OutstandingRequest {
+
+        private final Handler<AsyncResult<R>> resultHandler;
+        private final Object cacheKey;
+        private final Span span;
+        private long timeoutBucket = RequestTimeouts.NO_TIMEOUT;
+
+        OutstandingRequest(final Handler<AsyncResult<R>> resultHandler, final Object cacheKey, final Span span) {
+            this.resultHandler = resultHandler;
+            this.cacheKey = cacheKey;
+            this.span = span;
+        }
+    }
 }
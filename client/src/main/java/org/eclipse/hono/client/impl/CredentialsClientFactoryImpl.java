@@ -20,6 +20,7 @@ import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.CredentialsClient;
 import org.eclipse.hono.client.CredentialsClientFactory;
 import org.eclipse.hono.client.HonoConnection;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.util.Constants;
 
 import io.vertx.core.Future;
@@ -35,6 +36,8 @@ public class CredentialsClientFactoryImpl extends AbstractHonoClientFactory impl
 
     private final CachingClientFactory<CredentialsClient> credentialsClientFactory;
     private final CacheProvider cacheProvider;
+    private final NegativeResponseCache negativeResponseCache;
+    private final RequestResponseClientMetrics metrics;
 
     /**
      * Creates a new factory for an existing connection.
@@ -44,9 +47,29 @@ public class CredentialsClientFactoryImpl extends AbstractHonoClientFactory impl
      *                      or {@code null} if credentials objects should not be cached.
      */
     public CredentialsClientFactoryImpl(final HonoConnection connection, final CacheProvider cacheProvider) {
+        this(connection, cacheProvider, RequestResponseClientMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new factory for an existing connection.
+     *
+     * @param connection The connection to use.
+     * @param cacheProvider The cache provider to use for creating caches for credential objects
+     *                      or {@code null} if credentials objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by this factory.
+     * @throws NullPointerException if connection or metrics are {@code null}.
+     */
+    public CredentialsClientFactoryImpl(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+
         super(connection);
         credentialsClientFactory = new CachingClientFactory<>(connection.getVertx(), c -> c.isOpen());
         this.cacheProvider = cacheProvider;
+        this.negativeResponseCache = NegativeResponseCache.from(connection.getConfig());
+        this.metrics = Objects.requireNonNull(metrics);
         connection.getVertx().eventBus().consumer(Constants.EVENT_BUS_ADDRESS_TENANT_TIMED_OUT,
                 this::handleTenantTimeout);
     }
@@ -73,6 +96,8 @@ public class CredentialsClientFactoryImpl extends AbstractHonoClientFactory impl
                             CredentialsClientImpl.getTargetAddress(tenantId),
                             () -> CredentialsClientImpl.create(
                                     cacheProvider,
+                                    negativeResponseCache,
+                                    metrics,
                                     connection,
                                     tenantId,
                                     this::removeCredentialsClient,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -23,6 +23,7 @@ import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.CredentialsClient;
 import org.eclipse.hono.client.HonoConnection;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.StatusCodeMapper;
 import org.eclipse.hono.util.CacheDirective;
 import org.eclipse.hono.util.CredentialsConstants;
@@ -150,8 +151,61 @@ public class CredentialsClientImpl extends AbstractRequestResponseClient<Credent
             final Handler<String> senderCloseHook,
             final Handler<String> receiverCloseHook) {
 
+        return create(cacheProvider, RequestResponseClientMetrics.NOOP, con, tenantId, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new credentials client for a tenant.
+     *
+     * @param cacheProvider The cache provider to use for creating caches for credential objects
+     *                      or {@code null} if credential objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param tenantId The tenant for which credentials are handled.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     */
+    public static final Future<CredentialsClient> create(
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final String tenantId,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
+        return create(cacheProvider, null, metrics, con, tenantId, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new credentials client for a tenant.
+     *
+     * @param cacheProvider The cache provider to use for creating caches for credential objects
+     *                      or {@code null} if credential objects should not be cached.
+     * @param negativeResponseCache The cache to use for responses indicating that a requested resource
+     *                              does not exist or {@code null} if such responses should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param tenantId The tenant for which credentials are handled.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters other than the caches is {@code null}.
+     */
+    static Future<CredentialsClient> create(
+            final CacheProvider cacheProvider,
+            final NegativeResponseCache negativeResponseCache,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final String tenantId,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
         LOG.debug("creating new credentials client for [{}]", tenantId);
         final CredentialsClientImpl client = new CredentialsClientImpl(con, tenantId);
+        client.setMetrics(metrics);
+        client.setNegativeResponseCache(negativeResponseCache);
         if (cacheProvider != null) {
             client.setResponseCache(cacheProvider.getCache(CredentialsClientImpl.getTargetAddress(tenantId)));
         }
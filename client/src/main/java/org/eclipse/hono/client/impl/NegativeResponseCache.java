@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.client.impl;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import org.eclipse.hono.client.RequestResponseClientConfigProperties;
+import org.eclipse.hono.config.ClientConfigProperties;
+import org.eclipse.hono.util.TriTuple;
+
+/**
+ * A cache for responses indicating that a requested resource does not exist.
+ * <p>
+ * The cache is shared by all clients created by a client factory. It is separate from
+ * the clients' response caches, so that the negative responses resulting from devices
+ * which keep on connecting with unknown identifiers cannot displace any regular responses.
+ * <p>
+ * All responses are cached for the same (usually short) period of time. Once the maximum
+ * number of responses has been reached, the oldest response is removed from the cache.
+ * In addition, the number of responses cached for a single tenant is limited, so that
+ * the devices of one tenant cannot displace the negative responses of all other tenants.
+ */
+final class NegativeResponseCache {
+
+    private final Map<TriTuple<String, Object, Object>, CachedResponse> responses = new LinkedHashMap<>();
+    private final Map<String, Integer> responsesPerTenant = new HashMap<>();
+    private final long timeoutNanos;
+    private final int maxSize;
+    private final int maxSizePerTenant;
+    private final LongSupplier ticker;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param timeout The period of time for which responses are cached.
+     * @param maxSize The maximum number of cached responses.
+     * @param maxSizePerTenant The maximum number of cached responses per tenant.
+     * @throws NullPointerException if timeout is {@code null}.
+     * @throws IllegalArgumentException if timeout is not positive or any of the sizes is &lt; 1.
+     */
+    NegativeResponseCache(final Duration timeout, final int maxSize, final int maxSizePerTenant) {
+        this(timeout, maxSize, maxSizePerTenant, System::nanoTime);
+    }
+
+    /**
+     * Creates a new cache for a ticker.
+     *
+     * @param timeout The period of time for which responses are cached.
+     * @param maxSize The maximum number of cached responses.
+     * @param maxSizePerTenant The maximum number of cached responses per tenant.
+     * @param ticker The source of the current (monotonic) time in nanoseconds.
+     * @throws NullPointerException if timeout or ticker are {@code null}.
+     * @throws IllegalArgumentException if timeout is not positive or any of the sizes is &lt; 1.
+     */
+    NegativeResponseCache(
+            final Duration timeout,
+            final int maxSize,
+            final int maxSizePerTenant,
+            final LongSupplier ticker) {
+
+        Objects.requireNonNull(timeout);
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        if (maxSize < 1 || maxSizePerTenant < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        this.timeoutNanos = timeout.toNanos();
+        this.maxSize = maxSize;
+        this.maxSizePerTenant = maxSizePerTenant;
+        this.ticker = Objects.requireNonNull(ticker);
+    }
+
+    /**
+     * Creates a cache based on client configuration properties.
+     *
+     * @param config The configuration properties.
+     * @return The cache or {@code null} if the properties are no request-response client
+     *         properties or if caching of negative responses is disabled.
+     */
+    static NegativeResponseCache from(final ClientConfigProperties config) {
+
+        if (config instanceof RequestResponseClientConfigProperties) {
+            final RequestResponseClientConfigProperties props = (RequestResponseClientConfigProperties) config;
+            if (props.getNegativeResponseCacheTimeout() > 0) {
+                return new NegativeResponseCache(
+                        Duration.ofSeconds(props.getNegativeResponseCacheTimeout()),
+                        props.getNegativeResponseCacheMaxSize(),
+                        props.getNegativeResponseCacheMaxSizePerTenant());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a cached response.
+     *
+     * @param <T> The type of response.
+     * @param tenantId The tenant that the request has been scoped to or {@code null}
+     *                 if the request has not been scoped to a tenant.
+     * @param key The key that the response has been cached under.
+     * @return The response or {@code null} if no unexpired response exists for the key.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized <T> T get(final String tenantId, final Object key) {
+
+        final TriTuple<String, Object, Object> cacheKey = TriTuple.of(tenantId, key, null);
+        final CachedResponse cachedResponse = responses.get(cacheKey);
+        if (cachedResponse == null) {
+            return null;
+        } else if (ticker.getAsLong() - cachedResponse.expiresAt >= 0) {
+            remove(cacheKey, cachedResponse);
+            return null;
+        } else {
+            return (T) cachedResponse.response;
+        }
+    }
+
+    /**
+     * Puts a response to the cache.
+     * <p>
+     * The response is not cached if the maximum number of responses for the tenant
+     * has been reached.
+     *
+     * @param tenantId The tenant that the request has been scoped to or {@code null}
+     *                 if the request has not been scoped to a tenant. The number of responses
+     *                 per tenant is not limited for requests that have not been scoped to a tenant.
+     * @param key The key to cache the response under.
+     * @param response The response.
+     * @throws NullPointerException if key or response are {@code null}.
+     */
+    synchronized void put(final String tenantId, final Object key, final Object response) {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(response);
+
+        final long now = ticker.getAsLong();
+        removeExpired(now);
+
+        final TriTuple<String, Object, Object> cacheKey = TriTuple.of(tenantId, key, null);
+        final CachedResponse existingResponse = responses.get(cacheKey);
+        if (existingResponse != null) {
+            remove(cacheKey, existingResponse);
+        } else if (tenantId != null && responsesPerTenant.getOrDefault(tenantId, 0) >= maxSizePerTenant) {
+            return;
+        }
+        if (responses.size() >= maxSize) {
+            final Map.Entry<TriTuple<String, Object, Object>, CachedResponse> eldest = responses.entrySet().iterator().next();
+            remove(eldest.getKey(), eldest.getValue());
+        }
+        responses.put(cacheKey, new CachedResponse(response, now + timeoutNanos));
+        if (tenantId != null) {
+            responsesPerTenant.merge(tenantId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Removes a response from the cache.
+     *
+     * @param tenantId The tenant that the request has been scoped to or {@code null}
+     *                 if the request has not been scoped to a tenant.
+     * @param key The key that the response has been cached under.
+     */
+    synchronized void remove(final String tenantId, final Object key) {
+
+        final TriTuple<String, Object, Object> cacheKey = TriTuple.of(tenantId, key, null);
+        final CachedResponse cachedResponse = responses.get(cacheKey);
+        if (cachedResponse != null) {
+            remove(cacheKey, cachedResponse);
+        }
+    }
+
+    /**
+     * Gets the number of cached responses.
+     *
+     * @return The number of responses, including expired ones that have not been removed yet.
+     */
+    synchronized int size() {
+        return responses.size();
+    }
+
+    private void removeExpired(final long now) {
+
+        // all responses are cached for the same period of time, so the
+        // insertion order of the responses is also their expiration order
+        final Iterator<Map.Entry<TriTuple<String, Object, Object>, CachedResponse>> entries = responses.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<TriTuple<String, Object, Object>, CachedResponse> entry = entries.next();
+            if (now - entry.getValue().expiresAt < 0) {
+                break;
+            }
+            entries.remove();
+            decrementResponsesPerTenant(entry.getKey().one());
+        }
+    }
+
+    private void remove(final TriTuple<String, Object, Object> cacheKey, final CachedResponse cachedResponse) {
+        if (responses.remove(cacheKey, cachedResponse)) {
+            decrementResponsesPerTenant(cacheKey.one());
+        }
+    }
+
+    private void decrementResponsesPerTenant(final String tenantId) {
+        if (tenantId != null) {
+            responsesPerTenant.computeIfPresent(tenantId, (tenant, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * A response along with the point in time at which it expires.
+     */
+    private static final class CachedResponse {
+
+        private final Object response;
+        private final long expiresAt;
+
+        CachedResponse(final Object response, final long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
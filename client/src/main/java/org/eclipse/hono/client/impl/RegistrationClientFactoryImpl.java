@@ -18,6 +18,7 @@ import java.util.Objects;
 
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.HonoConnection;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.RegistrationClient;
 import org.eclipse.hono.client.RegistrationClientFactory;
 import org.eclipse.hono.util.Constants;
@@ -35,6 +36,8 @@ public class RegistrationClientFactoryImpl extends AbstractHonoClientFactory imp
 
     private final CachingClientFactory<RegistrationClient> registrationClientFactory;
     private final CacheProvider cacheProvider;
+    private final NegativeResponseCache negativeResponseCache;
+    private final RequestResponseClientMetrics metrics;
 
     /**
      * Creates a new factory for an existing connection.
@@ -45,9 +48,29 @@ public class RegistrationClientFactoryImpl extends AbstractHonoClientFactory imp
      * @throws NullPointerException if connection is {@code null}
      */
     public RegistrationClientFactoryImpl(final HonoConnection connection, final CacheProvider cacheProvider) {
+        this(connection, cacheProvider, RequestResponseClientMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new factory for an existing connection.
+     * 
+     * @param connection The connection to use.
+     * @param cacheProvider The cache provider to use for creating caches for tenant objects
+     *                      or {@code null} if tenant objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by this factory.
+     * @throws NullPointerException if connection or metrics are {@code null}.
+     */
+    public RegistrationClientFactoryImpl(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+
         super(connection);
         this.registrationClientFactory = new CachingClientFactory<>(connection.getVertx(), c -> c.isOpen());
         this.cacheProvider = cacheProvider;
+        this.negativeResponseCache = NegativeResponseCache.from(connection.getConfig());
+        this.metrics = Objects.requireNonNull(metrics);
         connection.getVertx().eventBus().consumer(Constants.EVENT_BUS_ADDRESS_TENANT_TIMED_OUT,
                 this::handleTenantTimeout);
     }
@@ -74,6 +97,8 @@ public class RegistrationClientFactoryImpl extends AbstractHonoClientFactory imp
                             RegistrationClientImpl.getTargetAddress(tenantId),
                             () -> RegistrationClientImpl.create(
                                     cacheProvider,
+                                    negativeResponseCache,
+                                    metrics,
                                     connection,
                                     tenantId,
                                     this::removeRegistrationClient,
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -14,17 +14,25 @@
 package org.eclipse.hono.client.impl;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.HonoConnection;
 import org.eclipse.hono.client.RegistrationClient;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
+import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.client.StatusCodeMapper;
+import org.eclipse.hono.tracing.TracingHelper;
 import org.eclipse.hono.util.CacheDirective;
 import org.eclipse.hono.util.MessageHelper;
 import org.eclipse.hono.util.RegistrationConstants;
@@ -35,11 +43,14 @@ import org.slf4j.LoggerFactory;
 
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
+import io.opentracing.tag.Tags;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.proton.ProtonReceiver;
 import io.vertx.proton.ProtonSender;
@@ -144,8 +155,61 @@ public class RegistrationClientImpl extends AbstractRequestResponseClient<Regist
             final Handler<String> senderCloseHook,
             final Handler<String> receiverCloseHook) {
 
+        return create(cacheProvider, RequestResponseClientMetrics.NOOP, con, tenantId, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new registration client for a tenant.
+     * 
+     * @param cacheProvider A factory for cache instances for registration results. If {@code null}
+     *                     the client will not cache any results from the Device Registration service.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param tenantId The tenant to consumer events for.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters other than cache provider is {@code null}.
+     */
+    public static final Future<RegistrationClient> create(
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final String tenantId,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
+        return create(cacheProvider, null, metrics, con, tenantId, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new registration client for a tenant.
+     * 
+     * @param cacheProvider A factory for cache instances for registration results. If {@code null}
+     *                     the client will not cache any results from the Device Registration service.
+     * @param negativeResponseCache The cache to use for responses indicating that a requested resource
+     *                              does not exist or {@code null} if such responses should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param tenantId The tenant to consumer events for.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters other than the caches is {@code null}.
+     */
+    static Future<RegistrationClient> create(
+            final CacheProvider cacheProvider,
+            final NegativeResponseCache negativeResponseCache,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final String tenantId,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
         LOG.debug("creating new registration client for [{}]", tenantId);
         final RegistrationClientImpl client = new RegistrationClientImpl(con, tenantId);
+        client.setMetrics(metrics);
+        client.setNegativeResponseCache(negativeResponseCache);
         if (cacheProvider != null) {
             client.setResponseCache(cacheProvider.getCache(RegistrationClientImpl.getTargetAddress(tenantId)));
         }
@@ -251,23 +315,24 @@ public class RegistrationClientImpl extends AbstractRequestResponseClient<Regist
         span.setTag(MessageHelper.APP_PROPERTY_DEVICE_ID, deviceId);
         span.setTag(MessageHelper.APP_PROPERTY_GATEWAY_ID, gatewayId);
 
-        final Future<RegistrationResult> resultTracker = getResponseFromCache(key, span)
-                .recover(t -> {
-                    final Promise<RegistrationResult> regResult = Promise.promise();
-                    final Map<String, Object> properties = createDeviceIdProperties(deviceId);
-                    if (gatewayId != null) {
-                        properties.put(MessageHelper.APP_PROPERTY_GATEWAY_ID, gatewayId);
-                    }
-                    createAndSendRequest(
-                            RegistrationConstants.ACTION_ASSERT,
-                            properties,
-                            null,
-                            RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON,
-                            regResult,
-                            key,
-                            span);
-                    return regResult.future();
-                });
+        final Function<Span, Future<RegistrationResult>> requestSender = requestSpan -> {
+            final Promise<RegistrationResult> regResult = Promise.promise();
+            final Map<String, Object> properties = createDeviceIdProperties(deviceId);
+            if (gatewayId != null) {
+                properties.put(MessageHelper.APP_PROPERTY_GATEWAY_ID, gatewayId);
+            }
+            createAndSendRequest(
+                    RegistrationConstants.ACTION_ASSERT,
+                    properties,
+                    null,
+                    RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON,
+                    regResult,
+                    key,
+                    requestSpan);
+            return regResult.future();
+        };
+        final Future<RegistrationResult> resultTracker = getResponseFromCache(key, span, requestSender)
+                .recover(t -> requestSender.apply(span));
         return mapResultAndFinishSpan(resultTracker, result -> {
             switch (result.getStatus()) {
             case HttpURLConnection.HTTP_OK:
@@ -283,4 +348,132 @@ public class RegistrationClientImpl extends AbstractRequestResponseClient<Regist
             }
         }, span);
     }
+
+    /**
+     * Invokes the <em>Assert Device Registrations</em> operation of Hono's
+     * <a href="https://www.eclipse.org/hono/docs/api/device-registration/">Device Registration API</a>
+     * on the service represented by the <em>sender</em> and <em>receiver</em> links.
+     * <p>
+     * The assertions of devices that are contained in the cache are not requested from
+     * the service. The assertions of all other devices are requested by means of a single
+     * request message and are put to the cache individually, i.e. subsequent invocations of
+     * {@link #assertRegistration(String, String, SpanContext)} for any of the devices
+     * will be served from the cache.
+     * <p>
+     * If the service does not support the operation, the assertions are requested for
+     * each device individually.
+     */
+    @Override
+    public final Future<Map<String, JsonObject>> assertRegistrations(
+            final Collection<String> deviceIds,
+            final String gatewayId,
+            final SpanContext parent) {
+
+        Objects.requireNonNull(deviceIds);
+        Objects.requireNonNull(gatewayId);
+
+        final Span span = newChildSpan(parent, "assert Device Registrations");
+        span.setTag(MessageHelper.APP_PROPERTY_TENANT_ID, getTenantId());
+        span.setTag(MessageHelper.APP_PROPERTY_GATEWAY_ID, gatewayId);
+
+        final Map<String, RegistrationResult> results = new HashMap<>();
+        final JsonArray uncachedDeviceIds = new JsonArray();
+        for (final String deviceId : new LinkedHashSet<>(deviceIds)) {
+            final Future<RegistrationResult> cachedResult = getResponseFromCache(
+                    TriTuple.of(RegistrationConstants.ACTION_ASSERT, deviceId, gatewayId), null);
+            if (cachedResult.succeeded()) {
+                results.put(deviceId, cachedResult.result());
+            } else {
+                uncachedDeviceIds.add(deviceId);
+            }
+        }
+        span.log(String.format("found %d assertions in cache", results.size()));
+
+        final Future<Map<String, RegistrationResult>> resultTracker;
+        if (uncachedDeviceIds.isEmpty()) {
+            resultTracker = Future.succeededFuture(results);
+        } else {
+            final Promise<RegistrationResult> batchResult = Promise.promise();
+            final Map<String, Object> properties = new HashMap<>();
+            properties.put(MessageHelper.APP_PROPERTY_GATEWAY_ID, gatewayId);
+            createAndSendRequest(
+                    RegistrationConstants.ACTION_ASSERT_BATCH,
+                    properties,
+                    new JsonObject().put(RegistrationConstants.FIELD_DEVICE_IDS, uncachedDeviceIds).toBuffer(),
+                    RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON,
+                    batchResult,
+                    null,
+                    span);
+            resultTracker = batchResult.future()
+                    .compose(result -> {
+                        if (result.isOk()) {
+                            result.getAssertions().forEach((deviceId, assertion) -> {
+                                addToCache(TriTuple.of(RegistrationConstants.ACTION_ASSERT, deviceId, gatewayId), assertion);
+                                results.put(deviceId, assertion);
+                            });
+                            return Future.succeededFuture(results);
+                        } else {
+                            return Future.failedFuture(StatusCodeMapper.from(result));
+                        }
+                    })
+                    .recover(t -> {
+                        if (isBatchAssertionUnsupported(t)) {
+                            LOG.debug("service does not support batch assertions, asserting devices individually");
+                            span.log("service does not support batch assertions, asserting devices individually");
+                            return assertRegistrationsIndividually(uncachedDeviceIds, gatewayId, span, results);
+                        }
+                        return Future.failedFuture(t);
+                    });
+        }
+
+        return resultTracker.recover(t -> {
+            Tags.HTTP_STATUS.set(span, ServiceInvocationException.extractStatusCode(t));
+            TracingHelper.logError(span, t);
+            span.finish();
+            return Future.failedFuture(t);
+        }).map(assertions -> {
+            final Map<String, JsonObject> payloads = new HashMap<>();
+            assertions.forEach((deviceId, assertion) -> {
+                if (assertion.isOk()) {
+                    payloads.put(deviceId, assertion.getPayload());
+                }
+            });
+            Tags.HTTP_STATUS.set(span, HttpURLConnection.HTTP_OK);
+            span.finish();
+            return payloads;
+        });
+    }
+
+    private static boolean isBatchAssertionUnsupported(final Throwable error) {
+        final int status = ServiceInvocationException.extractStatusCode(error);
+        return status == HttpURLConnection.HTTP_BAD_REQUEST || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Future<Map<String, RegistrationResult>> assertRegistrationsIndividually(
+            final JsonArray deviceIds,
+            final String gatewayId,
+            final Span span,
+            final Map<String, RegistrationResult> results) {
+
+        // send the requests concurrently and collect the results once all of them have completed
+        final List<Future> assertions = new ArrayList<>(deviceIds.size());
+        for (final Object deviceId : deviceIds) {
+            assertions.add(assertRegistration((String) deviceId, gatewayId, span.context())
+                    .map(assertion -> RegistrationResult.from(HttpURLConnection.HTTP_OK, assertion))
+                    .recover(t -> {
+                        final int status = ServiceInvocationException.extractStatusCode(t);
+                        if (status >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                            return Future.failedFuture(t);
+                        }
+                        return Future.succeededFuture(RegistrationResult.from(status));
+                    }));
+        }
+        return CompositeFuture.all(assertions).map(allAssertions -> {
+            for (int i = 0; i < deviceIds.size(); i++) {
+                results.put(deviceIds.getString(i), allAssertions.resultAt(i));
+            }
+            return results;
+        });
+    }
 }
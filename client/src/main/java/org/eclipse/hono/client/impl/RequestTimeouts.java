@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.client.impl;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * Keeps track of the points in time at which outstanding requests time out.
+ * <p>
+ * Instead of setting a vert.x timer for each request, requests are grouped into
+ * buckets of deadlines which are one tenth of the request timeout apart. A single
+ * timer is used for the earliest bucket only, so that the number of timers does
+ * not depend on the number of outstanding requests. Requests are removed from
+ * their bucket once the response has been received.
+ * <p>
+ * As a consequence, a request times out after at least the given timeout period but
+ * no later than one tenth of the period after it.
+ * <p>
+ * Instances are not thread safe and are supposed to be used on a single vert.x
+ * context only.
+ */
+final class RequestTimeouts {
+
+    /**
+     * The value indicating that a request has no timeout.
+     */
+    static final long NO_TIMEOUT = -1L;
+
+    private static final int BUCKETS_PER_TIMEOUT_PERIOD = 10;
+
+    private final NavigableMap<Long, Set<Object>> buckets = new TreeMap<>();
+    private final Vertx vertx;
+    private final Handler<Object> timeoutHandler;
+    private final LongSupplier clock;
+
+    private boolean timerSet = false;
+    private long timerId;
+    private long timerDeadline;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param vertx The vert.x instance to use for setting timers.
+     * @param timeoutHandler The handler to invoke with the identifier of each request
+     *                       that has timed out.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    RequestTimeouts(final Vertx vertx, final Handler<Object> timeoutHandler) {
+        this(vertx, timeoutHandler, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Creates a new instance for a clock.
+     *
+     * @param vertx The vert.x instance to use for setting timers.
+     * @param timeoutHandler The handler to invoke with the identifier of each request
+     *                       that has timed out.
+     * @param clock The source of the current (monotonic) time in milliseconds.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    RequestTimeouts(final Vertx vertx, final Handler<Object> timeoutHandler, final LongSupplier clock) {
+        this.vertx = Objects.requireNonNull(vertx);
+        this.timeoutHandler = Objects.requireNonNull(timeoutHandler);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Schedules the timeout of a request.
+     *
+     * @param requestId The identifier of the request.
+     * @param timeoutMillis The number of milliseconds after which the request times out.
+     * @return The deadline of the bucket that the request has been added to. The value needs to be
+     *         passed in to {@link #cancel(Object, long)} when the response to the request has been received.
+     * @throws NullPointerException if request ID is {@code null}.
+     * @throws IllegalArgumentException if timeout is &lt; 1.
+     */
+    long schedule(final Object requestId, final long timeoutMillis) {
+
+        Objects.requireNonNull(requestId);
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("timeout must be at least 1ms");
+        }
+
+        final long resolution = Math.max(1L, timeoutMillis / BUCKETS_PER_TIMEOUT_PERIOD);
+        final long deadline = clock.getAsLong() + timeoutMillis;
+        // round up to the next multiple of the resolution so that requests
+        // sent at about the same time end up in the same bucket
+        final long bucketDeadline = ((deadline + resolution - 1) / resolution) * resolution;
+
+        buckets.computeIfAbsent(bucketDeadline, k -> new HashSet<>()).add(requestId);
+        if (!timerSet || bucketDeadline < timerDeadline) {
+            setTimer(bucketDeadline);
+        }
+        return bucketDeadline;
+    }
+
+    /**
+     * Cancels the timeout of a request.
+     *
+     * @param requestId The identifier of the request.
+     * @param bucketDeadline The deadline of the bucket that the request has been
+     *                       added to when scheduling the timeout.
+     */
+    void cancel(final Object requestId, final long bucketDeadline) {
+
+        if (bucketDeadline == NO_TIMEOUT) {
+            return;
+        }
+        final Set<Object> bucket = buckets.get(bucketDeadline);
+        if (bucket != null && bucket.remove(requestId) && bucket.isEmpty()) {
+            buckets.remove(bucketDeadline);
+        }
+    }
+
+    /**
+     * Gets the number of requests that have not timed out yet.
+     *
+     * @return The number of requests.
+     */
+    int size() {
+        return buckets.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void setTimer(final long deadline) {
+
+        if (timerSet) {
+            vertx.cancelTimer(timerId);
+        }
+        timerSet = true;
+        timerDeadline = deadline;
+        final long delay = Math.max(1L, deadline - clock.getAsLong());
+        timerId = vertx.setTimer(delay, tid -> {
+            timerSet = false;
+            // the timer never fires before the deadline it has been set for
+            expire(Math.max(deadline, clock.getAsLong()));
+        });
+    }
+
+    private void expire(final long now) {
+
+        Map.Entry<Long, Set<Object>> bucket = buckets.firstEntry();
+        while (bucket != null && bucket.getKey() <= now) {
+            buckets.remove(bucket.getKey());
+            bucket.getValue().forEach(timeoutHandler::handle);
+            bucket = buckets.firstEntry();
+        }
+        // the timeout handler may have scheduled timeouts for new requests already
+        if (bucket != null && (!timerSet || bucket.getKey() < timerDeadline)) {
+            setTimer(bucket.getKey());
+        }
+    }
+}
@@ -14,8 +14,11 @@
 
 package org.eclipse.hono.client.impl;
 
+import java.util.Objects;
+
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.HonoConnection;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.TenantClient;
 import org.eclipse.hono.client.TenantClientFactory;
 
@@ -30,6 +33,8 @@ public class TenantClientFactoryImpl extends AbstractHonoClientFactory implement
 
     private final CachingClientFactory<TenantClient> tenantClientFactory;
     private final CacheProvider cacheProvider;
+    private final NegativeResponseCache negativeResponseCache;
+    private final RequestResponseClientMetrics metrics;
 
     /**
      * Creates a new factory for an existing connection.
@@ -40,9 +45,29 @@ public class TenantClientFactoryImpl extends AbstractHonoClientFactory implement
      * @throws NullPointerException if connection is {@code null}
      */
     public TenantClientFactoryImpl(final HonoConnection connection, final CacheProvider cacheProvider) {
+        this(connection, cacheProvider, RequestResponseClientMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new factory for an existing connection.
+     * 
+     * @param connection The connection to use.
+     * @param cacheProvider The cache provider to use for creating caches for tenant objects
+     *                      or {@code null} if tenant objects should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the clients
+     *                created by this factory.
+     * @throws NullPointerException if connection or metrics are {@code null}.
+     */
+    public TenantClientFactoryImpl(
+            final HonoConnection connection,
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics) {
+
         super(connection);
         this.tenantClientFactory = new CachingClientFactory<>(connection.getVertx(), c -> c.isOpen());
         this.cacheProvider = cacheProvider;
+        this.negativeResponseCache = NegativeResponseCache.from(connection.getConfig());
+        this.metrics = Objects.requireNonNull(metrics);
     }
 
     /**
@@ -65,6 +90,8 @@ public class TenantClientFactoryImpl extends AbstractHonoClientFactory implement
                             TenantClientImpl.getTargetAddress(),
                             () -> TenantClientImpl.create(
                                     cacheProvider,
+                                    negativeResponseCache,
+                                    metrics,
                                     connection,
                                     this::removeTenantClient,
                                     this::removeTenantClient),
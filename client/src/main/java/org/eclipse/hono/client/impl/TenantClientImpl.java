@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -18,6 +18,7 @@ import java.net.HttpURLConnection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import javax.security.auth.x500.X500Principal;
@@ -26,6 +27,7 @@ import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.HonoConnection;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.StatusCodeMapper;
 import org.eclipse.hono.client.TenantClient;
 import org.eclipse.hono.util.CacheDirective;
@@ -154,8 +156,58 @@ public class TenantClientImpl extends AbstractRequestResponseClient<TenantResult
             final Handler<String> senderCloseHook,
             final Handler<String> receiverCloseHook) {
 
+        return create(cacheProvider, RequestResponseClientMetrics.NOOP, con, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new tenant client.
+     *
+     * @param cacheProvider A factory for cache instances for tenant configuration results. If {@code null}
+     *                     the client will not cache any results from the Tenant service.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters, except for senderCloseHook and receiverCloseHook are {@code null}.
+     */
+    public static final Future<TenantClient> create(
+            final CacheProvider cacheProvider,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
+        return create(cacheProvider, null, metrics, con, senderCloseHook, receiverCloseHook);
+    }
+
+    /**
+     * Creates a new tenant client.
+     *
+     * @param cacheProvider A factory for cache instances for tenant configuration results. If {@code null}
+     *                     the client will not cache any results from the Tenant service.
+     * @param negativeResponseCache The cache to use for responses indicating that a requested resource
+     *                              does not exist or {@code null} if such responses should not be cached.
+     * @param metrics The component to use for reporting metrics about the requests sent by the client.
+     * @param con The connection to the server.
+     * @param senderCloseHook A handler to invoke if the peer closes the sender link unexpectedly.
+     * @param receiverCloseHook A handler to invoke if the peer closes the receiver link unexpectedly.
+     * @return A future indicating the outcome of the creation attempt.
+     * @throws NullPointerException if any of the parameters, except for cache provider, negative response cache,
+     *         senderCloseHook and receiverCloseHook are {@code null}.
+     */
+    static Future<TenantClient> create(
+            final CacheProvider cacheProvider,
+            final NegativeResponseCache negativeResponseCache,
+            final RequestResponseClientMetrics metrics,
+            final HonoConnection con,
+            final Handler<String> senderCloseHook,
+            final Handler<String> receiverCloseHook) {
+
         LOG.debug("creating new tenant client");
         final TenantClientImpl client = new TenantClientImpl(con);
+        client.setMetrics(metrics);
+        client.setNegativeResponseCache(negativeResponseCache);
         if (cacheProvider != null) {
             client.setResponseCache(cacheProvider.getCache(TenantClientImpl.getTargetAddress()));
         }
@@ -226,19 +278,20 @@ public class TenantClientImpl extends AbstractRequestResponseClient<TenantResult
             final Supplier<JsonObject> payloadSupplier,
             final Span currentSpan) {
 
-        final Future<TenantResult<TenantObject>> resultTracker = getResponseFromCache(key, currentSpan)
-                .recover(cacheMiss -> {
-                    final Promise<TenantResult<TenantObject>> tenantResult = Promise.promise();
-                    createAndSendRequest(
-                            TenantAction.get.toString(),
-                            customizeRequestApplicationProperties(),
-                            payloadSupplier.get().toBuffer(),
-                            RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON,
-                            tenantResult,
-                            key,
-                            currentSpan);
-                    return tenantResult.future();
-                });
+        final Function<Span, Future<TenantResult<TenantObject>>> requestSender = requestSpan -> {
+            final Promise<TenantResult<TenantObject>> tenantResult = Promise.promise();
+            createAndSendRequest(
+                    TenantAction.get.toString(),
+                    customizeRequestApplicationProperties(),
+                    payloadSupplier.get().toBuffer(),
+                    RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON,
+                    tenantResult,
+                    key,
+                    requestSpan);
+            return tenantResult.future();
+        };
+        final Future<TenantResult<TenantObject>> resultTracker = getResponseFromCache(key, currentSpan, requestSender)
+                .recover(cacheMiss -> requestSender.apply(currentSpan));
         return mapResultAndFinishSpan(resultTracker, tenantResult -> {
             switch (tenantResult.getStatus()) {
             case HttpURLConnection.HTTP_OK:
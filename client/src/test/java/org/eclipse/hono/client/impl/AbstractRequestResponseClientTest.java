@@ -19,9 +19,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,6 +32,9 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
@@ -40,8 +45,11 @@ import org.apache.qpid.proton.message.Message;
 import org.eclipse.hono.cache.ExpiringValueCache;
 import org.eclipse.hono.client.HonoConnection;
 import org.eclipse.hono.client.RequestResponseClientConfigProperties;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.ServerErrorException;
 import org.eclipse.hono.client.ServiceInvocationException;
+import org.eclipse.hono.config.ClientConfigProperties;
+import org.eclipse.hono.tracing.TracingHelper;
 import org.eclipse.hono.util.CacheDirective;
 import org.eclipse.hono.util.Constants;
 import org.eclipse.hono.util.MessageHelper;
@@ -52,10 +60,12 @@ import org.mockito.ArgumentCaptor;
 
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import io.vertx.proton.ProtonDelivery;
@@ -160,8 +170,8 @@ public class AbstractRequestResponseClientTest  {
         assertThat(body.getBytes()).isEqualTo(payload.toBuffer().getBytes());
         assertThat(messageCaptor.getValue().getApplicationProperties()).isNotNull();
         assertThat(messageCaptor.getValue().getApplicationProperties().getValue().get("test-key")).isEqualTo("test-value");
-        // and a timer has been set to time out the request after 200 ms
-        verify(vertx).setTimer(eq(200L), VertxMockSupport.anyHandler());
+        // and a timer has been set to time out the request after 200 ms (rounded up to the timeout bucket)
+        verify(vertx).setTimer(longThat(delay -> delay >= 200L && delay <= 220L), VertxMockSupport.anyHandler());
     }
 
     /**
@@ -265,6 +275,51 @@ public class AbstractRequestResponseClientTest  {
                 span);
     }
 
+    /**
+     * Verifies that the client does not time out a request for which a response
+     * has been received and that it reports the number of outstanding requests.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testHandleResponseCancelsRequestTimeout(final VertxTestContext ctx) {
+
+        // GIVEN a request-response client which times out requests after 200 ms
+        client.setRequestTimeout(200);
+        final RequestResponseClientMetrics metrics = mock(RequestResponseClientMetrics.class);
+        client.setMetrics(metrics);
+        final AtomicReference<Handler<Long>> timeoutTask = new AtomicReference<>();
+        when(vertx.setTimer(anyLong(), VertxMockSupport.anyHandler())).thenAnswer(invocation -> {
+            timeoutTask.set(invocation.getArgument(1));
+            return 1L;
+        });
+
+        // and a request that has been sent to the peer
+        final AtomicInteger handlerInvocations = new AtomicInteger();
+        client.createAndSendRequest(
+                "request",
+                Buffer.buffer("hello"),
+                ctx.succeeding(s -> handlerInvocations.incrementAndGet()),
+                span);
+        verify(metrics).incrementOutstandingRequests("peer");
+
+        // WHEN a response is received for the request
+        final Message response = ProtonHelper.message("payload");
+        response.setCorrelationId(MESSAGE_ID);
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, 200);
+        client.handleResponse(mock(ProtonDelivery.class), response);
+
+        // and the timer for the request's timeout bucket fires afterwards
+        timeoutTask.get().handle(1L);
+
+        // THEN the result handler has been invoked with the response only
+        ctx.verify(() -> {
+            assertThat(handlerInvocations.get()).isEqualTo(1);
+            verify(metrics).decrementOutstandingRequests("peer");
+        });
+        ctx.completeNow();
+    }
+
     /**
      * Verifies that a response handler is immediately failed with a
      * {@link ServerErrorException} when the sender link is not open (yet).
@@ -310,6 +365,36 @@ public class AbstractRequestResponseClientTest  {
         }));
     }
 
+    /**
+     * Verifies that the client puts a response with a 404 status code that does not contain
+     * a cache directive to the negative response cache instead of the response cache.
+     */
+    @Test
+    public void testCreateAndSendRequestAddsNotFoundResponseToNegativeCache() {
+
+        // GIVEN a client with a response cache and a negative response cache
+        client.setResponseCache(cache);
+        final NegativeResponseCache negativeResponseCache = new NegativeResponseCache(Duration.ofSeconds(5), 10, 10);
+        client.setNegativeResponseCache(negativeResponseCache);
+
+        // WHEN sending a request for an unknown resource
+        client.createAndSendRequest("get", (Buffer) null, r -> {}, "cacheKey");
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        final Message response = ProtonHelper.message();
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_NOT_FOUND);
+        response.setCorrelationId(messageCaptor.getValue().getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+
+        // THEN the response has been put to the negative response cache only
+        verify(cache, never()).put(any(), any(SimpleRequestResponseResult.class), any(Duration.class));
+        assertThat(negativeResponseCache.size()).isEqualTo(1);
+        // and subsequent requests for the resource are served from the cache
+        final Future<SimpleRequestResponseResult> cachedResponse = client.getResponseFromCache("cacheKey", span);
+        assertThat(cachedResponse.result().getStatus()).isEqualTo(HttpURLConnection.HTTP_NOT_FOUND);
+        verify(span).setTag(TracingHelper.TAG_CACHE_HIT.getKey(), true);
+    }
+
     /**
      * Verifies that the adapter puts the response from the service to the cache
      * using the default cache timeout if the response does not contain a
@@ -427,6 +512,180 @@ public class AbstractRequestResponseClientTest  {
         client.handleResponse(delivery, response);
     }
 
+    /**
+     * Verifies that the client sends a single request message only for concurrent requests
+     * that share the same cache key and that the response is passed to all of the requests'
+     * result handlers.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testCreateAndSendRequestCoalescesConcurrentRequestsForSameCacheKey(final VertxTestContext ctx) {
+
+        // GIVEN an adapter with an empty cache
+        client.setResponseCache(cache);
+        final RequestResponseClientMetrics metrics = mock(RequestResponseClientMetrics.class);
+        client.setMetrics(metrics);
+        final Checkpoint responsesReceived = ctx.checkpoint(2);
+
+        // WHEN sending two requests for the same cache key before a response has been received
+        client.createAndSendRequest("get", (Buffer) null, ctx.succeeding(result -> {
+            ctx.verify(() -> assertEquals(200, result.getStatus()));
+            responsesReceived.flag();
+        }), "cacheKey");
+        client.createAndSendRequest("get", (Buffer) null, ctx.succeeding(result -> {
+            ctx.verify(() -> assertEquals(200, result.getStatus()));
+            responsesReceived.flag();
+        }), "cacheKey");
+
+        // THEN only a single request message is sent to the peer
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        // and the second request has been reported as coalesced
+        verify(metrics).incrementCoalescedRequests("peer");
+
+        // and the response to the single request message is passed to both result handlers
+        final Message response = ProtonHelper.message("result");
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_OK);
+        response.setCorrelationId(messageCaptor.getValue().getMessageId());
+        final ProtonDelivery delivery = mock(ProtonDelivery.class);
+        client.handleResponse(delivery, response);
+    }
+
+    /**
+     * Verifies that the response to a request is passed to all coalesced requests' result
+     * handlers even if one of the handlers throws an exception.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testCoalescedRequestsSucceedIfResultHandlerOfOtherRequestFails(final VertxTestContext ctx) {
+
+        // GIVEN an adapter with an empty cache
+        client.setResponseCache(cache);
+
+        // WHEN sending two requests for the same cache key before a response has been received
+        // and the result handler of the first request fails
+        client.createAndSendRequest("get", (Buffer) null, result -> {
+            throw new IllegalStateException("faulty caller");
+        }, "cacheKey");
+        client.createAndSendRequest("get", (Buffer) null, ctx.succeeding(result -> {
+            ctx.verify(() -> assertEquals(200, result.getStatus()));
+            ctx.completeNow();
+        }), "cacheKey");
+
+        // THEN the response to the single request message is still passed to the second handler
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        final Message response = ProtonHelper.message("result");
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_OK);
+        response.setCorrelationId(messageCaptor.getValue().getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+    }
+
+    /**
+     * Verifies that the client sends a new request message for a cache key once the
+     * response to the previous request for the same key has been received.
+     */
+    @Test
+    public void testCreateAndSendRequestDoesNotCoalesceRequestsAfterResponseHasBeenReceived() {
+
+        // GIVEN an adapter with an empty cache
+        client.setResponseCache(cache);
+
+        // and a request that has already been answered by the peer
+        client.createAndSendRequest("get", (Buffer) null, s -> {}, "cacheKey");
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        final Message response = ProtonHelper.message("result");
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_OK);
+        response.setCorrelationId(messageCaptor.getValue().getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+
+        // WHEN sending another request for the same cache key
+        client.createAndSendRequest("get", (Buffer) null, s -> {}, "cacheKey");
+
+        // THEN a new request message is sent to the peer
+        verify(sender, times(2)).send(any(Message.class), VertxMockSupport.anyHandler());
+    }
+
+    /**
+     * Verifies that the client refreshes a cached response in the background when
+     * the response is retrieved from the cache within the configured fraction of its max age.
+     */
+    @Test
+    public void testGetResponseFromCacheRefreshesResponseAboutToExpire() {
+
+        // GIVEN a client that refreshes cached responses during (almost) all of their max age
+        final RequestResponseClientConfigProperties config = new RequestResponseClientConfigProperties();
+        config.setResponseCacheRefreshAheadFraction(0.999_999_999);
+        client = getClient("tenant", sender, receiver, config);
+        client.setResponseCache(cache);
+        final RequestResponseClientMetrics metrics = mock(RequestResponseClientMetrics.class);
+        client.setMetrics(metrics);
+
+        // and a response that has been put to the cache
+        final SimpleRequestResponseResult cachedResult = givenACachedResponse();
+
+        // WHEN retrieving the response from the cache
+        final AtomicInteger refreshRequests = new AtomicInteger();
+        final Function<Span, Future<SimpleRequestResponseResult>> requestSender = refreshSpan -> {
+            refreshRequests.incrementAndGet();
+            return Future.succeededFuture(cachedResult);
+        };
+        final Future<SimpleRequestResponseResult> result = client.getResponseFromCache("cacheKey", span, requestSender);
+
+        // THEN the cached response is returned
+        assertThat(result.result()).isEqualTo(cachedResult);
+        // and a request for refreshing the response has been sent
+        assertThat(refreshRequests.get()).isEqualTo(1);
+        verify(metrics).incrementCacheRefreshes("peer");
+        verify(span).setTag(TracingHelper.TAG_CACHE_REFRESH.getKey(), true);
+
+        // but no other refresh request is sent when retrieving the response again
+        client.getResponseFromCache("cacheKey", span, requestSender);
+        assertThat(refreshRequests.get()).isEqualTo(1);
+    }
+
+    /**
+     * Verifies that the client does not refresh cached responses by default.
+     */
+    @Test
+    public void testGetResponseFromCacheDoesNotRefreshResponseByDefault() {
+
+        // GIVEN a client with default configuration
+        client.setResponseCache(cache);
+        // and a response that has been put to the cache
+        final SimpleRequestResponseResult cachedResult = givenACachedResponse();
+
+        // WHEN retrieving the response from the cache
+        final AtomicInteger refreshRequests = new AtomicInteger();
+        final Future<SimpleRequestResponseResult> result = client.getResponseFromCache("cacheKey", span, refreshSpan -> {
+            refreshRequests.incrementAndGet();
+            return Future.succeededFuture(cachedResult);
+        });
+
+        // THEN the cached response is returned
+        assertThat(result.result()).isEqualTo(cachedResult);
+        // and no request for refreshing the response has been sent
+        assertThat(refreshRequests.get()).isEqualTo(0);
+    }
+
+    private SimpleRequestResponseResult givenACachedResponse() {
+
+        final AtomicReference<SimpleRequestResponseResult> cachedResult = new AtomicReference<>();
+        client.createAndSendRequest("get", (Buffer) null, r -> cachedResult.set(r.result()), "cacheKey");
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        final Message response = ProtonHelper.message("result");
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_OK);
+        MessageHelper.addCacheDirective(response, CacheDirective.maxAgeDirective(1));
+        response.setCorrelationId(messageCaptor.getValue().getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+        when(cache.get("cacheKey")).thenReturn(cachedResult.get());
+        return cachedResult.get();
+    }
+
     /**
      * Verifies that the client succeeds the result handler if the peer accepts
      * the request message for a one-way request.
@@ -480,8 +739,16 @@ public class AbstractRequestResponseClientTest  {
     }
 
     private AbstractRequestResponseClient<SimpleRequestResponseResult> getClient(final String tenant, final ProtonSender sender, final ProtonReceiver receiver) {
+        return getClient(tenant, sender, receiver, new ClientConfigProperties());
+    }
+
+    private AbstractRequestResponseClient<SimpleRequestResponseResult> getClient(
+            final String tenant,
+            final ProtonSender sender,
+            final ProtonReceiver receiver,
+            final ClientConfigProperties config) {
 
-        final HonoConnection connection = HonoClientUnitTestHelper.mockHonoConnection(vertx);
+        final HonoConnection connection = HonoClientUnitTestHelper.mockHonoConnection(vertx, config);
         return new AbstractRequestResponseClient<SimpleRequestResponseResult>(connection, tenant, sender, receiver) {
 
             @Override
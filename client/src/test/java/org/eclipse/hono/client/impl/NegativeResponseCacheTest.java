@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hono.client.RequestResponseClientConfigProperties;
+import org.eclipse.hono.config.ClientConfigProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests verifying behavior of {@link NegativeResponseCache}.
+ *
+ */
+public class NegativeResponseCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private NegativeResponseCache cache;
+
+    /**
+     * Sets up the fixture.
+     */
+    @BeforeEach
+    public void setUp() {
+        cache = new NegativeResponseCache(Duration.ofSeconds(5), 4, 2, now::get);
+    }
+
+    /**
+     * Verifies that cached responses are scoped to a tenant and expire after the timeout.
+     */
+    @Test
+    public void testGetReturnsUnexpiredResponseForTenant() {
+
+        cache.put("tenant", "key", "not found");
+
+        assertThat(cache.<String> get("tenant", "key")).isEqualTo("not found");
+        assertThat(cache.<String> get("other-tenant", "key")).isNull();
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(cache.<String> get("tenant", "key")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verifies that no more responses are cached for a tenant once
+     * the maximum number of responses per tenant has been reached.
+     */
+    @Test
+    public void testPutRespectsMaxSizePerTenant() {
+
+        cache.put("tenant", "key1", "not found");
+        cache.put("tenant", "key2", "not found");
+        cache.put("tenant", "key3", "not found");
+        cache.put("other-tenant", "key1", "not found");
+
+        assertThat(cache.<String> get("tenant", "key3")).isNull();
+        assertThat(cache.<String> get("other-tenant", "key1")).isEqualTo("not found");
+        assertThat(cache.size()).isEqualTo(3);
+
+        // responses for the tenant can be cached again once existing ones have been removed
+        cache.remove("tenant", "key1");
+        cache.put("tenant", "key3", "not found");
+        assertThat(cache.<String> get("tenant", "key3")).isEqualTo("not found");
+    }
+
+    /**
+     * Verifies that the oldest response is removed once the maximum
+     * number of responses has been reached.
+     */
+    @Test
+    public void testPutRemovesOldestResponseWhenMaxSizeIsReached() {
+
+        cache.put(null, "key1", "not found");
+        cache.put(null, "key2", "not found");
+        cache.put(null, "key3", "not found");
+        cache.put(null, "key4", "not found");
+        cache.put(null, "key5", "not found");
+
+        assertThat(cache.size()).isEqualTo(4);
+        assertThat(cache.<String> get(null, "key1")).isNull();
+        assertThat(cache.<String> get(null, "key5")).isEqualTo("not found");
+    }
+
+    /**
+     * Verifies that expired responses are removed when new responses are added
+     * and no longer count towards the tenant's limit.
+     */
+    @Test
+    public void testPutRemovesExpiredResponses() {
+
+        cache.put("tenant", "key1", "not found");
+        cache.put("tenant", "key2", "not found");
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        cache.put("tenant", "key3", "not found");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.<String> get("tenant", "key3")).isEqualTo("not found");
+    }
+
+    /**
+     * Verifies that no cache is created unless a timeout has been configured.
+     */
+    @Test
+    public void testFromRequiresTimeout() {
+
+        final RequestResponseClientConfigProperties config = new RequestResponseClientConfigProperties();
+        assertThat(NegativeResponseCache.from(config)).isNull();
+        assertThat(NegativeResponseCache.from(new ClientConfigProperties())).isNull();
+
+        config.setNegativeResponseCacheTimeout(10);
+        assertThat(NegativeResponseCache.from(config)).isNotNull();
+    }
+}
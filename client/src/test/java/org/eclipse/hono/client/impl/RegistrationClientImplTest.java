@@ -20,11 +20,16 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.HttpURLConnection;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.qpid.proton.message.Message;
 import org.eclipse.hono.cache.ExpiringValueCache;
@@ -45,6 +50,7 @@ import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
@@ -214,6 +220,100 @@ public class RegistrationClientImplTest {
                 .isEqualTo("gateway");
     }
 
+    /**
+     * Verifies that the client requests the assertions of all devices that are not
+     * contained in the cache by means of a single request and puts the assertions
+     * contained in the response to the cache individually.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testAssertRegistrationsSendsSingleRequestForCacheMisses(final VertxTestContext ctx) {
+
+        // GIVEN a client with a cache containing an assertion for device "cached"
+        client.setResponseCache(cache);
+        final JsonObject cachedAssertion = newRegistrationAssertionResult().put("device-id", "cached");
+        when(cache.get(eq(TriTuple.of("assert", "cached", "gw"))))
+            .thenReturn(RegistrationResult.from(HttpURLConnection.HTTP_OK, cachedAssertion));
+
+        // WHEN getting the assertions for multiple devices
+        client.assertRegistrations(Arrays.asList("cached", "uncached", "unknown"), "gw", null)
+            .setHandler(ctx.succeeding(result -> ctx.verify(() -> {
+                // THEN the result contains the successful assertions only
+                assertThat(result).containsOnlyKeys("cached", "uncached");
+                assertThat(result.get("cached")).isEqualTo(cachedAssertion);
+                // and the assertion of the uncached device has been put to the cache
+                verify(cache).put(eq(TriTuple.of("assert", "uncached", "gw")), any(RegistrationResult.class), eq(Duration.ofSeconds(60)));
+                // and the span is finished
+                verify(span).finish();
+                ctx.completeNow();
+            })));
+
+        // and a single request for the uncached devices has been sent to the service
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        final Message request = messageCaptor.getValue();
+        assertThat(request.getSubject()).isEqualTo(RegistrationConstants.ACTION_ASSERT_BATCH);
+        assertThat(MessageHelper.getJsonPayload(request).getJsonArray(RegistrationConstants.FIELD_DEVICE_IDS))
+            .isEqualTo(new JsonArray().add("uncached").add("unknown"));
+
+        final Map<String, RegistrationResult> assertions = new HashMap<>();
+        assertions.put("uncached", RegistrationResult.from(
+                HttpURLConnection.HTTP_OK,
+                newRegistrationAssertionResult().put("device-id", "uncached"),
+                CacheDirective.maxAgeDirective(60)));
+        assertions.put("unknown", RegistrationResult.from(HttpURLConnection.HTTP_NOT_FOUND));
+        final Message response = ProtonHelper.message(RegistrationResult.fromAssertions(assertions).getPayload().encode());
+        response.setContentType(RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON);
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, HttpURLConnection.HTTP_OK);
+        MessageHelper.addCacheDirective(response, CacheDirective.noCacheDirective());
+        response.setCorrelationId(request.getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+    }
+
+    /**
+     * Verifies that the client asserts the registration status of the devices individually
+     * if the service does not support the batch assertion operation.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testAssertRegistrationsFallsBackToIndividualRequests(final VertxTestContext ctx) {
+
+        // WHEN getting the assertions for multiple devices from a service that does not support batch assertions
+        client.assertRegistrations(Arrays.asList("device1", "device2"), "gw", null)
+            .setHandler(ctx.succeeding(result -> ctx.verify(() -> {
+                // THEN the result contains the individually asserted devices
+                assertThat(result).containsOnlyKeys("device1", "device2");
+                ctx.completeNow();
+            })));
+
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).send(messageCaptor.capture(), VertxMockSupport.anyHandler());
+        respond(messageCaptor.getValue(), HttpURLConnection.HTTP_NOT_IMPLEMENTED, null);
+
+        // and individual requests have been sent concurrently for each of the devices
+        final ArgumentCaptor<Message> requestCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(sender, times(3)).send(requestCaptor.capture(), VertxMockSupport.anyHandler());
+        final List<Message> requests = requestCaptor.getAllValues().subList(1, 3);
+        assertThat(requests).extracting(MessageHelper::getDeviceId).containsExactly("device1", "device2");
+        for (final Message request : requests) {
+            assertThat(request.getSubject()).isEqualTo(RegistrationConstants.ACTION_ASSERT);
+            respond(request, HttpURLConnection.HTTP_OK,
+                    newRegistrationAssertionResult().put("device-id", MessageHelper.getDeviceId(request)));
+        }
+    }
+
+    private void respond(final Message request, final int status, final JsonObject payload) {
+        final Message response = payload == null ? ProtonHelper.message() : ProtonHelper.message(payload.encode());
+        if (payload != null) {
+            response.setContentType(RegistrationConstants.CONTENT_TYPE_APPLICATION_JSON);
+        }
+        MessageHelper.addProperty(response, MessageHelper.APP_PROPERTY_STATUS, status);
+        response.setCorrelationId(request.getMessageId());
+        client.handleResponse(mock(ProtonDelivery.class), response);
+    }
+
     private static JsonObject newRegistrationAssertionResult() {
         return newRegistrationAssertionResult(null);
     }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.client.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * Tests verifying behavior of {@link RequestTimeouts}.
+ *
+ */
+public class RequestTimeoutsTest {
+
+    private final AtomicLong now = new AtomicLong(1000L);
+    private final List<Object> timedOutRequests = new ArrayList<>();
+    private final List<Handler<Long>> timers = new ArrayList<>();
+    private Vertx vertx;
+    private RequestTimeouts timeouts;
+
+    /**
+     * Sets up the fixture.
+     */
+    @BeforeEach
+    public void setUp() {
+        vertx = mock(Vertx.class);
+        when(vertx.setTimer(anyLong(), VertxMockSupport.anyHandler())).thenAnswer(invocation -> {
+            timers.add(invocation.getArgument(1));
+            return (long) timers.size();
+        });
+        timeouts = new RequestTimeouts(vertx, timedOutRequests::add, now::get);
+    }
+
+    /**
+     * Verifies that requests sent at about the same time share a single timer.
+     */
+    @Test
+    public void testScheduleUsesSingleTimerPerBucket() {
+
+        timeouts.schedule("request-1", 200L);
+        now.addAndGet(5L);
+        timeouts.schedule("request-2", 200L);
+
+        verify(vertx, times(1)).setTimer(anyLong(), VertxMockSupport.anyHandler());
+        assertThat(timeouts.size()).isEqualTo(2);
+
+        now.addAndGet(215L);
+        timers.get(0).handle(1L);
+        assertThat(timedOutRequests).containsExactlyInAnyOrder("request-1", "request-2");
+        assertThat(timeouts.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verifies that requests whose timeout has been canceled do not time out.
+     */
+    @Test
+    public void testCancelRemovesRequest() {
+
+        final long bucket = timeouts.schedule("request-1", 200L);
+        timeouts.schedule("request-2", 200L);
+        timeouts.cancel("request-1", bucket);
+
+        now.addAndGet(220L);
+        timers.get(0).handle(1L);
+        assertThat(timedOutRequests).containsExactly("request-2");
+    }
+
+    /**
+     * Verifies that a timer is set for the next bucket once the
+     * requests of the earliest bucket have timed out.
+     */
+    @Test
+    public void testExpiryReschedulesTimerForNextBucket() {
+
+        timeouts.schedule("request-1", 200L);
+        now.addAndGet(100L);
+        timeouts.schedule("request-2", 200L);
+
+        now.addAndGet(100L);
+        timers.get(0).handle(1L);
+        assertThat(timedOutRequests).containsExactly("request-1");
+        assertThat(timers).hasSize(2);
+
+        now.addAndGet(100L);
+        timers.get(1).handle(2L);
+        assertThat(timedOutRequests).containsExactly("request-1", "request-2");
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongBiFunction;
+
+import io.vertx.core.Vertx;
+
+/**
+ * A provider for caches based on {@link BoundedExpiringValueCache}.
+ * <p>
+ * The provider returns the same cache instance for all invocations of
+ * {@link #getCache(String)} with the same name. Each cache is bounded by
+ * the maximum weight that the provider has been created with.
+ * <p>
+ * The provider periodically removes expired entries from all of its caches
+ * until it is closed.
+ * <p>
+ * Each cache may be split into multiple stripes which are guarded by their own monitor
+ * so that the caches can be shared by verticle instances running on different event
+ * loop threads without the threads contending for a single lock.
+ */
+public final class BoundedCacheProvider implements CacheProvider, AutoCloseable {
+
+    /**
+     * The default interval at which expired entries are removed from the caches.
+     */
+    public static final Duration DEFAULT_EXPIRY_INTERVAL = Duration.ofSeconds(10);
+
+    private final Map<String, StripedExpiringValueCache<Object, Object>> caches = new ConcurrentHashMap<>();
+    private final int stripes;
+    private final long maxWeight;
+    private final ToLongBiFunction<Object, Object> weigher;
+    private final CacheMetrics metrics;
+    private final Vertx vertx;
+    private final long expiryTimerId;
+
+    /**
+     * Creates a new provider for caches in which each entry has a weight of 1.
+     *
+     * @param vertx The vert.x instance to use for periodically removing expired entries.
+     * @param maxSize The maximum number of entries of each cache.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if vert.x or metrics are {@code null}.
+     * @throws IllegalArgumentException if max size is &lt; 1.
+     */
+    public BoundedCacheProvider(final Vertx vertx, final long maxSize, final CacheMetrics metrics) {
+        this(vertx, maxSize, (key, value) -> 1L, DEFAULT_EXPIRY_INTERVAL, metrics);
+    }
+
+    /**
+     * Creates a new provider for striped caches in which each entry has a weight of 1.
+     *
+     * @param vertx The vert.x instance to use for periodically removing expired entries.
+     * @param maxSize The maximum number of entries of each cache.
+     * @param stripes The number of stripes that each cache is split into.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if vert.x or metrics are {@code null}.
+     * @throws IllegalArgumentException if max size or the number of stripes is &lt; 1.
+     */
+    public BoundedCacheProvider(final Vertx vertx, final long maxSize, final int stripes, final CacheMetrics metrics) {
+        this(vertx, maxSize, stripes, (key, value) -> 1L, DEFAULT_EXPIRY_INTERVAL, metrics);
+    }
+
+    /**
+     * Creates a new provider.
+     *
+     * @param vertx The vert.x instance to use for periodically removing expired entries.
+     * @param maxWeight The maximum total weight of the entries of each cache.
+     * @param weigher The function to use for determining the weight of an entry.
+     *                The function must return a non-negative value.
+     * @param expiryInterval The interval at which expired entries are removed from the caches.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     * @throws IllegalArgumentException if max weight is &lt; 1 or if the expiry interval
+     *                                  is shorter than one millisecond.
+     */
+    public BoundedCacheProvider(
+            final Vertx vertx,
+            final long maxWeight,
+            final ToLongBiFunction<Object, Object> weigher,
+            final Duration expiryInterval,
+            final CacheMetrics metrics) {
+        this(vertx, maxWeight, 1, weigher, expiryInterval, metrics);
+    }
+
+    /**
+     * Creates a new provider for striped caches.
+     *
+     * @param vertx The vert.x instance to use for periodically removing expired entries.
+     * @param maxWeight The maximum total weight of the entries of each cache.
+     * @param stripes The number of stripes that each cache is split into.
+     * @param weigher The function to use for determining the weight of an entry.
+     *                The function must return a non-negative value.
+     * @param expiryInterval The interval at which expired entries are removed from the caches.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     * @throws IllegalArgumentException if max weight or the number of stripes is &lt; 1 or if
+     *                                  the expiry interval is shorter than one millisecond.
+     */
+    public BoundedCacheProvider(
+            final Vertx vertx,
+            final long maxWeight,
+            final int stripes,
+            final ToLongBiFunction<Object, Object> weigher,
+            final Duration expiryInterval,
+            final CacheMetrics metrics) {
+
+        Objects.requireNonNull(expiryInterval);
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("max weight must be at least 1");
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("number of stripes must be at least 1");
+        }
+        if (expiryInterval.toMillis() < 1) {
+            throw new IllegalArgumentException("expiry interval must be at least 1ms");
+        }
+        this.vertx = Objects.requireNonNull(vertx);
+        this.maxWeight = maxWeight;
+        this.stripes = stripes;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.metrics = Objects.requireNonNull(metrics);
+        this.expiryTimerId = vertx.setPeriodic(expiryInterval.toMillis(), tid -> removeExpired());
+    }
+
+    /**
+     * Stops periodically removing expired entries from the caches created by this provider.
+     * <p>
+     * The caches can still be used after the provider has been closed. However, expired
+     * entries will then only be removed when they are looked up or evicted.
+     */
+    @Override
+    public void close() {
+        vertx.cancelTimer(expiryTimerId);
+    }
+
+    /**
+     * Removes all expired entries from the caches created by this provider.
+     */
+    public void removeExpired() {
+        caches.values().forEach(StripedExpiringValueCache::removeExpired);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> ExpiringValueCache<K, V> getCache(final String cacheName) {
+        Objects.requireNonNull(cacheName);
+        final ExpiringValueCache<?, ?> cache = caches.computeIfAbsent(
+                cacheName,
+                name -> new StripedExpiringValueCache<>(name, stripes, maxWeight, weigher, metrics));
+        return (ExpiringValueCache<K, V>) cache;
+    }
+}
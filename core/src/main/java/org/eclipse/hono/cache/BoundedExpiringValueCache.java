@@ -0,0 +1,480 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache for expiring values with a bounded maximum weight.
+ * <p>
+ * Each entry has its own expiration time. Expired entries are removed when they
+ * are looked up and by means of {@link #removeExpired()}, which only needs to
+ * inspect entries that are known to have expired, because entries are grouped
+ * into buckets of about one second according to their expiration time.
+ * Expiration times are kept as the nanoseconds elapsed since the cache has been
+ * created, so that only differences between values of {@link System#nanoTime()}
+ * are ever used.
+ * <p>
+ * Once the total weight of all entries exceeds the maximum weight, entries are
+ * evicted according to a <em>Window TinyLFU</em> policy: new entries are admitted
+ * to a small LRU window. Entries leaving the window compete with the least recently
+ * used entry of the main space's probationary segment, and the one that has been
+ * accessed less frequently according to a {@link FrequencySketch} is evicted.
+ * Entries in the probationary segment that are accessed again are promoted to the
+ * main space's protected segment.
+ * <p>
+ * Values are stored without any wrapper and looking up a value does not allocate
+ * any memory. All operations are guarded by the cache's monitor.
+ *
+ * @param <K> The type of keys that the cache supports.
+ * @param <V> The type of values that the cache supports.
+ */
+public final class BoundedExpiringValueCache<K, V> implements ExpiringValueCache<K, V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoundedExpiringValueCache.class);
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    /**
+     * The (relative) expiration times of the entries in a bucket share all but the lowest 30 bits (~1.07s).
+     */
+    private static final int EXPIRY_BUCKET_SHIFT = 30;
+
+    private final Map<K, Node<K, V>> entries = new HashMap<>();
+    private final NavigableMap<Long, Node<K, V>> expiryBuckets = new TreeMap<>();
+    private final Node<K, V> windowQueue = Node.sentinel();
+    private final Node<K, V> probationQueue = Node.sentinel();
+    private final Node<K, V> protectedQueue = Node.sentinel();
+    private final String name;
+    private final long maxWeight;
+    private final long maxWindowWeight;
+    private final long maxProtectedWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final CacheMetrics metrics;
+    private final LongSupplier ticker;
+    private final long origin;
+    private final FrequencySketch sketch;
+
+    private long totalWeight;
+    private long windowWeight;
+    private long protectedWeight;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param name The name of the cache, used for reporting metrics.
+     * @param maxWeight The maximum total weight of all entries in the cache.
+     * @param weigher The function to use for determining the weight of an entry.
+     *                The function must return a non-negative value.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if any of name, weigher or metrics are {@code null}.
+     * @throws IllegalArgumentException if max weight is &lt; 1.
+     */
+    public BoundedExpiringValueCache(
+            final String name,
+            final long maxWeight,
+            final ToLongBiFunction<? super K, ? super V> weigher,
+            final CacheMetrics metrics) {
+        this(name, maxWeight, weigher, metrics, System::nanoTime);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param name The name of the cache, used for reporting metrics.
+     * @param maxWeight The maximum total weight of all entries in the cache.
+     * @param weigher The function to use for determining the weight of an entry.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @param ticker The source of the current time in nanoseconds.
+     * @throws NullPointerException if any of name, weigher, metrics or ticker are {@code null}.
+     * @throws IllegalArgumentException if max weight is &lt; 1.
+     */
+    BoundedExpiringValueCache(
+            final String name,
+            final long maxWeight,
+            final ToLongBiFunction<? super K, ? super V> weigher,
+            final CacheMetrics metrics,
+            final LongSupplier ticker) {
+
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("max weight must be at least 1");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.weigher = Objects.requireNonNull(weigher);
+        this.metrics = Objects.requireNonNull(metrics);
+        this.ticker = Objects.requireNonNull(ticker);
+        this.origin = ticker.getAsLong();
+        this.maxWeight = maxWeight;
+        this.maxWindowWeight = Math.max(1, maxWeight / 100);
+        this.maxProtectedWeight = (maxWeight - maxWindowWeight) * 8 / 10;
+        this.sketch = new FrequencySketch(maxWeight);
+    }
+
+    /**
+     * Gets the name of this cache.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of entries in this cache.
+     * <p>
+     * The number includes expired entries that have not been removed yet.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the total weight of the entries in this cache.
+     * <p>
+     * The weight includes expired entries that have not been removed yet.
+     *
+     * @return The weight.
+     */
+    public synchronized long weightedSize() {
+        return totalWeight;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the expiration time is not in the future
+     *                                  or if the weigher returns a negative weight.
+     */
+    @Override
+    public void put(final K key, final V value, final Instant expirationTime) {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(expirationTime);
+
+        put(key, value, Duration.between(Instant.now(), expirationTime));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the max age is not positive
+     *                                  or if the weigher returns a negative weight.
+     */
+    @Override
+    public void put(final K key, final V value, final Duration maxAge) {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(maxAge);
+
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("value is already expired");
+        }
+        final long weight = weigher.applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        putEntry(key, value, weight, toNanos(maxAge));
+    }
+
+    @Override
+    public synchronized V get(final K key) {
+
+        if (key == null) {
+            return null;
+        }
+        final Node<K, V> node = entries.get(key);
+        if (node == null) {
+            metrics.incrementMisses(name);
+            return null;
+        } else if (elapsedNanos() > node.expiresAt) {
+            LOG.trace("cache hit expired [cache: {}, key: {}]", name, key);
+            removeNode(node);
+            metrics.incrementExpirations(name);
+            metrics.incrementMisses(name);
+            return null;
+        } else {
+            sketch.increment(key.hashCode());
+            onAccess(node);
+            metrics.incrementHits(name);
+            return node.value;
+        }
+    }
+
+    /**
+     * Removes all entries that have expired more than about a second ago.
+     * <p>
+     * This method is supposed to be invoked periodically in order to free up
+     * the memory occupied by entries that are not looked up anymore.
+     *
+     * @return The number of removed entries.
+     */
+    public synchronized int removeExpired() {
+
+        final long currentBucket = elapsedNanos() >> EXPIRY_BUCKET_SHIFT;
+        int removed = 0;
+        while (!expiryBuckets.isEmpty() && expiryBuckets.firstKey() < currentBucket) {
+            final Node<K, V> bucket = expiryBuckets.pollFirstEntry().getValue();
+            while (bucket.bucketNext != bucket) {
+                final Node<K, V> node = bucket.bucketNext;
+                unlinkFromBucket(node);
+                removeNode(node);
+                metrics.incrementExpirations(name);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            LOG.trace("removed {} expired entries from cache [{}]", removed, name);
+        }
+        return removed;
+    }
+
+    private synchronized void putEntry(final K key, final V value, final long weight, final long maxAgeNanos) {
+
+        final long now = elapsedNanos();
+        // both values are non-negative, so an overflow can only result in a negative sum
+        final long expiresAt = now + maxAgeNanos < 0 ? Long.MAX_VALUE : now + maxAgeNanos;
+        final Node<K, V> existingNode = entries.get(key);
+        sketch.increment(key.hashCode());
+
+        if (weight > maxWeight) {
+            LOG.debug("not caching value exceeding max weight [cache: {}, key: {}, weight: {}]", name, key, weight);
+            if (existingNode != null) {
+                removeNode(existingNode);
+            }
+            return;
+        }
+
+        if (existingNode == null) {
+            final Node<K, V> node = new Node<>(key, value, weight, expiresAt);
+            entries.put(key, node);
+            node.queue = WINDOW;
+            linkLast(windowQueue, node);
+            windowWeight += weight;
+            totalWeight += weight;
+            linkToBucket(node);
+        } else {
+            existingNode.value = value;
+            updateWeight(existingNode, weight);
+            unlinkFromBucket(existingNode);
+            existingNode.expiresAt = expiresAt;
+            linkToBucket(existingNode);
+            onAccess(existingNode);
+        }
+        maintain();
+    }
+
+    /**
+     * Gets the time elapsed since this cache has been created.
+     *
+     * @return The number of nanoseconds.
+     */
+    private long elapsedNanos() {
+        return ticker.getAsLong() - origin;
+    }
+
+    private void onAccess(final Node<K, V> node) {
+
+        switch (node.queue) {
+        case WINDOW:
+            unlink(node);
+            linkLast(windowQueue, node);
+            break;
+        case PROBATION:
+            unlink(node);
+            node.queue = PROTECTED;
+            linkLast(protectedQueue, node);
+            protectedWeight += node.weight;
+            demoteProtected();
+            break;
+        default:
+            unlink(node);
+            linkLast(protectedQueue, node);
+        }
+    }
+
+    private void maintain() {
+
+        // entries leaving the window become candidates for admission to the main space
+        while (windowWeight > maxWindowWeight && windowQueue.next != windowQueue) {
+            final Node<K, V> node = windowQueue.next;
+            unlink(node);
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            linkLast(probationQueue, node);
+        }
+        demoteProtected();
+        evict();
+    }
+
+    private void demoteProtected() {
+
+        while (protectedWeight > maxProtectedWeight && protectedQueue.next != protectedQueue) {
+            final Node<K, V> node = protectedQueue.next;
+            unlink(node);
+            protectedWeight -= node.weight;
+            node.queue = PROBATION;
+            linkLast(probationQueue, node);
+        }
+    }
+
+    private void evict() {
+
+        while (totalWeight > maxWeight) {
+            final Node<K, V> victim = probationQueue.next;
+            final Node<K, V> candidate = probationQueue.prev;
+            final Node<K, V> evicted;
+            if (victim == probationQueue) {
+                // main space's probationary segment is empty
+                evicted = protectedQueue.next != protectedQueue ? protectedQueue.next : windowQueue.next;
+            } else if (victim == candidate) {
+                evicted = victim;
+            } else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                evicted = victim;
+            } else {
+                evicted = candidate;
+            }
+            if (evicted.key == null) {
+                // all queues are empty
+                return;
+            }
+            LOG.trace("evicting entry [cache: {}, key: {}]", name, evicted.key);
+            removeNode(evicted);
+            metrics.incrementEvictions(name);
+        }
+    }
+
+    private void updateWeight(final Node<K, V> node, final long newWeight) {
+
+        final long delta = newWeight - node.weight;
+        if (node.queue == WINDOW) {
+            windowWeight += delta;
+        } else if (node.queue == PROTECTED) {
+            protectedWeight += delta;
+        }
+        totalWeight += delta;
+        node.weight = newWeight;
+    }
+
+    private void removeNode(final Node<K, V> node) {
+
+        entries.remove(node.key);
+        unlink(node);
+        unlinkFromBucket(node);
+        updateWeight(node, 0);
+    }
+
+    private void linkToBucket(final Node<K, V> node) {
+
+        node.bucket = node.expiresAt >> EXPIRY_BUCKET_SHIFT;
+        final Node<K, V> bucket = expiryBuckets.computeIfAbsent(node.bucket, b -> Node.sentinel());
+        node.bucketPrev = bucket.bucketPrev;
+        node.bucketNext = bucket;
+        bucket.bucketPrev.bucketNext = node;
+        bucket.bucketPrev = node;
+    }
+
+    private void unlinkFromBucket(final Node<K, V> node) {
+
+        if (node.bucketNext == null) {
+            return;
+        }
+        if (node.bucketPrev == node.bucketNext) {
+            // node is the only entry of the bucket
+            expiryBuckets.remove(node.bucket);
+        }
+        node.bucketPrev.bucketNext = node.bucketNext;
+        node.bucketNext.bucketPrev = node.bucketPrev;
+        node.bucketPrev = null;
+        node.bucketNext = null;
+    }
+
+    private static <K, V> void linkLast(final Node<K, V> queue, final Node<K, V> node) {
+        node.prev = queue.prev;
+        node.next = queue;
+        queue.prev.next = node;
+        queue.prev = node;
+    }
+
+    private static <K, V> void unlink(final Node<K, V> node) {
+        if (node.next != null) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    private static long toNanos(final Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (final ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * An entry of the cache which is linked into one of the eviction
+     * policy's queues and into the bucket for its expiration time.
+     * <p>
+     * A node without key serves as the sentinel of a queue or bucket.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+        private V value;
+        private long weight;
+        /**
+         * The nanoseconds elapsed since the cache's creation after which the entry expires.
+         */
+        private long expiresAt;
+        private long bucket;
+        private int queue;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private Node<K, V> bucketPrev;
+        private Node<K, V> bucketNext;
+
+        Node(final K key, final V value, final long weight, final long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        static <K, V> Node<K, V> sentinel() {
+            final Node<K, V> sentinel = new Node<>(null, null, 0, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            sentinel.bucketPrev = sentinel;
+            sentinel.bucketNext = sentinel;
+            return sentinel;
+        }
+    }
+}
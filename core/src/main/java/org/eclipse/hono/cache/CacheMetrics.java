@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+/**
+ * A collector for metrics about the usage of caches.
+ * <p>
+ * All methods have an empty default implementation so that implementations only need
+ * to override the methods for the metrics they are interested in.
+ * <p>
+ * The methods are invoked while the cache is being accessed and thus should
+ * return quickly and should not allocate memory.
+ */
+public interface CacheMetrics {
+
+    /**
+     * A metrics implementation that simply discards all values.
+     */
+    CacheMetrics NOOP = new CacheMetrics() {
+    };
+
+    /**
+     * Reports a lookup of a key for which a valid value has been found in a cache.
+     *
+     * @param cacheName The name of the cache.
+     */
+    default void incrementHits(final String cacheName) {
+        // do nothing
+    }
+
+    /**
+     * Reports a lookup of a key for which no valid value has been found in a cache.
+     *
+     * @param cacheName The name of the cache.
+     */
+    default void incrementMisses(final String cacheName) {
+        // do nothing
+    }
+
+    /**
+     * Reports the removal of a valid value from a cache in order to stay within
+     * the cache's size limit.
+     *
+     * @param cacheName The name of the cache.
+     */
+    default void incrementEvictions(final String cacheName) {
+        // do nothing
+    }
+
+    /**
+     * Reports the removal of an expired value from a cache.
+     *
+     * @param cacheName The name of the cache.
+     */
+    default void incrementExpirations(final String cacheName) {
+        // do nothing
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A cache for expiring values which is partitioned into a fixed number of
+ * {@link BoundedExpiringValueCache} stripes.
+ * <p>
+ * Each key is mapped to one of the stripes by means of its hash code. Because each stripe
+ * is guarded by its own monitor, threads accessing different keys rarely contend with each other.
+ * This makes the cache suitable for being shared by verticle instances running on different
+ * event loop threads.
+ * <p>
+ * The maximum weight of the cache is split evenly among the stripes, so each stripe
+ * evicts entries independently of the other stripes.
+ *
+ * @param <K> The type of keys that the cache supports.
+ * @param <V> The type of values that the cache supports.
+ */
+public final class StripedExpiringValueCache<K, V> implements ExpiringValueCache<K, V> {
+
+    private final BoundedExpiringValueCache<K, V>[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param name The name of the cache, used for reporting metrics.
+     * @param stripes The number of stripes. The value is rounded up to the next power of two.
+     * @param maxWeight The maximum total weight of all entries in the cache.
+     * @param weigher The function to use for determining the weight of an entry.
+     *                The function must return a non-negative value.
+     * @param metrics The metrics to report hits, misses, evictions and expirations to.
+     * @throws NullPointerException if any of name, weigher or metrics are {@code null}.
+     * @throws IllegalArgumentException if the number of stripes or max weight is &lt; 1.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedExpiringValueCache(
+            final String name,
+            final int stripes,
+            final long maxWeight,
+            final ToLongBiFunction<? super K, ? super V> weigher,
+            final CacheMetrics metrics) {
+
+        Objects.requireNonNull(name);
+        if (stripes < 1) {
+            throw new IllegalArgumentException("number of stripes must be at least 1");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("max weight must be at least 1");
+        }
+        final int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        final long maxStripeWeight = Math.max(1L, (maxWeight + stripeCount - 1) / stripeCount);
+        this.stripes = new BoundedExpiringValueCache[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new BoundedExpiringValueCache<>(name, maxStripeWeight, weigher, metrics);
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return The number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Gets the number of entries in the cache.
+     *
+     * @return The number of entries, including expired entries that have not been removed yet.
+     */
+    public int size() {
+        int size = 0;
+        for (final BoundedExpiringValueCache<K, V> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void put(final K key, final V value, final Instant expirationTime) {
+        stripe(key).put(key, value, expirationTime);
+    }
+
+    @Override
+    public void put(final K key, final V value, final Duration maxAge) {
+        stripe(key).put(key, value, maxAge);
+    }
+
+    @Override
+    public V get(final K key) {
+        return stripe(key).get(key);
+    }
+
+    /**
+     * Removes all expired entries from the cache.
+     *
+     * @return The number of removed entries.
+     */
+    public int removeExpired() {
+        int removed = 0;
+        for (final BoundedExpiringValueCache<K, V> stripe : stripes) {
+            removed += stripe.removeExpired();
+        }
+        return removed;
+    }
+
+    private BoundedExpiringValueCache<K, V> stripe(final K key) {
+        Objects.requireNonNull(key);
+        final int h = key.hashCode();
+        // spread the higher bits so that keys differing in those bits only use different stripes
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
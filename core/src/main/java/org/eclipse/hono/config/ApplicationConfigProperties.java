@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -19,8 +19,22 @@ package org.eclipse.hono.config;
  */
 public class ApplicationConfigProperties {
 
+    /**
+     * The default maximum number of password verifications waiting for a worker thread.
+     */
+    public static final int DEFAULT_PASSWORD_VERIFICATION_QUEUE_SIZE = 1000;
+    /**
+     * The default number of seconds after which a successful password verification
+     * needs to be repeated.
+     */
+    public static final int DEFAULT_PASSWORD_VERIFICATION_CACHE_TIMEOUT = 60;
+
     private int maxInstances = 0;
     private int startupTimeout = 20;
+    private int passwordVerificationPoolSize = 0;
+    private int passwordVerificationQueueSize = DEFAULT_PASSWORD_VERIFICATION_QUEUE_SIZE;
+    private int passwordVerificationCacheMaxSize = 0;
+    private int passwordVerificationCacheTimeout = DEFAULT_PASSWORD_VERIFICATION_CACHE_TIMEOUT;
 
     /**
      * Gets the maximum time to wait for the server to start up.
@@ -79,4 +93,117 @@ public class ApplicationConfigProperties {
         }
         this.maxInstances = maxVerticleInstances;
     }
+
+    /**
+     * Gets the number of worker threads to use for verifying password hashes.
+     * <p>
+     * The number is calculated as follows:
+     * <ol>
+     * <li>if 0 &lt; <em>passwordVerificationPoolSize</em>, then return <em>passwordVerificationPoolSize</em></li>
+     * <li>else return {@code Runtime.getRuntime().availableProcessors()}</li>
+     * </ol>
+     *
+     * @return The number of threads.
+     */
+    public final int getPasswordVerificationPoolSize() {
+        if (passwordVerificationPoolSize > 0) {
+            return passwordVerificationPoolSize;
+        } else {
+            return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Sets the number of worker threads to use for verifying password hashes.
+     * <p>
+     * The default value of this property is 0.
+     *
+     * @param poolSize The number of threads.
+     * @throws IllegalArgumentException if the number is &lt; 0.
+     */
+    public final void setPasswordVerificationPoolSize(final int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("password verification pool size must be >= 0");
+        }
+        this.passwordVerificationPoolSize = poolSize;
+    }
+
+    /**
+     * Gets the maximum number of password verifications that may wait for a worker thread.
+     * <p>
+     * Attempts to authenticate devices exceeding this number are rejected.
+     *
+     * @return The number of verifications.
+     */
+    public final int getPasswordVerificationQueueSize() {
+        return passwordVerificationQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of password verifications that may wait for a worker thread.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_PASSWORD_VERIFICATION_QUEUE_SIZE}.
+     *
+     * @param queueSize The number of verifications.
+     * @throws IllegalArgumentException if the number is &lt; 0.
+     */
+    public final void setPasswordVerificationQueueSize(final int queueSize) {
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("password verification queue size must be >= 0");
+        }
+        this.passwordVerificationQueueSize = queueSize;
+    }
+
+    /**
+     * Gets the maximum number of successful password verifications to keep in memory.
+     * <p>
+     * Devices presenting a password that has been verified successfully before
+     * are authenticated without verifying the password hash again.
+     *
+     * @return The number of verifications. A value of 0 indicates that successful
+     *         verifications are not kept.
+     */
+    public final int getPasswordVerificationCacheMaxSize() {
+        return passwordVerificationCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of successful password verifications to keep in memory.
+     * <p>
+     * The default value of this property is 0, which means that successful verifications
+     * are not kept.
+     *
+     * @param maxSize The number of verifications.
+     * @throws IllegalArgumentException if the number is &lt; 0.
+     */
+    public final void setPasswordVerificationCacheMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("password verification cache max size must be >= 0");
+        }
+        this.passwordVerificationCacheMaxSize = maxSize;
+    }
+
+    /**
+     * Gets the period of time after which a successful password verification needs to be repeated.
+     *
+     * @return The number of seconds.
+     */
+    public final int getPasswordVerificationCacheTimeout() {
+        return passwordVerificationCacheTimeout;
+    }
+
+    /**
+     * Sets the period of time after which a successful password verification needs to be repeated.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_PASSWORD_VERIFICATION_CACHE_TIMEOUT}.
+     *
+     * @param seconds The number of seconds.
+     * @throws IllegalArgumentException if the number is &lt; 1.
+     */
+    public final void setPasswordVerificationCacheTimeout(final int seconds) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("password verification cache timeout must be at least 1 second");
+        }
+        this.passwordVerificationCacheTimeout = seconds;
+    }
 }
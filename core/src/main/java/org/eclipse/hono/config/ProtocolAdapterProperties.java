@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -14,6 +14,9 @@
 package org.eclipse.hono.config;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -27,6 +30,16 @@ public class ProtocolAdapterProperties extends ServiceConfigProperties {
      * disables automatic tenant timeout.
      */
     public static final Duration DEFAULT_TENANT_IDLE_TIMEOUT = Duration.ZERO;
+    /**
+     * The default maximum number of devices whose registration assertions are loaded
+     * into the cache during start up.
+     */
+    public static final int DEFAULT_CACHE_WARM_UP_MAX_DEVICES = 1000;
+    /**
+     * The default number of milliseconds that the adapter waits for the caches to be warmed up
+     * before reporting itself ready.
+     */
+    public static final long DEFAULT_CACHE_WARM_UP_TIMEOUT = 10000L;
 
     private boolean authenticationRequired = true;
     private boolean jmsVendorPropsEnabled = false;
@@ -34,6 +47,10 @@ public class ProtocolAdapterProperties extends ServiceConfigProperties {
     private long eventLoopBlockedCheckTimeout = 5000L;
     private int maxConnections = 0;
     private Duration tenantIdleTimeout = DEFAULT_TENANT_IDLE_TIMEOUT;
+    private List<String> cacheWarmUpTenants = Collections.emptyList();
+    private String cacheWarmUpSnapshotPath;
+    private int cacheWarmUpMaxDevices = DEFAULT_CACHE_WARM_UP_MAX_DEVICES;
+    private long cacheWarmUpTimeout = DEFAULT_CACHE_WARM_UP_TIMEOUT;
 
     /**
      * Checks whether the protocol adapter always authenticates devices using their provided credentials as defined
@@ -229,4 +246,126 @@ public class ProtocolAdapterProperties extends ServiceConfigProperties {
     public void setTenantIdleTimeout(final Duration tenantIdleTimeout) {
         this.tenantIdleTimeout = Objects.requireNonNull(tenantIdleTimeout);
     }
+
+    /**
+     * Gets the identifiers of the tenants whose configuration is loaded into
+     * the cache during start up.
+     * <p>
+     * The default value of this property is an empty list.
+     *
+     * @return The tenant identifiers.
+     */
+    public final List<String> getCacheWarmUpTenants() {
+        return Collections.unmodifiableList(cacheWarmUpTenants);
+    }
+
+    /**
+     * Sets the identifiers of the tenants whose configuration is loaded into
+     * the cache during start up.
+     * <p>
+     * The default value of this property is an empty list.
+     *
+     * @param tenants The tenant identifiers.
+     * @throws NullPointerException if tenants is {@code null}.
+     */
+    public final void setCacheWarmUpTenants(final List<String> tenants) {
+        this.cacheWarmUpTenants = new ArrayList<>(Objects.requireNonNull(tenants));
+    }
+
+    /**
+     * Gets the path to the file that the identifiers of recently active devices are written to
+     * when the adapter is shut down.
+     * <p>
+     * If set, the adapter loads the registration assertions of the devices contained in the file
+     * into the cache during start up. This reduces the number of requests to the Device Registration
+     * service when many devices reconnect after the adapter has been restarted.
+     * <p>
+     * The default value of this property is {@code null}, which means that no snapshot is written.
+     *
+     * @return The path or {@code null} if no snapshot should be written.
+     */
+    public final String getCacheWarmUpSnapshotPath() {
+        return cacheWarmUpSnapshotPath;
+    }
+
+    /**
+     * Sets the path to the file that the identifiers of recently active devices are written to
+     * when the adapter is shut down.
+     * <p>
+     * If set, the adapter loads the registration assertions of the devices contained in the file
+     * into the cache during start up.
+     * <p>
+     * The default value of this property is {@code null}, which means that no snapshot is written.
+     *
+     * @param path The path or {@code null} if no snapshot should be written.
+     */
+    public final void setCacheWarmUpSnapshotPath(final String path) {
+        this.cacheWarmUpSnapshotPath = path;
+    }
+
+    /**
+     * Gets the maximum number of devices whose registration assertions are loaded into
+     * the cache during start up.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_CACHE_WARM_UP_MAX_DEVICES}.
+     *
+     * @return The number of devices.
+     */
+    public final int getCacheWarmUpMaxDevices() {
+        return cacheWarmUpMaxDevices;
+    }
+
+    /**
+     * Sets the maximum number of devices whose registration assertions are loaded into
+     * the cache during start up.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_CACHE_WARM_UP_MAX_DEVICES}.
+     *
+     * @param maxDevices The number of devices.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public final void setCacheWarmUpMaxDevices(final int maxDevices) {
+        if (maxDevices < 0) {
+            throw new IllegalArgumentException("max devices must not be negative");
+        }
+        this.cacheWarmUpMaxDevices = maxDevices;
+    }
+
+    /**
+     * Gets the maximum number of milliseconds that the adapter waits for the caches
+     * to be warmed up before reporting itself ready.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_CACHE_WARM_UP_TIMEOUT}.
+     *
+     * @return The timeout in milliseconds.
+     */
+    public final long getCacheWarmUpTimeout() {
+        return cacheWarmUpTimeout;
+    }
+
+    /**
+     * Sets the maximum number of milliseconds that the adapter waits for the caches
+     * to be warmed up before reporting itself ready.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_CACHE_WARM_UP_TIMEOUT}.
+     *
+     * @param timeout The timeout in milliseconds.
+     * @throws IllegalArgumentException if the timeout is &lt; 1.
+     */
+    public final void setCacheWarmUpTimeout(final long timeout) {
+        if (timeout < 1) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        this.cacheWarmUpTimeout = timeout;
+    }
+
+    /**
+     * Checks if the adapter warms up its caches during start up.
+     *
+     * @return {@code true} if any tenants have been configured for warm up or
+     *         if a snapshot path has been set.
+     */
+    public final boolean isCacheWarmUpEnabled() {
+        return !cacheWarmUpTenants.isEmpty() || cacheWarmUpSnapshotPath != null;
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -60,6 +60,11 @@ public final class TracingHelper {
      * has been taken from a local cache.
      */
     public static final BooleanTag TAG_CACHE_HIT = new BooleanTag("cache_hit");
+    /**
+     * An OpenTracing tag that is used to indicate that a cached result of an operation
+     * is (being) refreshed in the background.
+     */
+    public static final BooleanTag TAG_CACHE_REFRESH = new BooleanTag("cache_refresh");
     /**
      * An OpenTracing tag that contains the (transport protocol specific) identifier of a
      * client connecting to a server. This could be the MQTT <em>client identifier</em> or the
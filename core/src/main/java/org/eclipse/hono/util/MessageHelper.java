@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -32,6 +32,8 @@ import org.apache.qpid.proton.message.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonObject;
@@ -354,6 +356,9 @@ public final class MessageHelper {
      * the String's UTF-8 encoding is returned.</li>
      * <li>In all other cases, {@code null} is returned.</li>
      * </ul>
+     * <p>
+     * The bytes of a Data section are not copied if they span the complete
+     * backing array of the section's binary value.
      * 
      * @param msg The AMQP 1.0 message to parse the body of.
      * @return The bytes representing the payload or {@code null} if
@@ -369,8 +374,11 @@ public final class MessageHelper {
         }
 
         if (msg.getBody() instanceof Data) {
-            final Data body = (Data) msg.getBody();
-            return Buffer.buffer(body.getValue().getArray());
+            final Binary body = ((Data) msg.getBody()).getValue();
+            if (body.getArrayOffset() == 0 && body.getLength() == body.getArray().length) {
+                return Buffer.buffer(Unpooled.wrappedBuffer(body.getArray()));
+            }
+            return Buffer.buffer(body.getLength()).appendBytes(body.getArray(), body.getArrayOffset(), body.getLength());
         } else if (msg.getBody() instanceof AmqpValue) {
             final AmqpValue body = (AmqpValue) msg.getBody();
             if (body.getValue() instanceof byte[]) {
@@ -417,8 +425,8 @@ public final class MessageHelper {
         // we prevent encoding/decoding of the String to/from its UTF-8 bytes.
         if (message.getBody() instanceof Data) {
 
-            final Data body = (Data) message.getBody();
-            return Buffer.buffer(body.getValue().getArray()).toString();
+            final Binary body = ((Data) message.getBody()).getValue();
+            return new String(body.getArray(), body.getArrayOffset(), body.getLength(), StandardCharsets.UTF_8);
 
         } else if (message.getBody() instanceof AmqpValue) {
 
@@ -768,6 +776,10 @@ public final class MessageHelper {
 
     /**
      * Sets the payload of an AMQP message using a <em>Data</em> section.
+     * <p>
+     * If the buffer is backed by an array, the Data section refers to the buffer's
+     * bytes instead of a copy of them. The buffer must therefore not be modified
+     * afterwards.
      * 
      * @param message The message.
      * @param contentType The type of the payload. If {@code null} the message's <em>content-type</em>
@@ -779,7 +791,20 @@ public final class MessageHelper {
     public static void setPayload(final Message message, final String contentType, final Buffer payload) {
         Objects.requireNonNull(message);
 
-        setPayload(message, contentType, payload != null ? payload.getBytes() : null);
+        if (payload != null) {
+            message.setBody(new Data(toBinary(payload)));
+            if (contentType != null) {
+                message.setContentType(contentType);
+            }
+        }
+    }
+
+    private static Binary toBinary(final Buffer payload) {
+        final ByteBuf byteBuf = payload.getByteBuf();
+        if (byteBuf.hasArray()) {
+            return new Binary(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+        }
+        return new Binary(payload.getBytes());
     }
 
     /**
@@ -1051,21 +1076,17 @@ public final class MessageHelper {
             final boolean useDefaults,
             final boolean useJmsVendorProps) {
 
-        final long maxTtl = Optional.ofNullable(tenant)
-                .map(t -> Optional.ofNullable(t.getResourceLimits())
-                    .map(limits -> limits.getMaxTtl())
-                    .orElse(TenantConstants.UNLIMITED_TTL))
-                .orElse(TenantConstants.UNLIMITED_TTL);
+        final long maxTtl = tenant == null || tenant.getResourceLimits() == null
+                ? TenantConstants.UNLIMITED_TTL
+                : tenant.getResourceLimits().getMaxTtl();
 
         if (useDefaults) {
-            final JsonObject defaults = Optional.ofNullable(tenant)
-                    .map(t -> t.getDefaults().copy())
-                    .orElseGet(() -> new JsonObject());
-            if (deviceDefaultProperties != null) {
-                defaults.mergeIn(deviceDefaultProperties);
-            }
+            // the merged tenant and device level defaults are kept by the tenant object
+            final JsonObject defaults = tenant == null
+                    ? deviceDefaultProperties
+                    : tenant.getDefaults(deviceDefaultProperties);
 
-            if (!defaults.isEmpty()) {
+            if (defaults != null && !defaults.isEmpty()) {
                 addDefaults(message, target, defaults, maxTtl);
             }
         }
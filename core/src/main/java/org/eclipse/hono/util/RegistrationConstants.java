@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -24,6 +24,11 @@ public final class RegistrationConstants extends RequestResponseApiConstants {
      * The AMQP 1.0 <em>subject</em> to use for the <em>assert device registration</em> operation.
      */
     public static final String ACTION_ASSERT     = "assert";
+    /**
+     * The AMQP 1.0 <em>subject</em> to use for the <em>assert device registrations</em> operation
+     * which asserts the registration status of multiple devices by means of a single request.
+     */
+    public static final String ACTION_ASSERT_BATCH = "assert-batch";
     /**
      * The AMQP 1.0 <em>subject</em> to use for the <em>register device</em> operation.
      */
@@ -47,6 +52,30 @@ public final class RegistrationConstants extends RequestResponseApiConstants {
      */
     public static final String FIELD_DATA         = "data";
 
+    /**
+     * The name of the field in an <em>assert device registrations</em> request that contains
+     * the identifiers of the devices to assert the registration status of.
+     */
+    public static final String FIELD_DEVICE_IDS = "device-ids";
+
+    /**
+     * The name of the field in a response to the <em>assert device registrations</em> operation
+     * that contains the outcome of the assertions of the individual devices.
+     */
+    public static final String FIELD_ASSERTIONS = "assertions";
+
+    /**
+     * The name of the field in an individual assertion contained in a response to the
+     * <em>assert device registrations</em> operation that contains the assertion's status code.
+     */
+    public static final String FIELD_STATUS = "status";
+
+    /**
+     * The name of the field in an individual assertion contained in a response to the
+     * <em>assert device registrations</em> operation that contains the assertion's cache directive.
+     */
+    public static final String FIELD_CACHE_DIRECTIVE = "cache-directive";
+
     /**
      * The name of the field in a device's registration information that contains
      * the identifier of the gateway that it is connected to (either as string value or inside a JSON array).
@@ -81,7 +110,7 @@ public final class RegistrationConstants extends RequestResponseApiConstants {
      */
     public static final String EVENT_BUS_ADDRESS_REGISTRATION_IN = "registration.in";
 
-    private static final List<String> ACTIONS = Arrays.asList(ACTION_ASSERT, ACTION_REGISTER,
+    private static final List<String> ACTIONS = Arrays.asList(ACTION_ASSERT, ACTION_ASSERT_BATCH, ACTION_REGISTER,
             ACTION_GET, ACTION_DEREGISTER, ACTION_UPDATE);
 
     private RegistrationConstants() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,9 +13,15 @@
 
 package org.eclipse.hono.util;
 
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 
 import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 /**
@@ -99,4 +105,71 @@ public final class RegistrationResult extends RequestResponseResult<JsonObject>
             final ApplicationProperties applicationProperties) {
         return new RegistrationResult(status, payload, cacheDirective, applicationProperties);
     }
+
+    /**
+     * Creates a new result for the assertions of multiple devices' registration status.
+     * <p>
+     * The result has a 200 status code and a payload containing the individual assertions
+     * in the {@link RegistrationConstants#FIELD_ASSERTIONS} array. Each assertion contains the
+     * device identifier, status code, payload and cache directive of the assertion. The result
+     * itself must not be cached, because the assertions may have different cache directives.
+     *
+     * @param assertions The assertions, indexed by device identifier.
+     * @return The result.
+     * @throws NullPointerException if assertions is {@code null}.
+     */
+    public static RegistrationResult fromAssertions(final Map<String, RegistrationResult> assertions) {
+
+        Objects.requireNonNull(assertions);
+        final JsonArray entries = new JsonArray();
+        assertions.forEach((deviceId, assertion) -> {
+            final JsonObject entry = new JsonObject()
+                    .put(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID, deviceId)
+                    .put(RegistrationConstants.FIELD_STATUS, assertion.getStatus());
+            if (assertion.getPayload() != null) {
+                entry.put(RegistrationConstants.FIELD_PAYLOAD, assertion.getPayload());
+            }
+            if (assertion.getCacheDirective() != null) {
+                entry.put(RegistrationConstants.FIELD_CACHE_DIRECTIVE, assertion.getCacheDirective().toString());
+            }
+            entries.add(entry);
+        });
+        return new RegistrationResult(
+                HttpURLConnection.HTTP_OK,
+                new JsonObject().put(RegistrationConstants.FIELD_ASSERTIONS, entries),
+                CacheDirective.noCacheDirective(),
+                null);
+    }
+
+    /**
+     * Gets the individual assertions contained in the result of an
+     * <em>assert device registrations</em> operation.
+     *
+     * @return The assertions, indexed by device identifier. The map is empty if this result
+     *         does not contain any (well formed) assertions.
+     * @see #fromAssertions(Map)
+     */
+    public Map<String, RegistrationResult> getAssertions() {
+
+        final Map<String, RegistrationResult> assertions = new HashMap<>();
+        if (getPayload() == null) {
+            return assertions;
+        }
+        final JsonArray entries = getPayload().getJsonArray(RegistrationConstants.FIELD_ASSERTIONS, new JsonArray());
+        for (final Object obj : entries) {
+            if (obj instanceof JsonObject) {
+                final JsonObject entry = (JsonObject) obj;
+                final String deviceId = entry.getString(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID);
+                final Integer status = entry.getInteger(RegistrationConstants.FIELD_STATUS);
+                if (deviceId != null && status != null) {
+                    assertions.put(deviceId, new RegistrationResult(
+                            status,
+                            entry.getJsonObject(RegistrationConstants.FIELD_PAYLOAD),
+                            CacheDirective.from(entry.getString(RegistrationConstants.FIELD_CACHE_DIRECTIVE)),
+                            null));
+                }
+            }
+        }
+        return assertions;
+    }
 }
@@ -19,11 +19,15 @@ import java.security.PublicKey;
 import java.security.cert.TrustAnchor;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 import javax.security.auth.x500.X500Principal;
@@ -46,14 +50,23 @@ import io.vertx.core.json.JsonObject;
 @JsonInclude(value = Include.NON_NULL)
 public final class TenantObject extends JsonBackedValueObject {
 
+    /**
+     * The number of merged default properties to keep, must be a power of two.
+     */
+    private static final int MERGED_DEFAULTS_CACHE_SIZE = 64;
+
     @JsonIgnore
     private List<Adapter> adapters;
     @JsonIgnore
+    private volatile Map<String, Adapter> adaptersByType;
+    @JsonIgnore
     private ResourceLimits resourceLimits;
     @JsonIgnore
     private TenantTracingConfig tracingConfig;
     @JsonIgnore
-    private Set<TrustAnchor> trustAnchors;
+    private volatile Set<TrustAnchor> trustAnchors;
+    @JsonIgnore
+    private final AtomicReferenceArray<MergedDefaults> mergedDefaults = new AtomicReferenceArray<>(MERGED_DEFAULTS_CACHE_SIZE);
 
     /**
      * Adds a property to this tenant.
@@ -66,6 +79,13 @@ public final class TenantObject extends JsonBackedValueObject {
     @JsonAnySetter
     public TenantObject setProperty(final String name, final Object value) {
         json.put(Objects.requireNonNull(name), value);
+        if (TenantConstants.FIELD_PAYLOAD_TRUSTED_CA.equals(name)) {
+            trustAnchors = null;
+        } else if (TenantConstants.FIELD_PAYLOAD_DEFAULTS.equals(name)) {
+            for (int i = 0; i < MERGED_DEFAULTS_CACHE_SIZE; i++) {
+                mergedDefaults.set(i, null);
+            }
+        }
         return this;
     }
 
@@ -173,23 +193,28 @@ public final class TenantObject extends JsonBackedValueObject {
      * <li>the subject DN of the CA in the <em>subject-dn</em> property.</li>
      * </ul>
      * <p>
-     * Once a non empty set of trust anchors has been created, it will be cached and
-     * returned on subsequent invocations of this method.
+     * Once the set of trust anchors has been created, it will be cached and
+     * returned on subsequent invocations of this method until the trusted CAs
+     * of this tenant are changed. Callers may therefore use the (identity of the)
+     * returned set as a key for caching objects derived from the trust anchors.
      * 
-     * @return The set of trust anchors, may be empty.
+     * @return The unmodifiable set of trust anchors, may be empty.
      */
     @JsonIgnore
     public Set<TrustAnchor> getTrustAnchors() {
 
-        if (trustAnchors == null) {
-            trustAnchors = getProperty(TenantConstants.FIELD_PAYLOAD_TRUSTED_CA, JsonArray.class, new JsonArray())
-            .stream()
-            .filter(obj -> obj instanceof JsonObject)
-            .map(ca -> getTrustAnchorForPublicKey((JsonObject) ca))
-            .filter(anchor -> anchor != null)
-            .collect(Collectors.toSet());
+        Set<TrustAnchor> result = trustAnchors;
+        if (result == null) {
+            result = Collections.unmodifiableSet(
+                    getProperty(TenantConstants.FIELD_PAYLOAD_TRUSTED_CA, JsonArray.class, new JsonArray())
+                    .stream()
+                    .filter(obj -> obj instanceof JsonObject)
+                    .map(ca -> getTrustAnchorForPublicKey((JsonObject) ca))
+                    .filter(anchor -> anchor != null)
+                    .collect(Collectors.toSet()));
+            trustAnchors = result;
         }
-        return trustAnchors;
+        return result;
     }
 
     @JsonIgnore
@@ -237,24 +262,30 @@ public final class TenantObject extends JsonBackedValueObject {
 
     /**
      * Gets the list of configured adapters for the tenant.
+     * <p>
+     * The adapters can only be changed by means of {@link #setAdapters(List)} and
+     * {@link #addAdapter(Adapter)}, so that the index used for looking up an adapter
+     * by its type is kept in sync with the list.
      *
-     * @return The list of configured adapters or {@code null} if not set.
+     * @return An unmodifiable view on the configured adapters or {@code null} if not set.
      */
     @JsonProperty(TenantConstants.FIELD_ADAPTERS)
     public List<Adapter> getAdapters() {
-        return adapters;
+        return adapters == null ? null : Collections.unmodifiableList(adapters);
     }
 
     /**
      * Sets the given list of adapters for the tenant.
      *
      * @param adapters The list of adapters or {@code null} if not set.
+     *                 The list is copied, i.e. later changes to the list are not reflected.
      * @return This tenant for command chaining.
      * @throws IllegalArgumentException if more than one of the adapters have the same <em>type</em>.
      */
     @JsonProperty(TenantConstants.FIELD_ADAPTERS)
     public TenantObject setAdapters(final List<Adapter> adapters) {
-        this.adapters = validateAdapterTypes(adapters);
+        this.adapters = adapters == null ? null : new LinkedList<>(validateAdapterTypes(adapters));
+        this.adaptersByType = null;
         return this;
     }
 
@@ -283,11 +314,31 @@ public final class TenantObject extends JsonBackedValueObject {
 
         Objects.requireNonNull(type);
 
-        return Optional.ofNullable(adapters)
-                .flatMap(ok -> adapters.stream()
-                        .filter(adapter -> type.equals(adapter.getType()))
-                        .findFirst())
-                .orElse(null);
+        if (adapters == null) {
+            return null;
+        }
+        return getAdaptersByType().get(type);
+    }
+
+    /**
+     * Gets the configured adapters indexed by their type.
+     * <p>
+     * The index is created on first access after the adapters have been changed so that
+     * the per message lookups of an adapter's configuration do not need to iterate over
+     * the list of adapters.
+     *
+     * @return The index.
+     */
+    private Map<String, Adapter> getAdaptersByType() {
+        Map<String, Adapter> index = adaptersByType;
+        if (index == null) {
+            index = new HashMap<>(adapters.size() * 2);
+            for (final Adapter adapter : adapters) {
+                index.putIfAbsent(adapter.getType(), adapter);
+            }
+            adaptersByType = index;
+        }
+        return index;
     }
 
     /**
@@ -309,6 +360,7 @@ public final class TenantObject extends JsonBackedValueObject {
                     String.format("Already an adapter of the type [%s] exists", adapter.getType()));
         }
         adapters.add(adapter);
+        adaptersByType = null;
         return this;
     }
 
@@ -354,17 +406,14 @@ public final class TenantObject extends JsonBackedValueObject {
 
         Objects.requireNonNull(typeName);
 
-        return Optional.ofNullable(getAdapter(typeName))
-                .map(Adapter::getExtensions)
-                .map(extensions -> {
-                    try {
-                        return (Integer) extensions.get(TenantConstants.FIELD_MAX_TTD);
-                    } catch (final ClassCastException e) {
-                        return null;
-                    }
-                })
-                .filter(maxTtd -> maxTtd >= 0)
-                .orElse(TenantConstants.DEFAULT_MAX_TTD);
+        final Adapter adapter = getAdapter(typeName);
+        if (adapter != null) {
+            final Object maxTtd = adapter.getExtensions().get(TenantConstants.FIELD_MAX_TTD);
+            if (maxTtd instanceof Integer && (Integer) maxTtd >= 0) {
+                return (Integer) maxTtd;
+            }
+        }
+        return TenantConstants.DEFAULT_MAX_TTD;
     }
 
     /**
@@ -476,6 +525,46 @@ public final class TenantObject extends JsonBackedValueObject {
         return getProperty(TenantConstants.FIELD_PAYLOAD_DEFAULTS, JsonObject.class, new JsonObject());
     }
 
+    /**
+     * Gets the default property values to use for a device of this tenant.
+     * <p>
+     * The properties are determined by merging this tenant's default properties with
+     * the given device level default properties, the latter taking precedence.
+     * <p>
+     * The outcome of the merge is kept for recently used device level default properties
+     * so that the properties do not need to be merged again for each message of a device.
+     * The outcomes are looked up by the identity of the device level properties' underlying
+     * map, which is the same for all messages of a device as long as its registration
+     * assertion is served from the cache. This way, looking up the outcome neither requires
+     * computing a hash code of the properties nor acquiring a lock. The kept outcomes are
+     * discarded when this tenant's default properties are set.
+     *
+     * @param deviceDefaults The default properties registered for the device or {@code null}.
+     *                       The object must not be modified after it has been passed in.
+     * @return The default properties or {@code null} if neither the tenant nor the device
+     *         define any default properties. The returned object must not be modified.
+     */
+    JsonObject getDefaults(final JsonObject deviceDefaults) {
+
+        final JsonObject tenantDefaults = getProperty(TenantConstants.FIELD_PAYLOAD_DEFAULTS, JsonObject.class);
+        if (deviceDefaults == null || deviceDefaults.isEmpty()) {
+            return tenantDefaults;
+        } else if (tenantDefaults == null || tenantDefaults.isEmpty()) {
+            return deviceDefaults;
+        }
+
+        final Map<String, Object> deviceMap = deviceDefaults.getMap();
+        final Map<String, Object> tenantMap = tenantDefaults.getMap();
+        final int index = System.identityHashCode(deviceMap) & (MERGED_DEFAULTS_CACHE_SIZE - 1);
+        final MergedDefaults entry = mergedDefaults.get(index);
+        if (entry != null && entry.deviceDefaults == deviceMap && entry.tenantDefaults == tenantMap) {
+            return entry.merged;
+        }
+        final JsonObject merged = tenantDefaults.copy().mergeIn(deviceDefaults);
+        mergedDefaults.set(index, new MergedDefaults(tenantMap, deviceMap, merged));
+        return merged;
+    }
+
     /**
      * Sets the default property values to use for all devices of this tenant.
      * 
@@ -510,4 +599,23 @@ public final class TenantObject extends JsonBackedValueObject {
         this.tracingConfig = tracing;
         return this;
     }
+
+    /**
+     * The outcome of merging a tenant's and a device's default properties.
+     */
+    private static final class MergedDefaults {
+
+        private final Map<String, Object> tenantDefaults;
+        private final Map<String, Object> deviceDefaults;
+        private final JsonObject merged;
+
+        MergedDefaults(
+                final Map<String, Object> tenantDefaults,
+                final Map<String, Object> deviceDefaults,
+                final JsonObject merged) {
+            this.tenantDefaults = tenantDefaults;
+            this.deviceDefaults = deviceDefaults;
+            this.merged = merged;
+        }
+    }
 }
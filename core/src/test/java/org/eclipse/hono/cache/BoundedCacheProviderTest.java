@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Tests verifying behavior of {@link BoundedCacheProvider}.
+ *
+ */
+public class BoundedCacheProviderTest {
+
+    /**
+     * Verifies that closing the provider cancels the timer for removing expired entries.
+     */
+    @Test
+    public void testCloseCancelsExpiryTimer() {
+
+        final Vertx vertx = mock(Vertx.class);
+        when(vertx.setPeriodic(anyLong(), any())).thenReturn(17L);
+
+        final BoundedCacheProvider provider = new BoundedCacheProvider(vertx, 100, CacheMetrics.NOOP);
+        provider.close();
+
+        verify(vertx).cancelTimer(17L);
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests verifying behavior of {@link BoundedExpiringValueCache}.
+ *
+ */
+public class BoundedExpiringValueCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private final AtomicLong now = new AtomicLong();
+    private CacheMetrics metrics;
+    private BoundedExpiringValueCache<String, String> cache;
+
+    /**
+     * Sets up the fixture.
+     */
+    @BeforeEach
+    public void setUp() {
+        metrics = mock(CacheMetrics.class);
+        cache = new BoundedExpiringValueCache<>(CACHE_NAME, 100, (key, value) -> 1L, metrics, now::get);
+    }
+
+    /**
+     * Verifies that the cache returns non-expired values and reports hits and misses.
+     */
+    @Test
+    public void testGetReturnsNonExpiredValue() {
+
+        cache.put("key", "hello", Duration.ofSeconds(5));
+
+        assertThat(cache.get("key")).isEqualTo("hello");
+        verify(metrics).incrementHits(CACHE_NAME);
+        assertThat(cache.get("other")).isNull();
+        verify(metrics).incrementMisses(CACHE_NAME);
+    }
+
+    /**
+     * Verifies that the cache does not return expired values and removes them.
+     */
+    @Test
+    public void testGetRemovesExpiredValue() {
+
+        cache.put("key", "hello", Duration.ofSeconds(5));
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertThat(cache.get("key")).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+        verify(metrics).incrementExpirations(CACHE_NAME);
+        verify(metrics).incrementMisses(CACHE_NAME);
+        verify(metrics, never()).incrementHits(CACHE_NAME);
+    }
+
+    /**
+     * Verifies that expired values are removed without being looked up.
+     */
+    @Test
+    public void testRemoveExpiredRemovesExpiredValuesOnly() {
+
+        cache.put("short-lived", "hello", Duration.ofSeconds(1));
+        cache.put("long-lived", "hello", Duration.ofSeconds(60));
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+
+        assertThat(cache.removeExpired()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("long-lived")).isEqualTo("hello");
+    }
+
+    /**
+     * Verifies that entries expire correctly if the ticker's value overflows
+     * while the entries are in the cache.
+     */
+    @Test
+    public void testExpirationSurvivesTickerOverflow() {
+
+        now.set(Long.MAX_VALUE - Duration.ofSeconds(2).toNanos());
+        cache = new BoundedExpiringValueCache<>(CACHE_NAME, 100, (key, value) -> 1L, metrics, now::get);
+        cache.put("short-lived", "hello", Duration.ofSeconds(5));
+        cache.put("long-lived", "hello", Duration.ofSeconds(60));
+        cache.put("eternal", "hello", Duration.ofSeconds(Long.MAX_VALUE));
+
+        // WHEN the ticker overflows before the entries have expired
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertThat(now.get()).isNegative();
+
+        // THEN the entries are still returned
+        assertThat(cache.removeExpired()).isEqualTo(0);
+        assertThat(cache.get("short-lived")).isEqualTo("hello");
+        assertThat(cache.get("long-lived")).isEqualTo("hello");
+
+        // and expire once their max age has elapsed
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertThat(cache.removeExpired()).isEqualTo(1);
+        assertThat(cache.get("short-lived")).isNull();
+        assertThat(cache.get("long-lived")).isEqualTo("hello");
+        assertThat(cache.get("eternal")).isEqualTo("hello");
+    }
+
+    /**
+     * Verifies that updating a value also updates its expiration time.
+     */
+    @Test
+    public void testPutReplacesExpirationTime() {
+
+        cache.put("key", "hello", Duration.ofSeconds(1));
+        cache.put("key", "world", Duration.ofSeconds(60));
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+
+        assertThat(cache.removeExpired()).isEqualTo(0);
+        assertThat(cache.get("key")).isEqualTo("world");
+    }
+
+    /**
+     * Verifies that the cache does not accept values that are already expired.
+     */
+    @Test
+    public void testPutRejectsExpiredValue() {
+
+        assertThatThrownBy(() -> cache.put("key", "hello", Instant.now().minusSeconds(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cache.put("key", "hello", Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Verifies that the cache evicts entries once the maximum weight has been reached.
+     */
+    @Test
+    public void testPutEvictsEntriesWhenMaxWeightIsReached() {
+
+        for (int i = 0; i < 200; i++) {
+            cache.put("key" + i, "hello", Duration.ofMinutes(1));
+        }
+
+        assertThat(cache.size()).isEqualTo(100);
+        assertThat(cache.weightedSize()).isEqualTo(100);
+        verify(metrics, atLeastOnce()).incrementEvictions(CACHE_NAME);
+    }
+
+    /**
+     * Verifies that frequently accessed entries are not evicted by a large number
+     * of entries that are accessed once only.
+     */
+    @Test
+    public void testFrequentlyUsedEntriesSurviveScan() {
+
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, "hello", Duration.ofMinutes(1));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot" + i);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.put("cold" + i, "hello", Duration.ofMinutes(1));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(cache.get("hot" + i)).isEqualTo("hello");
+        }
+        assertThat(cache.size()).isEqualTo(100);
+    }
+
+    /**
+     * Verifies that the cache takes the weight of entries into account.
+     */
+    @Test
+    public void testPutRespectsWeightOfEntries() {
+
+        final BoundedExpiringValueCache<String, String> weightedCache = new BoundedExpiringValueCache<>(
+                CACHE_NAME, 100, (key, value) -> value.length(), metrics, now::get);
+
+        weightedCache.put("too-big", "x".repeat(101), Duration.ofMinutes(1));
+        assertThat(weightedCache.get("too-big")).isNull();
+
+        for (int i = 0; i < 20; i++) {
+            weightedCache.put("key" + i, "x".repeat(10), Duration.ofMinutes(1));
+        }
+        assertThat(weightedCache.weightedSize()).isLessThanOrEqualTo(100);
+        assertThat(weightedCache.size()).isEqualTo(10);
+    }
+}
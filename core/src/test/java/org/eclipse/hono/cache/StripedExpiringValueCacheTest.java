@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests verifying behavior of {@link StripedExpiringValueCache}.
+ *
+ */
+public class StripedExpiringValueCacheTest {
+
+    /**
+     * Verifies that the number of stripes is rounded up to the next power of two.
+     */
+    @Test
+    public void testStripeCountIsPowerOfTwo() {
+
+        assertThat(new StripedExpiringValueCache<>("test", 1, 100, (k, v) -> 1L, CacheMetrics.NOOP).getStripeCount())
+            .isEqualTo(1);
+        assertThat(new StripedExpiringValueCache<>("test", 6, 100, (k, v) -> 1L, CacheMetrics.NOOP).getStripeCount())
+            .isEqualTo(8);
+        assertThat(new StripedExpiringValueCache<>("test", 8, 100, (k, v) -> 1L, CacheMetrics.NOOP).getStripeCount())
+            .isEqualTo(8);
+    }
+
+    /**
+     * Verifies that values put to the cache can be retrieved and that the
+     * cache's maximum size is split among its stripes.
+     */
+    @Test
+    public void testGetReturnsValuesFromAllStripes() {
+
+        final StripedExpiringValueCache<String, String> cache = new StripedExpiringValueCache<>(
+                "test", 4, 1000, (k, v) -> 1L, CacheMetrics.NOOP);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value" + i, Duration.ofMinutes(1));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.get("key" + i)).isEqualTo("value" + i);
+        }
+        assertThat(cache.size()).isEqualTo(100);
+
+        for (int i = 100; i < 5000; i++) {
+            cache.put("key" + i, "value" + i, Duration.ofMinutes(1));
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(1000);
+    }
+
+    /**
+     * Verifies that the cache can be used from multiple threads concurrently.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+
+        final StripedExpiringValueCache<Integer, Integer> cache = new StripedExpiringValueCache<>(
+                "test", 8, 10_000, (k, v) -> 1L, CacheMetrics.NOOP);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t * 1000;
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    for (int i = offset; i < offset + 1000; i++) {
+                        cache.put(i, i, Duration.ofMinutes(1));
+                        assertThat(cache.get(i)).isEqualTo(i);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.size()).isEqualTo(4000);
+    }
+}
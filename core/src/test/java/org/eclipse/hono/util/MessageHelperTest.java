@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -111,6 +111,25 @@ public class MessageHelperTest {
         assertThat(MessageHelper.getPayloadAsString(msg)).isNotNull();
     }
 
+    /**
+     * Verifies that the Data section created for a payload refers to the
+     * payload buffer's backing array and that the payload can be read from it.
+     */
+    @Test
+    public void testSetPayloadDoesNotCopyArrayBackedBuffer() {
+
+        final Buffer payload = Buffer.buffer(64).appendString("hello");
+        final Message msg = ProtonHelper.message();
+        MessageHelper.setPayload(msg, "text/plain", payload);
+
+        final Binary body = ((Data) msg.getBody()).getValue();
+        assertThat(body.getArray()).isSameAs(payload.getByteBuf().array());
+        assertThat(body.getLength()).isEqualTo(5);
+        assertThat(MessageHelper.getPayload(msg)).isEqualTo(payload);
+        assertThat(MessageHelper.getPayloadAsString(msg)).isEqualTo("hello");
+        assertThat(msg.getContentType()).isEqualTo("text/plain");
+    }
+
     /**
      * Verifies that the helper does not throw an exception when trying to
      * read payload as JSON from an empty Data section.
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -146,6 +147,23 @@ public class TenantObjectTest {
         assertThat(tenant.isAutoProvisioningEnabled(ca.getCAName())).isTrue();
     }
 
+    /**
+     * Verifies that the trust anchors are created once only and are created again
+     * after the trusted CAs have been changed.
+     */
+    @Test
+    public void testGetTrustAnchorsReturnsCachedSetUntilTrustedCasChange() {
+
+        final TenantObject tenant = TenantObject.from("my-tenant", true)
+                .setTrustAnchor(trustedCaCert.getPublicKey(), trustedCaCert.getSubjectX500Principal());
+        final Set<TrustAnchor> trustAnchors = tenant.getTrustAnchors();
+        assertThat(trustAnchors).hasSize(1);
+        assertThat(tenant.getTrustAnchors()).isSameAs(trustAnchors);
+
+        tenant.setProperty(TenantConstants.FIELD_PAYLOAD_TRUSTED_CA, new JsonArray());
+        assertThat(tenant.getTrustAnchors()).isEmpty();
+    }
+
     /**
      * Verifies that all adapters are enabled if no specific
      * configuration has been set.
@@ -206,6 +224,32 @@ public class TenantObjectTest {
         assertThat(tenantConfig.getAdapters().get(0).getType()).isEqualTo("type-1");
     }
 
+    /**
+     * Verifies that the adapters can only be changed by means of the tenant object's
+     * mutators so that the lookup of an adapter by type reflects all changes.
+     */
+    @Test
+    public void testAdaptersCanOnlyBeChangedByMutators() {
+
+        final TenantObject tenantConfig = TenantObject.from(Constants.DEFAULT_TENANT, Boolean.TRUE);
+        final List<Adapter> adapters = new ArrayList<>(List.of(new Adapter("type-1")));
+        tenantConfig.setAdapters(adapters);
+        assertThat(tenantConfig.getAdapter("type-1")).isNotNull();
+
+        // changes to the list passed in are not reflected
+        adapters.set(0, new Adapter("type-2"));
+        assertThat(tenantConfig.getAdapter("type-1")).isNotNull();
+        assertThat(tenantConfig.getAdapter("type-2")).isNull();
+
+        // the returned list cannot be modified
+        assertThatThrownBy(() -> tenantConfig.getAdapters().set(0, new Adapter("type-2")))
+            .isInstanceOf(UnsupportedOperationException.class);
+
+        tenantConfig.addAdapter(new Adapter("type-2"));
+        assertThat(tenantConfig.getAdapter("type-2")).isNotNull();
+        assertThat(tenantConfig.getAdapters()).hasSize(2);
+    }
+
     /**
      * Verifies that adding a list of adapter configurations that contain duplicate types fails. In addition,
      * it is also verified that the existing adapter configurations in the tenant configuration remain unchanged.
@@ -236,6 +280,28 @@ public class TenantObjectTest {
         assertThat(tenantConfig.getAdapters().get(0).getType()).isEqualTo("type-3");
     }
 
+    /**
+     * Verifies that the adapter configurations returned for a type reflect
+     * adapters that have been added or replaced after previous lookups.
+     */
+    @Test
+    public void testGetAdapterReflectsChangedAdapters() {
+        final TenantObject tenantConfig = TenantObject.from(Constants.DEFAULT_TENANT, Boolean.TRUE);
+        final Adapter first = new Adapter("type-1");
+        tenantConfig.setAdapters(Arrays.asList(first));
+        assertThat(tenantConfig.getAdapter("type-1")).isSameAs(first);
+        assertThat(tenantConfig.getAdapter("type-2")).isNull();
+
+        final Adapter second = new Adapter("type-2");
+        tenantConfig.addAdapter(second);
+        assertThat(tenantConfig.getAdapter("type-2")).isSameAs(second);
+
+        final Adapter replacement = new Adapter("type-1");
+        tenantConfig.setAdapters(Arrays.asList(replacement));
+        assertThat(tenantConfig.getAdapter("type-1")).isSameAs(replacement);
+        assertThat(tenantConfig.getAdapter("type-2")).isNull();
+    }
+
     /**
      * Verifies that the trust anchor uses the configured trusted CA's public key and subject DN.
      * 
@@ -410,4 +476,32 @@ public class TenantObjectTest {
 
         assertThat(tenantObject.getMinimumMessageSize()).isEqualTo(TenantConstants.DEFAULT_MINIMUM_MESSAGE_SIZE);
     }
+
+    /**
+     * Verifies that the default properties of a tenant and a device are merged
+     * only once per device level properties instance and that the merged properties
+     * reflect changes of the tenant's default properties.
+     */
+    @Test
+    public void testGetDefaultsMergesTenantAndDeviceDefaults() {
+
+        final TenantObject tenantObject = TenantObject.from(Constants.DEFAULT_TENANT, true)
+                .setDefaults(new JsonObject().put("ttl", 30).put("content-type", "text/plain"));
+        final JsonObject deviceDefaults = new JsonObject().put("ttl", 60);
+
+        final JsonObject merged = tenantObject.getDefaults(deviceDefaults);
+        assertThat(merged.getInteger("ttl")).isEqualTo(60);
+        assertThat(merged.getString("content-type")).isEqualTo("text/plain");
+        // the outcome is kept for the same properties, even if they are wrapped in another JSON object
+        // as it happens when getting the properties from a registration assertion
+        assertThat(tenantObject.getDefaults(deviceDefaults)).isSameAs(merged);
+        assertThat(tenantObject.getDefaults(new JsonObject(deviceDefaults.getMap()))).isSameAs(merged);
+        assertThat(tenantObject.getDefaults(deviceDefaults.copy())).isEqualTo(merged);
+        assertThat(tenantObject.getDefaults(null)).isEqualTo(tenantObject.getDefaults());
+
+        tenantObject.setDefaults(new JsonObject().put("content-type", "application/json"));
+        final JsonObject changed = tenantObject.getDefaults(deviceDefaults);
+        assertThat(changed.getInteger("ttl")).isEqualTo(60);
+        assertThat(changed.getString("content-type")).isEqualTo("application/json");
+    }
 }
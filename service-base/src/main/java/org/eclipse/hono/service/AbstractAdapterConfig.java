@@ -13,8 +13,15 @@
 
 package org.eclipse.hono.service;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hono.cache.BoundedCacheProvider;
+import org.eclipse.hono.cache.CacheMetrics;
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.client.BasicDeviceConnectionClientFactory;
 import org.eclipse.hono.client.CommandConsumerFactory;
@@ -25,12 +32,19 @@ import org.eclipse.hono.client.GatewayMapper;
 import org.eclipse.hono.client.HonoConnection;
 import org.eclipse.hono.client.RegistrationClientFactory;
 import org.eclipse.hono.client.RequestResponseClientConfigProperties;
+import org.eclipse.hono.client.RequestResponseClientMetrics;
 import org.eclipse.hono.client.TenantClientFactory;
 import org.eclipse.hono.config.ApplicationConfigProperties;
 import org.eclipse.hono.config.ClientConfigProperties;
 import org.eclipse.hono.config.ServerConfig;
 import org.eclipse.hono.config.VertxProperties;
+import org.eclipse.hono.service.auth.device.PasswordVerificationExecutor;
+import org.eclipse.hono.service.auth.device.PasswordVerificationMetrics;
+import org.eclipse.hono.service.cache.RecentlyActiveDevices;
 import org.eclipse.hono.service.cache.SpringCacheProvider;
+import org.eclipse.hono.service.metric.MicrometerBasedCacheMetrics;
+import org.eclipse.hono.service.metric.MicrometerBasedPasswordVerificationMetrics;
+import org.eclipse.hono.service.metric.MicrometerBasedRequestResponseClientMetrics;
 import org.eclipse.hono.service.resourcelimits.PrometheusBasedResourceLimitChecks;
 import org.eclipse.hono.service.resourcelimits.PrometheusBasedResourceLimitChecksConfig;
 import org.eclipse.hono.service.resourcelimits.ResourceLimitChecks;
@@ -40,6 +54,7 @@ import org.eclipse.hono.util.CredentialsConstants;
 import org.eclipse.hono.util.DeviceConnectionConstants;
 import org.eclipse.hono.util.RegistrationConstants;
 import org.eclipse.hono.util.TenantConstants;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -50,6 +65,7 @@ import org.springframework.context.annotation.Scope;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.opentracing.Tracer;
 import io.opentracing.contrib.tracerresolver.TracerResolver;
 import io.opentracing.noop.NoopTracerFactory;
@@ -62,6 +78,29 @@ import io.vertx.ext.web.client.WebClient;
  */
 public abstract class AbstractAdapterConfig {
 
+    /**
+     * The response caches that are shared by all verticle instances, indexed by the
+     * configuration of the clients using them.
+     */
+    private final Map<RequestResponseClientConfigProperties, CacheProvider> sharedResponseCaches = new ConcurrentHashMap<>();
+    /**
+     * The bounded response caches that have been created, whose periodic removal
+     * of expired entries needs to be stopped on shutdown.
+     */
+    private final Set<BoundedCacheProvider> boundedResponseCaches = ConcurrentHashMap.newKeySet();
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Sets the meter registry to use for reporting metrics about the
+     * requests sent to the Tenant, Device Registration and Credentials services.
+     *
+     * @param registry The meter registry.
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(final MeterRegistry registry) {
+        this.meterRegistry = registry;
+    }
+
     /**
      * Exposes an OpenTracing {@code Tracer} as a Spring Bean.
      * <p>
@@ -150,6 +189,72 @@ public abstract class AbstractAdapterConfig {
         return HonoConnection.newConnection(vertx(), downstreamSenderFactoryConfig());
     }
 
+    /**
+     * Exposes the component for reporting metrics about the requests sent
+     * to the Tenant, Device Registration and Credentials services as a Spring bean.
+     * <p>
+     * The metrics are reported to the meter registry if one is available.
+     * Otherwise, the metrics are discarded.
+     *
+     * @return The metrics.
+     */
+    @Bean
+    public RequestResponseClientMetrics requestResponseClientMetrics() {
+        if (meterRegistry == null) {
+            return RequestResponseClientMetrics.NOOP;
+        } else {
+            return new MicrometerBasedRequestResponseClientMetrics(meterRegistry);
+        }
+    }
+
+    /**
+     * Exposes the component for reporting metrics about the usage of the
+     * response caches as a Spring bean.
+     * <p>
+     * The metrics are reported to the meter registry if one is available.
+     * Otherwise, the metrics are discarded.
+     *
+     * @return The metrics.
+     */
+    @Bean
+    public CacheMetrics cacheMetrics() {
+        if (meterRegistry == null) {
+            return CacheMetrics.NOOP;
+        } else {
+            return new MicrometerBasedCacheMetrics(meterRegistry);
+        }
+    }
+
+    /**
+     * Exposes the executor for verifying password hashes as a Spring bean.
+     * <p>
+     * The executor is shared by all protocol adapter instances, so that the number of
+     * worker threads and queued verifications is limited for the adapter as a whole
+     * and successful verifications are shared among all instances.
+     *
+     * @return The executor.
+     */
+    @Bean
+    public PasswordVerificationExecutor passwordVerificationExecutor() {
+        final PasswordVerificationMetrics metrics = meterRegistry == null
+                ? PasswordVerificationMetrics.NOOP
+                : new MicrometerBasedPasswordVerificationMetrics(meterRegistry);
+        return new PasswordVerificationExecutor(applicationConfigProperties(), metrics, cacheMetrics());
+    }
+
+    /**
+     * Exposes the record of recently active devices as a Spring bean.
+     * <p>
+     * The record is shared by all protocol adapter instances, so that the snapshot
+     * written on shut down contains the devices of all instances.
+     *
+     * @return The record.
+     */
+    @Bean
+    public RecentlyActiveDevices recentlyActiveDevices() {
+        return new RecentlyActiveDevices();
+    }
+
     /**
      * Exposes configuration properties for accessing the registration service as a Spring bean.
      * <p>
@@ -188,7 +293,8 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(RegistrationConstants.REGISTRATION_ENDPOINT)
     @Scope("prototype")
     public RegistrationClientFactory registrationClientFactory() {
-        return RegistrationClientFactory.create(registrationServiceConnection(), registrationCacheProvider());
+        return RegistrationClientFactory.create(registrationServiceConnection(), registrationCacheProvider(),
+                requestResponseClientMetrics());
     }
 
     /**
@@ -212,7 +318,7 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(RegistrationConstants.REGISTRATION_ENDPOINT)
     @Scope("prototype")
     public CacheProvider registrationCacheProvider() {
-        return newCaffeineCache(registrationClientFactoryConfig());
+        return newResponseCache(registrationClientFactoryConfig());
     }
 
     /**
@@ -251,7 +357,8 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(CredentialsConstants.CREDENTIALS_ENDPOINT)
     @Scope("prototype")
     public CredentialsClientFactory credentialsClientFactory() {
-        return CredentialsClientFactory.create(credentialsServiceConnection(), credentialsCacheProvider());
+        return CredentialsClientFactory.create(credentialsServiceConnection(), credentialsCacheProvider(),
+                requestResponseClientMetrics());
     }
 
     /**
@@ -275,7 +382,7 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(CredentialsConstants.CREDENTIALS_ENDPOINT)
     @Scope("prototype")
     public CacheProvider credentialsCacheProvider() {
-        return newCaffeineCache(credentialsClientFactoryConfig());
+        return newResponseCache(credentialsClientFactoryConfig());
     }
 
     /**
@@ -314,7 +421,8 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(TenantConstants.TENANT_ENDPOINT)
     @Scope("prototype")
     public TenantClientFactory tenantClientFactory() {
-        return TenantClientFactory.create(tenantServiceConnection(), tenantCacheProvider());
+        return TenantClientFactory.create(tenantServiceConnection(), tenantCacheProvider(),
+                requestResponseClientMetrics());
     }
 
     /**
@@ -338,7 +446,7 @@ public abstract class AbstractAdapterConfig {
     @Qualifier(TenantConstants.TENANT_ENDPOINT)
     @Scope("prototype")
     public CacheProvider tenantCacheProvider() {
-        return newCaffeineCache(tenantServiceClientConfig());
+        return newResponseCache(tenantServiceClientConfig());
     }
 
     /**
@@ -461,13 +569,53 @@ public abstract class AbstractAdapterConfig {
     }
 
     /**
-     * Create a new cache provider based on Caffeine and Spring Cache.
+     * Create a new cache provider for response caches.
+     * <p>
+     * The type of cache is determined by the configuration's <em>responseCacheType</em>.
+     * If the configuration's <em>responseCacheShared</em> property is {@code true}, the
+     * same cache provider is returned for all invocations with the same configuration, so
+     * that all verticle instances share the cached responses.
      *
      * @param config The configuration to use as base for this cache.
-     * @return A new cache provider or {@code null} if no cache should be used.
+     * @return A new (or the shared) cache provider or {@code null} if no cache should be used.
+     */
+    private CacheProvider newResponseCache(final RequestResponseClientConfigProperties config) {
+
+        if (config.isResponseCacheShared()) {
+            return sharedResponseCaches.computeIfAbsent(config, this::createResponseCache);
+        } else {
+            return createResponseCache(config);
+        }
+    }
+
+    private CacheProvider createResponseCache(final RequestResponseClientConfigProperties config) {
+
+        if (config.getResponseCacheMaxSize() <= 0) {
+            return null;
+        } else if (RequestResponseClientConfigProperties.RESPONSE_CACHE_TYPE_BOUNDED.equals(config.getResponseCacheType())) {
+            // a shared cache is accessed from all event loop threads, so it is striped
+            // in order to prevent the threads from contending for a single lock
+            final int stripes = config.isResponseCacheShared() ? Runtime.getRuntime().availableProcessors() : 1;
+            final BoundedCacheProvider cacheProvider = new BoundedCacheProvider(
+                    vertx(),
+                    Math.max(config.getResponseCacheMinSize(), config.getResponseCacheMaxSize()),
+                    stripes,
+                    cacheMetrics());
+            boundedResponseCaches.add(cacheProvider);
+            return cacheProvider;
+        } else {
+            // Caffeine based caches are safe for concurrent use and do not block readers
+            return newCaffeineCache(config.getResponseCacheMinSize(), config.getResponseCacheMaxSize());
+        }
+    }
+
+    /**
+     * Stops the periodic removal of expired entries from the bounded response caches.
      */
-    private static CacheProvider newCaffeineCache(final RequestResponseClientConfigProperties config) {
-        return newCaffeineCache(config.getResponseCacheMinSize(), config.getResponseCacheMaxSize());
+    @PreDestroy
+    public void closeResponseCaches() {
+        boundedResponseCaches.forEach(BoundedCacheProvider::close);
+        boundedResponseCaches.clear();
     }
 
     /**
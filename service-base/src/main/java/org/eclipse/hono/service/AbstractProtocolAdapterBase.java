@@ -15,7 +15,12 @@ package org.eclipse.hono.service;
 import java.net.HttpURLConnection;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiConsumer;
@@ -49,6 +54,8 @@ import org.eclipse.hono.client.TenantClientFactory;
 import org.eclipse.hono.config.AbstractConfig;
 import org.eclipse.hono.config.ProtocolAdapterProperties;
 import org.eclipse.hono.service.auth.ValidityBasedTrustOptions;
+import org.eclipse.hono.service.auth.device.PasswordVerificationExecutor;
+import org.eclipse.hono.service.cache.RecentlyActiveDevices;
 import org.eclipse.hono.service.http.HttpUtils;
 import org.eclipse.hono.service.limiting.ConnectionLimitManager;
 import org.eclipse.hono.service.monitoring.ConnectionEventProducer;
@@ -64,6 +71,7 @@ import org.eclipse.hono.util.ResourceIdentifier;
 import org.eclipse.hono.util.Strings;
 import org.eclipse.hono.util.TenantConstants;
 import org.eclipse.hono.util.TenantObject;
+import org.eclipse.hono.util.TriTuple;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
@@ -115,6 +123,9 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
 
     private ConnectionEventProducer connectionEventProducer;
     private ResourceLimitChecks resourceLimitChecks = new NoopResourceLimitChecks();
+    private RecentlyActiveDevices recentlyActiveDevices = new RecentlyActiveDevices();
+    private PasswordVerificationExecutor passwordVerificationExecutor = new PasswordVerificationExecutor();
+    private final Promise<Void> cacheWarmUp = Promise.promise();
     private final ConnectionEventProducer.Context connectionEventProducerContext = new ConnectionEventProducer.Context() {
 
         @Override
@@ -387,6 +398,44 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
         this.resourceLimitChecks = Objects.requireNonNull(resourceLimitChecks);
     }
 
+    /**
+     * Sets the record of recently active devices that is used for warming up the caches during start up.
+     * <p>
+     * The record is only used if a {@linkplain ProtocolAdapterProperties#getCacheWarmUpSnapshotPath()
+     * snapshot path} has been configured. Sharing the record among all adapter instances makes sure
+     * that the snapshot written on shut down contains the devices of all instances.
+     *
+     * @param devices The record.
+     * @throws NullPointerException if devices is {@code null}.
+     */
+    @Autowired(required = false)
+    public final void setRecentlyActiveDevices(final RecentlyActiveDevices devices) {
+        this.recentlyActiveDevices = Objects.requireNonNull(devices);
+    }
+
+    /**
+     * Sets the executor to use for verifying the password hashes of devices.
+     * <p>
+     * Sharing the executor among all adapter instances makes sure that the number of
+     * concurrent verifications is limited for the adapter as a whole.
+     *
+     * @param executor The executor.
+     * @throws NullPointerException if executor is {@code null}.
+     */
+    @Autowired(required = false)
+    public final void setPasswordVerificationExecutor(final PasswordVerificationExecutor executor) {
+        this.passwordVerificationExecutor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Gets the executor to use for verifying the password hashes of devices.
+     *
+     * @return The executor.
+     */
+    protected final PasswordVerificationExecutor getPasswordVerificationExecutor() {
+        return passwordVerificationExecutor;
+    }
+
     /**
      * Gets the ResourceLimitChecks instance used to check if the number of connections exceeded the limit or not.
      *
@@ -430,9 +479,10 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
 
             log.info("using ResourceLimitChecks [{}]", resourceLimitChecks.getClass().getName());
 
-            connectToService(tenantClientFactory, "Tenant service");
+            final Future<HonoConnection> tenantServiceConnection = connectToService(tenantClientFactory, "Tenant service");
             connectToService(downstreamSenderFactory, "AMQP Messaging Network");
-            connectToService(registrationClientFactory, "Device Registration service");
+            final Future<HonoConnection> registrationServiceConnection = connectToService(
+                    registrationClientFactory, "Device Registration service");
             connectToService(credentialsClientFactory, "Credentials service");
             if (deviceConnectionClientFactory instanceof ConnectionLifecycle) {
                 connectToService((ConnectionLifecycle<?>) deviceConnectionClientFactory, "Device Connection service");
@@ -448,11 +498,99 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
                     onCommandConnectionEstablished(c.result());
                 }
             });
+            warmUpCaches(tenantServiceConnection, registrationServiceConnection);
             doStart(result);
         }
         return result.future();
     }
 
+    /**
+     * Loads the configuration of tenants and the registration assertions of recently
+     * active devices into the cache.
+     * <p>
+     * The caches are warmed up once the connections to the Tenant and Device Registration
+     * services have been established. Failures to load any of the information are ignored.
+     * The adapter reports itself as not being ready until warm up has completed or the
+     * configured warm up timeout has been reached.
+     */
+    private void warmUpCaches(
+            final Future<HonoConnection> tenantServiceConnection,
+            final Future<HonoConnection> registrationServiceConnection) {
+
+        // register with the (shared) record of recently active devices
+        // even if the caches are not warmed up, so that the snapshot is written only once
+        final Future<List<TriTuple<String, String, String>>> devices;
+        if (getConfig().getCacheWarmUpSnapshotPath() == null) {
+            devices = Future.succeededFuture(new ArrayList<>());
+        } else {
+            // the snapshot is only read by the first adapter instance sharing the record
+            devices = recentlyActiveDevices.acquire(
+                    vertx,
+                    getConfig().getCacheWarmUpSnapshotPath(),
+                    getConfig().getCacheWarmUpMaxDevices())
+                    .otherwise(t -> {
+                        log.info("failed to load snapshot of recently active devices", t);
+                        return new ArrayList<>();
+                    });
+        }
+
+        if (!getConfig().isCacheWarmUpEnabled()) {
+            cacheWarmUp.tryComplete();
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        vertx.setTimer(getConfig().getCacheWarmUpTimeout(), tid -> {
+            if (cacheWarmUp.tryComplete()) {
+                log.info("cache warm up has not completed within {}ms, reporting readiness anyway",
+                        getConfig().getCacheWarmUpTimeout());
+            }
+        });
+
+        CompositeFuture.all(tenantServiceConnection, registrationServiceConnection, devices)
+        .compose(ok -> {
+            final Set<String> tenants = new LinkedHashSet<>(getConfig().getCacheWarmUpTenants());
+            devices.result().forEach(device -> tenants.add(device.one()));
+            @SuppressWarnings("rawtypes")
+            final List<Future> results = new ArrayList<>();
+            tenants.forEach(tenantId -> results.add(getTenantConfiguration(tenantId, null)));
+            results.addAll(warmUpRegistrationCache(devices.result()));
+            // failures to load individual items should not prevent the others from being loaded
+            return CompositeFuture.join(results)
+                    .map(loaded -> results.size())
+                    .otherwise(t -> results.size());
+        })
+        .setHandler(warmUp -> {
+            if (warmUp.succeeded()) {
+                log.info("warmed up caches using {} requests in {}ms", warmUp.result(), System.currentTimeMillis() - start);
+            } else {
+                log.info("failed to warm up caches", warmUp.cause());
+            }
+            cacheWarmUp.tryComplete();
+        });
+    }
+
+    @SuppressWarnings("rawtypes")
+    private List<Future> warmUpRegistrationCache(final List<TriTuple<String, String, String>> devices) {
+
+        // assert devices connected via the same gateway by means of a single request
+        final Map<TriTuple<String, String, Object>, Set<String>> devicesPerGateway = new HashMap<>();
+        final List<Future> results = new ArrayList<>();
+        for (final TriTuple<String, String, String> device : devices) {
+            if (device.three() == null) {
+                results.add(getRegistrationClient(device.one())
+                        .compose(client -> client.assertRegistration(device.two(), null, null)));
+            } else {
+                devicesPerGateway
+                    .computeIfAbsent(TriTuple.of(device.one(), device.three(), null), key -> new HashSet<>())
+                    .add(device.two());
+            }
+        }
+        devicesPerGateway.forEach((gateway, deviceIds) -> results.add(getRegistrationClient(gateway.one())
+                .compose(client -> client.assertRegistrations(deviceIds, gateway.two(), null))));
+        return results;
+    }
+
     /**
      * Invoked after the adapter has started up.
      * <p>
@@ -473,6 +611,7 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
         final Promise<Void> result = Promise.promise();
         doStop(result);
         return result.future()
+                .compose(s -> saveRecentlyActiveDevices())
                 .compose(s -> closeServiceClients())
                 .recover(t -> {
                     log.info("error while stopping protocol adapter", t);
@@ -484,6 +623,23 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
                 });
     }
 
+    private Future<Void> saveRecentlyActiveDevices() {
+
+        if (getConfig().getCacheWarmUpSnapshotPath() == null) {
+            return Future.succeededFuture();
+        }
+        // the snapshot is only written by the last adapter instance sharing the record
+        return recentlyActiveDevices.release(
+                vertx,
+                getConfig().getCacheWarmUpSnapshotPath(),
+                getConfig().getCacheWarmUpMaxDevices())
+                .otherwise(t -> {
+                    // this should not prevent the adapter from shutting down
+                    log.info("failed to save snapshot of recently active devices", t);
+                    return null;
+                });
+    }
+
     private Future<?> closeServiceClients() {
 
         @SuppressWarnings("rawtypes")
@@ -621,7 +777,16 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
 
         Objects.requireNonNull(tenantConfig);
 
-        return resourceLimitChecks.isMessageLimitReached(tenantConfig, payloadSize, spanContext)
+        final Future<Boolean> check = resourceLimitChecks.isMessageLimitReached(tenantConfig, payloadSize, spanContext);
+        if (check.isComplete()) {
+            // spare the intermediate futures for checks that do not need to wait for anything
+            if (check.succeeded() && Boolean.TRUE.equals(check.result())) {
+                return Future.failedFuture(new ClientErrorException(HttpResponseStatus.TOO_MANY_REQUESTS.code()));
+            } else {
+                return Future.succeededFuture();
+            }
+        }
+        return check
                 .recover(t -> Future.succeededFuture(Boolean.FALSE))
                 .compose(isExceeded -> {
                     if (isExceeded) {
@@ -1034,6 +1199,9 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
                 .compose(gwId -> getRegistrationClient(tenantId))
                 .compose(client -> client.assertRegistration(deviceId, gatewayId.result(), context))
                 .compose(registrationAssertion -> {
+                    if (getConfig().getCacheWarmUpSnapshotPath() != null) {
+                        recentlyActiveDevices.record(tenantId, deviceId, gatewayId.result());
+                    }
                     // the updateLastGateway invocation shouldn't delay or possibly fail the surrounding operation
                     // so don't wait for the outcome here
                     updateLastGateway(registrationAssertion, tenantId, deviceId, authenticatedDevice, context)
@@ -1354,6 +1522,9 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
 
     /**
      * Registers a check that succeeds if this component is connected to the services it depends on.
+     * <p>
+     * If {@linkplain ProtocolAdapterProperties#isCacheWarmUpEnabled() cache warm up} is enabled,
+     * a check is registered in addition which succeeds once the caches have been warmed up.
      * 
      * @see #isConnected()
      */
@@ -1368,6 +1539,15 @@ public abstract class AbstractProtocolAdapterBase<T extends ProtocolAdapterPrope
                 return null;
             });
         });
+        if (getConfig().isCacheWarmUpEnabled()) {
+            handler.register("cache-warm-up", status -> {
+                if (cacheWarmUp.future().isComplete()) {
+                    status.tryComplete(Status.OK());
+                } else {
+                    status.tryComplete(Status.KO());
+                }
+            });
+        }
     }
 
     /**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,7 +13,9 @@
 
 package org.eclipse.hono.service.auth.device;
 
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathValidator;
 import java.security.cert.CertificateException;
@@ -21,10 +23,17 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.PKIXParameters;
 import java.security.cert.TrustAnchor;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import org.eclipse.hono.cache.BoundedExpiringValueCache;
+import org.eclipse.hono.cache.CacheMetrics;
 import org.eclipse.hono.service.auth.X509CertificateChainValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,11 +44,98 @@ import io.vertx.core.Promise;
 
 /**
  * Validates a device's certificate chain using a {@link CertPathValidator}.
- *
+ * <p>
+ * The validator keeps the {@link PKIXParameters} created for a tenant's trust anchors, so that
+ * validating the chains of devices of the same tenant does not require setting up
+ * the parameters again. The parameters are looked up by the tenant identifier and the
+ * content of the trust anchors, i.e. the names and public keys of the trusted CAs.
+ * The parameters are therefore reused for a tenant object that has been retrieved from the
+ * Tenant service again and are set up again once the tenant's trusted CAs have changed.
+ * <p>
+ * In addition, the validator caches the successful validation of a certificate chain
+ * against a tenant's trust anchors for a limited amount of time, which never exceeds
+ * the validity period of any of the chain's certificates. A device presenting the same
+ * certificate chain again is then authenticated without validating the chain again.
  */
 public class DeviceCertificateValidator implements X509CertificateChainValidator {
 
+    /**
+     * The default maximum number of successful validations to keep.
+     */
+    public static final int DEFAULT_MAX_CACHED_VALIDATIONS = 1000;
+    /**
+     * The default period of time for which a successful validation is kept.
+     */
+    public static final Duration DEFAULT_VALIDATION_CACHE_TIMEOUT = Duration.ofMinutes(5);
+
     private static final Logger LOG = LoggerFactory.getLogger(DeviceCertificateValidator.class);
+    private static final int MAX_CACHED_PARAMETERS = 100;
+
+    private final Map<TrustAnchorsKey, PKIXParameters> parameters = new LinkedHashMap<TrustAnchorsKey, PKIXParameters>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<TrustAnchorsKey, PKIXParameters> eldest) {
+            return size() > MAX_CACHED_PARAMETERS;
+        }
+    };
+    // <(trust anchors, chain), validated>
+    private final BoundedExpiringValueCache<Map.Entry<TrustAnchorsKey, List<X509Certificate>>, Boolean> validations;
+    private final Duration validationTimeout;
+
+    /**
+     * Creates a new validator which caches up to {@link #DEFAULT_MAX_CACHED_VALIDATIONS}
+     * successful validations for {@link #DEFAULT_VALIDATION_CACHE_TIMEOUT}.
+     */
+    public DeviceCertificateValidator() {
+        this(DEFAULT_MAX_CACHED_VALIDATIONS, DEFAULT_VALIDATION_CACHE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new validator.
+     *
+     * @param maxCachedValidations The maximum number of successful validations to keep.
+     *                             If 0, successful validations are not kept.
+     * @param validationTimeout The period of time for which a successful validation is kept.
+     * @throws NullPointerException if timeout is {@code null}.
+     * @throws IllegalArgumentException if max cached validations is &lt; 0.
+     */
+    public DeviceCertificateValidator(final int maxCachedValidations, final Duration validationTimeout) {
+        this(maxCachedValidations, validationTimeout, CacheMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new validator.
+     *
+     * @param maxCachedValidations The maximum number of successful validations to keep.
+     *                             If 0, successful validations are not kept.
+     * @param validationTimeout The period of time for which a successful validation is kept.
+     * @param metrics The metrics to report the usage of the cache of successful validations to.
+     * @throws NullPointerException if timeout or metrics are {@code null}.
+     * @throws IllegalArgumentException if max cached validations is &lt; 0.
+     */
+    DeviceCertificateValidator(
+            final int maxCachedValidations,
+            final Duration validationTimeout,
+            final CacheMetrics metrics) {
+
+        Objects.requireNonNull(validationTimeout);
+        Objects.requireNonNull(metrics);
+        if (maxCachedValidations < 0) {
+            throw new IllegalArgumentException("max cached validations must be >= 0");
+        }
+        this.validationTimeout = validationTimeout;
+        if (maxCachedValidations == 0 || validationTimeout.isZero() || validationTimeout.isNegative()) {
+            this.validations = null;
+        } else {
+            this.validations = new BoundedExpiringValueCache<>(
+                    "certificate-validations",
+                    maxCachedValidations,
+                    (k, v) -> 1L,
+                    metrics);
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -59,6 +155,27 @@ public class DeviceCertificateValidator implements X509CertificateChainValidator
     @Override
     public Future<Void> validate(final List<X509Certificate> chain, final Set<TrustAnchor> trustAnchors) {
 
+        return validate(chain, null, trustAnchors);
+    }
+
+    /**
+     * Validates a certificate path based on a tenant's trust anchors.
+     *
+     * @param chain The certificate chain to validate. The end certificate
+     *              must be at position 0.
+     * @param tenantId The identifier of the tenant that the trust anchors belong to
+     *                 or {@code null} if unknown.
+     * @param trustAnchors The list of trust anchors to use for validating the chain.
+     * @return A completed future if the path is valid (according to the implemented tests).
+     *         Otherwise, the future will be failed with a {@link CertificateException}.
+     * @throws NullPointerException if chain or trust anchors are {@code null}.
+     * @throws IllegalArgumentException if the chain or trust anchor list are empty.
+     */
+    public Future<Void> validate(
+            final List<X509Certificate> chain,
+            final String tenantId,
+            final Set<TrustAnchor> trustAnchors) {
+
         Objects.requireNonNull(chain);
         Objects.requireNonNull(trustAnchors);
 
@@ -68,18 +185,29 @@ public class DeviceCertificateValidator implements X509CertificateChainValidator
             throw new IllegalArgumentException("trust anchor list must not be empty");
         }
 
+        final TrustAnchorsKey trustAnchorsKey = new TrustAnchorsKey(tenantId, trustAnchors);
+        final Map.Entry<TrustAnchorsKey, List<X509Certificate>> key = validations == null
+                ? null
+                : Map.entry(trustAnchorsKey, List.copyOf(chain));
+        if (key != null && validations.get(key) != null) {
+            LOG.debug("device certificate [subject DN: {}] has been validated recently",
+                    chain.get(0).getSubjectX500Principal().getName());
+            return Future.succeededFuture();
+        }
+
         final Promise<Void> result = Promise.promise();
 
         try {
-            final PKIXParameters params = new PKIXParameters(trustAnchors);
-            // TODO do we need to check for revocation?
-            params.setRevocationEnabled(false);
+            final PKIXParameters params = getParameters(trustAnchorsKey, trustAnchors);
             final CertificateFactory factory = CertificateFactory.getInstance("X.509");
             final CertPath path = factory.generateCertPath(chain);
             final CertPathValidator validator = CertPathValidator.getInstance("PKIX");
             validator.validate(path, params);
             LOG.debug("validation of device certificate [subject DN: {}] succeeded",
                     chain.get(0).getSubjectX500Principal().getName());
+            if (key != null) {
+                validations.put(key, Boolean.TRUE, getExpirationTime(chain));
+            }
             result.complete();
         } catch (GeneralSecurityException e) {
             LOG.debug("validation of device certificate [subject DN: {}] failed",
@@ -92,4 +220,88 @@ public class DeviceCertificateValidator implements X509CertificateChainValidator
         }
         return result.future();
     }
+
+    private PKIXParameters getParameters(
+            final TrustAnchorsKey key,
+            final Set<TrustAnchor> trustAnchors) throws InvalidAlgorithmParameterException {
+
+        synchronized (parameters) {
+            PKIXParameters params = parameters.get(key);
+            if (params == null) {
+                params = new PKIXParameters(trustAnchors);
+                // TODO do we need to check for revocation?
+                params.setRevocationEnabled(false);
+                parameters.put(key, params);
+            }
+            return params;
+        }
+    }
+
+    /**
+     * Gets the point in time until which a successful validation of a chain is kept.
+     *
+     * @param chain The validated chain.
+     * @return The validation cache timeout from now or the earliest end of the validity
+     *         period of any of the chain's certificates, whichever comes first.
+     */
+    Instant getExpirationTime(final List<X509Certificate> chain) {
+
+        Instant expirationTime = Instant.now().plus(validationTimeout);
+        for (final X509Certificate cert : chain) {
+            final Instant notAfter = cert.getNotAfter().toInstant();
+            if (notAfter.isBefore(expirationTime)) {
+                expirationTime = notAfter;
+            }
+        }
+        return expirationTime;
+    }
+
+    /**
+     * The key under which the parameters and validations for a tenant's trust anchors are kept.
+     * <p>
+     * {@link TrustAnchor} does not implement {@code equals}, so the key is based on the
+     * names and encoded public keys of the trusted CAs instead.
+     */
+    private static final class TrustAnchorsKey {
+
+        private final String tenantId;
+        private final Set<Map.Entry<String, ByteBuffer>> trustedCas;
+        private final int hashCode;
+
+        TrustAnchorsKey(final String tenantId, final Set<TrustAnchor> trustAnchors) {
+            this.tenantId = tenantId;
+            this.trustedCas = new HashSet<>(trustAnchors.size());
+            for (final TrustAnchor anchor : trustAnchors) {
+                final X509Certificate trustedCert = anchor.getTrustedCert();
+                if (trustedCert == null) {
+                    trustedCas.add(Map.entry(
+                            anchor.getCAName(),
+                            ByteBuffer.wrap(anchor.getCAPublicKey().getEncoded())));
+                } else {
+                    trustedCas.add(Map.entry(
+                            trustedCert.getSubjectX500Principal().getName(),
+                            ByteBuffer.wrap(trustedCert.getPublicKey().getEncoded())));
+                }
+            }
+            this.hashCode = Objects.hash(tenantId, trustedCas);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof TrustAnchorsKey)) {
+                return false;
+            }
+            final TrustAnchorsKey other = (TrustAnchorsKey) obj;
+            return hashCode == other.hashCode
+                    && Objects.equals(tenantId, other.tenantId)
+                    && trustedCas.equals(other.trustedCas);
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.auth.device;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Objects;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.hono.cache.CacheMetrics;
+import org.eclipse.hono.cache.StripedExpiringValueCache;
+import org.eclipse.hono.util.CredentialsObject;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A cache of successful password verifications.
+ * <p>
+ * Verifying a password against a BCrypt hash is expensive by design. Devices that
+ * connect frequently or that authenticate every request, like HTTP devices, would
+ * therefore cause the same password hash to be verified over and over again.
+ * <p>
+ * This cache records the fact that a password has been verified successfully for a
+ * short amount of time. The cache's keys are fingerprints created by means of a
+ * HMAC-SHA256 over the tenant, auth-id and device identifiers, the password presented
+ * by the device and the candidate secrets contained in the credentials on record.
+ * The HMAC key is created randomly when the cache is created and is never stored, so
+ * neither the password nor anything that can be used for verifying a password offline
+ * is kept in memory. Because the secrets on record are part of the fingerprint, changed
+ * credentials never match a fingerprint of a previous verification.
+ * <p>
+ * Instances are thread safe.
+ */
+public final class PasswordVerificationCache {
+
+    /**
+     * The name of the cache, used for reporting metrics.
+     */
+    public static final String CACHE_NAME = "password-verifications";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final StripedExpiringValueCache<ByteBuffer, Boolean> verifications;
+    private final Duration timeToLive;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize The maximum number of verifications to keep. If 0, the cache is disabled.
+     * @param timeToLive The period of time after which a verification needs to be repeated.
+     * @param metrics The metrics to report hits, misses and evictions to.
+     * @throws NullPointerException if time to live or metrics are {@code null}.
+     * @throws IllegalArgumentException if max size is &lt; 0.
+     */
+    public PasswordVerificationCache(final int maxSize, final Duration timeToLive, final CacheMetrics metrics) {
+
+        Objects.requireNonNull(timeToLive);
+        Objects.requireNonNull(metrics);
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("max size must be >= 0");
+        }
+        this.timeToLive = timeToLive;
+        if (maxSize == 0 || timeToLive.isZero() || timeToLive.isNegative()) {
+            this.verifications = null;
+            this.key = null;
+            this.mac = null;
+        } else {
+            this.verifications = new StripedExpiringValueCache<>(
+                    CACHE_NAME,
+                    Runtime.getRuntime().availableProcessors(),
+                    maxSize,
+                    (k, v) -> 1L,
+                    metrics);
+            final byte[] keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            this.key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+            this.mac = ThreadLocal.withInitial(this::newMac);
+        }
+    }
+
+    /**
+     * Creates a disabled cache.
+     *
+     * @return The cache.
+     */
+    public static PasswordVerificationCache disabled() {
+        return new PasswordVerificationCache(0, Duration.ZERO, CacheMetrics.NOOP);
+    }
+
+    private Mac newMac() {
+        try {
+            final Mac result = Mac.getInstance(MAC_ALGORITHM);
+            result.init(key);
+            return result;
+        } catch (final GeneralSecurityException e) {
+            // HmacSHA256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks if this cache is enabled.
+     *
+     * @return {@code true} if verifications are being recorded.
+     */
+    public boolean isEnabled() {
+        return verifications != null;
+    }
+
+    /**
+     * Creates the fingerprint of a password verification.
+     *
+     * @param deviceCredentials The credentials presented by the device.
+     * @param credentialsOnRecord The credentials on record.
+     * @return The fingerprint or {@code null} if this cache is disabled.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    public ByteBuffer getFingerprint(
+            final UsernamePasswordCredentials deviceCredentials,
+            final CredentialsObject credentialsOnRecord) {
+
+        Objects.requireNonNull(deviceCredentials);
+        Objects.requireNonNull(credentialsOnRecord);
+
+        if (!isEnabled()) {
+            return null;
+        }
+        final Mac hmac = mac.get();
+        update(hmac, deviceCredentials.getTenantId());
+        update(hmac, deviceCredentials.getAuthId());
+        update(hmac, credentialsOnRecord.getDeviceId());
+        update(hmac, deviceCredentials.getPassword());
+        for (final JsonObject secret : credentialsOnRecord.getCandidateSecrets()) {
+            update(hmac, secret.encode());
+        }
+        return ByteBuffer.wrap(hmac.doFinal());
+    }
+
+    private static void update(final Mac hmac, final String value) {
+        // prefix each value with its length so that values cannot be shifted among fields
+        final byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        hmac.update(ByteBuffer.allocate(Integer.BYTES).putInt(value == null ? -1 : bytes.length).array());
+        hmac.update(bytes);
+    }
+
+    /**
+     * Checks if a password has been verified successfully recently.
+     *
+     * @param fingerprint The fingerprint of the verification or {@code null}.
+     * @return {@code true} if the fingerprint is contained in this cache.
+     */
+    public boolean contains(final ByteBuffer fingerprint) {
+        return fingerprint != null && isEnabled() && verifications.get(fingerprint) != null;
+    }
+
+    /**
+     * Records a successful password verification.
+     *
+     * @param fingerprint The fingerprint of the verification or {@code null}.
+     */
+    public void add(final ByteBuffer fingerprint) {
+        if (fingerprint != null && isEnabled()) {
+            verifications.put(fingerprint, Boolean.TRUE, timeToLive);
+        }
+    }
+}
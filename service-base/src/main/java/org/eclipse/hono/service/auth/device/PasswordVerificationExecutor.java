@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.auth.device;
+
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hono.cache.CacheMetrics;
+import org.eclipse.hono.client.ServerErrorException;
+import org.eclipse.hono.config.ApplicationConfigProperties;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+/**
+ * An executor for the CPU intensive verification of password hashes.
+ * <p>
+ * The verifications are run on a dedicated pool of worker threads instead of vert.x's
+ * default worker pool, so that a large number of devices authenticating at the same time
+ * does not prevent other blocking code of the protocol adapter from being executed.
+ * <p>
+ * The number of verifications that are waiting for or are being executed is limited.
+ * Verifications exceeding that limit are rejected immediately with a
+ * {@link ServerErrorException} with status code 503, indicating to the device that it
+ * should try again later. Instances are thread safe and are supposed to be shared by all
+ * verticle instances of a protocol adapter.
+ * <p>
+ * The executor also provides the (optional) {@link PasswordVerificationCache} for skipping
+ * the verification of passwords that have been verified successfully recently.
+ */
+public final class PasswordVerificationExecutor {
+
+    /**
+     * The name of the worker pool used for verifying password hashes.
+     */
+    public static final String POOL_NAME = "hono-password-verification";
+
+    private final int poolSize;
+    private final int maxQueued;
+    private final PasswordVerificationMetrics metrics;
+    private final PasswordVerificationCache verificationCache;
+    private final AtomicInteger queued = new AtomicInteger();
+    private Vertx owner;
+    private WorkerExecutor workerExecutor;
+
+    /**
+     * Creates a new executor using the default pool and queue sizes.
+     *
+     * @see ApplicationConfigProperties#getPasswordVerificationPoolSize()
+     * @see ApplicationConfigProperties#getPasswordVerificationQueueSize()
+     */
+    public PasswordVerificationExecutor() {
+        this(new ApplicationConfigProperties(), PasswordVerificationMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new executor.
+     *
+     * @param config The configuration properties containing the pool and queue sizes.
+     * @param metrics The metrics to report to.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    public PasswordVerificationExecutor(
+            final ApplicationConfigProperties config,
+            final PasswordVerificationMetrics metrics) {
+        this(config, metrics, CacheMetrics.NOOP);
+    }
+
+    /**
+     * Creates a new executor.
+     *
+     * @param config The configuration properties containing the pool, queue and cache sizes.
+     * @param metrics The metrics to report to.
+     * @param cacheMetrics The metrics to report the usage of the verification cache to.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    public PasswordVerificationExecutor(
+            final ApplicationConfigProperties config,
+            final PasswordVerificationMetrics metrics,
+            final CacheMetrics cacheMetrics) {
+
+        Objects.requireNonNull(config);
+        this.poolSize = config.getPasswordVerificationPoolSize();
+        this.maxQueued = poolSize + config.getPasswordVerificationQueueSize();
+        this.metrics = Objects.requireNonNull(metrics);
+        this.verificationCache = new PasswordVerificationCache(
+                config.getPasswordVerificationCacheMaxSize(),
+                Duration.ofSeconds(config.getPasswordVerificationCacheTimeout()),
+                cacheMetrics);
+        metrics.registerQueueDepth(queued);
+    }
+
+    /**
+     * Gets the cache of successful password verifications.
+     *
+     * @return The cache (never {@code null}). The cache is disabled unless a max size
+     *         has been configured.
+     */
+    public PasswordVerificationCache getVerificationCache() {
+        return verificationCache;
+    }
+
+    /**
+     * Gets the number of verifications that are waiting for or are being executed.
+     *
+     * @return The number of verifications.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Executes a verification on the dedicated worker pool.
+     * <p>
+     * This method must be invoked on a vert.x context. The returned future is completed
+     * on that context.
+     *
+     * @param <T> The type of the verification's result.
+     * @param verification The code performing the verification.
+     * @return A future indicating the outcome of the verification.
+     *         <p>
+     *         The future will be failed with a {@link ServerErrorException} with status 503
+     *         if the maximum number of queued verifications has been reached. Otherwise,
+     *         the future will be completed with the outcome of the verification.
+     * @throws NullPointerException if verification is {@code null}.
+     */
+    public <T> Future<T> execute(final Handler<Promise<T>> verification) {
+
+        Objects.requireNonNull(verification);
+
+        final Context currentContext = Vertx.currentContext();
+        if (currentContext == null) {
+            return Future.failedFuture(new IllegalStateException("not running on vert.x Context"));
+        }
+
+        final int queuedBefore = queued.getAndIncrement();
+        if (queuedBefore >= maxQueued) {
+            queued.decrementAndGet();
+            metrics.incrementRejected();
+            return Future.failedFuture(new ServerErrorException(
+                    HttpURLConnection.HTTP_UNAVAILABLE,
+                    "too many concurrent authentication attempts"));
+        }
+
+        final long start = System.nanoTime();
+        final Promise<T> result = Promise.promise();
+        getWorkerExecutor(currentContext.owner()).executeBlocking(verification, false, verified -> {
+            queued.decrementAndGet();
+            metrics.reportVerification(System.nanoTime() - start);
+            result.handle(verified);
+        });
+        return result.future();
+    }
+
+    private synchronized WorkerExecutor getWorkerExecutor(final Vertx vertx) {
+        if (workerExecutor == null || owner != vertx) {
+            // the pool is shared by name among all users of the vert.x instance
+            workerExecutor = vertx.createSharedWorkerExecutor(POOL_NAME, poolSize);
+            owner = vertx;
+        }
+        return workerExecutor;
+    }
+}
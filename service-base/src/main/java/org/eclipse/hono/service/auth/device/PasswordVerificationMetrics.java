@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.auth.device;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A collector for metrics about the verification of password hashes.
+ * <p>
+ * All methods have an empty default implementation so that implementations only need
+ * to override the methods for the metrics they are interested in.
+ */
+public interface PasswordVerificationMetrics {
+
+    /**
+     * A metrics implementation that simply discards all values.
+     */
+    PasswordVerificationMetrics NOOP = new PasswordVerificationMetrics() {
+    };
+
+    /**
+     * Registers the number of verifications that are waiting for or are being executed.
+     * <p>
+     * The number is maintained by the executor and is supposed to be read whenever
+     * the metrics are published.
+     *
+     * @param queued The current number of verifications.
+     */
+    default void registerQueueDepth(final AtomicInteger queued) {
+        // do nothing
+    }
+
+    /**
+     * Reports a verification that has been executed.
+     *
+     * @param nanos The time that has passed between submitting the verification
+     *              and its completion.
+     */
+    default void reportVerification(final long nanos) {
+        // do nothing
+    }
+
+    /**
+     * Reports a verification that has been rejected because the maximum number of
+     * queued verifications had already been reached.
+     */
+    default void incrementRejected() {
+        // do nothing
+    }
+}
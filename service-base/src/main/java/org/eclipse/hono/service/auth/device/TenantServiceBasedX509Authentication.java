@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2019, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -166,7 +166,7 @@ public final class TenantServiceBasedX509Authentication implements X509Authentic
                             return Future.failedFuture(UNAUTHORIZED);
                         } else {
                             final List<X509Certificate> chainToValidate = Collections.singletonList(deviceCert);
-                            return certPathValidator.validate(chainToValidate, trustAnchors)
+                            return certPathValidator.validate(chainToValidate, tenant.getTenantId(), trustAnchors)
                                     .recover(t -> Future.failedFuture(UNAUTHORIZED));
                         }
                     }).compose(ok -> getCredentials(x509chain, tenantTracker.result()));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -14,6 +14,7 @@
 package org.eclipse.hono.service.auth.device;
 
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import org.eclipse.hono.auth.Device;
@@ -26,10 +27,7 @@ import org.eclipse.hono.util.CredentialsObject;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import io.opentracing.Tracer;
-import io.vertx.core.Context;
 import io.vertx.core.Future;
-import io.vertx.core.Promise;
-import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 
 
@@ -41,22 +39,46 @@ public final class UsernamePasswordAuthProvider extends CredentialsApiAuthProvid
 
     private final ServiceConfigProperties config;
     private final HonoPasswordEncoder pwdEncoder;
+    private final PasswordVerificationExecutor verificationExecutor;
 
     /**
      * Creates a new provider for a given configuration.
+     * <p>
+     * The provider uses its own executor with the default pool and queue sizes
+     * for verifying password hashes.
      * 
      * @param credentialsClientFactory The factory to use for creating a Credentials service client.
      * @param config The configuration.
      * @param tracer The tracer instance.
      * @throws NullPointerException if any of the parameters are {@code null}.
      */
-    @Autowired
     public UsernamePasswordAuthProvider(final CredentialsClientFactory credentialsClientFactory, final ServiceConfigProperties config, final Tracer tracer) {
         this(credentialsClientFactory, new SpringBasedHonoPasswordEncoder(), config, tracer);
     }
 
     /**
      * Creates a new provider for a given configuration.
+     *
+     * @param credentialsClientFactory The factory to use for creating a Credentials service client.
+     * @param config The configuration.
+     * @param verificationExecutor The executor to use for verifying password hashes.
+     * @param tracer The tracer instance.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    @Autowired
+    public UsernamePasswordAuthProvider(
+            final CredentialsClientFactory credentialsClientFactory,
+            final ServiceConfigProperties config,
+            final PasswordVerificationExecutor verificationExecutor,
+            final Tracer tracer) {
+        this(credentialsClientFactory, new SpringBasedHonoPasswordEncoder(), config, verificationExecutor, tracer);
+    }
+
+    /**
+     * Creates a new provider for a given configuration.
+     * <p>
+     * The provider uses its own executor with the default pool and queue sizes
+     * for verifying password hashes.
      * 
      * @param credentialsClientFactory The factory to use for creating a Credentials service client.
      * @param pwdEncoder The object to use for validating hashed passwords.
@@ -64,16 +86,36 @@ public final class UsernamePasswordAuthProvider extends CredentialsApiAuthProvid
      * @param tracer The tracer instance.
      * @throws NullPointerException if any of the parameters are {@code null}.
      */
+    public UsernamePasswordAuthProvider(
+            final CredentialsClientFactory credentialsClientFactory,
+            final HonoPasswordEncoder pwdEncoder,
+            final ServiceConfigProperties config,
+            final Tracer tracer) {
+        this(credentialsClientFactory, pwdEncoder, config, new PasswordVerificationExecutor(), tracer);
+    }
+
+    /**
+     * Creates a new provider for a given configuration.
+     *
+     * @param credentialsClientFactory The factory to use for creating a Credentials service client.
+     * @param pwdEncoder The object to use for validating hashed passwords.
+     * @param config The configuration.
+     * @param verificationExecutor The executor to use for verifying password hashes.
+     * @param tracer The tracer instance.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
     @Autowired
     public UsernamePasswordAuthProvider(
             final CredentialsClientFactory credentialsClientFactory,
             final HonoPasswordEncoder pwdEncoder,
             final ServiceConfigProperties config,
+            final PasswordVerificationExecutor verificationExecutor,
             final Tracer tracer) {
 
         super(credentialsClientFactory, tracer);
         this.config = Objects.requireNonNull(config);
         this.pwdEncoder = Objects.requireNonNull(pwdEncoder);
+        this.verificationExecutor = Objects.requireNonNull(verificationExecutor);
     }
 
     /**
@@ -109,22 +151,27 @@ public final class UsernamePasswordAuthProvider extends CredentialsApiAuthProvid
             final UsernamePasswordCredentials deviceCredentials,
             final CredentialsObject credentialsOnRecord) {
 
-        final Context currentContext = Vertx.currentContext();
-        if (currentContext == null) {
-            return Future.failedFuture(new IllegalStateException("not running on vert.x Context"));
-        } else {
-            final Promise<Device> result = Promise.promise();
-            currentContext.executeBlocking(blockingCodeHandler -> {
-                log.debug("validating password hash on vert.x worker thread [{}]", Thread.currentThread().getName());
-                final boolean isValid = credentialsOnRecord.getCandidateSecrets().stream()
-                        .anyMatch(candidateSecret -> pwdEncoder.matches(deviceCredentials.getPassword(), candidateSecret));
-                if (isValid) {
-                    blockingCodeHandler.complete(new Device(deviceCredentials.getTenantId(), credentialsOnRecord.getDeviceId()));
-                } else {
-                    blockingCodeHandler.fail(new ClientErrorException(HttpURLConnection.HTTP_UNAUTHORIZED, "bad credentials"));
-                }
-            }, false, result);
-            return result.future();
+        final PasswordVerificationCache verificationCache = verificationExecutor.getVerificationCache();
+        final ByteBuffer fingerprint = verificationCache.getFingerprint(deviceCredentials, credentialsOnRecord);
+        if (verificationCache.contains(fingerprint)) {
+            log.trace("password has been verified recently [tenant: {}, auth-id: {}]",
+                    deviceCredentials.getTenantId(), deviceCredentials.getAuthId());
+            return Future.succeededFuture(new Device(deviceCredentials.getTenantId(), credentialsOnRecord.getDeviceId()));
         }
+
+        final Future<Device> result = verificationExecutor.execute(blockingCodeHandler -> {
+            log.debug("validating password hash on worker thread [{}]", Thread.currentThread().getName());
+            final boolean isValid = credentialsOnRecord.getCandidateSecrets().stream()
+                    .anyMatch(candidateSecret -> pwdEncoder.matches(deviceCredentials.getPassword(), candidateSecret));
+            if (isValid) {
+                blockingCodeHandler.complete(new Device(deviceCredentials.getTenantId(), credentialsOnRecord.getDeviceId()));
+            } else {
+                blockingCodeHandler.fail(new ClientErrorException(HttpURLConnection.HTTP_UNAUTHORIZED, "bad credentials"));
+            }
+        });
+        return result.map(device -> {
+            verificationCache.add(fingerprint);
+            return device;
+        });
     }
 }
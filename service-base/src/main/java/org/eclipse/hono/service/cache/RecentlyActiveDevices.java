@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.eclipse.hono.util.RequestResponseApiConstants;
+import org.eclipse.hono.util.TriTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A record of the devices that have recently been active.
+ * <p>
+ * Protocol adapters use this record for writing a snapshot of the recently active devices
+ * to the file system when they are shut down. During start up, the snapshot is read
+ * and the registration assertions of the devices contained in it are loaded into
+ * the cache, so that the devices reconnecting after a restart do not all cause requests
+ * to the Device Registration service.
+ * <p>
+ * The record contains a bounded number of devices. Once the maximum number of devices
+ * has been reached, the device that has been active least recently is removed.
+ * Instances are thread safe and can thus be shared by multiple verticle instances.
+ * Recording a device's activity does not require a lock, so that the record can be
+ * updated for each message.
+ */
+public final class RecentlyActiveDevices {
+
+    /**
+     * The default maximum number of devices to keep record of.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final String FIELD_DEVICES = "devices";
+    private static final String FIELD_GATEWAY_ID = "gateway-id";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecentlyActiveDevices.class);
+
+    private final int maxSize;
+    private final int pruneThreshold;
+    // <device, sequence number of the device's most recent activity>
+    private final Map<TriTuple<String, String, String>, Long> devices = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    private int users;
+    private List<Handler<AsyncResult<List<TriTuple<String, String, String>>>>> loadWaiters;
+    private AsyncResult<List<TriTuple<String, String, String>>> loadOutcome;
+
+    /**
+     * Creates a new record for {@link #DEFAULT_MAX_SIZE} devices.
+     */
+    public RecentlyActiveDevices() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new record.
+     *
+     * @param maxSize The maximum number of devices to keep record of.
+     * @throws IllegalArgumentException if max size is &lt; 1.
+     */
+    public RecentlyActiveDevices(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("max size must be at least 1");
+        }
+        this.maxSize = maxSize;
+        // the least recently active devices are removed in batches
+        this.pruneThreshold = maxSize + Math.max(1, maxSize / 10);
+    }
+
+    /**
+     * Records a device as being active.
+     *
+     * @param tenantId The tenant that the device belongs to.
+     * @param deviceId The device identifier.
+     * @param gatewayId The gateway that acts on behalf of the device or {@code null}
+     *                  if the device is connected to the adapter directly.
+     * @throws NullPointerException if tenant or device ID are {@code null}.
+     */
+    public void record(final String tenantId, final String deviceId, final String gatewayId) {
+        Objects.requireNonNull(tenantId);
+        Objects.requireNonNull(deviceId);
+        final TriTuple<String, String, String> device = TriTuple.of(tenantId, deviceId, gatewayId);
+        final Long lastActivity = devices.get(device);
+        if (lastActivity != null && lastActivity == sequence.get()) {
+            // the device is the most recently active one already
+            return;
+        }
+        if (devices.put(device, sequence.incrementAndGet()) == null && devices.size() >= pruneThreshold) {
+            prune();
+        }
+    }
+
+    /**
+     * Removes the least recently active devices exceeding the maximum number of devices.
+     */
+    private void prune() {
+        if (!pruning.compareAndSet(false, true)) {
+            // another thread is already pruning the record
+            return;
+        }
+        try {
+            final List<Map.Entry<TriTuple<String, String, String>, Long>> entries = new ArrayList<>(devices.entrySet());
+            entries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+            // devices that have become active again in the meantime are kept
+            entries.subList(Math.min(maxSize, entries.size()), entries.size())
+                .forEach(entry -> devices.remove(entry.getKey(), entry.getValue()));
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    /**
+     * Gets the number of devices contained in the record.
+     *
+     * @return The number of devices.
+     */
+    public int size() {
+        return Math.min(devices.size(), maxSize);
+    }
+
+    /**
+     * Gets the devices that have been active most recently.
+     *
+     * @param maxDevices The maximum number of devices to return.
+     * @return The devices, ordered by decreasing activity, i.e. the most recently active
+     *         device is the first element. Each element contains the tenant, device and
+     *         (optional) gateway identifiers of a device.
+     */
+    public List<TriTuple<String, String, String>> getMostRecent(final int maxDevices) {
+
+        return devices.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .limit(Math.min(maxDevices, maxSize))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Registers a protocol adapter instance as a user of this record.
+     * <p>
+     * The first invocation reads the snapshot from the given file by means of
+     * {@link #load(Vertx, String, int)}. Subsequent invocations do not read the file again
+     * but return the devices that have been read by the first invocation, so that a record
+     * shared by multiple adapter instances is loaded only once.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param path The path to the file.
+     * @param maxDevices The maximum number of devices to read.
+     * @return A future indicating the outcome of the operation as described for
+     *         {@link #load(Vertx, String, int)}. The future is completed on the vert.x
+     *         context of the caller.
+     * @throws NullPointerException if vertx or path are {@code null}.
+     */
+    public Future<List<TriTuple<String, String, String>>> acquire(
+            final Vertx vertx,
+            final String path,
+            final int maxDevices) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(path);
+
+        final Context context = vertx.getOrCreateContext();
+        final Promise<List<TriTuple<String, String, String>>> result = Promise.promise();
+        final Handler<AsyncResult<List<TriTuple<String, String, String>>>> waiter = outcome -> context
+                .runOnContext(go -> result.handle(outcome));
+        final AsyncResult<List<TriTuple<String, String, String>>> outcome;
+        synchronized (this) {
+            users++;
+            outcome = loadOutcome;
+            if (outcome == null) {
+                final boolean loadInProgress = loadWaiters != null;
+                if (!loadInProgress) {
+                    loadWaiters = new ArrayList<>();
+                }
+                loadWaiters.add(waiter);
+                if (!loadInProgress) {
+                    load(vertx, path, maxDevices).setHandler(this::loaded);
+                }
+            }
+        }
+        if (outcome != null) {
+            waiter.handle(outcome);
+        }
+        return result.future();
+    }
+
+    private void loaded(final AsyncResult<List<TriTuple<String, String, String>>> outcome) {
+        final List<Handler<AsyncResult<List<TriTuple<String, String, String>>>>> waiters;
+        synchronized (this) {
+            loadOutcome = outcome;
+            waiters = loadWaiters;
+            loadWaiters = null;
+        }
+        waiters.forEach(waiter -> waiter.handle(outcome));
+    }
+
+    /**
+     * Unregisters a protocol adapter instance as a user of this record.
+     * <p>
+     * The snapshot is written to the given file by means of {@link #save(Vertx, String, int)}
+     * once the last user has been unregistered, so that a record shared by multiple adapter
+     * instances is written only once.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param path The path to the file.
+     * @param maxDevices The maximum number of devices to write.
+     * @return A future indicating the outcome of the operation.
+     * @throws NullPointerException if vertx or path are {@code null}.
+     */
+    public Future<Void> release(final Vertx vertx, final String path, final int maxDevices) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(path);
+
+        synchronized (this) {
+            if (users > 0) {
+                users--;
+            }
+            if (users > 0) {
+                return Future.succeededFuture();
+            }
+        }
+        return save(vertx, path, maxDevices);
+    }
+
+    /**
+     * Writes the devices that have been active most recently to a file.
+     * <p>
+     * The snapshot is first written to a temporary file which is then moved to the given path,
+     * so that readers never see a partially written snapshot.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param path The path to the file.
+     * @param maxDevices The maximum number of devices to write.
+     * @return A future indicating the outcome of the operation.
+     * @throws NullPointerException if vertx or path are {@code null}.
+     */
+    public Future<Void> save(final Vertx vertx, final String path, final int maxDevices) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(path);
+
+        final JsonArray entries = new JsonArray();
+        getMostRecent(maxDevices).forEach(device -> {
+            final JsonObject entry = new JsonObject()
+                    .put(RequestResponseApiConstants.FIELD_PAYLOAD_TENANT_ID, device.one())
+                    .put(RequestResponseApiConstants.FIELD_PAYLOAD_DEVICE_ID, device.two());
+            if (device.three() != null) {
+                entry.put(FIELD_GATEWAY_ID, device.three());
+            }
+            entries.add(entry);
+        });
+
+        final String tmpPath = String.format("%s.%s.tmp", path, UUID.randomUUID());
+        final Promise<Void> written = Promise.promise();
+        vertx.fileSystem().writeFile(tmpPath, new JsonObject().put(FIELD_DEVICES, entries).toBuffer(), written);
+        return written.future()
+                .compose(ok -> {
+                    final Promise<Void> moved = Promise.promise();
+                    vertx.fileSystem().move(
+                            tmpPath,
+                            path,
+                            new CopyOptions().setReplaceExisting(true).setAtomicMove(true),
+                            moved);
+                    return moved.future();
+                })
+                .map(ok -> {
+                    LOG.info("saved {} recently active devices to {}", entries.size(), path);
+                    return (Void) null;
+                });
+    }
+
+    /**
+     * Reads the devices contained in a snapshot file and adds them to this record.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param path The path to the file.
+     * @param maxDevices The maximum number of devices to read.
+     * @return A future indicating the outcome of the operation.
+     *         <p>
+     *         The future will succeed with the devices contained in the file, ordered by
+     *         decreasing activity. The list will be empty if the file does not exist.
+     *         Otherwise, the future will be failed if the file cannot be read or
+     *         does not contain a well formed snapshot.
+     * @throws NullPointerException if vertx or path are {@code null}.
+     */
+    public Future<List<TriTuple<String, String, String>>> load(final Vertx vertx, final String path, final int maxDevices) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(path);
+
+        final Promise<Boolean> exists = Promise.promise();
+        vertx.fileSystem().exists(path, exists);
+        return exists.future()
+                .compose(fileExists -> {
+                    if (!fileExists) {
+                        LOG.debug("no snapshot of recently active devices found at {}", path);
+                        final List<TriTuple<String, String, String>> none = Collections.emptyList();
+                        return Future.succeededFuture(none);
+                    }
+                    final Promise<Buffer> content = Promise.promise();
+                    vertx.fileSystem().readFile(path, content);
+                    return content.future().compose(buffer -> {
+                        try {
+                            final List<TriTuple<String, String, String>> loaded = parse(buffer.toJsonObject(), maxDevices);
+                            addAll(loaded);
+                            LOG.info("loaded {} recently active devices from {}", loaded.size(), path);
+                            return Future.succeededFuture(loaded);
+                        } catch (final DecodeException | ClassCastException e) {
+                            return Future.failedFuture(e);
+                        }
+                    });
+                });
+    }
+
+    private void addAll(final List<TriTuple<String, String, String>> loaded) {
+        // the loaded devices retain their order but are less recent than
+        // all devices that have been recorded as active since start up
+        for (int i = 0; i < loaded.size(); i++) {
+            devices.putIfAbsent(loaded.get(i), (long) -(i + 1));
+        }
+    }
+
+    private static List<TriTuple<String, String, String>> parse(final JsonObject snapshot, final int maxDevices) {
+
+        final List<TriTuple<String, String, String>> result = new ArrayList<>();
+        final Iterator<Object> entries = snapshot.getJsonArray(FIELD_DEVICES, new JsonArray()).iterator();
+        while (entries.hasNext() && result.size() < maxDevices) {
+            final Object obj = entries.next();
+            if (obj instanceof JsonObject) {
+                final JsonObject entry = (JsonObject) obj;
+                final String tenantId = entry.getString(RequestResponseApiConstants.FIELD_PAYLOAD_TENANT_ID);
+                final String deviceId = entry.getString(RequestResponseApiConstants.FIELD_PAYLOAD_DEVICE_ID);
+                if (tenantId != null && deviceId != null) {
+                    result.add(TriTuple.of(tenantId, deviceId, entry.getString(FIELD_GATEWAY_ID)));
+                }
+            }
+        }
+        return result;
+    }
+}
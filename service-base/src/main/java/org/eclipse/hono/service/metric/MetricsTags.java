@@ -333,6 +333,10 @@ public final class MetricsTags {
      * The name of the tag that holds the name of the component that reports a metric.
      */
     static final String TAG_COMPONENT_NAME = "component-name";
+    /**
+     * The name of the tag that holds the name of the service endpoint that a metric has been reported for.
+     */
+    static final String TAG_ENDPOINT       = "endpoint";
     /**
      * The tag that holds the name of the host that the component reporting a metric is running on.
      */
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.metric;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.eclipse.hono.cache.CacheMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Micrometer based metrics for the caches used by protocol adapters.
+ * <p>
+ * The meters are tagged with the type of cache instead of the cache's name because
+ * some caches are created per tenant. The name of such a cache consists of the cache
+ * type and the tenant identifier, separated by a slash, e.g. <em>registration/DEFAULT_TENANT</em>.
+ * This keeps the number of meters independent of the number of tenants.
+ * <p>
+ * The counters are looked up once per cache name only, so that reporting a
+ * value does not allocate any memory.
+ */
+public class MicrometerBasedCacheMetrics implements CacheMetrics {
+
+    /**
+     * The name of the meter for lookups that have found a valid value in a cache.
+     */
+    public static final String METER_CACHE_HITS = "hono.cache.hits";
+    /**
+     * The name of the meter for lookups that have not found a valid value in a cache.
+     */
+    public static final String METER_CACHE_MISSES = "hono.cache.misses";
+    /**
+     * The name of the meter for values that have been removed from a cache.
+     */
+    public static final String METER_CACHE_EVICTIONS = "hono.cache.evictions";
+    /**
+     * The name of the tag that contains the type of the cache.
+     */
+    public static final String TAG_CACHE = "cache";
+    /**
+     * The name of the tag that contains the reason for a value having been removed from a cache.
+     */
+    public static final String TAG_CAUSE = "cause";
+
+    /**
+     * The meter registry.
+     */
+    protected final MeterRegistry registry;
+
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final Map<String, Counter> evictions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> expirations = new ConcurrentHashMap<>();
+    private final Function<String, Counter> newHitsCounter;
+    private final Function<String, Counter> newMissesCounter;
+    private final Function<String, Counter> newEvictionsCounter;
+    private final Function<String, Counter> newExpirationsCounter;
+
+    /**
+     * Creates a new metrics instance.
+     *
+     * @param registry The meter registry to use.
+     * @throws NullPointerException if registry is {@code null}.
+     */
+    public MicrometerBasedCacheMetrics(final MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+        this.newHitsCounter = name -> registry.counter(METER_CACHE_HITS, Tags.of(TAG_CACHE, getCacheType(name)));
+        this.newMissesCounter = name -> registry.counter(METER_CACHE_MISSES, Tags.of(TAG_CACHE, getCacheType(name)));
+        this.newEvictionsCounter = name -> registry.counter(
+                METER_CACHE_EVICTIONS,
+                Tags.of(TAG_CACHE, getCacheType(name)).and(TAG_CAUSE, "size"));
+        this.newExpirationsCounter = name -> registry.counter(
+                METER_CACHE_EVICTIONS,
+                Tags.of(TAG_CACHE, getCacheType(name)).and(TAG_CAUSE, "expired"));
+    }
+
+    /**
+     * Gets the type of a cache.
+     *
+     * @param cacheName The name of the cache.
+     * @return The part of the name preceding the first slash or the name itself
+     *         if it does not contain a slash.
+     */
+    static String getCacheType(final String cacheName) {
+        final int separatorIndex = cacheName.indexOf('/');
+        return separatorIndex < 0 ? cacheName : cacheName.substring(0, separatorIndex);
+    }
+
+    @Override
+    public void incrementHits(final String cacheName) {
+        hits.computeIfAbsent(cacheName, newHitsCounter).increment();
+    }
+
+    @Override
+    public void incrementMisses(final String cacheName) {
+        misses.computeIfAbsent(cacheName, newMissesCounter).increment();
+    }
+
+    @Override
+    public void incrementEvictions(final String cacheName) {
+        evictions.computeIfAbsent(cacheName, newEvictionsCounter).increment();
+    }
+
+    @Override
+    public void incrementExpirations(final String cacheName) {
+        expirations.computeIfAbsent(cacheName, newExpirationsCounter).increment();
+    }
+}
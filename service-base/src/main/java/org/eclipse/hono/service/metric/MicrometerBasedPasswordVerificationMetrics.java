@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.metric;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hono.service.auth.device.PasswordVerificationMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer based metrics for the verification of password hashes.
+ */
+public class MicrometerBasedPasswordVerificationMetrics implements PasswordVerificationMetrics {
+
+    /**
+     * The name of the meter for the number of password verifications waiting for or being executed.
+     */
+    public static final String METER_PASSWORD_VERIFICATIONS_QUEUED = "hono.authentication.password.queued";
+    /**
+     * The name of the meter for the duration of password verifications, including the time spent waiting
+     * for a worker thread.
+     */
+    public static final String METER_PASSWORD_VERIFICATIONS = "hono.authentication.password.verifications";
+    /**
+     * The name of the meter for password verifications that have been rejected.
+     */
+    public static final String METER_PASSWORD_VERIFICATIONS_REJECTED = "hono.authentication.password.rejected";
+
+    /**
+     * The meter registry.
+     */
+    protected final MeterRegistry registry;
+
+    private final Timer verifications;
+    private final Counter rejected;
+
+    /**
+     * Creates a new metrics instance.
+     *
+     * @param registry The meter registry to use.
+     * @throws NullPointerException if registry is {@code null}.
+     */
+    public MicrometerBasedPasswordVerificationMetrics(final MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+        this.verifications = registry.timer(METER_PASSWORD_VERIFICATIONS);
+        this.rejected = registry.counter(METER_PASSWORD_VERIFICATIONS_REJECTED);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Registers a gauge reading the given number whenever the meter registry is scraped.
+     */
+    @Override
+    public void registerQueueDepth(final AtomicInteger queued) {
+        registry.gauge(METER_PASSWORD_VERIFICATIONS_QUEUED, queued);
+    }
+
+    @Override
+    public void reportVerification(final long nanos) {
+        verifications.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void incrementRejected() {
+        rejected.increment();
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.metric;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hono.client.RequestResponseClientMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Micrometer based metrics for the request-response clients used by protocol adapters
+ * to access the Tenant, Device Registration and Credentials services.
+ */
+public class MicrometerBasedRequestResponseClientMetrics implements RequestResponseClientMetrics {
+
+    /**
+     * The name of the meter for requests that have been coalesced with an outstanding request.
+     */
+    public static final String METER_REQUESTS_COALESCED = "hono.client.requests.coalesced";
+    /**
+     * The name of the meter for requests that have been sent to refresh a cached response.
+     */
+    public static final String METER_CACHE_REFRESHES = "hono.client.cache.refreshes";
+    /**
+     * The name of the meter for requests that are waiting for a response from the peer.
+     */
+    public static final String METER_REQUESTS_OUTSTANDING = "hono.client.requests.outstanding";
+
+    /**
+     * The meter registry.
+     */
+    protected final MeterRegistry registry;
+
+    private final Map<String, AtomicLong> outstandingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new metrics instance.
+     *
+     * @param registry The meter registry to use.
+     * @throws NullPointerException if registry is {@code null}.
+     */
+    public MicrometerBasedRequestResponseClientMetrics(final MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    @Override
+    public void incrementCoalescedRequests(final String endpoint) {
+
+        Objects.requireNonNull(endpoint);
+        registry.counter(METER_REQUESTS_COALESCED, Tags.of(MetricsTags.TAG_ENDPOINT, endpoint)).increment();
+    }
+
+    @Override
+    public void incrementCacheRefreshes(final String endpoint) {
+
+        Objects.requireNonNull(endpoint);
+        registry.counter(METER_CACHE_REFRESHES, Tags.of(MetricsTags.TAG_ENDPOINT, endpoint)).increment();
+    }
+
+    @Override
+    public void incrementOutstandingRequests(final String endpoint) {
+        getOutstandingRequests(endpoint).incrementAndGet();
+    }
+
+    @Override
+    public void decrementOutstandingRequests(final String endpoint) {
+        getOutstandingRequests(endpoint).decrementAndGet();
+    }
+
+    private AtomicLong getOutstandingRequests(final String endpoint) {
+
+        Objects.requireNonNull(endpoint);
+        return outstandingRequests.computeIfAbsent(endpoint, key -> registry.gauge(
+                METER_REQUESTS_OUTSTANDING,
+                Tags.of(MetricsTags.TAG_ENDPOINT, key),
+                new AtomicLong()));
+    }
+}
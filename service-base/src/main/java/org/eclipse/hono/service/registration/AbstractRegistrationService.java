@@ -14,6 +14,10 @@
 package org.eclipse.hono.service.registration;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.eclipse.hono.client.ServiceInvocationException;
@@ -213,6 +217,92 @@ public abstract class AbstractRegistrationService implements RegistrationService
         }).setHandler(resultHandler);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation retrieves the gateway's registration information only once for all of the devices.
+     * If the gateway is not registered or is disabled, all assertions have a <em>403 Forbidden</em> status.
+     * Otherwise, the assertion for each device is created as described for
+     * {@link #assertRegistration(String, String, String, Span, Handler)}.
+     * <p>
+     * This method requires a functional {@link #getDevice(String, String, Span, Handler) getDevice} method to work.
+     */
+    @Override
+    public void assertRegistrations(
+            final String tenantId,
+            final List<String> deviceIds,
+            final String gatewayId,
+            final Span span,
+            final Handler<AsyncResult<RegistrationResult>> resultHandler) {
+
+        Objects.requireNonNull(tenantId);
+        Objects.requireNonNull(deviceIds);
+        Objects.requireNonNull(gatewayId);
+        Objects.requireNonNull(span);
+        Objects.requireNonNull(resultHandler);
+
+        final Promise<RegistrationResult> gatewayInfoTracker = Promise.promise();
+        getDevice(tenantId, gatewayId, span, gatewayInfoTracker);
+
+        gatewayInfoTracker.future()
+        .compose(gatewayResult -> {
+
+            final Map<String, RegistrationResult> assertions = new LinkedHashMap<>();
+
+            if (!isDeviceEnabled(gatewayResult)) {
+                log.debug("gateway not enabled");
+                TracingHelper.logError(span, "gateway not enabled");
+                deviceIds.forEach(deviceId -> assertions.put(
+                        deviceId, RegistrationResult.from(HttpURLConnection.HTTP_FORBIDDEN)));
+                return Future.succeededFuture(RegistrationResult.fromAssertions(assertions));
+            }
+
+            final JsonObject gatewayData = gatewayResult.getPayload()
+                    .getJsonObject(RegistrationConstants.FIELD_DATA, new JsonObject());
+            @SuppressWarnings("rawtypes")
+            final List<Future> results = new ArrayList<>();
+            for (final String deviceId : deviceIds) {
+                // reserve the device's position in the response
+                assertions.put(deviceId, null);
+                results.add(assertRegistration(tenantId, deviceId, gatewayId, gatewayData, span)
+                        .map(assertion -> {
+                            assertions.put(deviceId, assertion);
+                            return assertion;
+                        }));
+            }
+            return CompositeFuture.all(results)
+                    .map(ok -> RegistrationResult.fromAssertions(assertions));
+        }).setHandler(resultHandler);
+    }
+
+    private Future<RegistrationResult> assertRegistration(
+            final String tenantId,
+            final String deviceId,
+            final String gatewayId,
+            final JsonObject gatewayData,
+            final Span span) {
+
+        final Promise<RegistrationResult> deviceInfoTracker = Promise.promise();
+        getDevice(tenantId, deviceId, span, deviceInfoTracker);
+
+        return deviceInfoTracker.future()
+                .compose(deviceResult -> {
+                    if (!isDeviceEnabled(deviceResult)) {
+                        TracingHelper.logError(span, String.format("device [%s] not enabled", deviceId));
+                        return Future.succeededFuture(RegistrationResult.from(HttpURLConnection.HTTP_NOT_FOUND));
+                    }
+                    final JsonObject deviceData = deviceResult.getPayload()
+                            .getJsonObject(RegistrationConstants.FIELD_DATA, new JsonObject());
+                    if (isGatewayAuthorized(gatewayId, gatewayData, deviceId, deviceData)) {
+                        return createSuccessfulRegistrationResult(tenantId, deviceId, deviceData, span);
+                    } else {
+                        TracingHelper.logError(span, String.format("gateway not authorized for device [%s]", deviceId));
+                        return Future.succeededFuture(RegistrationResult.from(HttpURLConnection.HTTP_FORBIDDEN));
+                    }
+                })
+                .recover(t -> Future.succeededFuture(RegistrationResult.from(ServiceInvocationException.extractStatusCode(t))));
+    }
+
     /**
      * Checks if a gateway is authorized to act <em>on behalf of</em> a device.
      * <p>
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,6 +13,8 @@
 package org.eclipse.hono.service.registration;
 
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.hono.client.ClientErrorException;
@@ -51,6 +53,7 @@ public abstract class EventBusRegistrationAdapter extends EventBusService implem
     public static final int DEFAULT_MAX_AGE_SECONDS = 300;
 
     private static final String SPAN_NAME_ASSERT_DEVICE_REGISTRATION = "assert Device Registration";
+    private static final String SPAN_NAME_ASSERT_DEVICE_REGISTRATIONS = "assert Device Registrations";
 
     /**
      * The service to forward requests to.
@@ -82,6 +85,8 @@ public abstract class EventBusRegistrationAdapter extends EventBusService implem
         switch (requestMessage.getOperation()) {
         case RegistrationConstants.ACTION_ASSERT:
             return processAssertRequest(requestMessage);
+        case RegistrationConstants.ACTION_ASSERT_BATCH:
+            return processAssertBatchRequest(requestMessage);
         default:
             return processCustomRegistrationMessage(requestMessage);
         }
@@ -119,6 +124,56 @@ public abstract class EventBusRegistrationAdapter extends EventBusService implem
         return finishSpanOnFutureCompletion(span, resultFuture);
     }
 
+    private Future<EventBusMessage> processAssertBatchRequest(final EventBusMessage request) {
+
+        final String tenantId = request.getTenant();
+        final String gatewayId = request.getGatewayId();
+        final JsonObject payload = request.getJsonPayload();
+        final SpanContext spanContext = request.getSpanContext();
+
+        final Span span = newChildSpan(SPAN_NAME_ASSERT_DEVICE_REGISTRATIONS, spanContext, tenantId, null, gatewayId);
+        final List<String> deviceIds = getDeviceIds(payload);
+        final Future<EventBusMessage> resultFuture;
+        if (tenantId == null || gatewayId == null) {
+            TracingHelper.logError(span, "missing tenant and/or gateway");
+            resultFuture = Future.failedFuture(new ClientErrorException(HttpURLConnection.HTTP_BAD_REQUEST));
+        } else if (deviceIds == null || deviceIds.isEmpty()) {
+            TracingHelper.logError(span, "missing device identifiers");
+            resultFuture = Future.failedFuture(new ClientErrorException(
+                    HttpURLConnection.HTTP_BAD_REQUEST, "request must contain non-empty array of device identifiers"));
+        } else {
+            log.debug("asserting registration of {} devices with tenant [{}] for gateway [{}]",
+                    deviceIds.size(), tenantId, gatewayId);
+            final Promise<RegistrationResult> result = Promise.promise();
+            getService().assertRegistrations(tenantId, deviceIds, gatewayId, span, result);
+            resultFuture = result.future().map(res -> {
+                return request.getResponse(res.getStatus())
+                        .setJsonPayload(res.getPayload())
+                        .setCacheDirective(res.getCacheDirective());
+            });
+        }
+        return finishSpanOnFutureCompletion(span, resultFuture);
+    }
+
+    private static List<String> getDeviceIds(final JsonObject payload) {
+
+        if (payload == null) {
+            return null;
+        }
+        final Object value = payload.getValue(RegistrationConstants.FIELD_DEVICE_IDS);
+        if (!(value instanceof JsonArray)) {
+            return null;
+        }
+        final List<String> deviceIds = new ArrayList<>();
+        for (final Object deviceId : (JsonArray) value) {
+            if (!(deviceId instanceof String)) {
+                return null;
+            }
+            deviceIds.add((String) deviceId);
+        }
+        return deviceIds;
+    }
+
     /**
      * Processes a request for a non-standard operation.
      * <p>
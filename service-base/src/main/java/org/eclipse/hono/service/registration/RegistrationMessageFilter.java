@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -15,6 +15,7 @@ package org.eclipse.hono.service.registration;
 import org.apache.qpid.proton.message.Message;
 import org.eclipse.hono.util.BaseMessageFilter;
 import org.eclipse.hono.util.MessageHelper;
+import org.eclipse.hono.util.RegistrationConstants;
 import org.eclipse.hono.util.ResourceIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,10 @@ public final class RegistrationMessageFilter extends BaseMessageFilter {
 
     /**
      * Checks whether a given registration message contains all required properties.
+     * <p>
+     * Messages for the <em>assert device registrations</em> operation do not need to
+     * contain a device identifier because the identifiers of the devices are contained
+     * in the message's body.
      * 
      * @param linkTarget The resource path to check the message's properties against for consistency.
      * @param msg The AMQP 1.0 message to perform the checks on.
@@ -41,7 +46,7 @@ public final class RegistrationMessageFilter extends BaseMessageFilter {
 
          final Object correlationId = MessageHelper.getCorrelationId(msg);
 
-         if (!hasValidDeviceId(linkTarget, msg)) {
+         if (!RegistrationConstants.ACTION_ASSERT_BATCH.equals(msg.getSubject()) && !hasValidDeviceId(linkTarget, msg)) {
              return false;
          } else if (correlationId == null) {
              LOG.trace("message has neither a message-id nor correlation-id");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -13,11 +13,21 @@
 
 package org.eclipse.hono.service.registration;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.util.RegistrationResult;
 
 import io.opentracing.Span;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 
 /**
  * A minimal service for keeping record of device identities.
@@ -144,4 +154,58 @@ public interface RegistrationService {
         assertRegistration(tenantId, deviceId, gatewayId, resultHandler);
     }
 
+    /**
+     * Asserts that a gateway is authorized to act on behalf of multiple devices.
+     * <p>
+     * This operation allows a gateway that forwards data of many devices to get the registration
+     * assertions for all of these devices by means of a single request.
+     * <p>
+     * This default implementation simply invokes {@link #assertRegistration(String, String, String, Span, Handler)}
+     * for each of the devices and collects the results.
+     *
+     * @param tenantId The tenant the devices belong to.
+     * @param deviceIds The IDs of the devices to get the assertions for.
+     * @param gatewayId The gateway that wants to act on behalf of the devices.
+     * @param span The active OpenTracing span for this operation. It is not to be closed in this method!
+     *            An implementation should log (error) events on this span and it may set tags and use this span as the
+     *            parent for any spans created in this method.
+     * @param resultHandler The handler to invoke with the result of the operation.
+     *             The <em>status</em> will be <em>200 OK</em> and the <em>payload</em> will contain
+     *             the individual assertions as created by {@link RegistrationResult#fromAssertions(Map)}.
+     *             Each assertion has the same status, payload and cache directive as the result of
+     *             the corresponding single device assertion.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     * @see <a href="https://www.eclipse.org/hono/docs/api/device-registration/#assert-device-registrations">
+     *      Device Registration API - Assert Device Registrations</a>
+     */
+    default void assertRegistrations(
+            final String tenantId,
+            final List<String> deviceIds,
+            final String gatewayId,
+            final Span span,
+            final Handler<AsyncResult<RegistrationResult>> resultHandler) {
+
+        Objects.requireNonNull(tenantId);
+        Objects.requireNonNull(deviceIds);
+        Objects.requireNonNull(gatewayId);
+        Objects.requireNonNull(span);
+        Objects.requireNonNull(resultHandler);
+
+        final Map<String, RegistrationResult> assertions = new LinkedHashMap<>();
+        @SuppressWarnings("rawtypes")
+        final List<Future> results = new ArrayList<>();
+        for (final String deviceId : deviceIds) {
+            final Promise<RegistrationResult> result = Promise.promise();
+            assertRegistration(tenantId, deviceId, gatewayId, span, result);
+            results.add(result.future()
+                    .recover(t -> Future.succeededFuture(RegistrationResult.from(ServiceInvocationException.extractStatusCode(t))))
+                    .map(assertion -> {
+                        assertions.put(deviceId, assertion);
+                        return assertion;
+                    }));
+        }
+        CompositeFuture.all(results)
+            .map(ok -> RegistrationResult.fromAssertions(assertions))
+            .setHandler(resultHandler);
+    }
 }
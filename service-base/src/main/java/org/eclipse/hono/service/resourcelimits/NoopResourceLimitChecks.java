@@ -22,6 +22,8 @@ import io.vertx.core.Future;
  */
 public class NoopResourceLimitChecks implements ResourceLimitChecks {
 
+    private static final Future<Boolean> LIMIT_NOT_REACHED = Future.succeededFuture(Boolean.FALSE);
+
     @Override
     public Future<Boolean> isConnectionLimitReached(final TenantObject tenantObject, final SpanContext spanContext) {
         return Future.succeededFuture(Boolean.FALSE);
@@ -30,7 +32,8 @@ public class NoopResourceLimitChecks implements ResourceLimitChecks {
     @Override
     public Future<Boolean> isMessageLimitReached(final TenantObject tenantObject, final long payloadSize,
             final SpanContext spanContext) {
-        return Future.succeededFuture(Boolean.FALSE);
+        // invoked for every message, so don't create a new future each time
+        return LIMIT_NOT_REACHED;
     }
 
     @Override
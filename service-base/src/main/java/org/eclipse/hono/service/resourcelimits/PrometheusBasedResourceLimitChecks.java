@@ -19,11 +19,22 @@ import java.time.YearMonth;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.eclipse.hono.cache.CacheProvider;
 import org.eclipse.hono.cache.ExpiringValueCache;
@@ -45,8 +56,11 @@ import io.opentracing.Tracer;
 import io.opentracing.log.Fields;
 import io.opentracing.noop.NoopTracerFactory;
 import io.opentracing.tag.Tags;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
@@ -57,6 +71,30 @@ import io.vertx.ext.web.codec.BodyCodec;
 /**
  * Resource limit checks which compare configured limits with live metrics retrieved
  * from a <em>Prometheus</em> server.
+ * <p>
+ * The data volume consumed by a tenant's devices is not queried for each message.
+ * Instead, the data volume retrieved from the Prometheus server (or the cache) is used
+ * as the baseline to which the payload size of each accepted message is added locally.
+ * The baseline is refreshed in the background once the cache timeout has elapsed.
+ * Because the Prometheus server scrapes the adapter's metrics only periodically, the
+ * payload accepted locally during the scrape interval before a refresh is still added
+ * to the refreshed baseline.
+ * <p>
+ * The payload of a message is added locally when the message passes the check, not once
+ * it has been forwarded downstream. The payload of messages that are rejected after the
+ * check, e.g. because they cannot be delivered or because they are part of a batch that
+ * is only partially accepted, is therefore counted locally although the Prometheus server
+ * will not include it in the consumed data volume. This over-count is deliberate: it
+ * lets the check fail early rather than late and it only lasts until the baseline has
+ * been refreshed after the scrape interval following the check.
+ * <p>
+ * Concurrent checks that require the same query to be run share a single request to
+ * the Prometheus server. The number of connections is retrieved for all tenants that
+ * are waiting for a connection limit check by means of a single query.
+ * <p>
+ * The outcome of a shared request is passed to each caller on the vert.x context
+ * that the caller has been running on, so that a single instance can safely be
+ * used by multiple verticles.
  */
 public final class PrometheusBasedResourceLimitChecks implements ResourceLimitChecks {
 
@@ -71,10 +109,17 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
     private static final Logger log = LoggerFactory.getLogger(PrometheusBasedResourceLimitChecks.class);
     private static final String QUERY_URI = "/api/v1/query";
     private static final String LIMITS_CACHE_NAME = "resource-limits";
+    private static final Pattern REGEX_META_CHARACTERS = Pattern.compile("[\\\\.+*?()|\\[\\]{}^$]");
     private final Tracer tracer;
     private final WebClient client;
     private final PrometheusBasedResourceLimitChecksConfig config;
     private final ExpiringValueCache<Object, Object> limitsCache;
+    private final Map<String, DataVolumeUsage> dataVolumeUsage = new ConcurrentHashMap<>();
+    private final long dataVolumeSyncIntervalNanos;
+    private final long scrapeIntervalNanos;
+    private final Map<String, List<CallerPromise<JsonObject>>> pendingQueries = new HashMap<>();
+    private final Map<String, List<CallerPromise<Long>>> pendingConnectionQueries = new LinkedHashMap<>();
+    private Map<String, List<CallerPromise<Long>>> connectionQueryInProgress;
 
     /**
      * The mode of the data volume calculation.
@@ -159,6 +204,8 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
                 .map(provider -> provider.getCache(LIMITS_CACHE_NAME))
                 .orElse(null);
         this.tracer = Objects.requireNonNull(tracer);
+        this.dataVolumeSyncIntervalNanos = TimeUnit.SECONDS.toNanos(config.getCacheTimeout());
+        this.scrapeIntervalNanos = TimeUnit.SECONDS.toNanos(config.getScrapeInterval());
     }
 
     private Span createSpan(final String name, final SpanContext parent, final TenantObject tenant) {
@@ -196,9 +243,7 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
                 items.put(Fields.EVENT, "no connection limit configured");
                 result.complete(Boolean.FALSE);
             } else {
-                final String queryParams = String.format("sum(%s{tenant=\"%s\"})", CONNECTIONS_METRIC_NAME,
-                        tenant.getTenantId());
-                executeQuery(queryParams, span)
+                getCurrentConnections(tenant.getTenantId())
                     .map(currentConnections -> {
                         items.put("current-connections", currentConnections);
                         final boolean isExceeded = currentConnections >= maxConnections;
@@ -238,6 +283,12 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
      * If the mode is set as <em>days</em> then the data usage is calculated 
      * based on the number of days set using {@link TenantConstants#FIELD_PERIOD_NO_OF_DAYS} 
      * and compared with the maxBytes.
+     * <p>
+     * The data usage is retrieved from the Prometheus server only if no data usage is known
+     * for the tenant yet or if the last retrieval is older than the configured cache timeout.
+     * In the latter case the data usage is refreshed in the background and the check is
+     * performed against the locally known data usage. The payload size of each message
+     * for which the limit has not been exceeded is added to the locally known data usage.
      * 
      * @param tenant The tenant configuration to check the limit against.
      * @param payloadSize The message payload size in bytes.
@@ -446,15 +497,11 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
                         tenant.getTenantId(),
                         dataUsagePeriod,
                         MESSAGES_PAYLOAD_SIZE_METRIC_NAME);
-                final String key = String.format("%s_bytes_consumed", tenant.getTenantId());
-
-                Optional.ofNullable(limitsCache)
-                        .map(success -> limitsCache.get(key))
-                        .map(cachedValue -> Future.succeededFuture((long) cachedValue))
-                        .orElseGet(() -> executeQuery(queryParams, span).map(bytesConsumed -> addToCache(limitsCache, key, bytesConsumed)))
-                        .map(bytesConsumed -> {
+                getDataVolumeUsage(tenant.getTenantId(), queryParams, span)
+                        .map(usage -> {
+                            final long bytesConsumed = usage.getBytesConsumed();
                             items.put("current period bytes consumed", bytesConsumed);
-                            final boolean isExceeded = (bytesConsumed + payloadSize) > allowedMaxBytes;
+                            final boolean isExceeded = !usage.tryConsume(payloadSize, allowedMaxBytes);
                             log.trace(
                                     "data limit {}exceeded [tenant: {}, bytes consumed: {}, allowed max-bytes: {}, {}: {}, {}: {}, {}: {}]",
                                     isExceeded ? "" : "not ",
@@ -470,9 +517,122 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
         }
     }
 
+    private Future<DataVolumeUsage> getDataVolumeUsage(
+            final String tenantId,
+            final String query,
+            final Span span) {
+
+        final DataVolumeUsage usage = dataVolumeUsage.computeIfAbsent(tenantId,
+                id -> new DataVolumeUsage(scrapeIntervalNanos));
+        final String key = String.format("%s_bytes_consumed", tenantId);
+        if (!usage.isSynced()) {
+            final Object cachedValue = Optional.ofNullable(limitsCache)
+                    .map(ok -> limitsCache.get(key))
+                    .orElse(null);
+            if (cachedValue != null) {
+                // the cached value may have been retrieved long ago, so it is only used
+                // until the next check has retrieved the data usage from the Prometheus server
+                usage.init((long) cachedValue);
+                return Future.succeededFuture(usage);
+            }
+        }
+        if (!usage.isSyncDue(dataVolumeSyncIntervalNanos)) {
+            return Future.succeededFuture(usage);
+        }
+        final Future<DataVolumeUsage> sync = usage.sync(() -> executeQuery(query, span)
+                .map(bytesConsumed -> addToCache(limitsCache, key, bytesConsumed)));
+        // only wait for the outcome if there is no locally known data usage yet
+        return usage.isSynced() ? Future.succeededFuture(usage) : sync;
+    }
+
+    /**
+     * Gets the number of connections of a tenant's devices.
+     * <p>
+     * The connections are retrieved for all tenants with pending requests by means of a
+     * single query. Requests arriving while a query is in progress either join the
+     * query if it includes the tenant or are served by the next query.
+     */
+    private Future<Long> getCurrentConnections(final String tenantId) {
+
+        final CallerPromise<Long> result = new CallerPromise<>();
+        synchronized (pendingConnectionQueries) {
+            if (connectionQueryInProgress != null) {
+                Optional.ofNullable(connectionQueryInProgress.get(tenantId))
+                    .orElseGet(() -> pendingConnectionQueries.computeIfAbsent(tenantId, id -> new ArrayList<>()))
+                    .add(result);
+                return result.future();
+            }
+            pendingConnectionQueries.computeIfAbsent(tenantId, id -> new ArrayList<>()).add(result);
+        }
+        queryConnections();
+        return result.future();
+    }
+
+    private void queryConnections() {
+
+        final Map<String, List<CallerPromise<Long>>> requests;
+        synchronized (pendingConnectionQueries) {
+            if (pendingConnectionQueries.isEmpty()) {
+                connectionQueryInProgress = null;
+                return;
+            }
+            requests = new LinkedHashMap<>(pendingConnectionQueries);
+            pendingConnectionQueries.clear();
+            connectionQueryInProgress = requests;
+        }
+        // the batch is not owned by any of the requests' spans, which may
+        // already have been finished by the time a subsequent batch is run
+        final Span span = TracingHelper.buildChildSpan(tracer, null, "query connections")
+                .ignoreActiveSpan()
+                .withTag(Tags.COMPONENT.getKey(), getClass().getSimpleName())
+                .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
+                .withTag(Tags.PEER_HOSTNAME.getKey(), config.getHost())
+                .withTag(Tags.PEER_PORT.getKey(), config.getPort())
+                .withTag(Tags.HTTP_URL.getKey(), QUERY_URI)
+                .withTag("tenants", requests.size())
+                .start();
+        final String query = String.format("sum(%s{tenant=~\"%s\"}) by (tenant)",
+                CONNECTIONS_METRIC_NAME,
+                requests.keySet().stream()
+                    .map(tenantId -> REGEX_META_CHARACTERS.matcher(tenantId).replaceAll("\\\\\\\\$0"))
+                    .collect(Collectors.joining("|")));
+        runQuery(query, span)
+            .map(response -> extractLongValuesByTenant(response, span))
+            .setHandler(queryAttempt -> {
+                span.finish();
+                synchronized (pendingConnectionQueries) {
+                    // no more callers may join the query
+                    connectionQueryInProgress = Map.of();
+                }
+                requests.forEach((tenantId, callers) -> {
+                    final AsyncResult<Long> outcome = queryAttempt.map(values -> values.getOrDefault(tenantId, 0L));
+                    callers.forEach(caller -> caller.handle(outcome));
+                });
+                queryConnections();
+            });
+    }
+
     private Future<Long> executeQuery(final String query, final Span span) {
+        return runQuery(query, span).map(response -> extractLongValue(response, span));
+    }
 
-        final Promise<Long> result = Promise.promise();
+    /**
+     * Runs a query against the Prometheus server.
+     * <p>
+     * Concurrent invocations for the same query share a single request.
+     */
+    private Future<JsonObject> runQuery(final String query, final Span span) {
+
+        final CallerPromise<JsonObject> result = new CallerPromise<>();
+        synchronized (pendingQueries) {
+            final List<CallerPromise<JsonObject>> callers = pendingQueries.get(query);
+            if (callers != null) {
+                log.trace("joining pending Prometheus query [query: {}]", query);
+                callers.add(result);
+                return result.future();
+            }
+            pendingQueries.put(query, new ArrayList<>(List.of(result)));
+        }
         log.trace("running Prometheus query [URL: http://{}:{}{}, query: {}]",
                 config.getHost(), config.getPort(), QUERY_URI, query);
         client.get(config.getPort(), config.getHost(), QUERY_URI)
@@ -480,10 +640,7 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
         .expect(ResponsePredicate.SC_OK)
         .as(BodyCodec.jsonObject())
         .send(sendAttempt -> {
-            if (sendAttempt.succeeded()) {
-                final HttpResponse<JsonObject> response = sendAttempt.result();
-                result.complete(extractLongValue(response.body(), span));
-            } else {
+            if (sendAttempt.failed()) {
                 final Map<String, Object> items = Map.of(
                         Fields.EVENT, Tags.ERROR.getKey(),
                         Fields.MESSAGE, "failed to run Prometheus query",
@@ -494,8 +651,13 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
                 TracingHelper.logError(span, items);
                 log.warn("failed to run Prometheus query [URL: http://{}:{}{}, query: {}]: {}",
                         config.getHost(), config.getPort(), QUERY_URI, query, sendAttempt.cause().getMessage());
-                result.fail(sendAttempt.cause());
             }
+            final List<CallerPromise<JsonObject>> callers;
+            synchronized (pendingQueries) {
+                callers = pendingQueries.remove(query);
+            }
+            final AsyncResult<JsonObject> outcome = sendAttempt.map(HttpResponse::body);
+            callers.forEach(caller -> caller.handle(outcome));
         });
         return result.future();
     }
@@ -569,6 +731,66 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
         return 0L;
     }
 
+    /**
+     * Extracts the long values per tenant from the JSON result returned by the Prometheus
+     * server for a query that groups its result by tenant.
+     * <p>
+     * The result is expected to have the following structure:
+     * <pre>
+     * {
+     *   "status": "success",
+     *   "data": {
+     *     "result": [
+     *       {
+     *         "metric": { "tenant": "$tenant" },
+     *         "value": [ $timestamp, "$value" ]
+     *       }
+     *     ]
+     *   }
+     * }
+     * </pre>
+     *
+     * @param response The response object.
+     * @return The extracted values. The map does not contain tenants for which
+     *         no metrics are available (yet).
+     * @see <a href="https://prometheus.io/docs/prometheus/latest/querying/api/">Prometheus HTTP API</a>
+     */
+    private Map<String, Long> extractLongValuesByTenant(final JsonObject response, final Span span) {
+
+        Objects.requireNonNull(response);
+
+        final Map<String, Long> values = new HashMap<>();
+        try {
+            final String status = response.getString("status");
+            if ("error".equals(status)) {
+                TracingHelper.logError(span, Map.of(Fields.MESSAGE, "error executing query",
+                        "status", status,
+                        "error-type", response.getString("errorType"),
+                        "error", response.getString("error")));
+                log.debug("error executing query [status: {}, error type: {}, error: {}]",
+                        status, response.getString("errorType"), response.getString("error"));
+            } else {
+                // success
+                final JsonObject data = response.getJsonObject("data", new JsonObject());
+                final JsonArray result = data.getJsonArray("result", new JsonArray());
+                for (int i = 0; i < result.size(); i++) {
+                    final JsonObject entry = result.getJsonObject(i);
+                    final String tenantId = entry.getJsonObject("metric", new JsonObject()).getString("tenant");
+                    final JsonArray valueArray = entry.getJsonArray("value");
+                    if (tenantId != null && valueArray != null && valueArray.size() == 2) {
+                        values.put(tenantId, Long.parseLong(valueArray.getString(1)));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            final String jsonResponse = response.encodePrettily();
+            TracingHelper.logError(span, Map.of(Fields.MESSAGE, "server returned malformed response",
+                    "response", jsonResponse));
+            log.debug("server returned malformed response: {}", jsonResponse);
+        }
+        return values;
+    }
+
     /**
      * Calculates the effective resource limit for a tenant for the given period from the configured values.
      * <p>
@@ -657,4 +879,159 @@ public final class PrometheusBasedResourceLimitChecks implements ResourceLimitCh
                         Duration.ofSeconds(config.getCacheTimeout())));
         return result;
     }
+
+    /**
+     * A promise that is completed on the vert.x context of the code that has created it.
+     * <p>
+     * The outcome of a request to the Prometheus server that is shared by several callers
+     * is handled on the context of the caller that has sent the request. This class makes
+     * sure that each of the other callers continues processing on its own context.
+     */
+    private static final class CallerPromise<T> {
+
+        private final Context context = Vertx.currentContext();
+        private final Promise<T> promise = Promise.promise();
+
+        Future<T> future() {
+            return promise.future();
+        }
+
+        void handle(final AsyncResult<T> outcome) {
+            if (context == null || context == Vertx.currentContext()) {
+                promise.handle(outcome);
+            } else {
+                context.runOnContext(go -> promise.handle(outcome));
+            }
+        }
+    }
+
+    /**
+     * The data volume consumed by a tenant's devices.
+     * <p>
+     * The consumed data volume consists of the baseline retrieved from the Prometheus
+     * server (or the cache) and the payload size of the messages that have been accepted
+     * locally but are not included in the baseline. Instances are thread safe.
+     */
+    private static final class DataVolumeUsage {
+
+        private final long scrapeIntervalNanos;
+        /**
+         * The payload accepted locally by the second (of {@link System#nanoTime()})
+         * in which it has been accepted.
+         */
+        private final ConcurrentNavigableMap<Long, AtomicLong> bytesPerSecond = new ConcurrentSkipListMap<>();
+        private final AtomicLong bytesSinceSync = new AtomicLong();
+        private volatile long bytesConsumedAtSync = -1;
+        private volatile long lastSync;
+        private volatile boolean baselineFromCache;
+        private List<CallerPromise<DataVolumeUsage>> pendingSync;
+
+        DataVolumeUsage(final long scrapeIntervalNanos) {
+            this.scrapeIntervalNanos = scrapeIntervalNanos;
+        }
+
+        boolean isSynced() {
+            return bytesConsumedAtSync >= 0;
+        }
+
+        boolean isSyncDue(final long syncIntervalNanos) {
+            return !isSynced() || baselineFromCache || System.nanoTime() - lastSync >= syncIntervalNanos;
+        }
+
+        long getBytesConsumed() {
+            return bytesConsumedAtSync + bytesSinceSync.get();
+        }
+
+        /**
+         * Sets a cached value as the baseline unless a baseline is already known.
+         * <p>
+         * The baseline will be replaced by the data volume retrieved from the global
+         * view with the next invocation of {@link #sync(Supplier)}.
+         *
+         * @param cachedBytesConsumed The cached data volume.
+         */
+        synchronized void init(final long cachedBytesConsumed) {
+            if (!isSynced()) {
+                bytesConsumedAtSync = cachedBytesConsumed;
+                baselineFromCache = true;
+            }
+        }
+
+        /**
+         * Adds a message's payload to the consumed data volume unless the
+         * limit would be exceeded.
+         * <p>
+         * The payload is added regardless of the message's eventual processing
+         * outcome. It is removed again with the first refresh of the baseline
+         * that includes the scrape interval in which it has been added.
+         *
+         * @param payloadSize The size of the message's payload.
+         * @param allowedMaxBytes The maximum data volume.
+         * @return {@code true} if the payload has been added.
+         */
+        boolean tryConsume(final long payloadSize, final long allowedMaxBytes) {
+            while (true) {
+                final long bytes = bytesSinceSync.get();
+                if (bytesConsumedAtSync + bytes + payloadSize > allowedMaxBytes) {
+                    return false;
+                }
+                if (bytesSinceSync.compareAndSet(bytes, bytes + payloadSize)) {
+                    bytesPerSecond.computeIfAbsent(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()),
+                            second -> new AtomicLong()).addAndGet(payloadSize);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Replaces the baseline with the data volume retrieved from the global view.
+         * <p>
+         * The payload that has been accepted locally before the scrape interval
+         * preceding the retrieval is considered to be included in the global view.
+         * The payload accepted afterwards is added to the new baseline.
+         * <p>
+         * Concurrent invocations share the same retrieval.
+         *
+         * @param globalView The supplier of the globally consumed data volume.
+         * @return A future indicating the outcome of the synchronization.
+         */
+        synchronized Future<DataVolumeUsage> sync(final Supplier<Future<Long>> globalView) {
+
+            final CallerPromise<DataVolumeUsage> result = new CallerPromise<>();
+            if (pendingSync != null) {
+                pendingSync.add(result);
+                return result.future();
+            }
+            pendingSync = new ArrayList<>(List.of(result));
+            final long includedBefore = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - scrapeIntervalNanos);
+            globalView.get().setHandler(attempt -> {
+                final List<CallerPromise<DataVolumeUsage>> callers;
+                synchronized (this) {
+                    if (attempt.succeeded()) {
+                        bytesConsumedAtSync = attempt.result();
+                        baselineFromCache = false;
+                        removeBytesAcceptedBefore(includedBefore);
+                        lastSync = System.nanoTime();
+                    } else if (isSynced()) {
+                        // keep using the local view and try again later
+                        baselineFromCache = false;
+                        lastSync = System.nanoTime();
+                    }
+                    callers = pendingSync;
+                    pendingSync = null;
+                }
+                final AsyncResult<DataVolumeUsage> outcome = attempt.map(bytes -> this);
+                callers.forEach(caller -> caller.handle(outcome));
+            });
+            return result.future();
+        }
+
+        private void removeBytesAcceptedBefore(final long second) {
+            final Iterator<AtomicLong> included = bytesPerSecond.headMap(second).values().iterator();
+            while (included.hasNext()) {
+                bytesSinceSync.addAndGet(-included.next().get());
+                included.remove();
+            }
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2019, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -33,12 +33,17 @@ public final class PrometheusBasedResourceLimitChecksConfig {
      * The default timeout for cached data in seconds until they are considered invalid.
      */
     public static final long DEFAULT_CACHE_TIMEOUT = 600L;
+    /**
+     * The default interval in seconds at which the Prometheus server scrapes the metrics.
+     */
+    public static final long DEFAULT_SCRAPE_INTERVAL = 60L;
 
     private String host;
     private int port = 9090;
     private int cacheMinSize = DEFAULT_CACHE_MIN_SIZE;
     private long cacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
     private long cacheTimeout = DEFAULT_CACHE_TIMEOUT;
+    private long scrapeInterval = DEFAULT_SCRAPE_INTERVAL;
 
     /**
      * Gets the host of the Prometheus server to retrieve metrics from.
@@ -175,4 +180,37 @@ public final class PrometheusBasedResourceLimitChecksConfig {
         this.cacheTimeout = timeout;
     }
 
+    /**
+     * Gets the interval at which the Prometheus server scrapes the metrics from the
+     * protocol adapters.
+     * <p>
+     * The metrics retrieved from the Prometheus server do not include data that has
+     * been exchanged with devices during this period of time.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_SCRAPE_INTERVAL}.
+     *
+     * @return The interval in seconds.
+     */
+    public long getScrapeInterval() {
+        return scrapeInterval;
+    }
+
+    /**
+     * Sets the interval at which the Prometheus server scrapes the metrics from the
+     * protocol adapters.
+     * <p>
+     * The metrics retrieved from the Prometheus server do not include data that has
+     * been exchanged with devices during this period of time.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_SCRAPE_INTERVAL}.
+     *
+     * @param interval The interval in seconds.
+     * @throws IllegalArgumentException if interval is &lt; 0.
+     */
+    public void setScrapeInterval(final long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("scrape interval must not be negative");
+        }
+        this.scrapeInterval = interval;
+    }
 }
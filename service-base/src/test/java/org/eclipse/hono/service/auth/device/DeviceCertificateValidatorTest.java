@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.auth.device;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.hono.cache.CacheMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.net.SelfSignedCertificate;
+
+/**
+ * Tests verifying behavior of {@link DeviceCertificateValidator}.
+ *
+ */
+public class DeviceCertificateValidatorTest {
+
+    private static final String CACHE_NAME = "certificate-validations";
+
+    private CacheMetrics metrics;
+    private DeviceCertificateValidator validator;
+    private X509Certificate cert;
+
+    /**
+     * Sets up the fixture.
+     *
+     * @throws GeneralSecurityException if the certificate cannot be created.
+     * @throws IOException if the certificate cannot be read.
+     */
+    @BeforeEach
+    public void setUp() throws GeneralSecurityException, IOException {
+        metrics = mock(CacheMetrics.class);
+        validator = new DeviceCertificateValidator(10, Duration.ofMinutes(1), metrics);
+        cert = createCertificate();
+    }
+
+    private static X509Certificate createCertificate() throws GeneralSecurityException, IOException {
+        final SelfSignedCertificate ssc = SelfSignedCertificate.create("eclipse.org");
+        try (FileInputStream in = new FileInputStream(ssc.certificatePath())) {
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+        }
+    }
+
+    private static Set<TrustAnchor> trustAnchorsFor(final X509Certificate caCert) {
+        // the trust anchors of a tenant are created for each tenant object
+        return Set.of(new TrustAnchor(caCert.getSubjectX500Principal().getName(), caCert.getPublicKey(), null));
+    }
+
+    /**
+     * Verifies that a successful validation is served from the cache when the same chain
+     * is validated again against new trust anchor instances representing the same CA.
+     */
+    @Test
+    public void testValidateUsesCachedResultForSameTrustedCa() {
+
+        assertThat(validator.validate(List.of(cert), "tenant", trustAnchorsFor(cert)).succeeded()).isTrue();
+        verify(metrics).incrementMisses(CACHE_NAME);
+
+        final Future<Void> result = validator.validate(List.of(cert), "tenant", trustAnchorsFor(cert));
+        assertThat(result.succeeded()).isTrue();
+        verify(metrics).incrementHits(CACHE_NAME);
+    }
+
+    /**
+     * Verifies that a successful validation is not used once the tenant's trusted CA has changed.
+     *
+     * @throws GeneralSecurityException if the certificate cannot be created.
+     * @throws IOException if the certificate cannot be read.
+     */
+    @Test
+    public void testValidateFailsAfterTrustedCaHasChanged() throws GeneralSecurityException, IOException {
+
+        assertThat(validator.validate(List.of(cert), "tenant", trustAnchorsFor(cert)).succeeded()).isTrue();
+
+        // WHEN the tenant's trusted CA is replaced with a CA having the same name but a different key
+        final X509Certificate otherCa = createCertificate();
+        final Future<Void> result = validator.validate(List.of(cert), "tenant", trustAnchorsFor(otherCa));
+
+        // THEN the chain is validated again and the validation fails
+        verify(metrics, times(2)).incrementMisses(CACHE_NAME);
+        assertThat(result.failed()).isTrue();
+        assertThat(result.cause()).isInstanceOf(CertificateException.class);
+    }
+
+    /**
+     * Verifies that a successful validation is kept until the end of the validity period
+     * of the chain's certificate that expires first.
+     */
+    @Test
+    public void testGetExpirationTimeReturnsEarliestNotAfter() {
+
+        final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        final X509Certificate deviceCert = mock(X509Certificate.class);
+        when(deviceCert.getNotAfter()).thenReturn(Date.from(now.plusSeconds(40)));
+        final X509Certificate caCert = mock(X509Certificate.class);
+        when(caCert.getNotAfter()).thenReturn(Date.from(now.plusSeconds(20)));
+
+        assertThat(validator.getExpirationTime(List.of(deviceCert, caCert))).isEqualTo(now.plusSeconds(20));
+
+        // but never longer than the validation cache timeout
+        when(caCert.getNotAfter()).thenReturn(Date.from(now.plus(Duration.ofHours(1))));
+        assertThat(validator.getExpirationTime(List.of(deviceCert, caCert))).isEqualTo(now.plusSeconds(40));
+        when(deviceCert.getNotAfter()).thenReturn(Date.from(now.plus(Duration.ofHours(1))));
+        assertThat(validator.getExpirationTime(List.of(deviceCert, caCert)))
+            .isBefore(now.plus(Duration.ofMinutes(2)));
+    }
+}
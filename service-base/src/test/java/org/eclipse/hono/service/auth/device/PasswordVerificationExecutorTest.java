@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.auth.device;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.hono.client.ServerErrorException;
+import org.eclipse.hono.config.ApplicationConfigProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+/**
+ * Tests verifying behavior of {@link PasswordVerificationExecutor}.
+ *
+ */
+@ExtendWith(VertxExtension.class)
+@Timeout(value = 5, timeUnit = TimeUnit.SECONDS)
+public class PasswordVerificationExecutorTest {
+
+    /**
+     * Verifies that verifications exceeding the maximum number of queued verifications
+     * are rejected with a 503 and that the metrics are reported.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testExecuteRejectsVerificationsWhenQueueIsFull(final Vertx vertx, final VertxTestContext ctx) {
+
+        final ApplicationConfigProperties config = new ApplicationConfigProperties();
+        config.setPasswordVerificationPoolSize(1);
+        config.setPasswordVerificationQueueSize(1);
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger verifications = new AtomicInteger();
+        final AtomicReference<AtomicInteger> queueDepth = new AtomicReference<>();
+        final PasswordVerificationExecutor executor = new PasswordVerificationExecutor(config, new PasswordVerificationMetrics() {
+
+            @Override
+            public void registerQueueDepth(final AtomicInteger queued) {
+                queueDepth.set(queued);
+            }
+
+            @Override
+            public void reportVerification(final long nanos) {
+                verifications.incrementAndGet();
+            }
+
+            @Override
+            public void incrementRejected() {
+                rejected.incrementAndGet();
+            }
+        });
+        final CountDownLatch proceed = new CountDownLatch(1);
+
+        vertx.runOnContext(go -> {
+            // GIVEN a verification being executed and another one waiting for the worker thread
+            final Future<Boolean> first = executor.execute(verification -> {
+                try {
+                    proceed.await();
+                    verification.complete(Boolean.TRUE);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    verification.fail(e);
+                }
+            });
+            final Future<Boolean> second = executor.execute(verification -> verification.complete(Boolean.TRUE));
+            // WHEN another verification is submitted
+            final Future<Boolean> third = executor.execute(verification -> verification.complete(Boolean.TRUE));
+
+            // THEN it is rejected right away
+            ctx.verify(() -> {
+                assertThat(third.failed()).isTrue();
+                assertThat(third.cause()).isInstanceOf(ServerErrorException.class);
+                assertThat(((ServerErrorException) third.cause()).getErrorCode()).isEqualTo(HttpURLConnection.HTTP_UNAVAILABLE);
+                assertThat(rejected.get()).isEqualTo(1);
+                assertThat(executor.getQueued()).isEqualTo(2);
+                assertThat(queueDepth.get().get()).isEqualTo(2);
+            });
+            proceed.countDown();
+
+            // and the queued verifications are executed
+            first.compose(ok -> second).setHandler(ctx.succeeding(ok -> ctx.verify(() -> {
+                assertThat(verifications.get()).isEqualTo(2);
+                assertThat(executor.getQueued()).isEqualTo(0);
+                assertThat(queueDepth.get().get()).isEqualTo(0);
+                ctx.completeNow();
+            })));
+        });
+    }
+}
@@ -18,6 +18,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.HttpURLConnection;
@@ -28,6 +30,7 @@ import org.eclipse.hono.auth.HonoPasswordEncoder;
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.client.CredentialsClient;
 import org.eclipse.hono.client.CredentialsClientFactory;
+import org.eclipse.hono.config.ApplicationConfigProperties;
 import org.eclipse.hono.config.ServiceConfigProperties;
 import org.eclipse.hono.service.auth.DeviceUser;
 import org.eclipse.hono.util.CredentialsConstants;
@@ -189,6 +192,50 @@ public class UsernamePasswordAuthProviderTest {
         }));
     }
 
+    /**
+     * Verifies that the password hash is not verified again if the same password
+     * has been verified successfully for the same credentials on record before, and
+     * that it is verified again once the credentials on record have changed.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testAuthenticateSkipsVerificationOfRecentlyVerifiedPassword(final VertxTestContext ctx) {
+
+        final ApplicationConfigProperties config = new ApplicationConfigProperties();
+        config.setPasswordVerificationCacheMaxSize(10);
+        provider = new UsernamePasswordAuthProvider(
+                credentialsClientFactory,
+                pwdEncoder,
+                new ServiceConfigProperties(),
+                new PasswordVerificationExecutor(config, PasswordVerificationMetrics.NOOP),
+                NoopTracerFactory.create());
+
+        final Promise<DeviceUser> firstAttempt = Promise.promise();
+        vertx.runOnContext(go -> provider.authenticate(deviceCredentials, null, firstAttempt));
+        firstAttempt.future()
+        .compose(device -> {
+            // WHEN the device authenticates again using the same password
+            final Promise<DeviceUser> secondAttempt = Promise.promise();
+            vertx.runOnContext(go -> provider.authenticate(deviceCredentials, null, secondAttempt));
+            return secondAttempt.future();
+        })
+        .compose(device -> {
+            // THEN the password hash has been verified once only
+            ctx.verify(() -> verify(pwdEncoder, times(1)).matches(eq(PWD), any(JsonObject.class)));
+            // and WHEN the credentials on record have changed
+            givenCredentialsOnRecord(CredentialsObject.fromClearTextPassword("4711", "device", PWD, null, Instant.now().plusSeconds(3600)));
+            final Promise<DeviceUser> thirdAttempt = Promise.promise();
+            vertx.runOnContext(go -> provider.authenticate(deviceCredentials, null, thirdAttempt));
+            return thirdAttempt.future();
+        })
+        .setHandler(ctx.succeeding(device -> {
+            // THEN the password hash is verified again
+            ctx.verify(() -> verify(pwdEncoder, times(2)).matches(eq(PWD), any(JsonObject.class)));
+            ctx.completeNow();
+        }));
+    }
+
     private void givenCredentialsOnRecord(final CredentialsObject credentials) {
         when(credentialsClient.get(
                 eq(CredentialsConstants.SECRETS_TYPE_HASHED_PASSWORD),
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+
+import org.eclipse.hono.util.TriTuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+/**
+ * Tests verifying behavior of {@link RecentlyActiveDevices}.
+ *
+ */
+@ExtendWith(VertxExtension.class)
+public class RecentlyActiveDevicesTest {
+
+    /**
+     * Verifies that the least recently active device is removed once the
+     * maximum number of devices has been reached.
+     */
+    @Test
+    public void testRecordRemovesLeastRecentlyActiveDevice() {
+
+        final RecentlyActiveDevices devices = new RecentlyActiveDevices(2);
+        devices.record("tenant", "device-1", null);
+        devices.record("tenant", "device-2", null);
+        devices.record("tenant", "device-1", null);
+        devices.record("tenant", "device-3", "gw");
+
+        assertThat(devices.size()).isEqualTo(2);
+        assertThat(devices.getMostRecent(10)).containsExactly(
+                TriTuple.of("tenant", "device-3", "gw"),
+                TriTuple.of("tenant", "device-1", null));
+        assertThat(devices.getMostRecent(1)).containsExactly(TriTuple.of("tenant", "device-3", "gw"));
+    }
+
+    /**
+     * Verifies that a snapshot written to a file can be loaded again.
+     *
+     * @param vertx The vert.x instance.
+     * @param tmpDir The directory to write the snapshot to.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testLoadReadsSavedSnapshot(final Vertx vertx, @TempDir final Path tmpDir, final VertxTestContext ctx) {
+
+        final String path = tmpDir.resolve("devices.json").toString();
+        final RecentlyActiveDevices devices = new RecentlyActiveDevices();
+        devices.record("tenant", "device-1", null);
+        devices.record("tenant", "device-2", "gw");
+        devices.record("other-tenant", "device-3", null);
+
+        final RecentlyActiveDevices restoredDevices = new RecentlyActiveDevices();
+        devices.save(vertx, path, 2)
+            .compose(ok -> restoredDevices.load(vertx, path, 10))
+            .setHandler(ctx.succeeding(loaded -> ctx.verify(() -> {
+                assertThat(loaded).containsExactly(
+                        TriTuple.of("other-tenant", "device-3", null),
+                        TriTuple.of("tenant", "device-2", "gw"));
+                assertThat(restoredDevices.getMostRecent(10)).isEqualTo(loaded);
+                ctx.completeNow();
+            })));
+    }
+
+    /**
+     * Verifies that a record shared by multiple users reads the snapshot for the
+     * first user only and writes the snapshot once the last user has been released.
+     *
+     * @param vertx The vert.x instance.
+     * @param tmpDir The directory to write the snapshot to.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testSharedRecordLoadsAndSavesSnapshotOnce(
+            final Vertx vertx,
+            @TempDir final Path tmpDir,
+            final VertxTestContext ctx) {
+
+        final String path = tmpDir.resolve("devices.json").toString();
+        final RecentlyActiveDevices previousDevices = new RecentlyActiveDevices();
+        previousDevices.record("tenant", "device-1", null);
+        final RecentlyActiveDevices sharedDevices = new RecentlyActiveDevices();
+
+        // GIVEN a snapshot of recently active devices
+        previousDevices.save(vertx, path, 10)
+            // WHEN two users acquire the shared record
+            .compose(ok -> sharedDevices.acquire(vertx, path, 10))
+            .compose(loaded -> {
+                ctx.verify(() -> assertThat(loaded).containsExactly(TriTuple.of("tenant", "device-1", null)));
+                vertx.fileSystem().deleteBlocking(path);
+                return sharedDevices.acquire(vertx, path, 10);
+            })
+            .compose(loaded -> {
+                // THEN the second user gets the devices without the file being read again
+                ctx.verify(() -> assertThat(loaded).containsExactly(TriTuple.of("tenant", "device-1", null)));
+                sharedDevices.record("tenant", "device-2", null);
+                return sharedDevices.release(vertx, path, 10);
+            })
+            .compose(ok -> {
+                // and the snapshot is not written as long as the record is still in use
+                ctx.verify(() -> assertThat(vertx.fileSystem().existsBlocking(path)).isFalse());
+                return sharedDevices.release(vertx, path, 10);
+            })
+            .compose(ok -> new RecentlyActiveDevices().load(vertx, path, 10))
+            .setHandler(ctx.succeeding(loaded -> ctx.verify(() -> {
+                // but once the last user has been released
+                assertThat(loaded).containsExactly(
+                        TriTuple.of("tenant", "device-2", null),
+                        TriTuple.of("tenant", "device-1", null));
+                ctx.completeNow();
+            })));
+    }
+
+    /**
+     * Verifies that loading a snapshot that does not exist yields an empty list.
+     *
+     * @param vertx The vert.x instance.
+     * @param tmpDir The directory to read the snapshot from.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testLoadSucceedsForNonExistingFile(final Vertx vertx, @TempDir final Path tmpDir, final VertxTestContext ctx) {
+
+        new RecentlyActiveDevices().load(vertx, tmpDir.resolve("missing.json").toString(), 10)
+            .setHandler(ctx.succeeding(loaded -> ctx.verify(() -> {
+                assertThat(loaded).isEmpty();
+                ctx.completeNow();
+            })));
+    }
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.service.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifies behavior of {@link MicrometerBasedCacheMetrics}.
+ *
+ */
+public class MicrometerBasedCacheMetricsTest {
+
+    /**
+     * Verifies that the metrics of caches that have been created per tenant
+     * are reported using the same meter.
+     */
+    @Test
+    public void testMetricsOfTenantSpecificCachesShareMeter() {
+
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final MicrometerBasedCacheMetrics metrics = new MicrometerBasedCacheMetrics(registry);
+
+        metrics.incrementHits("registration/tenant-one");
+        metrics.incrementHits("registration/tenant-two");
+        metrics.incrementHits("tenant");
+
+        assertThat(registry.find(MicrometerBasedCacheMetrics.METER_CACHE_HITS).counters()).hasSize(2);
+        assertThat(registry.get(MicrometerBasedCacheMetrics.METER_CACHE_HITS)
+                .tag(MicrometerBasedCacheMetrics.TAG_CACHE, "registration")
+                .counter().count()).isEqualTo(2.0);
+        assertThat(registry.get(MicrometerBasedCacheMetrics.METER_CACHE_HITS)
+                .tag(MicrometerBasedCacheMetrics.TAG_CACHE, "tenant")
+                .counter().count()).isEqualTo(1.0);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -277,6 +277,72 @@ public abstract class AbstractRegistrationServiceTest {
     }
 
 
+    /**
+     * Verifies that the registry asserts the registration status of multiple devices
+     * for a gateway by means of a single request and that the assertions have the same
+     * status as the corresponding single device assertions.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testAssertRegistrationsForGateway(final VertxTestContext ctx) {
+
+        final Map<String, Device> devices = new HashMap<>();
+        devices.put(GW, new Device());
+        devices.put("authorized", new Device().setVia(Collections.singletonList(GW)));
+        devices.put("unauthorized", new Device().setVia(Collections.singletonList("other-gw")));
+        devices.put("disabled", new Device().setVia(Collections.singletonList(GW)).setEnabled(false));
+
+        createDevices(devices)
+            .compose(ok -> {
+                final Promise<RegistrationResult> result = Promise.promise();
+                getRegistrationService().assertRegistrations(
+                        TENANT,
+                        Arrays.asList("authorized", "unauthorized", "disabled", "unknown"),
+                        GW,
+                        NoopSpan.INSTANCE,
+                        result);
+                return result.future();
+            })
+            .setHandler(ctx.succeeding(result -> ctx.verify(() -> {
+                assertEquals(HttpURLConnection.HTTP_OK, result.getStatus());
+                final Map<String, RegistrationResult> assertions = result.getAssertions();
+                assertEquals(4, assertions.size());
+                assertEquals(HttpURLConnection.HTTP_OK, assertions.get("authorized").getStatus());
+                assertEquals("authorized", assertions.get("authorized").getPayload().getString("device-id"));
+                assertNotNull(assertions.get("authorized").getCacheDirective());
+                assertEquals(HttpURLConnection.HTTP_FORBIDDEN, assertions.get("unauthorized").getStatus());
+                assertEquals(HttpURLConnection.HTTP_NOT_FOUND, assertions.get("disabled").getStatus());
+                assertEquals(HttpURLConnection.HTTP_NOT_FOUND, assertions.get("unknown").getStatus());
+                ctx.completeNow();
+            })));
+    }
+
+    /**
+     * Verifies that the registry rejects all assertions of a batch if the gateway is unknown.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testAssertRegistrationsFailsForUnknownGateway(final VertxTestContext ctx) {
+
+        final Map<String, Device> devices = new HashMap<>();
+        devices.put("device", new Device().setVia(Collections.singletonList(GW)));
+
+        createDevices(devices)
+            .compose(ok -> {
+                final Promise<RegistrationResult> result = Promise.promise();
+                getRegistrationService().assertRegistrations(
+                        TENANT, Collections.singletonList("device"), GW, NoopSpan.INSTANCE, result);
+                return result.future();
+            })
+            .setHandler(ctx.succeeding(result -> ctx.verify(() -> {
+                assertEquals(HttpURLConnection.HTTP_OK, result.getStatus());
+                assertEquals(HttpURLConnection.HTTP_FORBIDDEN, result.getAssertions().get("device").getStatus());
+                ctx.completeNow();
+            })));
+    }
+
     /**
      * Verifies that the registry returns 200 when getting an existing device.
      * Further the test verifies, that the assertion resolves gateways groups to the device ids of
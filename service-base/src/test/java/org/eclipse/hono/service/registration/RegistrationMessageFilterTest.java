@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -111,6 +111,22 @@ public class RegistrationMessageFilterTest {
         assertTrue(RegistrationMessageFilter.verify(linkTarget, msg));
     }
 
+    /**
+     * Verifies that a batch assertion request passes the filter
+     * although it does not contain a device ID.
+     */
+    @Test
+    public void testVerifySucceedsForBatchAssertionWithoutDeviceId() {
+        // GIVEN a batch assertion message lacking the device id
+        final Message msg = givenAMessageHavingProperties(null, RegistrationConstants.ACTION_ASSERT_BATCH);
+
+        // WHEN receiving the message via a link with a tenant-level target address
+        final ResourceIdentifier linkTarget = getResourceIdentifier(MY_TENANT);
+
+        // THEN message validation succeeds
+        assertTrue(RegistrationMessageFilter.verify(linkTarget, msg));
+    }
+
     private static ResourceIdentifier getResourceIdentifier(final String tenant) {
         return getResourceIdentifier(tenant, null);
     }
@@ -14,6 +14,7 @@ package org.eclipse.hono.service.resourcelimits;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -24,6 +25,7 @@ import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
@@ -32,6 +34,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.hono.cache.CacheProvider;
@@ -52,8 +56,10 @@ import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
 import io.opentracing.log.Fields;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -62,6 +68,7 @@ import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 
@@ -168,6 +175,114 @@ public class PrometheusBasedResourceLimitChecksTest {
                 }));
     }
 
+    /**
+     * Verifies that concurrent connection limit checks share the queries
+     * to the Prometheus server.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testConnectionLimitChecksAreBatched(final VertxTestContext ctx) {
+
+        final List<Handler<AsyncResult<HttpResponse<JsonObject>>>> responseHandlers = new ArrayList<>();
+        doAnswer(invocation -> {
+            responseHandlers.add(invocation.getArgument(0));
+            return null;
+        }).when(request).send(any(Handler.class));
+        final ResourceLimits limits = new ResourceLimits().setMaxConnections(10);
+
+        // GIVEN a pending connection limit check for tenant A
+        final Future<Boolean> firstCheckA = limitChecksImpl.isConnectionLimitReached(
+                TenantObject.from("A", true).setResourceLimits(limits), mock(SpanContext.class));
+        // WHEN checking the limits of tenants A, B and C while the query is in progress
+        final Future<Boolean> secondCheckA = limitChecksImpl.isConnectionLimitReached(
+                TenantObject.from("A", true).setResourceLimits(limits), mock(SpanContext.class));
+        final Future<Boolean> checkB = limitChecksImpl.isConnectionLimitReached(
+                TenantObject.from("B", true).setResourceLimits(limits), mock(SpanContext.class));
+        final Future<Boolean> checkC = limitChecksImpl.isConnectionLimitReached(
+                TenantObject.from("C", true).setResourceLimits(limits), mock(SpanContext.class));
+
+        ctx.verify(() -> {
+            // THEN the second check for tenant A shares the pending query
+            assertEquals(1, responseHandlers.size());
+            final HttpResponse<JsonObject> responseA = mock(HttpResponse.class);
+            when(responseA.body()).thenReturn(createPrometheusResponse(Map.of("A", 10)));
+            responseHandlers.get(0).handle(Future.succeededFuture(responseA));
+            assertTrue(firstCheckA.result());
+            assertTrue(secondCheckA.result());
+
+            // and the connections of tenants B and C are retrieved by means of a single query
+            assertEquals(2, responseHandlers.size());
+            verify(request).addQueryParam(eq("query"), argThat(query -> query.contains("tenant=~\"B|C\"")));
+            final HttpResponse<JsonObject> responseBC = mock(HttpResponse.class);
+            when(responseBC.body()).thenReturn(createPrometheusResponse(Map.of("B", 9, "C", 10)));
+            responseHandlers.get(1).handle(Future.succeededFuture(responseBC));
+            assertFalse(checkB.result());
+            assertTrue(checkC.result());
+            verify(webClient, times(2)).get(eq(DEFAULT_PORT), eq(DEFAULT_HOST), anyString());
+        });
+        ctx.completeNow();
+    }
+
+    /**
+     * Verifies that the outcome of a connection limit check is passed to the caller
+     * on its own vert.x context even if the Prometheus query has been run on behalf
+     * of a caller running on another context.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testConnectionLimitCheckCompletesOnCallersContext(final Vertx vertx, final VertxTestContext ctx) {
+
+        final List<Handler<AsyncResult<HttpResponse<JsonObject>>>> responseHandlers = new ArrayList<>();
+        doAnswer(invocation -> {
+            responseHandlers.add(invocation.getArgument(0));
+            return null;
+        }).when(request).send(any(Handler.class));
+        final HttpResponse<JsonObject> responseA = mock(HttpResponse.class);
+        when(responseA.body()).thenReturn(createPrometheusResponse(Map.of("A", 10)));
+        final HttpResponse<JsonObject> responseB = mock(HttpResponse.class);
+        when(responseB.body()).thenReturn(createPrometheusResponse(Map.of("B", 9)));
+        final ResourceLimits limits = new ResourceLimits().setMaxConnections(10);
+        final Context contextA = vertx.getOrCreateContext();
+        final Context contextB = vertx.getOrCreateContext();
+        final Checkpoint checksCompleted = ctx.checkpoint(2);
+
+        contextA.runOnContext(checkA -> {
+            // GIVEN a connection limit check for tenant A running on context A
+            limitChecksImpl.isConnectionLimitReached(TenantObject.from("A", true).setResourceLimits(limits),
+                    mock(SpanContext.class))
+                .setHandler(ctx.succeeding(reached -> {
+                    ctx.verify(() -> {
+                        assertTrue(reached);
+                        assertSame(contextA, Vertx.currentContext());
+                    });
+                    checksCompleted.flag();
+                }));
+            contextB.runOnContext(checkB -> {
+                // and a check for tenant B running on context B that waits for the next query
+                limitChecksImpl.isConnectionLimitReached(TenantObject.from("B", true).setResourceLimits(limits),
+                        mock(SpanContext.class))
+                    .setHandler(ctx.succeeding(reached -> {
+                        ctx.verify(() -> {
+                            // THEN the outcome of the check for tenant B is passed on context B
+                            assertFalse(reached);
+                            assertSame(contextB, Vertx.currentContext());
+                        });
+                        checksCompleted.flag();
+                    }));
+                // WHEN the responses to both queries are received on context A
+                contextA.runOnContext(respond -> {
+                    responseHandlers.get(0).handle(Future.succeededFuture(responseA));
+                    responseHandlers.get(1).handle(Future.succeededFuture(responseB));
+                });
+            });
+        });
+    }
+
     /**
      *
      * Verifies that the message limit check returns {@code false} if the limit is not exceeded.
@@ -227,6 +342,104 @@ public class PrometheusBasedResourceLimitChecksTest {
                 }));
     }
 
+    /**
+     * Verifies that subsequent message limit checks do not query the Prometheus server
+     * again but take the payload of the previously accepted messages into account.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testMessageLimitCountsAcceptedPayloadLocally(final VertxTestContext ctx) {
+
+        givenDataVolumeUsageInBytes(80);
+        final long incomingMessageSize = 15;
+        final TenantObject tenant = TenantObject.from("tenant", true)
+                .setResourceLimits(new ResourceLimits()
+                        .setDataVolume(new DataVolume()
+                                .setMaxBytes(100L)
+                                .setEffectiveSince(Instant.parse("2019-01-03T14:30:00Z"))
+                                .setPeriod(new ResourceLimitsPeriod()
+                                        .setMode("days")
+                                        .setNoOfDays(30))));
+
+        limitChecksImpl.isMessageLimitReached(tenant, incomingMessageSize, mock(SpanContext.class))
+                .compose(firstResponse -> {
+                    ctx.verify(() -> assertFalse(firstResponse));
+                    return limitChecksImpl.isMessageLimitReached(tenant, incomingMessageSize, mock(SpanContext.class));
+                })
+                .setHandler(ctx.succeeding(secondResponse -> {
+                    ctx.verify(() -> {
+                        assertTrue(secondResponse);
+                        verify(webClient, times(1)).get(eq(DEFAULT_PORT), eq(DEFAULT_HOST), anyString());
+                    });
+                    ctx.completeNow();
+                }));
+    }
+
+    /**
+     * Verifies that the payload accepted during the scrape interval preceding a refresh
+     * of the consumed data volume is still counted after the refresh because it is not
+     * yet included in the data volume retrieved from the Prometheus server.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMessageLimitRefreshKeepsPayloadAcceptedDuringScrapeInterval(
+            final Vertx vertx,
+            final VertxTestContext ctx) {
+
+        final List<Handler<AsyncResult<HttpResponse<JsonObject>>>> responseHandlers = new ArrayList<>();
+        doAnswer(invocation -> {
+            responseHandlers.add(invocation.getArgument(0));
+            return null;
+        }).when(request).send(any(Handler.class));
+        final HttpResponse<JsonObject> response = mock(HttpResponse.class);
+        when(response.body()).thenReturn(createPrometheusResponse(50));
+        final PrometheusBasedResourceLimitChecksConfig config = new PrometheusBasedResourceLimitChecksConfig();
+        config.setHost(DEFAULT_HOST);
+        config.setPort(DEFAULT_PORT);
+        config.setCacheTimeout(1);
+        config.setScrapeInterval(60);
+        limitChecksImpl = new PrometheusBasedResourceLimitChecks(webClient, config, null, tracer);
+        final TenantObject tenant = TenantObject.from("tenant", true)
+                .setResourceLimits(new ResourceLimits()
+                        .setDataVolume(new DataVolume()
+                                .setMaxBytes(100L)
+                                .setEffectiveSince(Instant.parse("2019-01-03T14:30:00Z"))
+                                .setPeriod(new ResourceLimitsPeriod()
+                                        .setMode("days")
+                                        .setNoOfDays(30))));
+
+        // GIVEN a data volume of 50 bytes consumed according to the Prometheus server
+        // and a message with 20 bytes of payload that has been accepted locally
+        final Future<Boolean> firstCheck = limitChecksImpl.isMessageLimitReached(tenant, 20, mock(SpanContext.class));
+        responseHandlers.get(0).handle(Future.succeededFuture(response));
+        ctx.verify(() -> assertFalse(firstCheck.result()));
+
+        vertx.setTimer(1100, tid -> {
+            ctx.verify(() -> {
+                // WHEN the consumed data volume is refreshed while another message
+                // with 20 bytes of payload is being accepted
+                final Future<Boolean> secondCheck = limitChecksImpl.isMessageLimitReached(
+                        tenant, 20, mock(SpanContext.class));
+                assertFalse(secondCheck.result());
+                assertEquals(2, responseHandlers.size());
+                // and the Prometheus server has not yet scraped the payload of any of the messages
+                responseHandlers.get(1).handle(Future.succeededFuture(response));
+
+                // THEN a message with 15 bytes of payload exceeds the limit
+                // because the locally accepted payload is still counted
+                final Future<Boolean> thirdCheck = limitChecksImpl.isMessageLimitReached(
+                        tenant, 15, mock(SpanContext.class));
+                assertTrue(thirdCheck.result());
+                assertEquals(2, responseHandlers.size());
+            });
+            ctx.completeNow();
+        });
+    }
+
     /**
      * Verifies that the message limit check returns {@code false} if no metrics are
      * available (yet).
@@ -514,8 +727,15 @@ public class PrometheusBasedResourceLimitChecksTest {
                 }));
     }
 
+    @SuppressWarnings("unchecked")
     private void givenCurrentConnections(final Integer currentConnections) {
-        givenResponseWithValue(currentConnections);
+        doAnswer(invocation -> {
+            final Handler<AsyncResult<HttpResponse<JsonObject>>> responseHandler = invocation.getArgument(0);
+            final HttpResponse<JsonObject> response = mock(HttpResponse.class);
+            when(response.body()).thenReturn(createPrometheusResponse(Map.of(Constants.DEFAULT_TENANT, currentConnections)));
+            responseHandler.handle(Future.succeededFuture(response));
+            return null;
+        }).when(request).send(any(Handler.class));
     }
 
     private void givenDataVolumeUsageInBytes(final Integer consumedBytes) {
@@ -537,6 +757,16 @@ public class PrometheusBasedResourceLimitChecksTest {
         }).when(request).send(any(Handler.class));
     }
 
+    private JsonObject createPrometheusResponse(final Map<String, Integer> valuesByTenant) {
+        final JsonArray result = new JsonArray();
+        valuesByTenant.forEach((tenantId, value) -> result.add(new JsonObject()
+                .put("metric", new JsonObject().put("tenant", tenantId))
+                .put("value", new JsonArray().add("timestamp").add(String.valueOf(value)))));
+        return new JsonObject()
+                .put("status", "success")
+                .put("data", new JsonObject().put("result", result));
+    }
+
     private JsonObject createPrometheusResponse(final Integer value) {
         final JsonArray valueArray = new JsonArray();
         if (value != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Contributors to the Eclipse Foundation
+ * Copyright (c) 2016, 2020 Contributors to the Eclipse Foundation
  *
  * See the NOTICE file(s) distributed with this work for additional
  * information regarding copyright ownership.
@@ -480,6 +480,62 @@ public abstract class AbstractTenantServiceTest {
         });
     }
 
+    /**
+     * Verifies that the service finds a tenant by the subject DN of its trusted certificate
+     * authority regardless of the subject DN's string representation and that the lookup
+     * reflects updates and removal of the tenant.
+     *
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testGetForCertificateAuthorityReflectsUpdateAndRemoval(final VertxTestContext ctx) {
+
+        final X500Principal origSubjectDn = new X500Principal("O=Eclipse, OU=Hono, CN=ca");
+        final X500Principal newSubjectDn = new X500Principal("O=Eclipse, OU=Hono, CN=new-ca");
+        final Tenant tenant = buildTenantPayload()
+                .setTrustedCertificateAuthorities(Collections.singletonList(new TrustedCertificateAuthority()
+                        .setSubjectDn(origSubjectDn.getName(X500Principal.RFC2253))
+                        .setPublicKey("NOTAPUBLICKEY".getBytes(StandardCharsets.UTF_8))));
+
+        addTenant("tenant", tenant)
+        .compose(ok -> assertGetForCa(ctx, new X500Principal("o=Eclipse,ou=Hono,cn=CA"), HttpURLConnection.HTTP_OK))
+        .compose(ok -> {
+            // WHEN updating the tenant to trust another CA
+            final Promise<OperationResult<Void>> updateResult = Promise.promise();
+            final Tenant updatedTenant = buildTenantPayload()
+                    .setTrustedCertificateAuthorities(Collections.singletonList(new TrustedCertificateAuthority()
+                            .setSubjectDn(newSubjectDn.getName(X500Principal.RFC2253))
+                            .setPublicKey("NOTAPUBLICKEY".getBytes(StandardCharsets.UTF_8))));
+            getTenantManagementService().updateTenant("tenant", updatedTenant, Optional.empty(), NoopSpan.INSTANCE, updateResult);
+            return updateResult.future();
+        })
+        // THEN the tenant can no longer be found by the original CA but by the new one
+        .compose(ok -> assertGetForCa(ctx, origSubjectDn, HttpURLConnection.HTTP_NOT_FOUND))
+        .compose(ok -> assertGetForCa(ctx, newSubjectDn, HttpURLConnection.HTTP_OK))
+        .compose(ok -> {
+            // and WHEN removing the tenant
+            final Promise<Result<Void>> deleteResult = Promise.promise();
+            getTenantManagementService().deleteTenant("tenant", Optional.empty(), NoopSpan.INSTANCE, deleteResult);
+            return deleteResult.future();
+        })
+        // THEN the tenant can no longer be found by the new CA either
+        .compose(ok -> assertGetForCa(ctx, newSubjectDn, HttpURLConnection.HTTP_NOT_FOUND))
+        .setHandler(ctx.completing());
+    }
+
+    private Future<TenantResult<JsonObject>> assertGetForCa(
+            final VertxTestContext ctx,
+            final X500Principal subjectDn,
+            final int expectedStatus) {
+
+        final Promise<TenantResult<JsonObject>> result = Promise.promise();
+        getTenantService().get(subjectDn, NoopSpan.INSTANCE, result);
+        return result.future().map(r -> {
+            ctx.verify(() -> assertEquals(expectedStatus, r.getStatus()));
+            return r;
+        });
+    }
+
     /**
      * Verifies that the service removes a tenant by identifier.
      *
@@ -13,6 +13,7 @@
 
 package org.eclipse.hono.deviceconnection.infinispan;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import org.eclipse.hono.config.ApplicationConfigProperties;
@@ -22,6 +23,8 @@ import org.eclipse.hono.config.VertxProperties;
 import org.eclipse.hono.deviceconnection.infinispan.client.HotrodBasedDeviceConnectionInfo;
 import org.eclipse.hono.deviceconnection.infinispan.client.HotrodCache;
 import org.eclipse.hono.deviceconnection.infinispan.client.InfinispanRemoteConfigurationProperties;
+import org.eclipse.hono.deviceconnection.infinispan.client.RemoteCache;
+import org.eclipse.hono.deviceconnection.infinispan.client.WriteBehindRemoteCache;
 import org.eclipse.hono.service.HealthCheckServer;
 import org.eclipse.hono.service.VertxBasedHealthCheckServer;
 import org.eclipse.hono.service.deviceconnection.DeviceConnectionAmqpEndpoint;
@@ -187,18 +190,39 @@ public class ApplicationConfig {
                 remoteCacheManager(),
                 DeviceConnectionConstants.CACHE_NAME,
                 "KEY_CONNECTION_CHECK",
-                "VALUE_CONNECTION_CHECK");
+                "VALUE_CONNECTION_CHECK",
+                remoteCacheProperties().isUseAsyncOperations());
     }
 
     /**
      * Exposes a Device Connection service as a Spring bean.
+     * <p>
+     * If a write behind interval is configured for the remote cache, updates of
+     * the last known gateway of devices are buffered and written to the data grid
+     * in batches. Values that are still buffered when the service is stopped are
+     * written to the data grid before the service's shut down completes.
      * 
      * @param cache The remote cache.
      * @return The service implementation.
      */
     @Bean
     public RemoteCacheBasedDeviceConnectionService deviceConnectionService(final HotrodCache<String, String> cache) {
-        return new RemoteCacheBasedDeviceConnectionService(new HotrodBasedDeviceConnectionInfo(cache));
+        return new RemoteCacheBasedDeviceConnectionService(new HotrodBasedDeviceConnectionInfo(writeBehind(cache)));
+    }
+
+    private RemoteCache<String, String> writeBehind(final HotrodCache<String, String> cache) {
+
+        final InfinispanRemoteConfigurationProperties properties = remoteCacheProperties();
+        if (properties.getWriteBehindInterval() > 0) {
+            return new WriteBehindRemoteCache<>(
+                    cache,
+                    vertx(),
+                    Duration.ofMillis(properties.getWriteBehindInterval()),
+                    properties.getWriteBehindMaxWrittenValues(),
+                    Duration.ofMillis(properties.getWriteBehindWrittenValueTimeout()));
+        } else {
+            return cache;
+        }
     }
 
     /**
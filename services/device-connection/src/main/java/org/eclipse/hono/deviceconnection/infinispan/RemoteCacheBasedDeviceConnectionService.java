@@ -20,6 +20,7 @@ import java.util.Objects;
 import org.eclipse.hono.client.ServiceInvocationException;
 import org.eclipse.hono.deviceconnection.infinispan.client.DeviceConnectionInfo;
 import org.eclipse.hono.service.HealthCheckProvider;
+import org.eclipse.hono.service.Lifecycle;
 import org.eclipse.hono.service.deviceconnection.DeviceConnectionService;
 import org.eclipse.hono.service.deviceconnection.EventBusDeviceConnectionAdapter;
 import org.eclipse.hono.util.DeviceConnectionResult;
@@ -28,6 +29,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import io.opentracing.Span;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.ext.healthchecks.HealthCheckHandler;
 
 
@@ -49,6 +51,35 @@ public class RemoteCacheBasedDeviceConnectionService extends EventBusDeviceConne
         this.cache = Objects.requireNonNull(cache);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Starts the device connection info if it has a life cycle.
+     */
+    @Override
+    protected void doStart(final Promise<Void> startPromise) {
+        if (cache instanceof Lifecycle) {
+            ((Lifecycle) cache).start().setHandler(startPromise);
+        } else {
+            startPromise.complete();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops the device connection info if it has a life cycle. This includes
+     * writing any buffered data to the data grid.
+     */
+    @Override
+    protected void doStop(final Promise<Void> stopPromise) {
+        if (cache instanceof Lifecycle) {
+            ((Lifecycle) cache).stop().setHandler(stopPromise);
+        } else {
+            stopPromise.complete();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -21,11 +21,13 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 import java.net.HttpURLConnection;
 
 import org.eclipse.hono.client.ClientErrorException;
 import org.eclipse.hono.deviceconnection.infinispan.client.DeviceConnectionInfo;
+import org.eclipse.hono.service.Lifecycle;
 import org.eclipse.hono.util.Constants;
 import org.eclipse.hono.util.DeviceConnectionResult;
 import org.infinispan.client.hotrod.RemoteCacheContainer;
@@ -93,6 +95,30 @@ public class RemoteCacheBasedDeviceConnectionServiceTest {
         return startPromise.future();
     }
 
+    /**
+     * Verifies that stopping the service completes only after the device connection
+     * info has been stopped, e.g. after buffered data has been written to the data grid.
+     */
+    @Test
+    public void testStopWaitsForDeviceConnectionInfoToBeStopped() {
+
+        cache = mock(DeviceConnectionInfo.class, withSettings().extraInterfaces(Lifecycle.class));
+        final Promise<Void> cacheStopped = Promise.promise();
+        when(((Lifecycle) cache).start()).thenReturn(Future.succeededFuture());
+        when(((Lifecycle) cache).stop()).thenReturn(cacheStopped.future());
+        svc = new RemoteCacheBasedDeviceConnectionService(cache);
+        assertThat(givenAStartedService().succeeded()).isTrue();
+        verify((Lifecycle) cache).start();
+
+        final Promise<Void> stopPromise = Promise.promise();
+        svc.stop(stopPromise);
+        verify((Lifecycle) cache).stop();
+        assertThat(stopPromise.future().isComplete()).isFalse();
+
+        cacheStopped.complete();
+        assertThat(stopPromise.future().succeeded()).isTrue();
+    }
+
     /**
      * Verifies that the last known gateway id can be set via the <em>setLastKnownGatewayForDevice</em> operation.
      *
@@ -25,12 +25,18 @@ public abstract class AbstractFileBasedRegistryConfigProperties {
      * operations may be cached for.
      */
     public static final int DEFAULT_MAX_AGE_SECONDS = 180;
+    /**
+     * The default maximum number of entries that the journal may contain
+     * before a new snapshot of the registry is written.
+     */
+    public static final int DEFAULT_MAX_JOURNAL_ENTRIES = 10000;
 
     private String filename = getDefaultFileName();
     private boolean saveToFile = false;
     private boolean modificationEnabled = true;
     private boolean startEmpty = false;
     private int cacheMaxAge = DEFAULT_MAX_AGE_SECONDS;
+    private int maxJournalEntries = DEFAULT_MAX_JOURNAL_ENTRIES;
 
     /**
      * Gets the path to the file that the registry should be persisted to periodically.
@@ -93,6 +99,42 @@ public abstract class AbstractFileBasedRegistryConfigProperties {
         this.saveToFile = enabled;
     }
 
+    /**
+     * Gets the maximum number of entries that the journal may contain before
+     * a new snapshot of the registry is written to the file.
+     * <p>
+     * If persistence is enabled, changes of the registry's content are appended to a journal
+     * file which is located next to the file and which has the same name with a
+     * <em>.journal</em> suffix. During start up, the changes contained in the
+     * journal are applied to the content read from the file.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_MAX_JOURNAL_ENTRIES}.
+     *
+     * @return The number of entries.
+     */
+    public final int getMaxJournalEntries() {
+        return maxJournalEntries;
+    }
+
+    /**
+     * Sets the maximum number of entries that the journal may contain before
+     * a new snapshot of the registry is written to the file.
+     * <p>
+     * Setting this property to 0 results in the whole registry being written
+     * to the file whenever its content has changed.
+     * <p>
+     * The default value of this property is {@link #DEFAULT_MAX_JOURNAL_ENTRIES}.
+     *
+     * @param maxEntries The number of entries.
+     * @throws IllegalArgumentException if max entries is &lt; 0.
+     */
+    public final void setMaxJournalEntries(final int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("max journal entries must be >= 0");
+        }
+        this.maxJournalEntries = maxEntries;
+    }
+
     /**
      * Checks whether this registry allows the creation, modification and removal of entries.
      * <p>
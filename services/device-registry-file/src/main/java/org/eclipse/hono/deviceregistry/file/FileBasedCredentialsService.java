@@ -14,17 +14,14 @@
 package org.eclipse.hono.deviceregistry.file;
 
 import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.hono.auth.BCryptHelper;
 import org.eclipse.hono.auth.HonoPasswordEncoder;
@@ -57,8 +54,6 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -86,12 +81,53 @@ public final class FileBasedCredentialsService extends AbstractVerticle
 
     private static final Logger log = LoggerFactory.getLogger(FileBasedCredentialsService.class);
 
-    // <tenantId, <authId, credentialsData[]>>
-    private final ConcurrentMap<String, ConcurrentMap<String, JsonArray>> credentials = new ConcurrentHashMap<>();
+    // <tenantId, credentials>
+    private final ConcurrentMap<String, TenantCredentials> credentials = new ConcurrentHashMap<>();
     // <tenantId, <deviceId, version>>
     private final ConcurrentMap<String, ConcurrentMap<String, String>> versions = new ConcurrentHashMap<>();
+    private final RegistryJournal journal = new RegistryJournal(new RegistryJournal.Store() {
+
+        @Override
+        public void loadRecord(final String tenantId, final JsonObject record) {
+            final String authId = record.getString(CredentialsConstants.FIELD_AUTH_ID);
+            if (authId != null) {
+                createOrGetCredentialsForTenant(tenantId).add(authId, record);
+            }
+        }
+
+        @Override
+        public Object getEntry(final String tenantId, final String authId) {
+            final TenantCredentials credentialsForTenant = credentials.get(tenantId);
+            return credentialsForTenant == null ? null : credentialsForTenant.getCopy(authId);
+        }
+
+        @Override
+        public void putEntry(final String tenantId, final String authId, final Object value) {
+            createOrGetCredentialsForTenant(tenantId).put(authId, (JsonArray) value);
+        }
+
+        @Override
+        public void removeEntry(final String tenantId, final String authId) {
+            final TenantCredentials credentialsForTenant = credentials.get(tenantId);
+            if (credentialsForTenant != null) {
+                credentialsForTenant.put(authId, null);
+            }
+        }
+
+        @Override
+        public Iterator<JsonObject> snapshotElements() {
+            return credentials.entrySet().stream()
+                    .map(entry -> {
+                        final JsonArray credentialsArray = new JsonArray();
+                        entry.getValue().forEach(credentialsArray::add);
+                        return new JsonObject()
+                                .put(FIELD_TENANT, entry.getKey())
+                                .put(ARRAY_CREDENTIALS, credentialsArray);
+                    })
+                    .iterator();
+        }
+    }, FIELD_TENANT, ARRAY_CREDENTIALS);
     private boolean running = false;
-    private boolean dirty = false;
     private FileBasedCredentialsConfigProperties config;
 
     private HonoPasswordEncoder passwordEncoder;
@@ -167,11 +203,8 @@ public final class FileBasedCredentialsService extends AbstractVerticle
             log.info("Either filename is null or empty start is set, won't load any credentials");
             return Future.succeededFuture();
         } else {
-            final Promise<Buffer> readResult = Promise.promise();
             log.debug("trying to load credentials from file {}", getConfig().getFilename());
-            vertx.fileSystem().readFile(getConfig().getFilename(), readResult);
-            return readResult.future()
-                    .compose(this::addAll)
+            return journal.load(vertx, getConfig())
                     .recover(t -> {
                         log.debug("cannot load credentials from file [{}]: {}", getConfig().getFilename(),
                                 t.getMessage());
@@ -180,46 +213,6 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         }
     }
 
-    private Future<Void> addAll(final Buffer credentials) {
-        final Promise<Void> result = Promise.promise();
-        try {
-            int credentialsCount = 0;
-            final JsonArray allObjects = credentials.toJsonArray();
-            log.debug("trying to load credentials for {} tenants", allObjects.size());
-            for (final Object obj : allObjects) {
-                if (JsonObject.class.isInstance(obj)) {
-                    credentialsCount += addCredentialsForTenant((JsonObject) obj);
-                }
-            }
-            log.info("successfully loaded {} credentials from file [{}]", credentialsCount, getConfig().getFilename());
-            result.complete();
-        } catch (final DecodeException e) {
-            log.warn("cannot read malformed JSON from credentials file [{}]", getConfig().getFilename());
-            result.fail(e);
-        }
-        return result.future();
-    }
-
-    int addCredentialsForTenant(final JsonObject tenant) {
-        int count = 0;
-        final String tenantId = tenant.getString(FIELD_TENANT);
-        final ConcurrentMap<String, JsonArray> credentialsMap = new ConcurrentHashMap<>();
-        for (final Object credentialsObj : tenant.getJsonArray(ARRAY_CREDENTIALS)) {
-            final JsonObject credentials = (JsonObject) credentialsObj;
-            final JsonArray authIdCredentials;
-            if (credentialsMap.containsKey(credentials.getString(CredentialsConstants.FIELD_AUTH_ID))) {
-                authIdCredentials = credentialsMap.get(credentials.getString(CredentialsConstants.FIELD_AUTH_ID));
-            } else {
-                authIdCredentials = new JsonArray();
-            }
-            authIdCredentials.add(credentials);
-            credentialsMap.put(credentials.getString(CredentialsConstants.FIELD_AUTH_ID), authIdCredentials);
-            count++;
-        }
-        credentials.put(tenantId, credentialsMap);
-        return count;
-    }
-
     @Override
     public void stop(final Promise<Void> stopPromise) {
 
@@ -241,35 +234,13 @@ public final class FileBasedCredentialsService extends AbstractVerticle
 
         if (!getConfig().isSaveToFile()) {
             return Future.succeededFuture();
-        } else if (dirty) {
-            return checkFileExists(true).compose(s -> {
-                final AtomicInteger idCount = new AtomicInteger();
-                final JsonArray tenants = new JsonArray();
-                for (final Entry<String, ConcurrentMap<String, JsonArray>> entry : credentials.entrySet()) {
-                    final JsonArray credentialsArray = new JsonArray();
-                    for (final JsonArray singleAuthIdCredentials : entry.getValue().values()) {
-                        credentialsArray.addAll(singleAuthIdCredentials.copy());
-                        idCount.incrementAndGet();
-                    }
-                    tenants.add(
-                            new JsonObject()
-                                    .put(FIELD_TENANT, entry.getKey())
-                                    .put(ARRAY_CREDENTIALS, credentialsArray));
-                }
-                final Promise<Void> writeHandler = Promise.promise();
-                vertx.fileSystem().writeFile(
-                        getConfig().getFilename(),
-                        Buffer.buffer(tenants.encodePrettily(), StandardCharsets.UTF_8.name()),
-                        writeHandler);
-                return writeHandler.future().map(ok -> {
-                    dirty = false;
-                    log.trace("successfully wrote {} credentials to file {}", idCount.get(), getConfig().getFilename());
-                    return (Void) null;
-                }).otherwise(t -> {
-                    log.warn("could not write credentials to file {}", getConfig().getFilename(), t);
-                    return (Void) null;
-                });
-            });
+        } else if (journal.hasPendingChanges()) {
+            return checkFileExists(true)
+                    .compose(s -> journal.flush(vertx, getConfig()))
+                    .otherwise(t -> {
+                        log.warn("could not write credentials to file {}", getConfig().getFilename(), t);
+                        return (Void) null;
+                    });
         } else {
             log.trace("credentials registry does not need to be persisted");
             return Future.succeededFuture();
@@ -317,20 +288,6 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         }
     }
 
-    private void findCredentialsForDevice(final JsonArray credentials, final String deviceId, final JsonArray result) {
-
-        for (final Object obj : credentials) {
-            if (obj instanceof JsonObject) {
-                final JsonObject currentCredentials = (JsonObject) obj;
-                if (deviceId.equals(getTypesafeValueForField(String.class, currentCredentials,
-                        CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID))) {
-                    // device ID matches, add a copy of credentials to result
-                    result.add(currentCredentials.copy());
-                }
-            }
-        }
-    }
-
     /**
      * Gets a property value of a given type from a JSON object.
      *
@@ -366,6 +323,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
      * @param type The type of credentials to look up.
      * @param span The active OpenTracing span for this operation.
      * @return The credentials object of the given type or {@code null} if no matching credentials exist.
+     *         The returned object must not be modified.
      */
     private JsonObject getSingleCredentials(final String tenantId, final String authId, final String type,
             final JsonObject clientContext, final Span span) {
@@ -374,34 +332,28 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         Objects.requireNonNull(authId);
         Objects.requireNonNull(type);
 
-        final ConcurrentMap<String, JsonArray> credentialsForTenant = credentials.get(tenantId);
+        final TenantCredentials credentialsForTenant = credentials.get(tenantId);
         if (credentialsForTenant == null) {
             TracingHelper.logError(span, "no credentials found for tenant");
             return null;
         }
 
-        final JsonArray authIdCredentials = credentialsForTenant.get(authId);
-        if (authIdCredentials == null) {
+        final List<TenantCredentials.CredentialsRecord> records = credentialsForTenant.getRecords(type, authId);
+        if (records.isEmpty() && !credentialsForTenant.containsAuthId(authId)) {
             TracingHelper.logError(span, "no credentials found for auth-id");
             return null;
         }
 
-        for (final Object authIdCredentialEntry : authIdCredentials) {
-            final JsonObject authIdCredential = (JsonObject) authIdCredentialEntry;
+        for (final TenantCredentials.CredentialsRecord record : records) {
 
-            if (!type.equals(authIdCredential.getString(CredentialsConstants.FIELD_TYPE))) {
-                // credentials type doesn't match ... continue search
-                continue;
-            }
-
-            if (Boolean.FALSE.equals(authIdCredential.getBoolean(CredentialsConstants.FIELD_ENABLED, true))) {
+            if (!record.isEnabled()) {
                 // do not report disabled
                 continue;
             }
 
             if (clientContext != null && !clientContext.isEmpty()) {
 
-                final JsonObject extensionProperties = authIdCredential.getJsonObject(RegistryManagementConstants.FIELD_EXT, new JsonObject());
+                final JsonObject extensionProperties = record.getExtensions();
 
                 final boolean credentialsOnRecordMatchClientContext = clientContext.stream()
                         .filter(entry -> entry.getValue() != null)
@@ -422,31 +374,13 @@ public final class FileBasedCredentialsService extends AbstractVerticle
 
             }
 
-            // copy
-            final var authIdCredentialCopy = authIdCredential.copy();
-            final var secrets = authIdCredentialCopy.getJsonArray(CredentialsConstants.FIELD_SECRETS);
-
-            for (final Iterator<Object> i = secrets.iterator(); i.hasNext();) {
-
-                final Object o = i.next();
-                if (!(o instanceof JsonObject)) {
-                    i.remove();
-                    continue;
-                }
-
-                final JsonObject secret = (JsonObject) o;
-                if (Boolean.FALSE.equals(secret.getBoolean(CredentialsConstants.FIELD_ENABLED, true))) {
-                    i.remove();
-                }
-            }
-
-            if (secrets.isEmpty()) {
-                // no more secrets left
+            if (record.getPayload() == null) {
+                // no enabled secrets
                 continue;
             }
 
             // return the first entry that matches
-            return authIdCredentialCopy;
+            return record.getPayload();
         }
 
         // we ended up with no match
@@ -482,8 +416,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         setResourceVersion(tenantId, deviceId, newVersion);
 
 
-        // authId->credentials[]
-        final ConcurrentMap<String, JsonArray> credentialsForTenant = createOrGetCredentialsForTenant(tenantId);
+        final TenantCredentials credentialsForTenant = createOrGetCredentialsForTenant(tenantId);
 
         if (!credentialsForTenant.isEmpty()) {
             try {
@@ -508,7 +441,9 @@ public final class FileBasedCredentialsService extends AbstractVerticle
             final String authId = credential.getAuthId();
             final JsonObject credentialObject = JsonObject.mapFrom(credential);
             final String type = credentialObject.getString(CredentialsConstants.FIELD_TYPE);
-            final JsonArray json = createOrGetAuthIdCredentials(authId, credentialsForTenant);
+            // work on a copy so that the stored credentials and the indexes are updated in a single step
+            final JsonArray existingJson = credentialsForTenant.getCopy(authId);
+            final JsonArray json = existingJson == null ? new JsonArray() : existingJson;
 
             // find credentials - matching by type
             JsonObject credentialsJson = json.stream()
@@ -584,8 +519,6 @@ public final class FileBasedCredentialsService extends AbstractVerticle
                 }
             }
 
-            dirty = true;
-
             // Now we can remove all the secrets
             secretsJson.clear();
 
@@ -596,6 +529,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
             credentialsJson.put(CredentialsConstants.FIELD_SECRETS, secretsJson);
 
             credentialsForTenant.put(authId, json);
+            journal.recordChange(tenantId, authId);
         }
 
         return OperationResult.ok(HttpURLConnection.HTTP_NO_CONTENT, null, Optional.empty(), Optional.of(newVersion));
@@ -654,29 +588,30 @@ public final class FileBasedCredentialsService extends AbstractVerticle
      */
     private void removeAllForDevice(final String tenantId, final String deviceId, final Span span) {
 
-        final ConcurrentMap<String, JsonArray> credentialsForTenant = createOrGetCredentialsForTenant(tenantId);
-
-        for (final JsonArray versionedCredentials : credentialsForTenant.values()) {
+        final TenantCredentials credentialsForTenant = credentials.get(tenantId);
+        if (credentialsForTenant == null) {
+            return;
+        }
 
-            for (final Iterator<Object> i = versionedCredentials.iterator(); i.hasNext();) {
+        for (final String authId : credentialsForTenant.getAuthIds(deviceId)) {
 
+            final JsonArray authIdCredentials = credentialsForTenant.getCopy(authId);
+            if (authIdCredentials == null) {
+                continue;
+            }
+            boolean removed = false;
+            for (final Iterator<Object> i = authIdCredentials.iterator(); i.hasNext();) {
                 final Object o = i.next();
-
-                if (!(o instanceof JsonObject)) {
-                    continue;
-                }
-
-                final JsonObject credentials = (JsonObject) o;
-                final String currentDeviceId = credentials.getString(Constants.JSON_FIELD_DEVICE_ID);
-                if (!deviceId.equals(currentDeviceId)) {
-                    continue;
+                if (o instanceof JsonObject && deviceId.equals(((JsonObject) o).getString(Constants.JSON_FIELD_DEVICE_ID))) {
+                    // remove device from credentials set
+                    i.remove();
+                    removed = true;
                 }
-
+            }
+            if (removed) {
                 verifyOverwriteEnabled(span);
-
-                // remove device from credentials set
-                i.remove();
-                this.dirty = true;
+                credentialsForTenant.put(authId, authIdCredentials);
+                journal.recordChange(tenantId, authId);
             }
         }
     }
@@ -689,7 +624,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         Objects.requireNonNull(deviceId);
         Objects.requireNonNull(resultHandler);
 
-        final ConcurrentMap<String, JsonArray> credentialsForTenant = credentials.get(tenantId);
+        final TenantCredentials credentialsForTenant = credentials.get(tenantId);
         if (credentialsForTenant == null) {
             TracingHelper.logError(span, "No credentials found for tenant");
             resultHandler.handle(Future.succeededFuture(OperationResult.ok(HttpURLConnection.HTTP_NOT_FOUND, null, Optional.empty(),
@@ -697,11 +632,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
             return;
         }
 
-        final JsonArray matchingCredentials = new JsonArray();
-        // iterate over all credentials per auth-id in order to find credentials matching the given device
-        for (final JsonArray credentialsForAuthId : credentialsForTenant.values()) {
-            findCredentialsForDevice(credentialsForAuthId, deviceId, matchingCredentials);
-        }
+        final List<JsonObject> matchingCredentials = credentialsForTenant.getCopiesForDevice(deviceId);
         if (matchingCredentials.isEmpty()) {
             TracingHelper.logError(span, "No credentials found for device");
             resultHandler.handle(Future.succeededFuture(OperationResult.ok(HttpURLConnection.HTTP_NOT_FOUND, null, Optional.empty(),
@@ -712,8 +643,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
         // convert credentials
 
         final List<CommonCredential> credentials = new ArrayList<>();
-        for (final Object credential : matchingCredentials) {
-            final JsonObject credentialsObject = (JsonObject) credential;
+        for (final JsonObject credentialsObject : matchingCredentials) {
             credentialsObject.remove(CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID);
             removePasswordDetailsFromCredential(credentialsObject);
             final CommonCredential cred = credentialsObject.mapTo(CommonCredential.class);
@@ -815,15 +745,10 @@ public final class FileBasedCredentialsService extends AbstractVerticle
      * Create or get credentials map for a single tenant.
      *
      * @param tenantId The tenant to get
-     * @return The map, never returns {@code null}.
+     * @return The credentials, never returns {@code null}.
      */
-    private ConcurrentMap<String, JsonArray> createOrGetCredentialsForTenant(final String tenantId) {
-        return credentials.computeIfAbsent(tenantId, id -> new ConcurrentHashMap<>());
-    }
-
-    private JsonArray createOrGetAuthIdCredentials(final String authId,
-            final ConcurrentMap<String, JsonArray> credentialsForTenant) {
-        return credentialsForTenant.computeIfAbsent(authId, id -> new JsonArray());
+    private TenantCredentials createOrGetCredentialsForTenant(final String tenantId) {
+        return credentials.computeIfAbsent(tenantId, id -> new TenantCredentials());
     }
 
     private CacheDirective getCacheDirective(final String type) {
@@ -845,7 +770,7 @@ public final class FileBasedCredentialsService extends AbstractVerticle
      * Removes all credentials from the registry.
      */
     public void clear() {
-        dirty = true;
+        journal.recordClear();
         credentials.clear();
     }
 
@@ -14,6 +14,7 @@ package org.eclipse.hono.deviceregistry.file;
 
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -22,7 +23,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.eclipse.hono.service.management.Id;
@@ -52,8 +52,6 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -81,8 +79,57 @@ public class FileBasedRegistrationService extends AbstractVerticle
 
     // <tenantId, <deviceId, registrationData>>
     private final ConcurrentMap<String, ConcurrentMap<String, Versioned<Device>>> identities = new ConcurrentHashMap<>();
+    private final RegistryJournal journal = new RegistryJournal(new RegistryJournal.Store() {
+
+        @Override
+        public void loadRecord(final String tenantId, final JsonObject record) {
+            final String deviceId = record.getString(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID);
+            if (deviceId != null) {
+                log.trace("loading device [tenant: {}, device-id: {}]", tenantId, deviceId);
+                getDevicesForTenant(tenantId).put(
+                        deviceId,
+                        new Versioned<>(mapFromStoredJson(record.getJsonObject(RegistrationConstants.FIELD_DATA))));
+            }
+        }
+
+        @Override
+        public Object getEntry(final String tenantId, final String deviceId) {
+            final Versioned<Device> device = getRegistrationData(tenantId, deviceId);
+            return device == null ? null : mapToStoredJson(device.getValue());
+        }
+
+        @Override
+        public void putEntry(final String tenantId, final String deviceId, final Object value) {
+            getDevicesForTenant(tenantId).put(deviceId, new Versioned<>(mapFromStoredJson((JsonObject) value)));
+        }
+
+        @Override
+        public void removeEntry(final String tenantId, final String deviceId) {
+            final ConcurrentMap<String, Versioned<Device>> devices = identities.get(tenantId);
+            if (devices != null) {
+                devices.remove(deviceId);
+            }
+        }
+
+        @Override
+        public Iterator<JsonObject> snapshotElements() {
+            return identities.entrySet().stream()
+                    .map(entry -> {
+                        final JsonArray devices = new JsonArray();
+                        for (final Entry<String, Versioned<Device>> deviceEntry : entry.getValue().entrySet()) {
+                            devices.add(
+                                    new JsonObject()
+                                            .put(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID, deviceEntry.getKey())
+                                            .put(RegistrationConstants.FIELD_DATA, mapToStoredJson(deviceEntry.getValue().getValue())));
+                        }
+                        return new JsonObject()
+                                .put(FIELD_TENANT, entry.getKey())
+                                .put(ARRAY_DEVICES, devices);
+                    })
+                    .iterator();
+        }
+    }, FIELD_TENANT, ARRAY_DEVICES);
     private boolean running = false;
-    private boolean dirty = false;
     private FileBasedRegistrationConfigProperties config;
 
     /**
@@ -164,10 +211,7 @@ public class FileBasedRegistrationService extends AbstractVerticle
             return Future.succeededFuture();
         }
 
-        final Promise<Buffer> readResult = Promise.promise();
-        vertx.fileSystem().readFile(getConfig().getFilename(), readResult);
-        return readResult.future()
-                .compose(this::addAll)
+        return journal.load(vertx, getConfig())
                 .recover(t -> {
                     log.debug("cannot load device identities from file [{}]: {}", getConfig().getFilename(),
                             t.getMessage());
@@ -192,55 +236,6 @@ public class FileBasedRegistrationService extends AbstractVerticle
 
     }
 
-    private Future<Void> addAll(final Buffer deviceIdentities) {
-
-        final Promise<Void> result = Promise.promise();
-        try {
-            int deviceCount = 0;
-            final JsonArray allObjects = deviceIdentities.toJsonArray();
-            for (final Object obj : allObjects) {
-                if (obj instanceof JsonObject) {
-                    deviceCount += addDevicesForTenant((JsonObject) obj);
-                }
-            }
-            log.info("successfully loaded {} device identities from file [{}]", deviceCount, getConfig().getFilename());
-            result.complete();
-        } catch (final DecodeException e) {
-            log.warn("cannot read malformed JSON from device identity file [{}]", getConfig().getFilename());
-            result.fail(e);
-        }
-        return result.future();
-    }
-
-    private int addDevicesForTenant(final JsonObject tenant) {
-
-        final String tenantId = tenant.getString(FIELD_TENANT);
-        if (tenantId == null) {
-            log.debug("Tenant field missing, skipping!");
-            return 0;
-        }
-
-        int count = 0;
-        log.debug("loading devices for tenant [{}]", tenantId);
-        final ConcurrentMap<String, Versioned<Device>> deviceMap = new ConcurrentHashMap<>();
-        for (final Object deviceObj : tenant.getJsonArray(ARRAY_DEVICES)) {
-            if (deviceObj instanceof JsonObject) {
-                final JsonObject entry = (JsonObject) deviceObj;
-                final String deviceId = entry.getString(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID);
-                if (deviceId != null) {
-                    log.trace("loading device [{}]", deviceId);
-                    final Device device = mapFromStoredJson(entry.getJsonObject(RegistrationConstants.FIELD_DATA));
-                    deviceMap.put(deviceId, new Versioned<>(device));
-                    count++;
-                }
-            }
-        }
-        identities.put(tenantId, deviceMap);
-
-        log.debug("Loaded {} devices for tenant {}", count, tenantId);
-        return count;
-    }
-
     private static Device mapFromStoredJson(final JsonObject json) {
 
         // unsupported field, but used in stored data as explanation
@@ -279,42 +274,17 @@ public class FileBasedRegistrationService extends AbstractVerticle
             return Future.succeededFuture();
         }
 
-        if (!dirty) {
+        if (!journal.hasPendingChanges()) {
             log.trace("registry does not need to be persisted");
             return Future.succeededFuture();
         }
 
-        return checkFileExists(true).compose(s -> {
-            final AtomicInteger idCount = new AtomicInteger();
-            final JsonArray tenants = new JsonArray();
-            for (final Entry<String, ConcurrentMap<String, Versioned<Device>>> entry : identities.entrySet()) {
-                final JsonArray devices = new JsonArray();
-                for (final Entry<String, Versioned<Device>> deviceEntry : entry.getValue().entrySet()) {
-                    devices.add(
-                            new JsonObject()
-                                    .put(RegistrationConstants.FIELD_PAYLOAD_DEVICE_ID, deviceEntry.getKey())
-                                    .put(RegistrationConstants.FIELD_DATA, mapToStoredJson(deviceEntry.getValue().getValue())));
-                    idCount.incrementAndGet();
-                }
-                tenants.add(
-                        new JsonObject()
-                                .put(FIELD_TENANT, entry.getKey())
-                                .put(ARRAY_DEVICES, devices));
-            }
-
-            final Promise<Void> writeHandler = Promise.promise();
-            vertx.fileSystem().writeFile(getConfig().getFilename(), Buffer.factory.buffer(tenants.encodePrettily()),
-                    writeHandler);
-            return writeHandler.future().map(ok -> {
-                dirty = false;
-                log.trace("successfully wrote {} device identities to file {}", idCount.get(),
-                        getConfig().getFilename());
-                return (Void) null;
-            }).otherwise(t -> {
-                log.warn("could not write device identities to file {}", getConfig().getFilename(), t);
-                return (Void) null;
-            });
-        });
+        return checkFileExists(true)
+                .compose(s -> journal.flush(vertx, getConfig()))
+                .otherwise(t -> {
+                    log.warn("could not write device identities to file {}", getConfig().getFilename(), t);
+                    return (Void) null;
+                });
 
     }
 
@@ -454,7 +424,7 @@ public class FileBasedRegistrationService extends AbstractVerticle
         }
 
         devices.remove(deviceId);
-        dirty = true;
+        journal.recordChange(tenantId, deviceId);
         return Result.from(HttpURLConnection.HTTP_NO_CONTENT);
 
     }
@@ -493,7 +463,7 @@ public class FileBasedRegistrationService extends AbstractVerticle
 
         final Versioned<Device> newDevice = new Versioned<>(device);
         if (devices.putIfAbsent(deviceIdValue, newDevice) == null) {
-            dirty = true;
+            journal.recordChange(tenantId, deviceIdValue);
             return OperationResult.ok(HttpURLConnection.HTTP_CREATED,
                     Id.of(deviceIdValue), Optional.empty(), Optional.of(newDevice.getVersion()));
         } else {
@@ -552,7 +522,7 @@ public class FileBasedRegistrationService extends AbstractVerticle
         }
 
         devices.put(deviceId, newDevice);
-        dirty = true;
+        journal.recordChange(tenantId, deviceId);
 
         return OperationResult.ok(HttpURLConnection.HTTP_NO_CONTENT, Id.of(deviceId), Optional.empty(),
                 Optional.ofNullable(newDevice.getVersion()));
@@ -574,7 +544,7 @@ public class FileBasedRegistrationService extends AbstractVerticle
      * Removes all devices from the registry.
      */
     public void clear() {
-        dirty = true;
+        journal.recordClear();
         identities.clear();
     }
 
@@ -15,6 +15,8 @@ package org.eclipse.hono.deviceregistry.file;
 
 import java.net.HttpURLConnection;
 import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -52,8 +54,6 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -72,8 +72,47 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
 
     // <ID, tenant>
     private final ConcurrentMap<String, Versioned<Tenant>> tenants = new ConcurrentHashMap<>();
+    // <canonical subject DN of trusted CA, tenant ID>
+    private final ConcurrentMap<String, String> tenantsByCa = new ConcurrentHashMap<>();
+    private final RegistryJournal journal = new RegistryJournal(new RegistryJournal.Store() {
+
+        @Override
+        public void loadRecord(final String tenantId, final JsonObject record) {
+            addTenant(record);
+        }
+
+        @Override
+        public Object getEntry(final String tenantId, final String key) {
+            final Versioned<Tenant> tenant = tenants.get(tenantId);
+            return tenant == null ? null : JsonObject.mapFrom(tenant.getValue());
+        }
+
+        @Override
+        public void putEntry(final String tenantId, final String key, final Object value) {
+            removeEntry(tenantId, key);
+            addTenant(((JsonObject) value).put(TenantConstants.FIELD_PAYLOAD_TENANT_ID, tenantId));
+        }
+
+        @Override
+        public void removeEntry(final String tenantId, final String key) {
+            final Versioned<Tenant> removedTenant = tenants.remove(tenantId);
+            if (removedTenant != null) {
+                removeFromCaIndex(tenantId, removedTenant.getValue());
+            }
+        }
+
+        @Override
+        public Iterator<JsonObject> snapshotElements() {
+            return tenants.entrySet().stream()
+                    .map(entry -> {
+                        final JsonObject json = JsonObject.mapFrom(entry.getValue().getValue());
+                        json.put(TenantConstants.FIELD_PAYLOAD_TENANT_ID, entry.getKey());
+                        return json;
+                    })
+                    .iterator();
+        }
+    }, TenantConstants.FIELD_PAYLOAD_TENANT_ID, null);
     private boolean running = false;
-    private boolean dirty = false;
     private FileBasedTenantsConfigProperties config;
 
     /**
@@ -141,11 +180,7 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
             log.info("Either filename is null or empty start is set, won't load any tenants");
             return Future.succeededFuture();
         } else {
-            final Promise<Buffer> readResult = Promise.promise();
-            vertx.fileSystem().readFile(getConfig().getFilename(), readResult);
-            return readResult.future().compose(buffer -> {
-                return addAll(buffer);
-            }).recover(t -> {
+            return journal.load(vertx, getConfig()).recover(t -> {
                 log.debug("cannot load tenants from file [{}]: {}", getConfig().getFilename(), t.getMessage());
                 return Future.succeededFuture();
             });
@@ -168,29 +203,6 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
         return result.future();
     }
 
-    private Future<Void> addAll(final Buffer tenantsBuffer) {
-
-        final Promise<Void> result = Promise.promise();
-        try {
-            if (tenantsBuffer.length() > 0) {
-                int tenantCount = 0;
-                final JsonArray allObjects = tenantsBuffer.toJsonArray();
-                for (final Object obj : allObjects) {
-                    if (JsonObject.class.isInstance(obj)) {
-                        tenantCount++;
-                        addTenant((JsonObject) obj);
-                    }
-                }
-                log.info("successfully loaded {} tenants from file [{}]", tenantCount, getConfig().getFilename());
-            }
-            result.complete();
-        } catch (final DecodeException e) {
-            log.warn("cannot read malformed JSON from tenants file [{}]", getConfig().getFilename());
-            result.fail(e);
-        }
-        return result.future();
-    }
-
     private void addTenant(final JsonObject tenantToAdd) {
 
         try {
@@ -200,8 +212,17 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
             }
             final String tenantId = tenantToAdd.getString(TenantConstants.FIELD_PAYLOAD_TENANT_ID);
             final Versioned<Tenant> tenant = new Versioned<>(tenantToAdd.mapTo(Tenant.class));
+            final Entry<String, Versioned<Tenant>> conflictingTenant = getTenantSharingCa(tenantId, tenant.getValue());
+            if (conflictingTenant != null) {
+                // the CA index requires each subject DN to belong to a single tenant only,
+                // the same constraint that is enforced when adding or updating tenants
+                log.warn("cannot load tenant [{}], trusted CA is already used by tenant [{}]",
+                        tenantId, conflictingTenant.getKey());
+                return;
+            }
             log.debug("loading tenant [{}]", tenantId);
             tenants.put(tenantId, tenant);
+            addToCaIndex(tenantId, tenant.getValue());
         } catch (final IllegalArgumentException | ClassCastException e) {
             log.warn("cannot deserialize tenant", e);
         }
@@ -226,29 +247,13 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
 
         if (!getConfig().isSaveToFile()) {
             return Future.succeededFuture();
-        } else if (dirty) {
-            return checkFileExists(true).compose(s -> {
-
-                final JsonArray tenantsJson = new JsonArray();
-                tenants.forEach((tenantId, versionedTenant) -> {
-                    final JsonObject json = JsonObject.mapFrom(versionedTenant.getValue());
-                    json.put(TenantConstants.FIELD_PAYLOAD_TENANT_ID, tenantId);
-                    tenantsJson.add(json);
-                });
-
-                final Promise<Void> writeHandler = Promise.promise();
-                vertx.fileSystem().writeFile(getConfig().getFilename(),
-                        Buffer.factory.buffer(tenantsJson.encodePrettily()), writeHandler);
-                return writeHandler.future().map(ok -> {
-                    dirty = false;
-                    log.trace("successfully wrote {} tenants to file {}", tenantsJson.size(),
-                            getConfig().getFilename());
-                    return (Void) null;
-                }).otherwise(t -> {
-                    log.warn("could not write tenants to file {}", getConfig().getFilename(), t);
-                    return (Void) null;
-                });
-            });
+        } else if (journal.hasPendingChanges()) {
+            return checkFileExists(true)
+                    .compose(s -> journal.flush(vertx, getConfig()))
+                    .otherwise(t -> {
+                        log.warn("could not write tenants to file {}", getConfig().getFilename(), t);
+                        return (Void) null;
+                    });
         } else {
             log.trace("tenants registry does not need to be persisted");
             return Future.succeededFuture();
@@ -363,8 +368,11 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
             if (tenants.containsKey(tenantId)) {
                 final String actualVersion = tenants.get(tenantId).getVersion();
                 if (checkResourceVersion(resourceVersion, actualVersion)) {
-                    tenants.remove(tenantId);
-                    dirty = true;
+                    final Versioned<Tenant> removedTenant = tenants.remove(tenantId);
+                    if (removedTenant != null) {
+                        removeFromCaIndex(tenantId, removedTenant.getValue());
+                    }
+                    journal.recordChange(tenantId, null);
                     return Result.from(HttpURLConnection.HTTP_NO_CONTENT);
                 } else {
                     TracingHelper.logError(span, "Resource Version mismatch.");
@@ -423,7 +431,8 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
             } else {
                 final Versioned<Tenant> tenant = new Versioned<>(tenantSpec);
                 tenants.put(tenantId, tenant);
-                dirty = true;
+                addToCaIndex(tenantId, tenantSpec);
+                journal.recordChange(tenantId, null);
                 return OperationResult.ok(HttpURLConnection.HTTP_CREATED,
                         Id.of(tenantId), Optional.empty(), Optional.of(tenant.getVersion()));
             }
@@ -476,24 +485,21 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
         if (getConfig().isModificationEnabled()) {
             if (tenants.containsKey(tenantId)) {
                 try {
-                    final Entry<String, Versioned<Tenant>> conflictingTenant = tenantSpec
-                            .getTrustedCertificateAuthoritySubjectDNs()
-                            .stream()
-                            .map(subjectDn -> getByCa(subjectDn))
-                            .filter(entry -> entry != null)
-                            .findFirst()
-                            .orElse(null);
-
-                    if (conflictingTenant != null && !tenantId.equals(conflictingTenant.getKey())) {
+                    final Entry<String, Versioned<Tenant>> conflictingTenant = getTenantSharingCa(tenantId, tenantSpec);
+
+                    if (conflictingTenant != null) {
                         // we are trying to use the same CA as another tenant
                         TracingHelper.logError(span, "Conflict : CA already used by an existing tenant.");
                         return OperationResult.empty(HttpURLConnection.HTTP_CONFLICT);
                     } else {
-                        final Versioned<Tenant> updatedTenant = tenants.get(tenantId).update(expectedResourceVersion, () -> tenantSpec);
+                        final Versioned<Tenant> existingTenant = tenants.get(tenantId);
+                        final Versioned<Tenant> updatedTenant = existingTenant.update(expectedResourceVersion, () -> tenantSpec);
                         if ( updatedTenant != null ) {
 
                             tenants.put(tenantId, updatedTenant);
-                            dirty = true;
+                            removeFromCaIndex(tenantId, existingTenant.getValue());
+                            addToCaIndex(tenantId, tenantSpec);
+                            journal.recordChange(tenantId, null);
                             return OperationResult.ok(HttpURLConnection.HTTP_NO_CONTENT,
                                     null, Optional.empty(),
                                     Optional.of(updatedTenant.getVersion()));
@@ -578,13 +584,51 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
         if (subjectDn == null) {
             return null;
         } else {
-            return tenants.entrySet().stream()
-                    .filter(entry -> entry.getValue().getValue().hasTrustedCertificateAuthoritySubjectDN(subjectDn))
-                    .findFirst()
-                    .orElse(null);
+            final String tenantId = tenantsByCa.get(subjectDn.getName(X500Principal.CANONICAL));
+            if (tenantId == null) {
+                return null;
+            }
+            final Versioned<Tenant> tenant = tenants.get(tenantId);
+            if (tenant == null || !tenant.getValue().hasTrustedCertificateAuthoritySubjectDN(subjectDn)) {
+                return null;
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(tenantId, tenant);
         }
     }
 
+    /**
+     * Gets another tenant that uses any of the trusted certificate authorities of a tenant.
+     *
+     * @return The other tenant or {@code null} if none of the tenant's trusted CAs is used by another tenant.
+     */
+    private Entry<String, Versioned<Tenant>> getTenantSharingCa(final String tenantId, final Tenant tenant) {
+        return tenant.getTrustedCertificateAuthoritySubjectDNs().stream()
+                .map(this::getByCa)
+                .filter(entry -> entry != null && !tenantId.equals(entry.getKey()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Adds the subject DNs of a tenant's trusted certificate authorities to the index.
+     * <p>
+     * The subject DNs are indexed by their canonical form, which is also
+     * used by {@link X500Principal#equals(Object)}. A subject DN must not be
+     * used by more than one tenant, which is verified before tenants are added,
+     * updated or loaded.
+     */
+    private void addToCaIndex(final String tenantId, final Tenant tenant) {
+        tenant.getTrustedCertificateAuthoritySubjectDNs().stream()
+            .filter(Objects::nonNull)
+            .forEach(subjectDn -> tenantsByCa.put(subjectDn.getName(X500Principal.CANONICAL), tenantId));
+    }
+
+    private void removeFromCaIndex(final String tenantId, final Tenant tenant) {
+        tenant.getTrustedCertificateAuthoritySubjectDNs().stream()
+            .filter(Objects::nonNull)
+            .forEach(subjectDn -> tenantsByCa.remove(subjectDn.getName(X500Principal.CANONICAL), tenantId));
+    }
+
     private CacheDirective getCacheDirective() {
         if (getConfig().getCacheMaxAge() > 0) {
             return CacheDirective.maxAgeDirective(getConfig().getCacheMaxAge());
@@ -598,7 +642,8 @@ public final class FileBasedTenantService extends AbstractVerticle implements Te
      */
     public void clear() {
         tenants.clear();
-        dirty = true;
+        tenantsByCa.clear();
+        journal.recordClear();
     }
 
     @Override
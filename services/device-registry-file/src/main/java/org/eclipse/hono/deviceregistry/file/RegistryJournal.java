@@ -0,0 +1,687 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceregistry.file;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.JsonEvent;
+import io.vertx.core.parsetools.JsonParser;
+
+/**
+ * An append-only journal of the changes made to the content of a file based registry.
+ * <p>
+ * The content of the registry is persisted to a snapshot file. Changes that have been made
+ * after the snapshot has been written are appended to a journal file which is located next to the
+ * snapshot file and which contains one compact JSON object per line. Each record contains the
+ * current value of a changed entry or indicates that the entry has been removed, so replaying the
+ * records on top of the snapshot is idempotent.
+ * <p>
+ * Once the journal contains more than the configured maximum number of records, it is compacted by
+ * writing a new snapshot. The first line of the journal contains the checksum of the snapshot that
+ * the journal is based on. A journal that has not been written for the snapshot being loaded is
+ * ignored.
+ * <p>
+ * The snapshot file is read using a streaming parser which passes each record to the store
+ * as soon as it has been parsed, so the memory required for loading the registry does not
+ * depend on the size of the file. A new snapshot is written to a temporary file which is
+ * then moved to the snapshot file, so that a failure while writing the snapshot does not
+ * leave a partially written snapshot behind. The elements of the snapshot are retrieved
+ * from the store and written in chunks only while the file's write queue is not full, so
+ * neither the whole encoded snapshot is held in memory nor is the event loop blocked
+ * for encoding all of the registry's content at once.
+ * <p>
+ * Instances are not thread safe and are supposed to be used on the event loop thread of the
+ * verticle that owns the registry only.
+ */
+final class RegistryJournal {
+
+    /**
+     * The suffix that is appended to the name of the snapshot file in order to
+     * determine the name of the journal file.
+     */
+    static final String FILE_SUFFIX = ".journal";
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_OPERATION = "op";
+    private static final String FIELD_SNAPSHOT_CHECKSUM = "snapshot-checksum";
+    private static final String FIELD_TENANT = "tenant";
+    private static final String FIELD_VALUE = "value";
+    private static final String OPERATION_PUT = "put";
+    private static final String OPERATION_REMOVE = "remove";
+
+    /**
+     * The number of bytes of the snapshot that are collected before they are written to the file.
+     */
+    static final int SNAPSHOT_CHUNK_SIZE = 64 * 1024;
+    /**
+     * The number of bytes that may be queued for being written to the snapshot file
+     * before the retrieval of elements from the store is paused.
+     */
+    static final int SNAPSHOT_WRITE_QUEUE_MAX_SIZE = 4 * SNAPSHOT_CHUNK_SIZE;
+
+    private static final int PROGRESS_REPORT_INTERVAL = 100_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryJournal.class);
+
+    private final Store store;
+    private final String tenantField;
+    private final String recordsField;
+    // <tenantId, keys of changed entries>
+    private final Map<String, Set<String>> pendingChanges = new LinkedHashMap<>();
+    private Future<Void> lastFlush = Future.succeededFuture();
+    private Long snapshotChecksum;
+    private boolean snapshotRequired = false;
+    private boolean journalStarted = false;
+    private int records = 0;
+
+    /**
+     * Creates a new journal for a registry.
+     * <p>
+     * The snapshot file contains a JSON array. If records field is {@code null}, each element
+     * of the array is a record which contains the identifier of the tenant that it belongs to
+     * in the tenant field. Otherwise, each element of the array contains the tenant identifier
+     * in the tenant field and the tenant's records in a JSON array in the records field.
+     *
+     * @param store The registry's content.
+     * @param tenantField The name of the field containing the tenant identifier.
+     * @param recordsField The name of the field containing the records of a tenant or
+     *                     {@code null} if the snapshot file contains records only.
+     * @throws NullPointerException if store or tenant field are {@code null}.
+     */
+    RegistryJournal(final Store store, final String tenantField, final String recordsField) {
+        this.store = Objects.requireNonNull(store);
+        this.tenantField = Objects.requireNonNull(tenantField);
+        this.recordsField = recordsField;
+    }
+
+    /**
+     * Records a change of an entry of the registry.
+     * <p>
+     * The entry's value is only read from the store when the change is flushed,
+     * so multiple changes of the same entry result in a single record only.
+     *
+     * @param tenantId The tenant that the entry belongs to.
+     * @param key The key of the entry within the tenant or {@code null} if the entry
+     *            represents the tenant itself.
+     * @throws NullPointerException if tenant ID is {@code null}.
+     */
+    void recordChange(final String tenantId, final String key) {
+        Objects.requireNonNull(tenantId);
+        pendingChanges.computeIfAbsent(tenantId, id -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Records the removal of all entries of the registry.
+     * <p>
+     * The next flush will write a new snapshot.
+     */
+    void recordClear() {
+        pendingChanges.clear();
+        snapshotRequired = true;
+    }
+
+    /**
+     * Checks if there are changes that have not been flushed yet.
+     *
+     * @return {@code true} if there are pending changes.
+     */
+    boolean hasPendingChanges() {
+        return snapshotRequired || !pendingChanges.isEmpty();
+    }
+
+    /**
+     * Loads the content of the registry from the snapshot file and replays the journal on top of it.
+     * <p>
+     * The records contained in the snapshot file are passed to the store's
+     * {@link Store#loadRecord(String, JsonObject)} method.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param config The registry's configuration properties.
+     * @return A future indicating the outcome of the operation.
+     *         <p>
+     *         The future will be failed if the snapshot file cannot be read or does not contain
+     *         well formed JSON. Note that the records that have been read up to that point will
+     *         have been passed to the store nevertheless. The journal is only replayed if it
+     *         belongs to the loaded snapshot. The next flush will write a new snapshot if the
+     *         journal contains malformed records.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    Future<Void> load(final Vertx vertx, final AbstractFileBasedRegistryConfigProperties config) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(config);
+
+        final Promise<AsyncFile> openResult = Promise.promise();
+        vertx.fileSystem().open(
+                config.getFilename(),
+                new OpenOptions().setRead(true).setWrite(false).setCreate(false),
+                openResult);
+        return openResult.future()
+                .compose(file -> readSnapshot(file, config.getFilename()))
+                .compose(checksum -> {
+                    snapshotChecksum = checksum;
+                    snapshotRequired = false;
+                    journalStarted = false;
+                    records = 0;
+                    final String journalFilename = getJournalFilename(config);
+                    if (!vertx.fileSystem().existsBlocking(journalFilename)) {
+                        return Future.succeededFuture();
+                    }
+                    final Promise<Buffer> journalReadResult = Promise.promise();
+                    vertx.fileSystem().readFile(journalFilename, journalReadResult);
+                    return journalReadResult.future().map(journal -> {
+                        replay(journal, journalFilename);
+                        return (Void) null;
+                    });
+                });
+    }
+
+    /**
+     * Reads the records from a snapshot file.
+     *
+     * @return A future indicating the outcome of the operation. The future will be succeeded
+     *         with the checksum of the file's content.
+     */
+    private Future<Long> readSnapshot(final AsyncFile file, final String filename) {
+
+        final Promise<Long> result = Promise.promise();
+        final CRC32 crc = new CRC32();
+        final JsonParser parser = JsonParser.newParser();
+        final SnapshotReader reader = new SnapshotReader(parser, filename);
+
+        parser.handler(event -> {
+            if (!result.future().isComplete()) {
+                try {
+                    reader.handle(event);
+                } catch (final RuntimeException e) {
+                    // the snapshot contains a malformed record
+                    result.fail(e);
+                }
+            }
+        });
+        parser.exceptionHandler(result::tryFail);
+        parser.endHandler(v -> {
+            if (!result.future().isComplete()) {
+                LOG.info("successfully loaded {} records from file [{}]", reader.records, filename);
+                result.complete(crc.getValue());
+            }
+        });
+        file.exceptionHandler(result::tryFail);
+        file.endHandler(v -> {
+            file.close();
+            parser.end();
+        });
+        file.handler(buffer -> {
+            if (!result.future().isComplete()) {
+                crc.update(buffer.getByteBuf().nioBuffer());
+                parser.handle(buffer);
+            }
+        });
+        return result.future();
+    }
+
+    private void replay(final Buffer journal, final String journalFilename) {
+
+        int start = 0;
+        int lineNo = 0;
+        while (start < journal.length()) {
+            int end = start;
+            while (end < journal.length() && journal.getByte(end) != '\n') {
+                end++;
+            }
+            final String line = journal.getString(start, end, StandardCharsets.UTF_8.name());
+            start = end + 1;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                final JsonObject record = new JsonObject(line);
+                if (lineNo++ == 0) {
+                    if (!Objects.equals(snapshotChecksum, record.getLong(FIELD_SNAPSHOT_CHECKSUM))) {
+                        LOG.info("ignoring journal [{}] which has not been written for the current snapshot", journalFilename);
+                        return;
+                    }
+                    journalStarted = true;
+                } else {
+                    apply(record);
+                    records++;
+                }
+            } catch (final DecodeException | ClassCastException e) {
+                // most likely the last write has not been completed
+                LOG.warn("stopping replay of journal [{}] at malformed record {}", journalFilename, lineNo);
+                snapshotRequired = true;
+                break;
+            }
+        }
+        LOG.info("successfully replayed {} records from journal [{}]", records, journalFilename);
+    }
+
+    private void apply(final JsonObject record) {
+
+        final String tenantId = record.getString(FIELD_TENANT);
+        final String key = record.getString(FIELD_KEY);
+        if (tenantId == null) {
+            LOG.debug("skipping journal record without tenant");
+        } else if (OPERATION_PUT.equals(record.getString(FIELD_OPERATION))) {
+            store.putEntry(tenantId, key, record.getValue(FIELD_VALUE));
+        } else if (OPERATION_REMOVE.equals(record.getString(FIELD_OPERATION))) {
+            store.removeEntry(tenantId, key);
+        } else {
+            LOG.debug("skipping journal record with unsupported operation");
+        }
+    }
+
+    /**
+     * Persists the pending changes.
+     * <p>
+     * The changes are appended to the journal unless the journal would then contain more than
+     * the configured maximum number of records, in which case a new snapshot is written instead.
+     * A new snapshot is also written if the registry has been cleared or if no snapshot has been
+     * loaded or written before.
+     *
+     * @param vertx The vert.x instance to use for accessing the file system.
+     * @param config The registry's configuration properties.
+     * @return A future indicating the outcome of the operation.
+     * @throws NullPointerException if any of the parameters are {@code null}.
+     */
+    Future<Void> flush(final Vertx vertx, final AbstractFileBasedRegistryConfigProperties config) {
+
+        Objects.requireNonNull(vertx);
+        Objects.requireNonNull(config);
+
+        // make sure that flushes do not overlap
+        final Future<Void> result = lastFlush.compose(ok -> doFlush(vertx, config));
+        lastFlush = result.recover(t -> Future.succeededFuture());
+        return result;
+    }
+
+    private Future<Void> doFlush(final Vertx vertx, final AbstractFileBasedRegistryConfigProperties config) {
+
+        if (!hasPendingChanges()) {
+            return Future.succeededFuture();
+        }
+        int pendingCount = 0;
+        for (final Set<String> keys : pendingChanges.values()) {
+            pendingCount += keys.size();
+        }
+        if (snapshotRequired || snapshotChecksum == null || records + pendingCount > config.getMaxJournalEntries()) {
+            return writeSnapshot(vertx, config);
+        } else {
+            return appendToJournal(vertx, config);
+        }
+    }
+
+    private Future<Void> writeSnapshot(final Vertx vertx, final AbstractFileBasedRegistryConfigProperties config) {
+
+        pendingChanges.clear();
+        snapshotRequired = false;
+
+        final String filename = config.getFilename();
+        final String tmpFilename = String.format("%s.%s.tmp", filename, UUID.randomUUID());
+        final Promise<AsyncFile> openResult = Promise.promise();
+        vertx.fileSystem().open(
+                tmpFilename,
+                new OpenOptions().setWrite(true).setCreate(true).setTruncateExisting(true),
+                openResult);
+        return openResult.future()
+                .compose(file -> new SnapshotWriter(file, store.snapshotElements()).write()
+                        .recover(t -> {
+                            file.close();
+                            return Future.failedFuture(t);
+                        })
+                        .compose(checksum -> {
+                            final Promise<Void> closeResult = Promise.promise();
+                            file.close(closeResult);
+                            return closeResult.future().map(ok -> checksum);
+                        }))
+                .compose(checksum -> {
+                    final Promise<Void> moveResult = Promise.promise();
+                    vertx.fileSystem().move(
+                            tmpFilename,
+                            filename,
+                            new CopyOptions().setReplaceExisting(true).setAtomicMove(true),
+                            moveResult);
+                    return moveResult.future().map(ok -> checksum);
+                })
+                .map(checksum -> {
+                    snapshotChecksum = checksum;
+                    // the existing journal belongs to the previous snapshot
+                    journalStarted = false;
+                    records = 0;
+                    LOG.trace("successfully wrote snapshot to file [{}]", filename);
+                    return (Void) null;
+                })
+                .recover(t -> {
+                    snapshotRequired = true;
+                    vertx.fileSystem().delete(tmpFilename, deleteAttempt -> {});
+                    return Future.failedFuture(t);
+                });
+    }
+
+    private Future<Void> appendToJournal(final Vertx vertx, final AbstractFileBasedRegistryConfigProperties config) {
+
+        final String journalFilename = getJournalFilename(config);
+        final Buffer buffer = Buffer.buffer();
+        if (!journalStarted) {
+            appendLine(buffer, new JsonObject().put(FIELD_SNAPSHOT_CHECKSUM, snapshotChecksum));
+        }
+        int count = 0;
+        for (final Map.Entry<String, Set<String>> tenantChanges : pendingChanges.entrySet()) {
+            for (final String key : tenantChanges.getValue()) {
+                final Object value = store.getEntry(tenantChanges.getKey(), key);
+                final JsonObject record = new JsonObject()
+                        .put(FIELD_OPERATION, value == null ? OPERATION_REMOVE : OPERATION_PUT)
+                        .put(FIELD_TENANT, tenantChanges.getKey())
+                        .put(FIELD_KEY, key);
+                if (value != null) {
+                    record.put(FIELD_VALUE, value);
+                }
+                appendLine(buffer, record);
+                count++;
+            }
+        }
+        pendingChanges.clear();
+        final int appendedRecords = count;
+
+        final Future<Void> writeResult;
+        if (journalStarted) {
+            final Promise<AsyncFile> openResult = Promise.promise();
+            vertx.fileSystem().open(journalFilename, new OpenOptions().setAppend(true), openResult);
+            writeResult = openResult.future().compose(file -> {
+                final Promise<Void> closeResult = Promise.promise();
+                file.exceptionHandler(closeResult::tryFail);
+                file.write(buffer);
+                file.close(closeResult);
+                return closeResult.future();
+            });
+        } else {
+            // start a new journal for the current snapshot
+            final Promise<Void> writeFileResult = Promise.promise();
+            vertx.fileSystem().writeFile(journalFilename, buffer, writeFileResult);
+            writeResult = writeFileResult.future();
+        }
+
+        return writeResult
+                .map(ok -> {
+                    journalStarted = true;
+                    records += appendedRecords;
+                    LOG.trace("successfully appended {} records to journal [{}]", appendedRecords, journalFilename);
+                    return ok;
+                })
+                .recover(t -> {
+                    // the journal may contain a partially written record
+                    snapshotRequired = true;
+                    return Future.failedFuture(t);
+                });
+    }
+
+    private static void appendLine(final Buffer buffer, final JsonObject record) {
+        buffer.appendString(record.encode()).appendByte((byte) '\n');
+    }
+
+    private static String getJournalFilename(final AbstractFileBasedRegistryConfigProperties config) {
+        return config.getFilename() + FILE_SUFFIX;
+    }
+
+    /**
+     * A handler for the events emitted by the parser reading a snapshot file.
+     * <p>
+     * The records of a tenant are emitted as soon as the tenant identifier is known.
+     * The parser is switched to <em>object value mode</em> while reading the array
+     * containing the records, so that each record is emitted as a single JSON object.
+     */
+    private final class SnapshotReader implements Handler<JsonEvent> {
+
+        private final JsonParser parser;
+        private final String filename;
+        private final List<JsonObject> bufferedRecords = new ArrayList<>();
+        private int depth = 0;
+        private int recordsDepth = -1;
+        private String tenantId;
+        private long records = 0;
+
+        SnapshotReader(final JsonParser parser, final String filename) {
+            this.parser = parser;
+            this.filename = filename;
+            if (recordsField == null) {
+                // each element of the top level array is a record
+                parser.objectValueMode();
+                recordsDepth = 1;
+            }
+        }
+
+        @Override
+        public void handle(final JsonEvent event) {
+
+            switch (event.type()) {
+            case START_ARRAY:
+                depth++;
+                if (depth == 3 && recordsField != null && recordsField.equals(event.fieldName())) {
+                    recordsDepth = depth;
+                    parser.objectValueMode();
+                }
+                break;
+            case END_ARRAY:
+                if (depth == recordsDepth && recordsField != null) {
+                    recordsDepth = -1;
+                    parser.objectEventMode();
+                }
+                depth--;
+                break;
+            case START_OBJECT:
+                depth++;
+                if (depth == 2) {
+                    tenantId = null;
+                    bufferedRecords.clear();
+                }
+                break;
+            case END_OBJECT:
+                if (depth == 2 && tenantId == null && !bufferedRecords.isEmpty()) {
+                    LOG.debug("skipping {} records without tenant", bufferedRecords.size());
+                }
+                depth--;
+                break;
+            case VALUE:
+                if (depth == 0) {
+                    throw new IllegalArgumentException("file does not contain a JSON array");
+                } else if (depth == recordsDepth) {
+                    if (event.value() instanceof JsonObject) {
+                        handleRecord(event.objectValue());
+                    }
+                } else if (depth == 2 && tenantField.equals(event.fieldName())) {
+                    tenantId = event.stringValue();
+                    bufferedRecords.forEach(this::loadRecord);
+                    bufferedRecords.clear();
+                }
+                break;
+            default:
+                // nothing to do
+            }
+        }
+
+        private void handleRecord(final JsonObject record) {
+            if (recordsField == null) {
+                tenantId = record.getString(tenantField);
+                loadRecord(record);
+            } else if (tenantId == null) {
+                // the records appear before the tenant identifier
+                bufferedRecords.add(record);
+            } else {
+                loadRecord(record);
+            }
+        }
+
+        private void loadRecord(final JsonObject record) {
+            if (tenantId == null) {
+                LOG.debug("skipping record without tenant");
+                return;
+            }
+            store.loadRecord(tenantId, record);
+            records++;
+            if (records % PROGRESS_REPORT_INTERVAL == 0) {
+                LOG.info("loaded {} records from file [{}] so far", records, filename);
+            }
+        }
+    }
+
+    /**
+     * A writer of the elements of the JSON array that represents the registry's
+     * content to a snapshot file.
+     * <p>
+     * The elements are encoded into chunks. The next element is only retrieved from
+     * the store while the file's write queue is not full. Otherwise, writing is resumed
+     * once the queue has been drained, so that the snapshot is never held in memory as
+     * a whole and the event loop is released in between.
+     */
+    private static final class SnapshotWriter {
+
+        private final AsyncFile file;
+        private final Iterator<JsonObject> elements;
+        private final CRC32 crc = new CRC32();
+        private final Promise<Long> result = Promise.promise();
+        private Buffer chunk = Buffer.buffer(SNAPSHOT_CHUNK_SIZE).appendByte((byte) '[');
+        private boolean empty = true;
+
+        SnapshotWriter(final AsyncFile file, final Iterator<JsonObject> elements) {
+            this.file = file;
+            this.elements = elements;
+        }
+
+        /**
+         * Writes all elements to the file.
+         *
+         * @return A future indicating the outcome of the operation. The future will be
+         *         succeeded with the checksum of the snapshot's content once all of the
+         *         content has been passed to the file.
+         */
+        Future<Long> write() {
+            file.exceptionHandler(result::tryFail);
+            file.setWriteQueueMaxSize(SNAPSHOT_WRITE_QUEUE_MAX_SIZE);
+            writeElements();
+            return result.future();
+        }
+
+        private void writeElements() {
+            try {
+                while (!result.future().isComplete()) {
+                    if (file.writeQueueFull()) {
+                        file.drainHandler(drained -> writeElements());
+                        return;
+                    } else if (elements.hasNext()) {
+                        if (!empty) {
+                            chunk.appendByte((byte) ',');
+                        }
+                        empty = false;
+                        chunk.appendString(elements.next().encode());
+                        if (chunk.length() >= SNAPSHOT_CHUNK_SIZE) {
+                            writeChunk();
+                        }
+                    } else {
+                        chunk.appendByte((byte) ']');
+                        writeChunk();
+                        result.tryComplete(crc.getValue());
+                    }
+                }
+            } catch (final RuntimeException e) {
+                result.tryFail(e);
+            }
+        }
+
+        private void writeChunk() {
+            crc.update(chunk.getByteBuf().nioBuffer());
+            file.write(chunk);
+            chunk = Buffer.buffer(SNAPSHOT_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * The content of a file based registry.
+     * <p>
+     * The entries of the registry are identified by the tenant that they belong to and a key
+     * within the tenant. Values are represented by the objects supported by {@link JsonObject}.
+     */
+    interface Store {
+
+        /**
+         * Adds a record read from the snapshot file.
+         *
+         * @param tenantId The tenant that the record belongs to.
+         * @param record The record.
+         * @throws RuntimeException if the record is malformed.
+         */
+        void loadRecord(String tenantId, JsonObject record);
+
+        /**
+         * Gets the current value of an entry.
+         *
+         * @param tenantId The tenant that the entry belongs to.
+         * @param key The key of the entry.
+         * @return The value or {@code null} if no such entry exists.
+         */
+        Object getEntry(String tenantId, String key);
+
+        /**
+         * Adds or replaces an entry.
+         *
+         * @param tenantId The tenant that the entry belongs to.
+         * @param key The key of the entry.
+         * @param value The value as returned by {@link #getEntry(String, String)}.
+         */
+        void putEntry(String tenantId, String key, Object value);
+
+        /**
+         * Removes an entry.
+         *
+         * @param tenantId The tenant that the entry belongs to.
+         * @param key The key of the entry.
+         */
+        void removeEntry(String tenantId, String key);
+
+        /**
+         * Gets the elements of the JSON array that represents the
+         * registry's content in the snapshot file.
+         * <p>
+         * The elements are retrieved over the course of multiple runs of the event loop.
+         * The iterator therefore needs to tolerate changes of the registry's content
+         * being made in between. Such changes are recorded in the journal as well.
+         * Elements should be created lazily, when they are retrieved.
+         *
+         * @return The elements.
+         */
+        Iterator<JsonObject> snapshotElements();
+    }
+}
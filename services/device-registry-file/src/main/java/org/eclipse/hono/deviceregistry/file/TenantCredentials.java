@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceregistry.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.eclipse.hono.util.CredentialsConstants;
+import org.eclipse.hono.util.RegistryManagementConstants;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The credentials of a single tenant.
+ * <p>
+ * The credentials are stored as JSON arrays per authentication identifier, which is
+ * the representation used in the registry file. In addition, the credentials are indexed
+ * by type and authentication identifier as well as by device identifier, so that neither
+ * looking up credentials for authenticating a device nor managing the credentials of
+ * a device requires iterating over all credentials of the tenant.
+ * <p>
+ * The credentials of an authentication identifier are always replaced as a whole and
+ * the indexes are updated in the same step. Instances are thread safe.
+ */
+final class TenantCredentials {
+
+    // <authId, credentialsData[]>
+    private final Map<String, JsonArray> credentials = new HashMap<>();
+    // <authId, <type, records[]>>
+    private final Map<String, Map<String, List<CredentialsRecord>>> recordsByAuthId = new HashMap<>();
+    // <deviceId, authIds>
+    private final Map<String, Set<String>> authIdsByDevice = new HashMap<>();
+
+    /**
+     * Checks if this tenant has any credentials.
+     *
+     * @return {@code true} if there are no credentials.
+     */
+    synchronized boolean isEmpty() {
+        return credentials.isEmpty();
+    }
+
+    /**
+     * Checks if credentials exist for an authentication identifier.
+     *
+     * @param authId The authentication identifier.
+     * @return {@code true} if credentials of any type exist.
+     */
+    synchronized boolean containsAuthId(final String authId) {
+        return credentials.containsKey(authId);
+    }
+
+    /**
+     * Gets a copy of the credentials of an authentication identifier.
+     *
+     * @param authId The authentication identifier.
+     * @return The credentials or {@code null} if no credentials exist.
+     */
+    synchronized JsonArray getCopy(final String authId) {
+        final JsonArray authIdCredentials = credentials.get(authId);
+        return authIdCredentials == null ? null : authIdCredentials.copy();
+    }
+
+    /**
+     * Gets the records for an authentication identifier and type.
+     *
+     * @param type The type of credentials.
+     * @param authId The authentication identifier.
+     * @return The records in the order in which they have been added (may be empty).
+     */
+    synchronized List<CredentialsRecord> getRecords(final String type, final String authId) {
+        final Map<String, List<CredentialsRecord>> recordsByType = recordsByAuthId.get(authId);
+        if (recordsByType == null) {
+            return Collections.emptyList();
+        }
+        return recordsByType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * Gets the authentication identifiers of the credentials of a device.
+     *
+     * @param deviceId The device identifier.
+     * @return A copy of the authentication identifiers (may be empty).
+     */
+    synchronized Set<String> getAuthIds(final String deviceId) {
+        final Set<String> authIds = authIdsByDevice.get(deviceId);
+        return authIds == null ? Collections.emptySet() : new LinkedHashSet<>(authIds);
+    }
+
+    /**
+     * Gets copies of the credentials of a device.
+     *
+     * @param deviceId The device identifier.
+     * @return The credentials (may be empty).
+     */
+    synchronized List<JsonObject> getCopiesForDevice(final String deviceId) {
+        final List<JsonObject> result = new ArrayList<>();
+        for (final String authId : authIdsByDevice.getOrDefault(deviceId, Collections.emptySet())) {
+            for (final Object obj : credentials.get(authId)) {
+                if (obj instanceof JsonObject
+                        && deviceId.equals(((JsonObject) obj).getValue(CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID))) {
+                    result.add(((JsonObject) obj).copy());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a single credentials object read from the registry file.
+     *
+     * @param authId The authentication identifier.
+     * @param credentialsObject The credentials.
+     * @throws NullPointerException if any of the parameters is {@code null}.
+     */
+    synchronized void add(final String authId, final JsonObject credentialsObject) {
+        Objects.requireNonNull(authId);
+        Objects.requireNonNull(credentialsObject);
+        final JsonArray authIdCredentials = credentials.computeIfAbsent(authId, id -> new JsonArray());
+        authIdCredentials.add(credentialsObject);
+        index(authId, authIdCredentials);
+    }
+
+    /**
+     * Replaces the credentials of an authentication identifier.
+     * <p>
+     * The given array is stored as is and must not be modified afterwards.
+     *
+     * @param authId The authentication identifier.
+     * @param authIdCredentials The credentials or {@code null} or an empty array
+     *                          if all credentials of the authentication identifier
+     *                          should be removed.
+     * @throws NullPointerException if authentication identifier is {@code null}.
+     */
+    synchronized void put(final String authId, final JsonArray authIdCredentials) {
+        Objects.requireNonNull(authId);
+        unindex(authId);
+        if (authIdCredentials == null || authIdCredentials.isEmpty()) {
+            credentials.remove(authId);
+        } else {
+            credentials.put(authId, authIdCredentials);
+            index(authId, authIdCredentials);
+        }
+    }
+
+    /**
+     * Passes all credentials of this tenant to a consumer.
+     *
+     * @param consumer The consumer.
+     */
+    synchronized void forEach(final Consumer<JsonObject> consumer) {
+        credentials.values().forEach(authIdCredentials -> authIdCredentials.forEach(obj -> {
+            if (obj instanceof JsonObject) {
+                consumer.accept((JsonObject) obj);
+            }
+        }));
+    }
+
+    private void unindex(final String authId) {
+        final JsonArray existing = credentials.get(authId);
+        if (existing == null) {
+            return;
+        }
+        recordsByAuthId.remove(authId);
+        for (final Object obj : existing) {
+            if (obj instanceof JsonObject) {
+                final Object deviceId = ((JsonObject) obj).getValue(CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID);
+                final Set<String> authIds = authIdsByDevice.get(deviceId);
+                if (authIds != null) {
+                    authIds.remove(authId);
+                    if (authIds.isEmpty()) {
+                        authIdsByDevice.remove(deviceId);
+                    }
+                }
+            }
+        }
+    }
+
+    private void index(final String authId, final JsonArray authIdCredentials) {
+        final Map<String, List<CredentialsRecord>> recordsByType = new HashMap<>();
+        for (final Object obj : authIdCredentials) {
+            if (obj instanceof JsonObject) {
+                final CredentialsRecord record = new CredentialsRecord((JsonObject) obj);
+                if (record.type != null) {
+                    recordsByType.computeIfAbsent(record.type, t -> new ArrayList<>(1)).add(record);
+                }
+                if (record.deviceId != null) {
+                    authIdsByDevice.computeIfAbsent(record.deviceId, id -> new HashSet<>()).add(authId);
+                }
+            }
+        }
+        recordsByAuthId.put(authId, recordsByType);
+    }
+
+    /**
+     * A pre-parsed view on a credentials object.
+     */
+    static final class CredentialsRecord {
+
+        private final String type;
+        private final String deviceId;
+        private final boolean enabled;
+        private final JsonObject extensions;
+        private final JsonObject payload;
+
+        private CredentialsRecord(final JsonObject credentialsObject) {
+            this.type = getString(credentialsObject, CredentialsConstants.FIELD_TYPE);
+            this.deviceId = getString(credentialsObject, CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID);
+            this.enabled = !Boolean.FALSE.equals(credentialsObject.getValue(CredentialsConstants.FIELD_ENABLED));
+            final Object ext = credentialsObject.getValue(RegistryManagementConstants.FIELD_EXT);
+            this.extensions = ext instanceof JsonObject ? ((JsonObject) ext).copy() : new JsonObject();
+            this.payload = createPayload(credentialsObject);
+        }
+
+        private static String getString(final JsonObject obj, final String field) {
+            final Object value = obj.getValue(field);
+            return value instanceof String ? (String) value : null;
+        }
+
+        private static JsonObject createPayload(final JsonObject credentialsObject) {
+
+            final JsonObject result = credentialsObject.copy();
+            final Object secrets = result.getValue(CredentialsConstants.FIELD_SECRETS);
+            if (!(secrets instanceof JsonArray)) {
+                return null;
+            }
+            for (final Iterator<Object> i = ((JsonArray) secrets).iterator(); i.hasNext();) {
+                final Object o = i.next();
+                if (!(o instanceof JsonObject)
+                        || Boolean.FALSE.equals(((JsonObject) o).getValue(CredentialsConstants.FIELD_ENABLED))) {
+                    i.remove();
+                }
+            }
+            return ((JsonArray) secrets).isEmpty() ? null : result;
+        }
+
+        /**
+         * Checks if the credentials are enabled.
+         *
+         * @return {@code true} if the credentials are enabled.
+         */
+        boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Gets the extension properties of the credentials.
+         *
+         * @return The properties (never {@code null}). The returned object must not be modified.
+         */
+        JsonObject getExtensions() {
+            return extensions;
+        }
+
+        /**
+         * Gets the credentials as returned by the Credentials API.
+         * <p>
+         * The returned object contains the enabled secrets of the credentials only.
+         *
+         * @return The credentials or {@code null} if the credentials have no enabled secrets.
+         *         The returned object must not be modified.
+         */
+        JsonObject getPayload() {
+            return payload;
+        }
+    }
+}
@@ -13,10 +13,23 @@
 
 package org.eclipse.hono.deviceregistry;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.google.common.io.Resources;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 
 /**
  * Utility methods for testing functionality around credentials and tenant management.
@@ -41,4 +54,39 @@ public final class DeviceRegistryTestUtils {
         return Buffer.buffer(buffer);
 
     }
+
+    /**
+     * Creates a handler for the content of a file which passes a mock {@link AsyncFile}
+     * to another handler. The mock file emits the content to the handler registered
+     * using {@link AsyncFile#handler(Handler)}.
+     * <p>
+     * This method can be used for mocking {@link FileSystem#open(String, OpenOptions, Handler)}.
+     *
+     * @param fileHandler The handler to pass the mock file to.
+     * @return The handler for the content of the file or the failure to read it.
+     */
+    @SuppressWarnings("unchecked")
+    public static Handler<AsyncResult<Buffer>> fileContentHandler(final Handler<AsyncResult<AsyncFile>> fileHandler) {
+
+        return content -> {
+            if (content.failed()) {
+                fileHandler.handle(Future.failedFuture(content.cause()));
+                return;
+            }
+            final AsyncFile file = mock(AsyncFile.class);
+            final AtomicReference<Handler<Void>> endHandler = new AtomicReference<>();
+            doReturn(file).when(file).exceptionHandler(any(Handler.class));
+            doAnswer(invocation -> {
+                endHandler.set(invocation.getArgument(0));
+                return file;
+            }).when(file).endHandler(any(Handler.class));
+            doAnswer(invocation -> {
+                final Handler<Buffer> dataHandler = invocation.getArgument(0);
+                dataHandler.handle(content.result());
+                endHandler.get().handle(null);
+                return file;
+            }).when(file).handler(any(Handler.class));
+            fileHandler.handle(Future.succeededFuture(file));
+        };
+    }
 }
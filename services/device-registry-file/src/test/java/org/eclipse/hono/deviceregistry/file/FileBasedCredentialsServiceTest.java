@@ -67,6 +67,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
@@ -197,20 +198,20 @@ public class FileBasedCredentialsServiceTest extends AbstractCredentialsServiceT
             return null;
         }).when(fileSystem).createFile(eq(credentialsConfig.getFilename()), any(Handler.class));
         doAnswer(invocation -> {
-            final Handler handler = invocation.getArgument(1);
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed file"));
             return null;
-        }).when(fileSystem).readFile(eq(credentialsConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(credentialsConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
         doAnswer(invocation -> {
             final Handler handler = invocation.getArgument(1);
             handler.handle(Future.succeededFuture());
             return null;
         }).when(fileSystem).createFile(eq(registrationConfig.getFilename()), any(Handler.class));
         doAnswer(invocation -> {
-            final Handler handler = invocation.getArgument(1);
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed file"));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<?> startupTracker = Promise.promise();
@@ -267,18 +268,18 @@ public class FileBasedCredentialsServiceTest extends AbstractCredentialsServiceT
         credentialsConfig.setFilename(CREDENTIALS_FILE_NAME);
         when(fileSystem.existsBlocking(credentialsConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(Buffer.buffer("NO JSON")));
             return null;
-        }).when(fileSystem).readFile(eq(credentialsConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(credentialsConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         registrationConfig.setFilename(REGISTRATION_FILE_NAME);
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(Buffer.buffer("NO JSON")));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<Void> startupTracker = Promise.promise();
@@ -302,19 +303,19 @@ public class FileBasedCredentialsServiceTest extends AbstractCredentialsServiceT
         when(fileSystem.existsBlocking(credentialsConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
             final Buffer data = DeviceRegistryTestUtils.readFile(credentialsConfig.getFilename());
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(data));
             return null;
-        }).when(fileSystem).readFile(eq(credentialsConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(credentialsConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         registrationConfig.setFilename(REGISTRATION_FILE_NAME);
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
             final Buffer data = DeviceRegistryTestUtils.readFile(registrationConfig.getFilename());
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(data));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN the service is started
         final Promise<Void> startTracker = Promise.promise();
@@ -361,7 +362,7 @@ public class FileBasedCredentialsServiceTest extends AbstractCredentialsServiceT
         final Promise<Void> startTracker = Promise.promise();
         startTracker.future().setHandler(ctx.succeeding(s -> ctx.verify(() -> {
             // THEN the credentials from the file are not loaded
-            verify(fileSystem, never()).readFile(anyString(), any(Handler.class));
+            verify(fileSystem, never()).open(anyString(), any(OpenOptions.class), any(Handler.class));
             ctx.completeNow();
         })));
         start(startTracker);
@@ -448,11 +449,11 @@ public class FileBasedCredentialsServiceTest extends AbstractCredentialsServiceT
                             // THEN the credentials can be loaded back in from the file
                             final Promise<Void> read = Promise.promise();
                             doAnswer(invocation -> {
-                                final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+                                final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
                                 handler.handle(Future.succeededFuture(b));
                                 read.complete();
                                 return null;
-                            }).when(fileSystem).readFile(eq(credentialsConfig.getFilename()), any(Handler.class));
+                            }).when(fileSystem).open(eq(credentialsConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
                             svc.loadFromFile();
 
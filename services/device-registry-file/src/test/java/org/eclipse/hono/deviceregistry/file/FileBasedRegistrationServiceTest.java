@@ -56,6 +56,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 
@@ -155,10 +156,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
             return null;
         }).when(fileSystem).createFile(eq(registrationConfig.getFilename()), any(Handler.class));
         doAnswer(invocation -> {
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed file"));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<Void> startupTracker = Promise.promise();
@@ -214,10 +215,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
         // that contains malformed JSON
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(Buffer.buffer("NO JSON")));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<Void> startupTracker = Promise.promise();
@@ -242,10 +243,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
             final Buffer data = DeviceRegistryTestUtils.readFile(FILE_NAME);
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(data));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN the service is started
         final Promise<Void> startFuture = Promise.promise();
@@ -347,10 +348,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
 
                     // THEN the devices can be loaded back in from the file
                     doAnswer(invocation -> {
-                        final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+                        final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
                         handler.handle(Future.succeededFuture(b));
                         return null;
-                    }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+                    }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
                     return registrationService.loadRegistrationData();
 
@@ -384,7 +385,7 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
         final Promise<Void> startFuture = Promise.promise();
         startFuture.future().setHandler(ctx.succeeding(s -> ctx.verify(() -> {
             // THEN the device identities from the file are not loaded
-            verify(fileSystem, never()).readFile(anyString(), any(Handler.class));
+            verify(fileSystem, never()).open(anyString(), any(OpenOptions.class), any(Handler.class));
             ctx.completeNow();
         })));
         registrationService.start(startFuture.future());
@@ -471,10 +472,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
         registrationConfig.setSaveToFile(false);
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Handler handler = invocation.getArgument(1);
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed file"));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         final Promise<Void> startupTracker = Promise.promise();
         startupTracker.future().setHandler(ctx.succeeding(done -> ctx.verify(() -> {
@@ -498,10 +499,10 @@ public class FileBasedRegistrationServiceTest extends AbstractRegistrationServic
         registrationConfig.setSaveToFile(false);
         when(fileSystem.existsBlocking(registrationConfig.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed data"));
             return null;
-        }).when(fileSystem).readFile(eq(registrationConfig.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(registrationConfig.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         final Promise<Void> startupTracker = Promise.promise();
         startupTracker.future()
@@ -24,7 +24,6 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.HttpURLConnection;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -32,6 +31,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+import javax.security.auth.x500.X500Principal;
+
 import org.eclipse.hono.deviceregistry.DeviceRegistryTestUtils;
 import org.eclipse.hono.service.management.tenant.Tenant;
 import org.eclipse.hono.service.management.tenant.TenantManagementService;
@@ -41,6 +42,7 @@ import org.eclipse.hono.service.tenant.TenantService;
 import org.eclipse.hono.util.Constants;
 import org.eclipse.hono.util.RegistryManagementConstants;
 import org.eclipse.hono.util.TenantConstants;
+import org.eclipse.hono.util.TenantResult;
 import org.eclipse.hono.util.TenantTracingConfig;
 import org.eclipse.hono.util.TracingSamplingMode;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,6 +60,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.Timeout;
@@ -129,10 +132,10 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
             return null;
         }).when(fileSystem).createFile(eq(props.getFilename()), any(Handler.class));
         doAnswer(invocation -> {
-            final Handler handler = invocation.getArgument(1);
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.failedFuture("malformed file"));
             return null;
-        }).when(fileSystem).readFile(eq(props.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(props.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<Void> startupTracker = Promise.promise();
@@ -178,7 +181,7 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
      *
      * @param ctx The vert.x context.
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @SuppressWarnings("unchecked")
     @Test
     public void testDoStartIgnoresMalformedJson(final VertxTestContext ctx) {
 
@@ -187,12 +190,10 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
         props.setFilename(FILE_NAME);
         when(fileSystem.existsBlocking(FILE_NAME)).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
-            final Buffer data = mock(Buffer.class);
-            when(data.getBytes()).thenReturn("NO JSON".getBytes(StandardCharsets.UTF_8));
-            final Handler handler = invocation.getArgument(1);
-            handler.handle(Future.succeededFuture(data));
+            final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
+            handler.handle(Future.succeededFuture(Buffer.buffer("NO JSON")));
             return null;
-        }).when(fileSystem).readFile(eq(props.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(props.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN starting the service
         final Promise<Void> startupTracker = Promise.promise();
@@ -216,10 +217,10 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
         when(fileSystem.existsBlocking(props.getFilename())).thenReturn(Boolean.TRUE);
         doAnswer(invocation -> {
             final Buffer data = DeviceRegistryTestUtils.readFile(FILE_NAME);
-            final Handler handler = invocation.getArgument(1);
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
             handler.handle(Future.succeededFuture(data));
             return null;
-        }).when(fileSystem).readFile(eq(props.getFilename()), any(Handler.class));
+        }).when(fileSystem).open(eq(props.getFilename()), any(OpenOptions.class), any(Handler.class));
 
         // WHEN the service is started
         final Promise<Void> startFuture = Promise.promise();
@@ -243,6 +244,66 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
         svc.start(startFuture);
     }
 
+    /**
+     * Verifies that a tenant read from file is not loaded if its trusted CA is already
+     * used by another tenant and that the CA remains assigned to the other tenant.
+     *
+     * @param ctx The test context.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testDoStartRejectsTenantWithDuplicateTrustedCa(final VertxTestContext ctx) {
+
+        // GIVEN a file containing two tenants that trust the same CA
+        final JsonObject trustedCa = new JsonObject()
+                .put(TenantConstants.FIELD_PAYLOAD_SUBJECT_DN, "CN=test")
+                .put(TenantConstants.FIELD_PAYLOAD_PUBLIC_KEY, "bm90IGEgcHViaWMga2V5");
+        final JsonArray tenantsData = new JsonArray()
+                .add(new JsonObject()
+                        .put(TenantConstants.FIELD_PAYLOAD_TENANT_ID, "tenant-one")
+                        .put(TenantConstants.FIELD_PAYLOAD_TRUSTED_CA, trustedCa.copy()))
+                .add(new JsonObject()
+                        .put(TenantConstants.FIELD_PAYLOAD_TENANT_ID, "tenant-two")
+                        .put(TenantConstants.FIELD_PAYLOAD_TRUSTED_CA, trustedCa.copy()));
+        props.setFilename(FILE_NAME);
+        when(fileSystem.existsBlocking(props.getFilename())).thenReturn(Boolean.TRUE);
+        doAnswer(invocation -> {
+            final Handler handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
+            handler.handle(Future.succeededFuture(tenantsData.toBuffer()));
+            return null;
+        }).when(fileSystem).open(eq(props.getFilename()), any(OpenOptions.class), any(Handler.class));
+
+        // WHEN the service is started
+        final Promise<Void> startFuture = Promise.promise();
+        startFuture.future()
+        // THEN only the first tenant is loaded
+        .compose(ok -> assertTenantExists(svc, "tenant-one"))
+        .compose(ok -> assertTenantDoesNotExist(svc, "tenant-two"))
+        .compose(ok -> {
+            // and the CA is assigned to the first tenant
+            final Promise<TenantResult<JsonObject>> result = Promise.promise();
+            svc.get(new X500Principal("CN=test"), NoopSpan.INSTANCE, result);
+            return result.future();
+        })
+        .compose(result -> {
+            ctx.verify(() -> {
+                assertThat(result.getStatus()).isEqualTo(HttpURLConnection.HTTP_OK);
+                assertThat(result.getPayload().getString(TenantConstants.FIELD_PAYLOAD_TENANT_ID)).isEqualTo("tenant-one");
+            });
+            // and is no longer found once the first tenant has been removed
+            svc.removeTenant("tenant-one", Optional.empty(), NoopSpan.INSTANCE);
+            final Promise<TenantResult<JsonObject>> afterRemoval = Promise.promise();
+            svc.get(new X500Principal("CN=test"), NoopSpan.INSTANCE, afterRemoval);
+            return afterRemoval.future();
+        })
+        .setHandler(ctx.succeeding(result -> ctx.verify(() -> {
+            assertThat(result.getStatus()).isEqualTo(HttpURLConnection.HTTP_NOT_FOUND);
+            ctx.completeNow();
+        })));
+
+        svc.start(startFuture);
+    }
+
     /**
      * Verifies that tenants are successfully loaded from file during startup.
      *
@@ -261,7 +322,7 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
         final Promise<Void> startFuture = Promise.promise();
         startFuture.future().setHandler(ctx.succeeding(s -> ctx.verify(() -> {
             // THEN the credentials from the file are loaded
-            verify(fileSystem, never()).readFile(anyString(), any(Handler.class));
+            verify(fileSystem, never()).open(anyString(), any(OpenOptions.class), any(Handler.class));
             ctx.completeNow();
         })));
         svc.start(startFuture);
@@ -306,10 +367,10 @@ public class FileBasedTenantServiceTest extends AbstractTenantServiceTest {
         .compose(ok -> {
             // THEN the tenants can be loaded back in from the file
             doAnswer(invocation -> {
-                final Handler<AsyncResult<Buffer>> handler = invocation.getArgument(1);
+                final Handler<AsyncResult<Buffer>> handler = DeviceRegistryTestUtils.fileContentHandler(invocation.getArgument(2));
                 handler.handle(Future.succeededFuture(buffer.getValue()));
                 return null;
-            }).when(fileSystem).readFile(eq(FILE_NAME), any(Handler.class));
+            }).when(fileSystem).open(eq(FILE_NAME), any(OpenOptions.class), any(Handler.class));
             return svc.loadTenantData();
         })
         // and the loaded tenants can be retrieved from the service 
@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceregistry.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+
+/**
+ * Tests verifying behavior of {@link RegistryJournal}.
+ *
+ */
+@ExtendWith(VertxExtension.class)
+public class RegistryJournalTest {
+
+    private FileBasedRegistrationConfigProperties config;
+
+    /**
+     * Sets up the fixture.
+     *
+     * @param tmpDir The directory to write the files to.
+     */
+    @BeforeEach
+    public void setUp(@TempDir final Path tmpDir) {
+        config = new FileBasedRegistrationConfigProperties();
+        config.setFilename(tmpDir.resolve("registry.json").toString());
+        config.setMaxJournalEntries(3);
+    }
+
+    /**
+     * Verifies that changes which have been appended to the journal are
+     * replayed on top of the snapshot when the registry is loaded.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testLoadReplaysJournal(final Vertx vertx, final VertxTestContext ctx) {
+
+        final MapStore store = new MapStore();
+        final RegistryJournal journal = newJournal(store);
+        final MapStore restoredStore = new MapStore();
+
+        // GIVEN a snapshot containing two entries
+        store.putEntry("tenant", "one", new JsonObject().put("value", 1));
+        store.putEntry("tenant", "two", new JsonObject().put("value", 2));
+        journal.recordChange("tenant", "one");
+        journal.recordChange("tenant", "two");
+        journal.flush(vertx, config)
+        .compose(ok -> {
+            assertThat(vertx.fileSystem().existsBlocking(config.getFilename() + RegistryJournal.FILE_SUFFIX)).isFalse();
+            // and a journal containing changes made afterwards
+            store.putEntry("tenant", "one", new JsonObject().put("value", 11));
+            store.removeEntry("tenant", "two");
+            journal.recordChange("tenant", "one");
+            journal.recordChange("tenant", "two");
+            return journal.flush(vertx, config);
+        })
+        .compose(ok -> {
+            assertThat(vertx.fileSystem().existsBlocking(config.getFilename() + RegistryJournal.FILE_SUFFIX)).isTrue();
+            store.putEntry("other-tenant", "three", new JsonObject().put("value", 3));
+            journal.recordChange("other-tenant", "three");
+            return journal.flush(vertx, config);
+        })
+        // WHEN loading the registry
+        .compose(ok -> newJournal(restoredStore).load(vertx, config))
+        .setHandler(ctx.succeeding(ok -> ctx.verify(() -> {
+            // THEN the registry contains the changes from the journal
+            assertThat(restoredStore.entries).isEqualTo(store.entries);
+            ctx.completeNow();
+        })));
+    }
+
+    /**
+     * Verifies that a new snapshot is written once the maximum number of
+     * journal entries has been reached and that the existing journal is not
+     * replayed on top of the new snapshot.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testFlushWritesSnapshotWhenJournalIsFull(final Vertx vertx, final VertxTestContext ctx) {
+
+        final MapStore store = new MapStore();
+        final RegistryJournal journal = newJournal(store);
+        final MapStore restoredStore = new MapStore();
+
+        store.putEntry("tenant", "one", new JsonObject().put("value", 1));
+        journal.recordChange("tenant", "one");
+        journal.flush(vertx, config)
+        .compose(ok -> {
+            // GIVEN a journal containing changes
+            store.putEntry("tenant", "two", new JsonObject().put("value", 2));
+            journal.recordChange("tenant", "two");
+            return journal.flush(vertx, config);
+        })
+        .compose(ok -> {
+            // WHEN the journal would exceed its maximum size
+            store.removeEntry("tenant", "two");
+            store.putEntry("tenant", "three", new JsonObject().put("value", 3));
+            store.putEntry("tenant", "four", new JsonObject().put("value", 4));
+            journal.recordChange("tenant", "two");
+            journal.recordChange("tenant", "three");
+            journal.recordChange("tenant", "four");
+            return journal.flush(vertx, config);
+        })
+        .setHandler(ctx.succeeding(ok -> {
+            // THEN a new snapshot has been written
+            final JsonArray snapshot = vertx.fileSystem().readFileBlocking(config.getFilename()).toJsonArray();
+            ctx.verify(() -> assertThat(snapshot.getJsonObject(0).getJsonArray("records").size()).isEqualTo(3));
+            // and the outdated journal is ignored when loading the registry
+            newJournal(restoredStore).load(vertx, config)
+            .setHandler(ctx.succeeding(loaded -> ctx.verify(() -> {
+                assertThat(restoredStore.entries).isEqualTo(store.entries);
+                ctx.completeNow();
+            })));
+        }));
+    }
+
+    /**
+     * Verifies that clearing the registry results in a new snapshot being written.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testFlushWritesSnapshotAfterClear(final Vertx vertx, final VertxTestContext ctx) {
+
+        final MapStore store = new MapStore();
+        final RegistryJournal journal = newJournal(store);
+
+        store.putEntry("tenant", "one", new JsonObject().put("value", 1));
+        journal.recordChange("tenant", "one");
+        journal.flush(vertx, config)
+        .compose(ok -> {
+            store.entries.clear();
+            journal.recordClear();
+            assertThat(journal.hasPendingChanges()).isTrue();
+            return journal.flush(vertx, config);
+        })
+        .setHandler(ctx.succeeding(ok -> ctx.verify(() -> {
+            assertThat(journal.hasPendingChanges()).isFalse();
+            assertThat(vertx.fileSystem().readFileBlocking(config.getFilename()).toJsonArray()).isEmpty();
+            ctx.completeNow();
+        })));
+    }
+
+    /**
+     * Verifies that records are loaded from a snapshot file which contains the records
+     * of a tenant before the tenant identifier and that elements without tenant are skipped.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testLoadReadsRecordsBeforeTenant(final Vertx vertx, final VertxTestContext ctx) {
+
+        final JsonArray snapshot = new JsonArray()
+                .add(new JsonObject()
+                        .put("records", new JsonArray()
+                                .add(new JsonObject().put("key", "one").put("value", new JsonObject().put("nested", new JsonArray().add(1))))
+                                .add(new JsonObject().put("key", "two").put("value", 2)))
+                        .put("ext", new JsonObject().put("records", new JsonArray().add(new JsonObject().put("key", "three"))))
+                        .put("tenant", "tenant"))
+                .add(new JsonObject()
+                        .put("records", new JsonArray().add(new JsonObject().put("key", "four").put("value", 4))));
+        vertx.fileSystem().writeFileBlocking(config.getFilename(), snapshot.toBuffer());
+
+        final MapStore store = new MapStore();
+        newJournal(store).load(vertx, config)
+        .setHandler(ctx.succeeding(ok -> ctx.verify(() -> {
+            assertThat(store.entries).containsOnlyKeys("tenant");
+            assertThat(store.entries.get("tenant")).isEqualTo(new JsonObject()
+                    .put("one", new JsonObject().put("nested", new JsonArray().add(1)))
+                    .put("two", 2));
+            ctx.completeNow();
+        })));
+    }
+
+    /**
+     * Verifies that loading fails for a snapshot file that does not contain well formed JSON.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testLoadFailsForMalformedSnapshot(final Vertx vertx, final VertxTestContext ctx) {
+
+        vertx.fileSystem().writeFileBlocking(config.getFilename(), Buffer.buffer("[{\"tenant\": \"tenant\", \"records\": [{"));
+
+        newJournal(new MapStore()).load(vertx, config)
+        .setHandler(ctx.failing(t -> ctx.completeNow()));
+    }
+
+    /**
+     * Verifies that a snapshot which is written in multiple chunks can be loaded
+     * and that no temporary file is left behind.
+     *
+     * @param vertx The vert.x instance.
+     * @param ctx The vert.x test context.
+     */
+    @Test
+    public void testFlushWritesLargeSnapshot(final Vertx vertx, final VertxTestContext ctx) {
+
+        final MapStore store = new MapStore();
+        final RegistryJournal journal = newJournal(store);
+        final MapStore restoredStore = new MapStore();
+
+        // GIVEN a registry whose snapshot exceeds the size of a single chunk
+        final String padding = "x".repeat(100);
+        for (int i = 0; i < 2_000; i++) {
+            store.putEntry("tenant-" + i, "device", new JsonObject().put("value", i).put("padding", padding));
+        }
+        journal.recordClear();
+
+        // WHEN writing the snapshot
+        journal.flush(vertx, config)
+        .compose(ok -> newJournal(restoredStore).load(vertx, config))
+        .setHandler(ctx.succeeding(ok -> ctx.verify(() -> {
+            // THEN the snapshot contains all entries
+            assertThat(restoredStore.entries).isEqualTo(store.entries);
+            // and the snapshot file is the only file that has been written
+            assertThat(vertx.fileSystem().readDirBlocking(Path.of(config.getFilename()).getParent().toString()))
+                .containsExactly(config.getFilename());
+            ctx.completeNow();
+        })));
+    }
+
+    /**
+     * Verifies that elements are only retrieved from the store while the snapshot file's
+     * write queue is not full and that writing is resumed once the queue has been drained.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFlushPausesWritingSnapshotWhileWriteQueueIsFull() {
+
+        // GIVEN a registry whose snapshot is much larger than the snapshot file's write queue
+        final MapStore store = new MapStore();
+        final String padding = "x".repeat(1_000);
+        for (int i = 0; i < 2_000; i++) {
+            store.putEntry(String.format("tenant-%04d", i), "device", new JsonObject().put("value", i).put("padding", padding));
+        }
+        final RegistryJournal journal = newJournal(store);
+        journal.recordClear();
+
+        // and a snapshot file whose write queue is only drained on demand
+        final List<Buffer> queue = new ArrayList<>();
+        final AtomicReference<Handler<Void>> drainHandler = new AtomicReference<>();
+        final AsyncFile file = mock(AsyncFile.class);
+        when(file.writeQueueFull()).thenAnswer(invocation -> length(queue) >= RegistryJournal.SNAPSHOT_WRITE_QUEUE_MAX_SIZE);
+        when(file.write(any(Buffer.class))).thenAnswer(invocation -> {
+            queue.add(invocation.getArgument(0));
+            return file;
+        });
+        when(file.drainHandler(any(Handler.class))).thenAnswer(invocation -> {
+            drainHandler.set(invocation.getArgument(0));
+            return file;
+        });
+        doAnswer(invocation -> {
+            final Handler<AsyncResult<Void>> closeHandler = invocation.getArgument(0);
+            closeHandler.handle(Future.succeededFuture());
+            return null;
+        }).when(file).close(any(Handler.class));
+        final FileSystem fileSystem = mock(FileSystem.class);
+        doAnswer(invocation -> {
+            final Handler<AsyncResult<AsyncFile>> openHandler = invocation.getArgument(2);
+            openHandler.handle(Future.succeededFuture(file));
+            return fileSystem;
+        }).when(fileSystem).open(anyString(), any(OpenOptions.class), any(Handler.class));
+        doAnswer(invocation -> {
+            final Handler<AsyncResult<Void>> moveHandler = invocation.getArgument(3);
+            moveHandler.handle(Future.succeededFuture());
+            return fileSystem;
+        }).when(fileSystem).move(anyString(), anyString(), any(CopyOptions.class), any(Handler.class));
+        final Vertx vertx = mock(Vertx.class);
+        when(vertx.fileSystem()).thenReturn(fileSystem);
+
+        // WHEN writing the snapshot
+        final Future<Void> flush = journal.flush(vertx, config);
+
+        // THEN writing is paused whenever the write queue is full
+        final Buffer snapshot = Buffer.buffer();
+        int maxQueueLength = 0;
+        int pauses = 0;
+        while (!flush.isComplete()) {
+            assertThat(drainHandler.get()).isNotNull();
+            maxQueueLength = Math.max(maxQueueLength, length(queue));
+            queue.forEach(snapshot::appendBuffer);
+            queue.clear();
+            pauses++;
+            drainHandler.getAndSet(null).handle(null);
+        }
+        maxQueueLength = Math.max(maxQueueLength, length(queue));
+        queue.forEach(snapshot::appendBuffer);
+
+        assertThat(flush.succeeded()).isTrue();
+        assertThat(pauses).isGreaterThanOrEqualTo(snapshot.length() / RegistryJournal.SNAPSHOT_WRITE_QUEUE_MAX_SIZE);
+        // and the write queue never exceeds its max size by more than a single chunk
+        assertThat(maxQueueLength).isLessThan(RegistryJournal.SNAPSHOT_WRITE_QUEUE_MAX_SIZE + 2 * RegistryJournal.SNAPSHOT_CHUNK_SIZE);
+        // and the snapshot contains all elements
+        assertThat(snapshot.toJsonArray()).hasSize(2_000);
+    }
+
+    private static int length(final List<Buffer> buffers) {
+        return buffers.stream().mapToInt(Buffer::length).sum();
+    }
+
+    private static RegistryJournal newJournal(final MapStore store) {
+        return new RegistryJournal(store, "tenant", "records");
+    }
+
+    /**
+     * A store that keeps the entries of all tenants in a single map.
+     */
+    private static class MapStore implements RegistryJournal.Store {
+
+        // <tenantId, entries>
+        private final Map<String, JsonObject> entries = new TreeMap<>();
+
+        @Override
+        public void loadRecord(final String tenantId, final JsonObject record) {
+            putEntry(tenantId, record.getString("key"), record.getValue("value"));
+        }
+
+        @Override
+        public Object getEntry(final String tenantId, final String key) {
+            final JsonObject tenant = entries.get(tenantId);
+            return tenant == null ? null : tenant.getValue(key);
+        }
+
+        @Override
+        public void putEntry(final String tenantId, final String key, final Object value) {
+            entries.computeIfAbsent(tenantId, id -> new JsonObject()).put(key, value);
+        }
+
+        @Override
+        public void removeEntry(final String tenantId, final String key) {
+            final JsonObject tenant = entries.get(tenantId);
+            if (tenant != null) {
+                tenant.remove(key);
+            }
+        }
+
+        @Override
+        public Iterator<JsonObject> snapshotElements() {
+            return entries.entrySet().stream()
+                    .map(tenant -> {
+                        final JsonArray records = new JsonArray();
+                        tenant.getValue().forEach(entry -> records.add(new JsonObject().put("key", entry.getKey()).put("value", entry.getValue())));
+                        return new JsonObject().put("tenant", tenant.getKey()).put("records", records);
+                    })
+                    .iterator();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+
+package org.eclipse.hono.deviceregistry.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.eclipse.hono.util.CredentialsConstants;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Tests verifying behavior of {@link TenantCredentials}.
+ *
+ */
+public class TenantCredentialsTest {
+
+    private static JsonObject newCredentials(final String deviceId, final String type, final String authId,
+            final JsonObject... secrets) {
+
+        final JsonArray secretsArray = new JsonArray();
+        for (final JsonObject secret : secrets) {
+            secretsArray.add(secret);
+        }
+        return new JsonObject()
+                .put(CredentialsConstants.FIELD_PAYLOAD_DEVICE_ID, deviceId)
+                .put(CredentialsConstants.FIELD_TYPE, type)
+                .put(CredentialsConstants.FIELD_AUTH_ID, authId)
+                .put(CredentialsConstants.FIELD_SECRETS, secretsArray);
+    }
+
+    /**
+     * Verifies that the indexes reflect credentials being added, replaced and removed.
+     */
+    @Test
+    public void testIndexesReflectChanges() {
+
+        final TenantCredentials credentials = new TenantCredentials();
+        credentials.add("sensor", newCredentials("device-1", "psk", "sensor", new JsonObject().put("key", "a")));
+        credentials.add("sensor", newCredentials("device-1", "hashed-password", "sensor", new JsonObject()));
+        credentials.add("other", newCredentials("device-2", "psk", "other", new JsonObject()));
+
+        assertThat(credentials.getRecords("psk", "sensor")).hasSize(1);
+        assertThat(credentials.getRecords("x509-cert", "sensor")).isEmpty();
+        assertThat(credentials.getAuthIds("device-1")).containsOnly("sensor");
+        assertThat(credentials.getCopiesForDevice("device-1")).hasSize(2);
+
+        // WHEN the credentials of an auth-id are assigned to another device
+        credentials.put("sensor", new JsonArray().add(newCredentials("device-2", "psk", "sensor", new JsonObject())));
+
+        // THEN the indexes have been updated
+        assertThat(credentials.getRecords("hashed-password", "sensor")).isEmpty();
+        assertThat(credentials.getAuthIds("device-1")).isEmpty();
+        assertThat(credentials.getAuthIds("device-2")).containsOnly("sensor", "other");
+
+        // and removing the credentials of an auth-id removes it from the indexes
+        credentials.put("other", null);
+        assertThat(credentials.containsAuthId("other")).isFalse();
+        assertThat(credentials.getRecords("psk", "other")).isEmpty();
+        assertThat(credentials.getAuthIds("device-2")).containsOnly("sensor");
+    }
+
+    /**
+     * Verifies that the payload of a record contains the enabled secrets only.
+     */
+    @Test
+    public void testRecordPayloadContainsEnabledSecretsOnly() {
+
+        final TenantCredentials credentials = new TenantCredentials();
+        credentials.add("sensor", newCredentials("device-1", "psk", "sensor",
+                new JsonObject().put("key", "a").put(CredentialsConstants.FIELD_ENABLED, false),
+                new JsonObject().put("key", "b")));
+        credentials.add("gateway", newCredentials("device-2", "psk", "gateway",
+                new JsonObject().put("key", "c").put(CredentialsConstants.FIELD_ENABLED, false)));
+
+        final TenantCredentials.CredentialsRecord record = credentials.getRecords("psk", "sensor").get(0);
+        assertThat(record.isEnabled()).isTrue();
+        assertThat(record.getPayload().getJsonArray(CredentialsConstants.FIELD_SECRETS))
+            .containsExactly(new JsonObject().put("key", "b"));
+        assertThat(credentials.getRecords("psk", "gateway").get(0).getPayload()).isNull();
+    }
+}